@@ -0,0 +1,43 @@
+package ch.randelshofer.robinhood;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static ch.randelshofer.robinhood.MetadataTable.TAG_BITS;
+
+/**
+ * Compares 16 metadata bytes at once with the Vector API.
+ * <p>
+ * The distance code of a metadata byte saturates at
+ * {@link MetadataTable#SATURATED}, and therefore at
+ * most 14 lanes can be probed at once. Wider vectors would not
+ * probe more buckets.
+ * <p>
+ * This class must only be loaded, if the module {@code jdk.incubator.vector}
+ * is present, see {@link MetadataProbe#getInstance()}.
+ */
+class VectorMetadataProbe extends MetadataProbe {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+    /**
+     * Lane {@code i} holds the value {@code i + 1}.
+     */
+    private static final ByteVector LANE_INCREMENTS = ByteVector.zero(SPECIES).addIndex(1).add((byte) 1);
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public long probe(byte[] metadata, int index, int cost, int tag, int n) {
+        var word = ByteVector.fromArray(SPECIES, metadata, index);
+        var expectedCodes = LANE_INCREMENTS.add((byte) cost);
+        var actualCodes = word.lanewise(VectorOperators.LSHR, TAG_BITS);
+        var stops = actualCodes.compare(VectorOperators.LT, expectedCodes).toLong() | -1L << n;
+        var stop = Long.numberOfTrailingZeros(stops);
+        var expected = expectedCodes.lanewise(VectorOperators.LSHL, TAG_BITS).or((byte) tag);
+        var matches = word.compare(VectorOperators.EQ, expected).toLong() & ((1L << stop) - 1);
+        return (long) stop << 32 | matches;
+    }
+}
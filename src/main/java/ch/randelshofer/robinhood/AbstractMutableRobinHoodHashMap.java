@@ -9,6 +9,10 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+
+import static java.lang.Math.max;
 
 /**
  * Extends {@link AbstractRobinHoodHashMap} with the API from the {@link Map}
@@ -46,6 +50,16 @@ abstract class AbstractMutableRobinHoodHashMap<K, V> extends AbstractRobinHoodHa
         return new MutableKeySet();
     }
 
+    @Override
+    public float getShrinkFactor() {
+        return super.getShrinkFactor();
+    }
+
+    @Override
+    public void setShrinkFactor(float shrinkFactor) {
+        super.setShrinkFactor(shrinkFactor);
+    }
+
     @Override
     public V put(K key, V value) {
         return super.put(key, value);
@@ -63,11 +77,45 @@ abstract class AbstractMutableRobinHoodHashMap<K, V> extends AbstractRobinHoodHa
         return super.remove(key);
     }
 
+    /**
+     * Removes all entries for which {@code filter} returns true.
+     * <p>
+     * This method is used by {@code removeIf} of the key set, the values
+     * and the entry set. This implementation removes the entries with an
+     * iterator. Subclasses can override it with a sweep over the table.
+     *
+     * @param filter a filter
+     * @return whether an entry was removed
+     */
+    protected boolean removeEntriesIf(Predicate<? super Entry<K, V>> filter) {
+        Objects.requireNonNull(filter);
+        var removed = false;
+        for (var it = new MutableEntrySetIterator(); it.hasNext(); ) {
+            if (filter.test(it.next())) {
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
     @Override
     public Collection<V> values() {
         return new MutableValueCollection();
     }
 
+    public void sizeToFit(float fillRatio) {
+        if (size == 0) {
+            capacity = 0;
+            resize(0);
+        } else {
+            int newCapacity = roundCapacity(max((int) (size / fillRatio), size));
+            if (newCapacity != capacity) {
+                resize(newCapacity);
+            }
+        }
+    }
+
     private class MutableMapIterator extends ReadOnlyMapIterator {
 
         public void remove() {
@@ -79,7 +127,17 @@ abstract class AbstractMutableRobinHoodHashMap<K, V> extends AbstractRobinHoodHa
             }
             // We cannot shrink the table, because this would reorganize
             // the table.
-            AbstractMutableRobinHoodHashMap.this.remove(currentEntry.getKey());
+            shrinkSuspended = true;
+            try {
+                AbstractMutableRobinHoodHashMap.this.remove(currentEntry.getKey());
+            } finally {
+                shrinkSuspended = false;
+            }
+            // The bucket of the current entry may now hold a shifted entry.
+            var previous = index == 0 ? getBucketCount() - 1 : index - 1;
+            if (getKeyFromTable(previous) != null) {
+                index = previous;
+            }
             currentEntry = null;
             mod = modCount;
         }
@@ -125,6 +183,50 @@ abstract class AbstractMutableRobinHoodHashMap<K, V> extends AbstractRobinHoodHa
         }
     }
 
+    /**
+     * An entry that reads and writes the bucket at {@link #index}.
+     * <p>
+     * Bulk operations move a single instance of this entry over the
+     * table, instead of creating an entry for each bucket.
+     */
+    protected class BucketEntry implements Entry<K, V> {
+        protected int index;
+
+        @Override
+        public K getKey() {
+            return getKeyFromTable(index);
+        }
+
+        @Override
+        public V getValue() {
+            return getValueFromTable(index);
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = getValueFromTable(index);
+            setValueInTable(index, value);
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> e
+                    && Objects.equals(getKey(), e.getKey())
+                    && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
     final class MutableKeySet extends AbstractSet<K> {
         public void clear() {
             AbstractMutableRobinHoodHashMap.this.clear();
@@ -142,8 +244,20 @@ abstract class AbstractMutableRobinHoodHashMap<K, V> extends AbstractRobinHoodHa
             return AbstractMutableRobinHoodHashMap.this.remove(key) != null;
         }
 
+        @Override
+        public boolean removeIf(Predicate<? super K> filter) {
+            Objects.requireNonNull(filter);
+            return removeEntriesIf(e -> filter.test(e.getKey()));
+        }
+
         public int size() {
-            return size;
+            return AbstractMutableRobinHoodHashMap.this.size();
+        }
+
+        @Override
+        public Spliterator<K> spliterator() {
+            return new BucketSpliterator<>(AbstractMutableRobinHoodHashMap.this::getKeyFromTable,
+                    Spliterator.DISTINCT | Spliterator.NONNULL);
         }
     }
 
@@ -160,8 +274,19 @@ abstract class AbstractMutableRobinHoodHashMap<K, V> extends AbstractRobinHoodHa
             return new MutableValuesIterator();
         }
 
+        @Override
+        public boolean removeIf(Predicate<? super V> filter) {
+            Objects.requireNonNull(filter);
+            return removeEntriesIf(e -> filter.test(e.getValue()));
+        }
+
         public int size() {
-            return size;
+            return AbstractMutableRobinHoodHashMap.this.size();
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new BucketSpliterator<>(AbstractMutableRobinHoodHashMap.this::getValueFromTable, 0);
         }
     }
 
@@ -208,11 +333,22 @@ abstract class AbstractMutableRobinHoodHashMap<K, V> extends AbstractRobinHoodHa
             return removed;
         }
 
+        @Override
+        public boolean removeIf(Predicate<? super Entry<K, V>> filter) {
+            return removeEntriesIf(filter);
+        }
+
         @Override
         public int size() {
             return AbstractMutableRobinHoodHashMap.this.size();
         }
 
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return new BucketSpliterator<>(i -> new MutableEntry(getKeyFromTable(i), getValueFromTable(i)),
+                    Spliterator.DISTINCT | Spliterator.NONNULL);
+        }
+
     }
 
 }
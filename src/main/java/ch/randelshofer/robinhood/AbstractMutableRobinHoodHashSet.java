@@ -36,6 +36,16 @@ abstract class AbstractMutableRobinHoodHashSet<E> extends AbstractRobinHoodHashS
         }
     }
 
+    @Override
+    public float getShrinkFactor() {
+        return super.getShrinkFactor();
+    }
+
+    @Override
+    public void setShrinkFactor(float shrinkFactor) {
+        super.setShrinkFactor(shrinkFactor);
+    }
+
     @Override
     public boolean add(E e) {
         return super.add(e);
@@ -56,32 +66,42 @@ abstract class AbstractMutableRobinHoodHashSet<E> extends AbstractRobinHoodHashS
         return modified;
     }
 
+    /**
+     * Retains the elements that are contained in the specified collection.
+     * <p>
+     * This method uses {@link #removeIf}, which subclasses implement with
+     * a single sweep over the table. The table can not answer
+     * {@code contains} during the sweep, so this set is handled up front.
+     */
     public boolean retainAll(Collection<?> c) {
         Objects.requireNonNull(c);
-        var modified = false;
-        for (var it = iterator(); it.hasNext(); ) {
-            if (!c.contains(it.next())) {
-                it.remove();
-                modified = true;
-            }
+        if (c == this) {
+            return false;
         }
-        return modified;
+        return removeIf(e -> !c.contains(e));
     }
 
+    /**
+     * Removes the elements that are contained in the specified collection.
+     * <p>
+     * If the specified collection is smaller than this set, this method
+     * removes its elements one by one. Otherwise, it uses
+     * {@link #removeIf}.
+     */
     public boolean removeAll(Collection<?> c) {
         Objects.requireNonNull(c);
+        if (c == this) {
+            var modified = !isEmpty();
+            clear();
+            return modified;
+        }
         var modified = false;
         if (size() > c.size()) {
             for (Object e : c) {
                 modified |= remove(e);
             }
         } else {
-            for (var it = iterator(); it.hasNext(); ) {
-                if (c.contains(it.next())) {
-                    it.remove();
-                    modified = true;
-                }
-            }
+            modified = removeIf(c::contains);
         }
         return modified;
     }
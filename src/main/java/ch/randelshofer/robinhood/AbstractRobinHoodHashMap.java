@@ -4,6 +4,11 @@ import java.util.AbstractMap;
 import java.util.ConcurrentModificationException;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
 
 /**
  * Abstract base class for maps that use Robin Hood Hashing.
@@ -36,19 +41,20 @@ abstract class AbstractRobinHoodHashMap<K, V> extends AbstractRobinHoodHashing<K
     protected abstract void clearTable();
 
     public boolean containsKey(Object o) {
-        return find(o, hash(o, capacity)) >= 0;
+        return find(o) >= 0;
     }
 
     public boolean containsValue(Object value) {
+        var bucketCount = getBucketCount();
         if (value == null) {
-            for (int i = 0; i < capacity; i++) {
+            for (int i = 0; i < bucketCount; i++) {
                 K key = getKeyFromTable(i);
                 if (key != null && getValueFromTable(i) == null) {
                     return true;
                 }
             }
         } else {
-            for (int i = 0; i < capacity; i++) {
+            for (int i = 0; i < bucketCount; i++) {
                 V actual = getValueFromTable(i);
                 if (value.equals(actual)) {
                     return true;
@@ -92,9 +98,29 @@ abstract class AbstractRobinHoodHashMap<K, V> extends AbstractRobinHoodHashing<K
         return true;
     }
 
+    /**
+     * Performs the given action for each entry, like
+     * {@link java.util.concurrent.ConcurrentHashMap#forEach(long, BiConsumer)}.
+     * <p>
+     * The entries are processed in parallel if the map contains at least
+     * {@code parallelismThreshold} entries. The map must not be modified
+     * while this method runs.
+     *
+     * @param parallelismThreshold the number of entries needed for this
+     *                             operation to be executed in parallel
+     * @param action               the action
+     * @throws java.util.ConcurrentModificationException if the map has
+     *                                                   been modified
+     */
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        var mc = modCount;
+        bucketStream(parallelismThreshold).forEach(i -> action.accept(getKeyFromTable(i), getValueFromTable(i)));
+        checkModCount(mc);
+    }
+
     protected V get(Object o) {
-        var h = hash(o, capacity);
-        var result = find(o, h);
+        var result = find(o);
         if (result < 0) {
             return null;
         } else {
@@ -113,18 +139,9 @@ abstract class AbstractRobinHoodHashMap<K, V> extends AbstractRobinHoodHashing<K
     }
 
     protected V put(K key, V value) {
-        var result = capacity == 0 ? -1 : find(key, hash(key, capacity));
+        var result = find(key);
         if (result < 0) {
-            if (size >= threshold) {
-                grow();
-                result = find(key, hash(key, capacity));
-            }
-            var index = ~result;
-            shiftForInsertion(index);
-            setKeyInTable(index, key);
-            setValueTable(index, value);
-            size++;
-            modCount++;
+            insert(result, key, value);
             return null;
         } else {
             V oldValue = getValueFromTable(result);
@@ -133,21 +150,130 @@ abstract class AbstractRobinHoodHashMap<K, V> extends AbstractRobinHoodHashing<K
         }
     }
 
+    /**
+     * Inserts a new entry at the insertion point that was returned by
+     * {@link #find}. Grows the table if needed, see
+     * {@link #prepareInsertion}.
+     *
+     * @param result the negative result of {@code find(key)}
+     * @param key    the key
+     * @param value  the value
+     */
+    protected void insert(int result, K key, V value) {
+        result = prepareInsertion(key, result);
+        var index = ~result;
+        shiftForInsertion(index);
+        setKeyInTable(index, key);
+        setValueTable(index, value);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * entries using the given reducer, or null if none, like
+     * {@link java.util.concurrent.ConcurrentHashMap#reduce}.
+     *
+     * @param parallelismThreshold the number of entries needed for this
+     *                             operation to be executed in parallel
+     * @param transformer          returns the transformation of an entry,
+     *                             or null if there is no transformation
+     * @param reducer              a commutative associative combining function
+     * @param <U>                  the type of the transformation
+     * @return the result, or null if there are no transformations
+     */
+    public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        var mc = modCount;
+        U result = bucketStream(parallelismThreshold)
+                .<U>mapToObj(i -> transformer.apply(getKeyFromTable(i), getValueFromTable(i)))
+                .filter(Objects::nonNull)
+                .reduce(reducer::apply).orElse(null);
+        checkModCount(mc);
+        return result;
+    }
+
+    /**
+     * Returns the result of accumulating all keys using the given
+     * reducer, or null if none, like
+     * {@link java.util.concurrent.ConcurrentHashMap#reduceKeys(long, BiFunction)}.
+     *
+     * @param parallelismThreshold the number of entries needed for this
+     *                             operation to be executed in parallel
+     * @param reducer              a commutative associative combining function
+     * @return the result, or null if the map is empty
+     */
+    public K reduceKeys(long parallelismThreshold, BiFunction<? super K, ? super K, ? extends K> reducer) {
+        return reduce(parallelismThreshold, (k, v) -> k, reducer);
+    }
+
+    /**
+     * Returns the result of accumulating all values using the given
+     * reducer, or null if none, like
+     * {@link java.util.concurrent.ConcurrentHashMap#reduceValues(long, BiFunction)}.
+     *
+     * @param parallelismThreshold the number of entries needed for this
+     *                             operation to be executed in parallel
+     * @param reducer              a commutative associative combining function
+     * @return the result, or null if there are no non-null values
+     */
+    public V reduceValues(long parallelismThreshold, BiFunction<? super V, ? super V, ? extends V> reducer) {
+        return reduce(parallelismThreshold, (k, v) -> v, reducer);
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * values using the given reducer, and the given basis as an identity
+     * value, like
+     * {@link java.util.concurrent.ConcurrentHashMap#reduceValuesToLong}.
+     *
+     * @param parallelismThreshold the number of entries needed for this
+     *                             operation to be executed in parallel
+     * @param transformer          returns the transformation of a value
+     * @param basis                the identity value of the reduction
+     * @param reducer              a commutative associative combining function
+     * @return the result
+     */
+    public long reduceValuesToLong(long parallelismThreshold, ToLongFunction<? super V> transformer,
+                                   long basis, LongBinaryOperator reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        var mc = modCount;
+        var result = bucketStream(parallelismThreshold)
+                .mapToLong(i -> transformer.applyAsLong(getValueFromTable(i)))
+                .reduce(basis, reducer);
+        checkModCount(mc);
+        return result;
+    }
+
     protected V remove(Object o) {
-        var h = hash(o, capacity);
-        var index = find(o, h);
+        var index = find(o);
         if (index < 0) {
             return null;
         } else {
-            V oldValue = getValueFromTable(index);
-            unsetTable(index);
-            size--;
-            modCount++;// must be done before shift, because debugger may advance iterator
-            shiftForRemoval(index);
-            return oldValue;
+            return removeAt(index);
         }
     }
 
+    /**
+     * Removes the entry at the bucket that was returned by {@link #find}.
+     * Shrinks the table if needed.
+     *
+     * @param index the bucket index
+     * @return the old value
+     */
+    protected V removeAt(int index) {
+        V oldValue = getValueFromTable(index);
+        unsetTable(index);
+        size--;
+        modCount++;// must be done before shift, because debugger may advance iterator
+        shiftForRemoval(index);
+        shrinkIfSparse();
+        return oldValue;
+    }
+
     @SuppressWarnings("unchecked")
     protected void resize(int newCapacity) {
         Object[] objects = toArray();
@@ -156,7 +282,7 @@ abstract class AbstractRobinHoodHashMap<K, V> extends AbstractRobinHoodHashing<K
         capacity = newCapacity;
         for (var i = 0; i < objects.length; i += 2) {
             var o = objects[i];
-            int result = find(o, hash(o, newCapacity));
+            int result = find(o);
             var index = -result - 1;
             shiftForInsertion(index);
             setKeyInTable(index, (K) o);
@@ -164,12 +290,36 @@ abstract class AbstractRobinHoodHashMap<K, V> extends AbstractRobinHoodHashing<K
         }
     }
 
+    /**
+     * Returns a non-null result from applying the given search function
+     * to an entry, or null if none, like
+     * {@link java.util.concurrent.ConcurrentHashMap#search}.
+     * <p>
+     * The search stops when a result has been found. If the search runs
+     * in parallel, it returns the result of any matching entry.
+     *
+     * @param parallelismThreshold the number of entries needed for this
+     *                             operation to be executed in parallel
+     * @param searchFunction       returns a non-null result on success,
+     *                             else null
+     * @param <U>                  the type of the result
+     * @return a non-null result, or null if none
+     */
+    public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        Objects.requireNonNull(searchFunction);
+        var mc = modCount;
+        U result = bucketStream(parallelismThreshold)
+                .<U>mapToObj(i -> searchFunction.apply(getKeyFromTable(i), getValueFromTable(i)))
+                .filter(Objects::nonNull)
+                .findAny().orElse(null);
+        checkModCount(mc);
+        return result;
+    }
+
     protected abstract void setValueInTable(int index, V value);
 
     protected abstract void setValueTable(int index, V value);
 
-    protected abstract void shiftForRemoval(int index);
-
     protected abstract Object[] toArray();
 
     public String toString() {
@@ -194,14 +344,27 @@ abstract class AbstractRobinHoodHashMap<K, V> extends AbstractRobinHoodHashing<K
         }
     }
 
-    protected abstract void unsetTable(int index);
 
+    /**
+     * Iterates over the entries.
+     * <p>
+     * The iterator starts at a bucket with zero cost. Backward-shift
+     * deletion never moves an entry across a bucket with zero cost, and
+     * therefore a removal can not move an entry that has already been
+     * returned back into a bucket that has not been visited.
+     */
     protected class ReadOnlyMapIterator {
         int mod = modCount;
         int index = 0;
-        int remaining = size;
+        int remaining = size();
         Map.Entry<K, V> currentEntry = null;
 
+        protected ReadOnlyMapIterator() {
+            while (index < capacity - 1 && getCost(index) != 0) {
+                index++;
+            }
+        }
+
         public boolean hasNext() {
             if (mod != modCount) {
                 throw new ConcurrentModificationException();
@@ -211,13 +374,14 @@ abstract class AbstractRobinHoodHashMap<K, V> extends AbstractRobinHoodHashing<K
 
         protected Map.Entry<K, V> move() {
             if (hasNext()) {
-                int maxIter = capacity;
+                int bucketCount = getBucketCount();
+                int maxIter = bucketCount;
                 K k;
                 V v;
                 do {
                     k = getKeyFromTable(index);
                     v = getValueFromTable(index);
-                    index = index < capacity - 1 ? index + 1 : 0;
+                    index = index < bucketCount - 1 ? index + 1 : 0;
                     --maxIter;
                 } while (k == null && maxIter > 0);
                 remaining--;
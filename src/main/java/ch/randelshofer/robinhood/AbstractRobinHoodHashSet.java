@@ -5,10 +5,14 @@ import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 /**
  * Abstract base class for sets that use Robin Hood Hashing.
@@ -27,12 +31,9 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
     }
 
     protected boolean add(E e) {
-        var result = capacity == 0 ? -1 : find(e, hash(e, capacity));
+        var result = find(e);
         if (result < 0) {
-            if (size >= threshold) {
-                grow();
-                result = find(e, hash(e, capacity));
-            }
+            result = prepareInsertion(e, result);
             var index = ~result;
             shiftForInsertion(index);
             setKeyInTable(index, e);
@@ -56,7 +57,7 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
 
 
     public boolean contains(Object o) {
-        return find(o, hash(o, capacity)) >= 0;
+        return find(o) >= 0;
     }
 
     public boolean containsAll(Collection<?> c) {
@@ -69,6 +70,20 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
     }
 
 
+    /**
+     * Returns a stream over the elements, see {@link #bucketStream(long)}.
+     * <p>
+     * Subclasses that store elements outside the table must override
+     * this method.
+     *
+     * @param parallelismThreshold the number of elements needed for the
+     *                             stream to be parallel
+     * @return a stream over the elements
+     */
+    protected Stream<E> elementStream(long parallelismThreshold) {
+        return bucketStream(parallelismThreshold).mapToObj(this::getKeyFromTable);
+    }
+
     public boolean equals(Object o) {
         if (o == this) {
             return true;
@@ -103,6 +118,26 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
     }
 
 
+    /**
+     * Performs the given action for each element, like
+     * {@link java.util.concurrent.ConcurrentHashMap#forEachKey(long, Consumer)}.
+     * <p>
+     * The elements are processed in parallel if the set contains at least
+     * {@code parallelismThreshold} elements. The set must not be modified
+     * while this method runs.
+     *
+     * @param parallelismThreshold the number of elements needed for this
+     *                             operation to be executed in parallel
+     * @param action               the action
+     * @throws ConcurrentModificationException if the set has been modified
+     */
+    public void forEach(long parallelismThreshold, Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        var mc = modCount;
+        elementStream(parallelismThreshold).forEach(action);
+        checkModCount(mc);
+    }
+
     public int hashCode() {
         var h = 0;
         for (var e : this) {
@@ -113,6 +148,15 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
         return h;
     }
 
+    /**
+     * Returns an iterator over the elements.
+     * <p>
+     * The iterator starts at a bucket with zero cost. Backward-shift
+     * deletion never moves an element across a bucket with zero cost,
+     * and therefore {@link Iterator#remove()} can not move an element that
+     * has already been returned back into a bucket that has not been
+     * visited.
+     */
     public Iterator<E> iterator() {
         class SetIterator implements Iterator<E> {
             int mod = modCount;
@@ -120,6 +164,12 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
             int remaining = size;
             E current = null;
 
+            SetIterator() {
+                while (index < capacity - 1 && getCost(index) != 0) {
+                    index++;
+                }
+            }
+
             @Override
             public boolean hasNext() {
                 if (mod != modCount) {
@@ -153,7 +203,17 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
                 }
                 // We cannot shrink the table, because this would reorganize
                 // the table.
-                AbstractRobinHoodHashSet.this.remove(current);
+                shrinkSuspended = true;
+                try {
+                    AbstractRobinHoodHashSet.this.remove(current);
+                } finally {
+                    shrinkSuspended = false;
+                }
+                // The bucket of the current element may now hold a shifted element.
+                var previous = index == 0 ? capacity - 1 : index - 1;
+                if (getKeyFromTable(previous) != null) {
+                    index = previous;
+                }
                 current = null;
                 mod = modCount;
             }
@@ -161,6 +221,55 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
         return new SetIterator();
     }
 
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * elements using the given reducer, or null if none, like
+     * {@link java.util.concurrent.ConcurrentHashMap#reduceKeys(long, Function, BiFunction)}.
+     *
+     * @param parallelismThreshold the number of elements needed for this
+     *                             operation to be executed in parallel
+     * @param transformer          returns the transformation of an element,
+     *                             or null if there is no transformation
+     * @param reducer              a commutative associative combining function
+     * @param <U>                  the type of the transformation
+     * @return the result, or null if there are no transformations
+     */
+    public <U> U reduce(long parallelismThreshold, Function<? super E, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        var mc = modCount;
+        U result = elementStream(parallelismThreshold)
+                .<U>map(transformer)
+                .filter(Objects::nonNull)
+                .reduce(reducer::apply).orElse(null);
+        checkModCount(mc);
+        return result;
+    }
+
+    /**
+     * Returns the result of accumulating the given transformation of all
+     * elements using the given reducer, and the given basis as an identity
+     * value, like
+     * {@link java.util.concurrent.ConcurrentHashMap#reduceKeysToLong}.
+     *
+     * @param parallelismThreshold the number of elements needed for this
+     *                             operation to be executed in parallel
+     * @param transformer          returns the transformation of an element
+     * @param basis                the identity value of the reduction
+     * @param reducer              a commutative associative combining function
+     * @return the result
+     */
+    public long reduceToLong(long parallelismThreshold, ToLongFunction<? super E> transformer,
+                             long basis, LongBinaryOperator reducer) {
+        Objects.requireNonNull(transformer);
+        Objects.requireNonNull(reducer);
+        var mc = modCount;
+        var result = elementStream(parallelismThreshold).mapToLong(transformer).reduce(basis, reducer);
+        checkModCount(mc);
+        return result;
+    }
+
     /**
      * Removes the specified object if it is contained in the set.
      *
@@ -168,8 +277,7 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
      * @return whether the object was in the set
      */
     protected boolean remove(Object o) {
-        var h = hash(o, capacity);
-        var index = find(o, h);
+        var index = find(o);
         if (index < 0) {
             return false;
         } else {
@@ -177,6 +285,7 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
             size--;
             modCount++;// must be done before shift, because debugger may advance iterator
             shiftForRemoval(index);
+            shrinkIfSparse();
             return true;
         }
     }
@@ -189,55 +298,38 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
         capacity = newCapacity;
         for (Object o : objects) {
             @SuppressWarnings("RedundantExplicitVariableType") E e = (E) o;
-            int result = find(o, hash(o, newCapacity));
+            int result = find(o);
             var index = ~result;
             shiftForInsertion(index);
             setKeyInTable(index, e);
         }
     }
 
-    protected abstract void shiftForRemoval(int index);
-
-
-    class SetSpliterator extends Spliterators.AbstractSpliterator<E> {
-        private final int fence;
-        private final int expectedModCount;
-        private int index;
-
-        protected SetSpliterator(int index, int fence) {
-            super(fence - index, DISTINCT);
-            this.index = index;
-            this.fence = fence;
-            this.expectedModCount = modCount;
-        }
-
-        @Override
-        public long estimateSize() {
-            return fence - index;
-        }
-
-        @Override
-        public boolean tryAdvance(Consumer<? super E> action) {
-            if (expectedModCount != modCount) {
-                throw new ConcurrentModificationException();
-            }
-            while (index < fence && getKeyFromTable(index) == null) {
-                index++;
-            }
-            if (index < fence) {
-                action.accept(getKeyFromTable(index++));
-                return true;
-            }
-            return false;
-        }
 
-        @Override
-        public Spliterator<E> trySplit() {
-            int lo = index, mid = (lo + fence) >>> 1;
-            return (lo >= mid)
-                    ? null
-                    : new SetSpliterator(lo, index = mid);
-        }
+    /**
+     * Returns a non-null result from applying the given search function
+     * to an element, or null if none, like
+     * {@link java.util.concurrent.ConcurrentHashMap#searchKeys}.
+     * <p>
+     * The search stops when a result has been found. If the search runs
+     * in parallel, it returns the result of any matching element.
+     *
+     * @param parallelismThreshold the number of elements needed for this
+     *                             operation to be executed in parallel
+     * @param searchFunction       returns a non-null result on success,
+     *                             else null
+     * @param <U>                  the type of the result
+     * @return a non-null result, or null if none
+     */
+    public <U> U search(long parallelismThreshold, Function<? super E, ? extends U> searchFunction) {
+        Objects.requireNonNull(searchFunction);
+        var mc = modCount;
+        U result = elementStream(parallelismThreshold)
+                .<U>map(searchFunction)
+                .filter(Objects::nonNull)
+                .findAny().orElse(null);
+        checkModCount(mc);
+        return result;
     }
 
     public Object[] toArray() {
@@ -281,6 +373,4 @@ abstract class AbstractRobinHoodHashSet<E> extends AbstractRobinHoodHashing<E> i
         }
         return sb.append(']').toString();
     }
-
-    protected abstract void unsetTable(int index);
 }
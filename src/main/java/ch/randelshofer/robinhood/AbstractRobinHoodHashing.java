@@ -1,7 +1,16 @@
 package ch.randelshofer.robinhood;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.IntSummaryStatistics;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 /**
  * Abstract base class for classes that use Robin Hood Hashing.
@@ -38,6 +47,29 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
      */
     protected int capacity;
 
+    /**
+     * Upon removal, when the number of non-empty elements falls below
+     * this ratio, we shrink the table.
+     * <p>
+     * After shrinking, the table is filled to half of the
+     * {@link #loadFactor}. The table must lose half of its elements
+     * to shrink again, or double its elements to grow again.
+     * <p>
+     * If this value is 0 the table will never shrink on removal.
+     */
+    protected float shrinkFactor;
+
+    /**
+     * Invariant: shrinkThreshold = table.length * shrinkFactor
+     */
+    protected int shrinkThreshold;
+
+    /**
+     * Set to true by iterators while they remove an element. Shrinking
+     * would reorganize the table under the iterator.
+     */
+    protected transient boolean shrinkSuspended;
+
 
     protected AbstractRobinHoodHashing() {
         this(0, 0.5f);
@@ -71,6 +103,7 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
 
     protected void computeThreshold(int size, int capacity) {
         threshold = Math.min(capacity, Math.max((int) (capacity * loadFactor), size));
+        shrinkThreshold = (int) (capacity * shrinkFactor);
     }
 
     /**
@@ -87,6 +120,36 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
         return loadFactor;
     }
 
+    /**
+     * Gets the low-water mark for shrinking the table on removal.
+     * <p>
+     * Only mutable tables shrink, and make this method public.
+     *
+     * @return the shrink factor
+     */
+    protected float getShrinkFactor() {
+        return shrinkFactor;
+    }
+
+    /**
+     * Sets the low-water mark for shrinking the table on removal.
+     * <p>
+     * Only mutable tables shrink, and make this method public.
+     *
+     * @param shrinkFactor the shrink factor, 0 disables shrinking
+     * @throws IllegalArgumentException if the shrink factor is negative,
+     *                                  or not less than half of the
+     *                                  load factor
+     */
+    protected void setShrinkFactor(float shrinkFactor) {
+        if (shrinkFactor < 0 || Float.isNaN(shrinkFactor)
+                || shrinkFactor != 0 && shrinkFactor >= loadFactor / 2) {
+            throw new IllegalArgumentException("shrinkFactor=" + shrinkFactor);
+        }
+        this.shrinkFactor = shrinkFactor;
+        computeThreshold(size, capacity);
+    }
+
     public int size() {
         return size;
     }
@@ -96,6 +159,18 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
         return size == 0;
     }
 
+    /**
+     * Searches for the specified element in the current table.
+     * <p>
+     * Returns the same result as {@link #find(Object, int)}, also when
+     * the table has zero capacity.
+     *
+     * @param expected the object to be found
+     */
+    protected int find(Object expected) {
+        return capacity == 0 ? -1 : find(expected, hash(expected, capacity));
+    }
+
     /**
      * Searches for the specified element.
      * <p>
@@ -169,6 +244,14 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
      * at index {@code i}.
      */
     protected int getCost(int i) {
+        return computeCost(i);
+    }
+
+    /**
+     * Computes {@code c} for the entry in the table of length {@code length}
+     * at index {@code i} from the hash of the entry.
+     */
+    protected int computeCost(int i) {
         var entry = getKeyFromTable(i);
         if (entry == null) {
             return 0;
@@ -177,6 +260,51 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
         return (h <= i) ? i - h : i - h + capacity;
     }
 
+    /**
+     * Returns the number of buckets that are visited by iterators.
+     * <p>
+     * This is the capacity of the table, plus the number of buckets
+     * that a subclass stores after the table. {@link #getKeyFromTable}
+     * must accept the indices of these buckets.
+     *
+     * @return the number of buckets
+     */
+    protected int getBucketCount() {
+        return capacity;
+    }
+
+    /**
+     * Returns a stream over the indices of the occupied buckets.
+     * <p>
+     * The stream is parallel if the number of elements is at least
+     * {@code parallelismThreshold}. A parallel stream splits the buckets
+     * into ranges, which are processed on the common
+     * {@link ForkJoinPool}. The table must not be modified while the
+     * stream is in use.
+     *
+     * @param parallelismThreshold the number of elements needed for the
+     *                             stream to be parallel, use
+     *                             {@link Long#MAX_VALUE} for a sequential
+     *                             stream and {@code 1} for maximal parallelism
+     * @return a stream over the bucket indices
+     */
+    protected IntStream bucketStream(long parallelismThreshold) {
+        var stream = IntStream.range(0, getBucketCount()).filter(i -> getKeyFromTable(i) != null);
+        return size() >= parallelismThreshold ? stream.parallel() : stream;
+    }
+
+    /**
+     * Throws a {@link ConcurrentModificationException} if the table has
+     * been modified since {@code expectedModCount} was read.
+     *
+     * @param expectedModCount the expected modification count
+     */
+    protected void checkModCount(int expectedModCount) {
+        if (expectedModCount != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
     public int getCapacity() {
         return capacity;
     }
@@ -196,7 +324,14 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
         return stats;
     }
 
-    protected void shiftForRemoval1(int index, Object[] table) {
+    /**
+     * Shifts the buckets after {@code index} back by one bucket.
+     *
+     * @param index the bucket index
+     * @param table the table
+     * @return the bucket that terminated the shift
+     */
+    protected int shiftForRemoval1(int index, Object[] table) {
         // Find length of elements to shift.
         // Here we rely on the fact that there is always at least one
         // table bucket with zero cost in the table. This is guaranteed
@@ -210,26 +345,21 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
             }
         }
 
-        if (end == index + 1) {
-
-        } else if (end < index) {
-            // wrap around
-            System.arraycopy(table, index + 1, table, index, length - index - 1);
-            table[length - 1] = table[0];
-            if (end > 0) {
-                System.arraycopy(table, 1, table, 0, end - 1);
-            }
-        } else {
-            System.arraycopy(table, index + 1, table, index, end - index);
-        }
+        moveLeft(table, 1, length, index, end);
 
-        var index1 = end == 0 ? table.length - 1 : end - 1;
+        var index1 = end == 0 ? length - 1 : end - 1;
         table[index1] = null;
+        return end;
     }
 
-    protected void shiftForRemoval2(int index, Object[] table) {
-
-
+    /**
+     * Shifts the buckets after {@code index} back by one bucket.
+     *
+     * @param index the bucket index
+     * @param table the table
+     * @return the bucket that terminated the shift
+     */
+    protected int shiftForRemoval2(int index, Object[] table) {
         // Find length of elements to shift.
         // Here we rely on the fact that there is always at least one
         // table bucket with zero cost in the table. This is guaranteed
@@ -242,27 +372,26 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
                 end = 0;
             }
         }
-        if (end == index + 1) {
-        } else if (end < index) {
-            // wrap around
-            System.arraycopy(table, (index + 1) * 2, table, index * 2, (length - index - 1) * 2);
-            table[length - 1] = table[0];
-            if (end > 0) {
-                System.arraycopy(table, 2, table, 0, (end - 1) * 2);
-            }
-        } else {
-            System.arraycopy(table, (index + 1) * 2, table, index * 2, (end - index) * 2);
-        }
+
+        moveLeft(table, 2, length, index, end);
 
         var index1 = end == 0 ? length - 1 : end - 1;
         table[index1 * 2] = null;
         table[index1 * 2 + 1] = null;
+        return end;
     }
 
 
-    protected void shiftForInsertion1(int index, Object[] table) {
+    /**
+     * Shifts the buckets starting at {@code index} forward by one bucket.
+     *
+     * @param index the bucket index
+     * @param table the table
+     * @return the bucket that terminated the shift
+     */
+    protected int shiftForInsertion1(int index, Object[] table) {
         if (table[index] == null) {
-            return;
+            return index;
         }
 
         var length = table.length;
@@ -273,21 +402,22 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
             }
         }
 
-        if (end < index) {
-            // wrap around
-            System.arraycopy(table, 0, table, 1, end);
-            table[0] = table[length - 1];
-            System.arraycopy(table, index, table, index + 1, length - index - 1);
-        } else {
-            System.arraycopy(table, index, table, index + 1, end - index);
-        }
+        moveRight(table, 1, length, index, end);
 
         table[index] = null;
+        return end;
     }
 
-    protected void shiftForInsertion2(int index, Object[] table) {
+    /**
+     * Shifts the buckets starting at {@code index} forward by one bucket.
+     *
+     * @param index the bucket index
+     * @param table the table
+     * @return the bucket that terminated the shift
+     */
+    protected int shiftForInsertion2(int index, Object[] table) {
         if (table[index * 2] == null) {
-            return;
+            return index;
         }
 
         var length = table.length / 2;
@@ -298,24 +428,632 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
             }
         }
 
+        moveRight(table, 2, length, index, end);
+
+        table[index * 2] = null;
+        table[index * 2 + 1] = null;
+        return end;
+    }
+
+    /**
+     * Fills the empty {@code table} with the first {@code count} elements
+     * of {@code src}, see {@link #buildTable(Object[], int, Object[], int, boolean)}.
+     *
+     * @param table    the table, must be empty
+     * @param src      the elements
+     * @param count    the number of elements in {@code src}
+     * @param distinct whether {@code src} is known to contain no
+     *                 duplicates
+     */
+    protected void buildTable1(Object[] table, Object[] src, int count, boolean distinct) {
+        buildTable(table, 1, src, count, distinct);
+    }
+
+    /**
+     * Fills the empty {@code table} with the first {@code count} entries
+     * of {@code src}, which holds a key and a value per entry, see
+     * {@link #buildTable(Object[], int, Object[], int, boolean)}.
+     *
+     * @param table    the table, must be empty
+     * @param src      the entries, the values of duplicate keys are
+     *                 updated in place
+     * @param count    the number of entries in {@code src}
+     * @param distinct whether {@code src} is known to contain no
+     *                 duplicate keys
+     */
+    protected void buildTable2(Object[] table, Object[] src, int count, boolean distinct) {
+        buildTable(table, 2, src, count, distinct);
+    }
+
+    /**
+     * Fills the empty {@code table} with the buckets in {@code src}, with a
+     * single pass over the table.
+     * <p>
+     * Repeated {@link #add} probes and shifts a cluster for each element. This
+     * method computes the home buckets of all elements first, sorts the
+     * elements by their home bucket with a stable LSD radix sort, and then
+     * places each element at its home bucket, or right after the previously
+     * placed element, whichever comes later. This is the order of a Robin
+     * Hood table.
+     * <p>
+     * Duplicates have the same home bucket, so they are adjacent after the
+     * sort, and are compared only with the elements placed for the same
+     * home bucket. The first of them is kept, the other buckets of the last
+     * of them are copied over it. This matches a sequence of {@code add} or
+     * {@code put} calls. The comparison reads elements in random order from
+     * memory, and is skipped if the caller knows that there are no
+     * duplicates.
+     * <p>
+     * The few elements that do not fit before the end of the table are
+     * inserted with {@link #find} and {@link #shiftForInsertion}, because
+     * they wrap around to the start of the table.
+     * <p>
+     * The {@link #capacity} must already be the capacity of {@code table},
+     * and must be large enough for all elements.
+     *
+     * @param table    the table, must be empty
+     * @param stride   the number of array elements per bucket
+     * @param src      the buckets, the first element of each bucket must
+     *                 not be null
+     * @param count    the number of buckets in {@code src}
+     * @param distinct whether {@code src} is known to contain no duplicates
+     */
+    private void buildTable(Object[] table, int stride, Object[] src, int count, boolean distinct) {
+        var length = capacity;
+        // Each sorted entry holds the home bucket in the high half, and
+        // the index into src in the low half.
+        var sorted = new long[count];
+        for (var i = 0; i < count; i++) {
+            sorted[i] = (long) hash(Objects.requireNonNull(src[i * stride]), length) << 32 | i;
+        }
+        radixSortByHome(sorted, 0, count, 0, length);
+
+        // Place the elements in the order of their home buckets. Elements
+        // with the same home bucket are placed next to each other, so
+        // duplicates are found among the elements placed since groupStart.
+        var size = 0;
+        var next = 0;
+        var groupStart = 0;
+        var groupHome = -1;
+        var overflow = count;
+        for (var j = 0; j < count; j++) {
+            var home = (int) (sorted[j] >>> 32);
+            var index = (int) sorted[j];
+            if (home != groupHome) {
+                groupHome = home;
+                groupStart = Math.max(home, next);
+            } else if (!distinct && copyIfDuplicate(src, index, table, groupStart, Math.min(next, length), stride)) {
+                continue;
+            }
+            if (Math.max(home, next) == length) {
+                overflow = j;
+                break;
+            }
+            next = Math.max(home, next);
+            for (var k = 0; k < stride; k++) {
+                table[next * stride + k] = src[index * stride + k];
+            }
+            next++;
+            size++;
+        }
+        this.size = size;
+
+        // The remaining elements wrap around to the start of the table.
+        // There are only a few of them, they are inserted one by one.
+        for (var j = overflow; j < count; j++) {
+            var index = (int) sorted[j];
+            var result = find(src[index * stride]);
+            if (result >= 0) {
+                System.arraycopy(src, index * stride + 1, table, result * stride + 1, stride - 1);
+            } else {
+                shiftForInsertion(~result);
+                System.arraycopy(src, index * stride, table, ~result * stride, stride);
+                this.size++;
+            }
+        }
+        modCount++;
+    }
+
+    /**
+     * If the element in bucket {@code index} of {@code src} is equal to an
+     * element in the buckets {@code [from, to)} of {@code table}, copies
+     * the other array elements of the bucket over, and returns true.
+     */
+    private boolean copyIfDuplicate(Object[] src, int index, Object[] table, int from, int to, int stride) {
+        var e = src[index * stride];
+        for (var i = from; i < to; i++) {
+            if (isEqual(table[i * stride], e)) {
+                for (var k = 1; k < stride; k++) {
+                    table[i * stride + k] = src[index * stride + k];
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fills the empty {@code table} with the first {@code count} elements
+     * of {@code src} in parallel, see
+     * {@link #parallelBuildTable(Object[], int, Object[], int, boolean)}.
+     *
+     * @param table    the table, must be empty
+     * @param src      the elements
+     * @param count    the number of elements in {@code src}
+     * @param distinct whether {@code src} is known to contain no
+     *                 duplicates
+     */
+    protected void parallelBuildTable1(Object[] table, Object[] src, int count, boolean distinct) {
+        parallelBuildTable(table, 1, src, count, distinct);
+    }
+
+    /**
+     * Fills the empty {@code table} with the first {@code count} entries
+     * of {@code src} in parallel, see
+     * {@link #parallelBuildTable(Object[], int, Object[], int, boolean)}.
+     *
+     * @param table    the table, must be empty
+     * @param src      the entries, the values of duplicate keys are
+     *                 updated in place
+     * @param count    the number of entries in {@code src}
+     * @param distinct whether {@code src} is known to contain no
+     *                 duplicate keys
+     */
+    protected void parallelBuildTable2(Object[] table, Object[] src, int count, boolean distinct) {
+        parallelBuildTable(table, 2, src, count, distinct);
+    }
+
+    /**
+     * Fills the empty {@code table} with the buckets in {@code src}, with
+     * tasks in the common {@link ForkJoinPool}.
+     * <p>
+     * This method lays out the table like
+     * {@link #buildTable(Object[], int, Object[], int, boolean)}. The
+     * table is cut into segments of home buckets. The entries are
+     * computed in chunks, and distributed to the segments in parallel.
+     * Each segment is then sorted and built by its own task.
+     * <p>
+     * The elements at the end of a segment can spill over into the next
+     * segment. The segments are stitched together before they are built:
+     * A first pass removes duplicates, and computes the spill of each
+     * segment as if nothing spilled into it. A sequential pass then
+     * propagates the spills from segment to segment. This is cheap,
+     * because the spill into a segment only moves its first cluster: as
+     * soon as an element can be placed at its home bucket, the rest of the
+     * segment is placed as without the spill. A last pass places the
+     * elements of each segment after the spill from the previous segment.
+     * <p>
+     * The elements that spill over the end of the table are inserted with
+     * {@link #find} and {@link #shiftForInsertion}.
+     * <p>
+     * {@link #hash} and {@link #isEqual} are called concurrently.
+     *
+     * @param table    the table, must be empty
+     * @param stride   the number of array elements per bucket
+     * @param src      the buckets, the first element of each bucket must
+     *                 not be null
+     * @param count    the number of buckets in {@code src}
+     * @param distinct whether {@code src} is known to contain no duplicates
+     */
+    private void parallelBuildTable(Object[] table, int stride, Object[] src, int count, boolean distinct) {
+        var length = capacity;
+        var segments = Math.max(1, Math.min(count >>> 10, ForkJoinPool.getCommonPoolParallelism() * 4));
+        // Segment k holds the home buckets [starts[k], starts[k + 1]).
+        // A home bucket h belongs to segment h * segments / length.
+        var starts = new int[segments + 1];
+        for (var k = 0; k <= segments; k++) {
+            starts[k] = (int) (((long) k * length + segments - 1) / segments);
+        }
+
+        // Compute the entries in chunks, and count the entries of each
+        // segment per chunk.
+        var chunkStarts = new int[segments + 1];
+        for (var c = 0; c <= segments; c++) {
+            chunkStarts[c] = (int) ((long) count * c / segments);
+        }
+        var entries = new long[count];
+        var offsets = new int[segments][segments];
+        IntStream.range(0, segments).parallel().forEach(c -> {
+            for (var i = chunkStarts[c]; i < chunkStarts[c + 1]; i++) {
+                var home = hash(Objects.requireNonNull(src[i * stride]), length);
+                entries[i] = (long) home << 32 | i;
+                offsets[c][(int) ((long) home * segments / length)]++;
+            }
+        });
+
+        // The sorted entries [bounds[k], bounds[k + 1]) belong to segment
+        // k. Each chunk scatters its entries to its offsets in the segments.
+        var bounds = new int[segments + 1];
+        for (int k = 0, sum = 0; k < segments; k++) {
+            bounds[k] = sum;
+            for (var c = 0; c < segments; c++) {
+                var n = offsets[c][k];
+                offsets[c][k] = sum;
+                sum += n;
+            }
+        }
+        bounds[segments] = count;
+        var sorted = new long[count];
+        IntStream.range(0, segments).parallel().forEach(c -> {
+            for (var i = chunkStarts[c]; i < chunkStarts[c + 1]; i++) {
+                var entry = entries[i];
+                sorted[offsets[c][(int) ((entry >>> 32) * segments / length)]++] = entry;
+            }
+        });
+
+        var sizes = new int[segments];
+        var spills = new int[segments];
+        IntStream.range(0, segments).parallel().forEach(k -> {
+            radixSortByHome(sorted, bounds[k], bounds[k + 1], starts[k], starts[k + 1] - starts[k]);
+            sizes[k] = distinct ? bounds[k + 1] - bounds[k]
+                    : markDuplicates(sorted, bounds[k], bounds[k + 1], src, stride);
+            spills[k] = computeSpill(sorted, bounds[k], bounds[k + 1], starts[k], starts[k + 1], 0, 0);
+        });
+        var carries = new int[segments];
+        for (var k = 1; k < segments; k++) {
+            carries[k] = computeSpill(sorted, bounds[k - 1], bounds[k], starts[k - 1], starts[k], carries[k - 1], spills[k - 1]);
+        }
+
+        // overflows[k] is the first entry of segment k that does not fit
+        // before the end of the table.
+        var overflows = Arrays.copyOfRange(bounds, 1, segments + 1);
+        IntStream.range(0, segments).parallel().forEach(k -> {
+            var next = starts[k] + carries[k];
+            for (var j = bounds[k]; j < bounds[k + 1]; j++) {
+                if (sorted[j] >= 0) {
+                    var pos = Math.max((int) (sorted[j] >>> 32), next);
+                    if (pos >= length) {
+                        overflows[k] = j;
+                        break;
+                    }
+                    var index = (int) sorted[j];
+                    for (var i = 0; i < stride; i++) {
+                        table[pos * stride + i] = src[index * stride + i];
+                    }
+                    next = pos + 1;
+                }
+            }
+        });
+        var size = 0;
+        for (var n : sizes) {
+            size += n;
+        }
+        this.size = size;
+
+        for (var k = 0; k < segments; k++) {
+            for (var j = overflows[k]; j < bounds[k + 1]; j++) {
+                if (sorted[j] >= 0) {
+                    var index = (int) sorted[j];
+                    var result = find(src[index * stride]);
+                    shiftForInsertion(~result);
+                    System.arraycopy(src, index * stride, table, ~result * stride, stride);
+                }
+            }
+        }
+        modCount++;
+    }
+
+    /**
+     * Marks duplicates in the sorted entries {@code [from, to)} with -1.
+     * The other array elements of the bucket of the last duplicate are
+     * copied over the bucket of the first one in {@code src}.
+     *
+     * @return the number of entries that are not duplicates
+     */
+    private int markDuplicates(long[] sorted, int from, int to, Object[] src, int stride) {
+        var size = 0;
+        for (int groupStart = from, j = from; j < to; j++) {
+            if (j == from || sorted[j] >>> 32 != sorted[groupStart] >>> 32) {
+                groupStart = j;
+                size++;
+                continue;
+            }
+            var index = (int) sorted[j];
+            var e = src[index * stride];
+            var duplicate = false;
+            for (var k = groupStart; k < j; k++) {
+                if (sorted[k] >= 0 && isEqual(src[(int) sorted[k] * stride], e)) {
+                    System.arraycopy(src, index * stride + 1, src, (int) sorted[k] * stride + 1, stride - 1);
+                    sorted[j] = -1;
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Computes how many elements spill over from the segment with the home
+     * buckets {@code [start, end)} into the next segment.
+     *
+     * @param sorted             the sorted entries
+     * @param from               the first entry of the segment
+     * @param to                 the end of the entries of the segment
+     * @param start              the first home bucket of the segment
+     * @param end                the end of the home buckets of the segment
+     * @param carry              the number of elements that spill into
+     *                           the segment
+     * @param spillWithoutCarry  the spill of the segment if {@code carry}
+     *                           is zero, only used if {@code carry} is
+     *                           greater than zero
+     * @return the number of elements that spill over into the next segment
+     */
+    private static int computeSpill(long[] sorted, int from, int to, int start, int end, int carry, int spillWithoutCarry) {
+        var next = start + carry;
+        for (var j = from; j < to; j++) {
+            if (sorted[j] >= 0) {
+                var home = (int) (sorted[j] >>> 32);
+                if (carry > 0 && home >= next) {
+                    return spillWithoutCarry;
+                }
+                next = Math.max(home, next) + 1;
+            }
+        }
+        return Math.max(0, next - end);
+    }
+
+    /**
+     * Sorts the entries {@code [from, to)} by their high half, which is a
+     * home bucket in the range {@code [base, base + range)}, with a stable
+     * LSD radix sort that processes 11 bits per pass.
+     *
+     * @param entries the entries
+     * @param from    the first entry to be sorted
+     * @param to      the end of the entries to be sorted
+     * @param base    the smallest home bucket
+     * @param range   the number of home buckets
+     */
+    private static void radixSortByHome(long[] entries, int from, int to, int base, int range) {
+        var count = to - from;
+        var bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, range - 1));
+        var counts = new int[1 << 11];
+        long[] src = entries, dest = new long[count];
+        int srcFrom = from, destFrom = 0;
+        for (var shift = 0; shift < bits; shift += 11) {
+            Arrays.fill(counts, 0);
+            for (var i = srcFrom; i < srcFrom + count; i++) {
+                counts[(int) (((src[i] >>> 32) - base) >>> shift) & 0x7ff]++;
+            }
+            for (int d = 0, sum = destFrom; d < counts.length; d++) {
+                var c = counts[d];
+                counts[d] = sum;
+                sum += c;
+            }
+            for (var i = srcFrom; i < srcFrom + count; i++) {
+                dest[counts[(int) (((src[i] >>> 32) - base) >>> shift) & 0x7ff]++] = src[i];
+            }
+            var swap = src;
+            src = dest;
+            dest = swap;
+            var swapFrom = srcFrom;
+            srcFrom = destFrom;
+            destFrom = swapFrom;
+        }
+        if (src != entries) {
+            System.arraycopy(src, 0, entries, from, count);
+        }
+    }
+
+    /**
+     * Removes all elements for which {@code filter} returns true, and
+     * compacts the table with a single sweep.
+     *
+     * @param table  the table
+     * @param filter tests the element in the bucket with the given index
+     * @return whether an element was removed
+     * @see #compactTable(Object[], int, IntPredicate)
+     */
+    protected boolean compactTable1(Object[] table, IntPredicate filter) {
+        return compactTable(table, 1, filter);
+    }
+
+    /**
+     * Removes all entries for which {@code filter} returns true, and
+     * compacts the table with a single sweep. Each bucket holds a key and
+     * a value.
+     *
+     * @param table  the table
+     * @param filter tests the entry in the bucket with the given index
+     * @return whether an entry was removed
+     * @see #compactTable(Object[], int, IntPredicate)
+     */
+    protected boolean compactTable2(Object[] table, IntPredicate filter) {
+        return compactTable(table, 2, filter);
+    }
+
+    /**
+     * Removes all buckets for which {@code filter} returns true, and
+     * compacts the table with a single sweep.
+     * <p>
+     * Unlike {@link #removeIfInTable}, this method does not shift the
+     * cluster after each removal. The elements are sorted by their home
+     * bucket, so the sweep can compute the final bucket of each kept
+     * element directly: it is its home bucket, or the bucket right after
+     * the previously kept element, whichever comes later. Kept elements
+     * only move to the left, and each element is moved at most once.
+     * <p>
+     * The sweep starts at a bucket with zero cost, because no cluster
+     * crosses such a bucket. A full table without such a bucket is grown
+     * first.
+     * <p>
+     * If {@code filter} throws an exception, the sweep keeps all remaining
+     * elements, so that the table stays valid, and then rethrows the
+     * exception. The table shrinks once at the end of the sweep, if
+     * needed.
+     *
+     * @param table  the table, must be the current table
+     * @param stride the number of array elements per bucket
+     * @param filter tests the bucket with the given index, before any
+     *               element has been moved into it
+     * @return whether an element was removed
+     */
+    private boolean compactTable(Object[] table, int stride, IntPredicate filter) {
+        if (size == 0) {
+            return false;
+        }
+        var start = findZeroCostBucket();
+        if (start < 0) {
+            grow();
+            return removeIfInTable(filter);
+        }
+
+        // Positions and home buckets are unwrapped, they are in the
+        // range [start, start + capacity).
+        var length = capacity;
+        var mc = modCount;
+        var removed = 0;
+        RuntimeException failure = null;
+        var next = start;
+        for (var n = 0; n < length; n++) {
+            var i = start + n;
+            var index = i < length ? i : i - length;
+            var e = getKeyFromTable(index);
+            if (e == null) {
+                continue;
+            }
+            var remove = false;
+            if (failure == null) {
+                try {
+                    remove = filter.test(index);
+                } catch (RuntimeException ex) {
+                    failure = ex;
+                }
+            }
+            if (remove) {
+                unsetTable(index);
+                removed++;
+                continue;
+            }
+            var home = hash(e, length);
+            if (home < start) {
+                home += length;
+            }
+            var target = Math.max(home, next);
+            if (target != i) {
+                var to = (target < length ? target : target - length) * stride;
+                System.arraycopy(table, index * stride, table, to, stride);
+                Arrays.fill(table, index * stride, index * stride + stride, null);
+            }
+            next = target + 1;
+        }
+        var concurrentModification = mc != modCount;
+        if (removed != 0) {
+            size -= removed;
+            modCount++;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (concurrentModification) {
+            throw new ConcurrentModificationException();
+        }
+        shrinkIfSparse();
+        return removed != 0;
+    }
+
+    /**
+     * Returns the index of the first bucket with zero cost, or -1 if every
+     * bucket is occupied by an element that is not in its home bucket.
+     */
+    private int findZeroCostBucket() {
+        for (var i = 0; i < capacity; i++) {
+            if (getCost(i) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int wrap(int index, int capacity) {
+        return index >= capacity ? index - capacity : index;
+    }
+
+    private static void copyBucket(Object[] src, int from, Object[] dest, int to, int capacity, int stride) {
+        var d = wrap(to, capacity) * stride;
+        var s = wrap(from, capacity) * stride;
+        for (var k = 0; k < stride; k++) {
+            dest[d + k] = src[s + k];
+        }
+    }
+
+    /**
+     * Moves the buckets in the range {@code [index, end)} one bucket to
+     * the right, wrapping around at the end of the array.
+     * <p>
+     * Bucket {@code end} must be empty. After the move, bucket {@code index}
+     * still holds its old value, the caller must clear it.
+     *
+     * @param array  an array of any component type
+     * @param stride the number of array elements per bucket
+     * @param length the number of buckets in the array
+     * @param index  the first bucket to be moved
+     * @param end    the empty bucket that terminates the range
+     */
+    protected static void moveRight(Object array, int stride, int length, int index, int end) {
         if (end < index) {
             // wrap around
-            System.arraycopy(table, 0, table, 2, end * 2);
-            table[0] = table[(length - 1) * 2];
-            table[1] = table[(length - 1) * 2 + 1];
-            System.arraycopy(table, index * 2, table, (index + 1) * 2, (length - index - 1) * 2);
+            System.arraycopy(array, 0, array, stride, end * stride);
+            System.arraycopy(array, (length - 1) * stride, array, 0, stride);
+            System.arraycopy(array, index * stride, array, (index + 1) * stride, (length - index - 1) * stride);
         } else {
-            System.arraycopy(table, index * 2, table, (index + 1) * 2, (end - index) * 2);
+            System.arraycopy(array, index * stride, array, (index + 1) * stride, (end - index) * stride);
         }
+    }
 
-        table[index * 2] = null;
-        table[index * 2 + 1] = null;
+    /**
+     * Moves the buckets in the range {@code (index, end)} one bucket to
+     * the left, wrapping around at the end of the array.
+     * <p>
+     * Bucket {@code end} is the first bucket after {@code index} that
+     * has zero cost. After the move, the bucket just before {@code end}
+     * still holds its old value, the caller must clear it.
+     *
+     * @param array  an array of any component type
+     * @param stride the number of array elements per bucket
+     * @param length the number of buckets in the array
+     * @param index  the bucket that is overwritten
+     * @param end    the zero-cost bucket that terminates the range
+     */
+    protected static void moveLeft(Object array, int stride, int length, int index, int end) {
+        if (end == index + 1 || end == 0 && index == length - 1) {
+            // nothing to move
+        } else if (end <= index) {
+            // wrap around, if end == index, all other buckets are shifted
+            System.arraycopy(array, (index + 1) * stride, array, index * stride, (length - index - 1) * stride);
+            if (end > 0) {
+                System.arraycopy(array, 0, array, (length - 1) * stride, stride);
+                System.arraycopy(array, stride, array, 0, (end - 1) * stride);
+            }
+        } else {
+            System.arraycopy(array, (index + 1) * stride, array, index * stride, (end - index - 1) * stride);
+        }
     }
 
     @SuppressWarnings("unchecked")
     protected abstract void resize(int newCapacity);
 
 
+    /**
+     * Prepares the insertion of an absent element. Grows the table if it
+     * is full.
+     *
+     * @param e      the element
+     * @param result the negative result of {@code find(e)}
+     * @return the negative result of {@code find(e)}, after the table has
+     * been reorganized
+     */
+    protected int prepareInsertion(Object e, int result) {
+        if (size >= threshold) {
+            grow();
+            return find(e);
+        }
+        return result;
+    }
+
     protected void grow() {
         int desiredCapacity = (int) Math.min(1 << 30, Math.max(1, capacity * 2L));
         if (desiredCapacity < size + 1) {
@@ -326,9 +1064,187 @@ abstract class AbstractRobinHoodHashing<E> implements Cloneable, Serializable {
         }
     }
 
+    /**
+     * Shrinks the table after a removal, if the number of elements has
+     * fallen below the {@link #shrinkThreshold}.
+     */
+    protected void shrinkIfSparse() {
+        if (size < shrinkThreshold && !shrinkSuspended) {
+            int desiredCapacity = roundCapacity(Math.max(1, (int) (size / (loadFactor / 2))));
+            if (desiredCapacity < capacity) {
+                resize(desiredCapacity);
+            }
+        }
+    }
+
+    /**
+     * Removes all elements for which {@code filter} returns true, with a
+     * single sweep over the table.
+     * <p>
+     * The sweep starts after an empty bucket. A removal shifts only the
+     * buckets up to the next bucket with zero cost, so no element moves
+     * across the empty bucket. The sweep tests the bucket that it just
+     * emptied again, and thus visits each element exactly once.
+     * <p>
+     * A full table is grown before the sweep. The table shrinks once at
+     * the end of the sweep, if needed.
+     *
+     * @param filter tests the element in the bucket with the given index
+     * @return whether an element was removed
+     */
+    protected boolean removeIfInTable(IntPredicate filter) {
+        if (size == 0) {
+            return false;
+        }
+        if (size == capacity) {
+            grow();
+        }
+        var start = 0;
+        while (getKeyFromTable(start) != null) {
+            start++;
+        }
+        var removed = false;
+        var mc = modCount;
+        var i = start + 1 == capacity ? 0 : start + 1;
+        while (i != start) {
+            if (getKeyFromTable(i) != null && filter.test(i)) {
+                if (mc != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                unsetTable(i);
+                size--;
+                mc = ++modCount;
+                shiftForRemoval(i);
+                removed = true;
+            } else {
+                i = i + 1 == capacity ? 0 : i + 1;
+            }
+        }
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        shrinkIfSparse();
+        return removed;
+    }
+
+    /**
+     * A spliterator over a range of buckets.
+     * <p>
+     * The spliterator binds to the table when it is first used. It splits
+     * its range of buckets in halves, and estimates the number of elements
+     * in each half as half of its own estimate, like the spliterators of
+     * {@link java.util.HashMap}. The estimate is exact, and the spliterator
+     * is {@link Spliterator#SIZED}, until it is split. Empty buckets are
+     * recognized by {@link #getKeyFromTable} returning null.
+     * <p>
+     * The spliterator is fail-fast: it throws a
+     * {@link ConcurrentModificationException} if the table has been
+     * modified after it was bound.
+     *
+     * @param <T> the type of the elements that are produced from the buckets
+     */
+    protected class BucketSpliterator<T> implements Spliterator<T> {
+        private final IntFunction<? extends T> function;
+        private final int characteristics;
+        private int index;
+        /**
+         * The end of the range of buckets, or -1 until the spliterator
+         * is bound.
+         */
+        private int fence;
+        private int estimate;
+        private int expectedModCount;
+
+        /**
+         * Creates a spliterator over all buckets.
+         *
+         * @param function        produces the element of the bucket with
+         *                        the given index
+         * @param characteristics the characteristics of the elements,
+         *                        {@link Spliterator#SIZED} is added as
+         *                        long as the spliterator has not been split
+         */
+        protected BucketSpliterator(IntFunction<? extends T> function, int characteristics) {
+            this(function, characteristics, 0, -1, 0, 0);
+        }
+
+        private BucketSpliterator(IntFunction<? extends T> function, int characteristics, int index, int fence, int estimate, int expectedModCount) {
+            this.function = function;
+            this.characteristics = characteristics;
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            if (fence < 0) {
+                fence = getBucketCount();
+                estimate = size();
+                expectedModCount = modCount;
+            }
+            return fence;
+        }
+
+        @Override
+        public int characteristics() {
+            return fence < 0 || estimate == size() ? characteristics | SIZED : characteristics;
+        }
+
+        @Override
+        public long estimateSize() {
+            getFence();
+            return estimate;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            var hi = getFence();
+            var i = index;
+            index = hi;
+            for (; i < hi; i++) {
+                if (getKeyFromTable(i) != null) {
+                    action.accept(function.apply(i));
+                }
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            var hi = getFence();
+            while (index < hi) {
+                var i = index++;
+                if (getKeyFromTable(i) != null) {
+                    action.accept(function.apply(i));
+                    if (expectedModCount != modCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return lo >= mid ? null
+                    : new BucketSpliterator<>(function, characteristics, lo, index = mid, estimate >>>= 1, expectedModCount);
+        }
+    }
+
     protected abstract void shiftForInsertion(int index);
 
+    protected abstract void shiftForRemoval(int index);
+
     protected abstract void setKeyInTable(int index, E e);
 
+    protected abstract void unsetTable(int index);
+
 
 }
@@ -0,0 +1,41 @@
+package ch.randelshofer.robinhood;
+
+/**
+ * Selects the avalanche step, that spreads the bits of a hash code,
+ * before the hash code is mapped to a bucket with a
+ * {@link RangeReduction}.
+ */
+public enum Avalanche {
+    /**
+     * Uses the hash code as is. This only works well with hash codes
+     * that are already well distributed in the bits that are used by the
+     * range reduction. A seed does not break up clusters.
+     */
+    NONE,
+    /**
+     * Uses {@link AvalancheAlgorithms#goldenRatioAvalanche(int, int)}.
+     */
+    GOLDEN_RATIO,
+    /**
+     * Uses {@link AvalancheAlgorithms#murmur3Avalanche(int, int)}. This is
+     * the best choice for keys that are under the control of an adversary,
+     * because a random seed selects an unpredictable hash function.
+     */
+    MURMUR3;
+
+    /**
+     * Avalanches the bits of the specified hash code with the specified
+     * seed. Seed {@code 0} yields the unseeded avalanche value.
+     *
+     * @param h    a hash code
+     * @param seed a seed
+     * @return the avalanche value
+     */
+    int apply(int h, int seed) {
+        return switch (this) {
+            case NONE -> h ^ seed;
+            case GOLDEN_RATIO -> AvalancheAlgorithms.goldenRatioAvalanche(h, seed);
+            case MURMUR3 -> AvalancheAlgorithms.murmur3Avalanche(h, seed);
+        };
+    }
+}
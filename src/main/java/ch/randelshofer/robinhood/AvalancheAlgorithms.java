@@ -28,6 +28,22 @@ class AvalancheAlgorithms {
         return h;
     }
 
+    /**
+     * Avalanches the bits of an integer with a seed, by applying
+     * {@link #murmur3Avalanche(int)} to the integer xor the seed.
+     * <p>
+     * Each seed selects a different hash function from the same family.
+     * Seed {@code 0} yields the same result as
+     * {@link #murmur3Avalanche(int)}.
+     *
+     * @param h    a 32-bit integer
+     * @param seed a 32-bit seed
+     * @return avalanche value
+     */
+    public static int murmur3Avalanche(int h, int seed) {
+        return murmur3Avalanche(h ^ seed);
+    }
+
     /**
      * Avalanches the bits of an integer by multiplying by the golden ratio and
      * xor-shifting the result.
@@ -47,4 +63,19 @@ class AvalancheAlgorithms {
         var h = x * 0x9E3779B9;
         return h ^ (h >>> 16);
     }
+
+    /**
+     * Avalanches the bits of an integer with a seed, by applying
+     * {@link #goldenRatioAvalanche(int)} to the integer xor the seed.
+     * <p>
+     * Seed {@code 0} yields the same result as
+     * {@link #goldenRatioAvalanche(int)}.
+     *
+     * @param x    a 32-bit integer
+     * @param seed a 32-bit seed
+     * @return avalanche value
+     */
+    public static int goldenRatioAvalanche(int x, int seed) {
+        return goldenRatioAvalanche(x ^ seed);
+    }
 }
@@ -0,0 +1,307 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Map with cached hash codes.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
+ * <li>Stores the hash word of each key in an {@code int[]} array
+ * next to the table. Probing, removal and resizing never call
+ * {@link Object#hashCode} on keys in the map, and
+ * {@link Object#equals} is only called when the hash words match.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} keys.</li>
+ * </ul>
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class CachedHashRobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V> {
+    private Object[] table;
+    /**
+     * The hash words of the keys in the table.
+     * The content of a bucket is undefined if the table bucket is empty.
+     */
+    private int[] hashes;
+    private HashStrategy<Object> strategy = HashStrategy.defaultStrategy();
+
+    public CachedHashRobinHoodHashMap() {
+    }
+
+    public CachedHashRobinHoodHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public CachedHashRobinHoodHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    /**
+     * Creates a new, empty map with the default expected size (0),
+     * default load factor (0.5), and the specified strategy for the keys.
+     *
+     * @param strategy the hash strategy
+     */
+    public CachedHashRobinHoodHashMap(HashStrategy<? super K> strategy) {
+        this(0, 0.5f, strategy);
+    }
+
+    /**
+     * Creates a new, empty map with the specified expected size, load
+     * factor and strategy for the keys.
+     *
+     * @param expectedSize the expected size of the map
+     * @param loadFactor   the load factor of the map
+     * @param strategy     the hash strategy
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    @SuppressWarnings("unchecked")
+    public CachedHashRobinHoodHashMap(int expectedSize, float loadFactor, HashStrategy<? super K> strategy) {
+        super(expectedSize, loadFactor);
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+    }
+
+    public CachedHashRobinHoodHashMap(Map<? extends K, ? extends V> m, float loadFactor) {
+        this(m, (int) (m.size() / loadFactor), loadFactor);
+    }
+
+    public CachedHashRobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries, int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+        for (Entry<? extends K, ? extends V> entry : entries) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public CachedHashRobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        this(entries, entries.size(), 0.5f);
+    }
+
+    public CachedHashRobinHoodHashMap(Map<? extends K, ? extends V> m, int expectedSize, float loadFactor) {
+        this(m.entrySet(), expectedSize, loadFactor);
+    }
+
+    public CachedHashRobinHoodHashMap(Map<? extends K, ? extends V> m) {
+        this(m, m.size(), 0.5f);
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(table, null);
+    }
+
+    @Override
+    public CachedHashRobinHoodHashMap<K, V> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            CachedHashRobinHoodHashMap<K, V> that = (CachedHashRobinHoodHashMap<K, V>) super.clone();
+            that.table = this.table.clone();
+            that.hashes = this.hashes.clone();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        this.table = new Object[capacity * 2];
+        this.hashes = new int[capacity];
+    }
+
+    @Override
+    protected int find(Object expected) {
+        return capacity == 0 ? -1 : findWord(expected, hashWord(expected));
+    }
+
+    /**
+     * Searches for the specified key with the specified hash word.
+     * <p>
+     * Works like {@link #find(Object, int)}, but takes the sort-keys
+     * of the probed buckets from the cached hash words.
+     *
+     * @param expected the key to be found
+     * @param word     the hash word of the key
+     * @return the index of the bucket, or {@code ~index}
+     */
+    private int findWord(Object expected, int word) {
+        var h = fastRange(word, capacity);
+        var index = h;
+        var expectedKey = h;
+
+        while (true) {
+            var actual = table[index * 2];
+            if (actual == null) {
+                return -index - 1;
+            }
+            var actualWord = hashes[index];
+            if (actualWord == word && isEqual(expected, actual)) {
+                return index;
+            }
+            var actualHash = fastRange(actualWord, capacity);
+            var actualKey = actualHash <= index ? actualHash : actualHash - capacity;
+            if (actualKey > expectedKey) {
+                return -index - 1;
+            } else {
+                if (++index == capacity) {
+                    index = 0;
+                    expectedKey = expectedKey - capacity;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected int getCost(int i) {
+        if (table[i * 2] == null) {
+            return 0;
+        }
+        var h = fastRange(hashes[i], capacity);
+        return (h <= i) ? i - h : i - h + capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected K getKeyFromTable(int index) {
+        return (K) table[index * 2];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V getValueFromTable(int index) {
+        return (V) table[index * 2 + 1];
+    }
+
+    /**
+     * Returns the hash strategy of the keys of this map.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super K> getHashStrategy() {
+        return strategy;
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(hashWord(e), length);
+    }
+
+    /**
+     * Computes the hash word of the specified key.
+     *
+     * @param e a key
+     * @return the hash word
+     */
+    protected int hashWord(Object e) {
+        return goldenRatioAvalanche(e == null ? 0 : strategy.hashCode(e));
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return a == b || a != null && b != null && strategy.equals(a, b);
+    }
+
+    /**
+     * Computes the hash word of the key once, and stores it in the table,
+     * instead of computing it again in {@link #setKeyInTable}.
+     */
+    @Override
+    public V put(K key, V value) {
+        var word = hashWord(key);
+        var result = capacity == 0 ? -1 : findWord(key, word);
+        if (result >= 0) {
+            V oldValue = getValueFromTable(result);
+            table[result * 2 + 1] = value;
+            return oldValue;
+        }
+        if (size >= threshold) {
+            grow();
+            result = findWord(key, word);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        table[index * 2] = key;
+        table[index * 2 + 1] = value;
+        hashes[index] = word;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldTable = table;
+        var oldHashes = hashes;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var i = 0; i < oldHashes.length; i++) {
+            var o = oldTable[i * 2];
+            if (o != null) {
+                var word = oldHashes[i];
+                var index = ~findWord(o, word);
+                shiftForInsertion(index);
+                table[index * 2] = o;
+                table[index * 2 + 1] = oldTable[i * 2 + 1];
+                hashes[index] = word;
+            }
+        }
+    }
+
+    @Override
+    protected void setKeyInTable(int index, K k) {
+        table[index * 2] = k;
+        hashes[index] = hashWord(k);
+    }
+
+    @Override
+    protected void setValueInTable(int index, V value) {
+        table[index * 2 + 1] = value;
+    }
+
+    @Override
+    protected void setValueTable(int index, V k) {
+        table[index * 2 + 1] = k;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        var end = shiftForInsertion2(index, table);
+        moveRight(hashes, 1, capacity, index, end);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = shiftForRemoval2(index, table);
+        moveLeft(hashes, 1, capacity, index, end);
+    }
+
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        int index = 0;
+        for (var i = 0; i < table.length; i += 2) {
+            if (table[i] != null) {
+                r[index] = table[i];
+                r[index + 1] = table[i + 1];
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table[index * 2] = null;
+        table[index * 2 + 1] = null;
+    }
+}
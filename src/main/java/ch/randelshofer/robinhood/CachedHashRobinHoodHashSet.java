@@ -0,0 +1,312 @@
+package ch.randelshofer.robinhood;
+
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Set with cached hash codes.
+ * <ul>
+ * <li>Supports up to 2<sup>30</sup> elements.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
+ * <li>Stores the hash word of each element in an {@code int[]} array
+ * next to the table. Probing, removal and resizing never call
+ * {@link Object#hashCode} on elements in the set, and
+ * {@link Object#equals} is only called when the hash words match.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} values.</li>
+ * </ul>
+ */
+public class CachedHashRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E>
+        implements Cloneable {
+
+    private Object[] table;
+    /**
+     * The hash words of the elements in the table.
+     * The content of a bucket is undefined if the table bucket is empty.
+     */
+    private int[] hashes;
+    private HashStrategy<Object> strategy = HashStrategy.defaultStrategy();
+
+
+    /**
+     * Creates a new, empty set with the default expected size (0)
+     * and default load factor (0.5).
+     */
+    public CachedHashRobinHoodHashSet() {
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and default load factor (0.5).
+     *
+     * @param expectedSize the expected size of the set
+     * @throws IllegalArgumentException if the expected size is less than zero
+     */
+    public CachedHashRobinHoodHashSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and load factor.
+     *
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    public CachedHashRobinHoodHashSet(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    /**
+     * Creates a new, empty set with the default expected size (0),
+     * default load factor (0.5), and the specified strategy.
+     *
+     * @param strategy the hash strategy
+     */
+    public CachedHashRobinHoodHashSet(HashStrategy<? super E> strategy) {
+        this(0, 0.5f, strategy);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size, load
+     * factor and strategy.
+     *
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @param strategy     the hash strategy
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    @SuppressWarnings("unchecked")
+    public CachedHashRobinHoodHashSet(int expectedSize, float loadFactor, HashStrategy<? super E> strategy) {
+        super(expectedSize, loadFactor);
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+    }
+
+    public CachedHashRobinHoodHashSet(Collection<? extends E> c) {
+        super(c);
+    }
+
+    public CachedHashRobinHoodHashSet(Collection<? extends E> c, int expectedSize, float loadFactor) {
+        super(c, expectedSize, loadFactor);
+    }
+
+    /**
+     * Computes the hash word of the element once, and stores it in the
+     * table, instead of computing it again in {@link #setKeyInTable}.
+     */
+    @Override
+    public boolean add(E e) {
+        var word = hashWord(e);
+        var result = capacity == 0 ? -1 : findWord(e, word);
+        if (result >= 0) {
+            return false;
+        }
+        if (size >= threshold) {
+            grow();
+            result = findWord(e, word);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        table[index] = e;
+        hashes[index] = word;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(table, null);
+    }
+
+    @Override
+    public CachedHashRobinHoodHashSet<E> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            CachedHashRobinHoodHashSet<E> that = (CachedHashRobinHoodHashSet<E>) super.clone();
+            that.table = this.table.clone();
+            that.hashes = this.hashes.clone();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new Object[capacity];
+        hashes = new int[capacity];
+    }
+
+    @Override
+    protected int find(Object expected) {
+        return capacity == 0 ? -1 : findWord(expected, hashWord(expected));
+    }
+
+    /**
+     * Searches for the specified element with the specified hash word.
+     * <p>
+     * Works like {@link #find(Object, int)}, but takes the sort-keys
+     * of the probed buckets from the cached hash words.
+     *
+     * @param expected the object to be found
+     * @param word     the hash word of the object
+     * @return the index of the bucket, or {@code ~index}
+     */
+    private int findWord(Object expected, int word) {
+        var h = fastRange(word, capacity);
+        var index = h;
+        var expectedKey = h;
+
+        while (true) {
+            var actual = table[index];
+            if (actual == null) {
+                return -index - 1;
+            }
+            var actualWord = hashes[index];
+            if (actualWord == word && isEqual(expected, actual)) {
+                return index;
+            }
+            var actualHash = fastRange(actualWord, capacity);
+            var actualKey = actualHash <= index ? actualHash : actualHash - capacity;
+            if (actualKey > expectedKey) {
+                return -index - 1;
+            } else {
+                if (++index == capacity) {
+                    index = 0;
+                    expectedKey = expectedKey - capacity;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected int getCost(int i) {
+        if (table[i] == null) {
+            return 0;
+        }
+        var h = fastRange(hashes[i], capacity);
+        return (h <= i) ? i - h : i - h + capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        var mc = modCount;
+        for (var e : table) {
+            if (e != null) {
+                action.accept((E) e);
+            }
+        }
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected E getKeyFromTable(int index) {
+        return (E) table[index];
+    }
+
+    /**
+     * Returns the hash strategy of this set.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super E> getHashStrategy() {
+        return strategy;
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(hashWord(e), length);
+    }
+
+    /**
+     * Computes the hash word of the specified element.
+     *
+     * @param e an element
+     * @return the hash word
+     */
+    protected int hashWord(Object e) {
+        return goldenRatioAvalanche(e == null ? 0 : strategy.hashCode(e));
+    }
+
+    protected boolean isEqual(Object a, Object b) {
+        return a == b || a != null && b != null && strategy.equals(a, b);
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldTable = table;
+        var oldHashes = hashes;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var i = 0; i < oldTable.length; i++) {
+            var o = oldTable[i];
+            if (o != null) {
+                var word = oldHashes[i];
+                var index = ~findWord(o, word);
+                shiftForInsertion(index);
+                table[index] = o;
+                hashes[index] = word;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return removeIfInTable(i -> filter.test((E) table[i]));
+    }
+
+    @Override
+    protected void setKeyInTable(int index, E e) {
+        table[index] = e;
+        hashes[index] = hashWord(e);
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        var end = shiftForInsertion1(index, table);
+        moveRight(hashes, 1, capacity, index, end);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = shiftForRemoval1(index, table);
+        moveLeft(hashes, 1, capacity, index, end);
+    }
+
+    /**
+     * Returns a spliterator over the buckets of the table, see
+     * {@link BucketSpliterator}.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new BucketSpliterator<>(this::getKeyFromTable, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table[index] = null;
+    }
+}
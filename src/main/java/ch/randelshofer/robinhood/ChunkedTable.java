@@ -0,0 +1,179 @@
+package ch.randelshofer.robinhood;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A table of buckets that is split into chunks, which can be shared with
+ * snapshots of the table. Each bucket consists of {@code 1} or {@code 2}
+ * object references.
+ * <p>
+ * {@link #snapshot()} creates a new table that shares all chunks with
+ * this table, and only copies the array of chunks. After a snapshot,
+ * neither table owns its chunks. The first write into a chunk that
+ * is not owned copies the chunk. The cost of a snapshot is thus
+ * proportional to the number of chunks, and the cost of a write is
+ * bounded by the size of a chunk.
+ */
+final class ChunkedTable implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * The base-2 logarithm of the number of buckets in a chunk.
+     */
+    static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final int capacity;
+    private final int words;
+    private final Object[][] chunks;
+    /**
+     * Whether this table is the only owner of a chunk.
+     */
+    private final boolean[] owned;
+
+    /**
+     * Allocates a table with the specified number of buckets.
+     * All references are initialized to null.
+     *
+     * @param capacity the number of buckets
+     * @param words    the number of references per bucket, must be 1 or 2
+     */
+    ChunkedTable(int capacity, int words) {
+        if (words != 1 && words != 2) {
+            throw new IllegalArgumentException("words=" + words);
+        }
+        this.capacity = capacity;
+        this.words = words;
+        var chunkCount = (capacity + CHUNK_MASK) >>> CHUNK_SHIFT;
+        chunks = new Object[chunkCount][];
+        owned = new boolean[chunkCount];
+        for (var i = 0; i < chunkCount; i++) {
+            chunks[i] = new Object[Math.min(capacity - (i << CHUNK_SHIFT), 1 << CHUNK_SHIFT) * words];
+        }
+        Arrays.fill(owned, true);
+    }
+
+    private ChunkedTable(ChunkedTable that) {
+        this.capacity = that.capacity;
+        this.words = that.words;
+        this.chunks = that.chunks.clone();
+        this.owned = new boolean[chunks.length];
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets a reference of a bucket.
+     *
+     * @param bucket the bucket index
+     * @param word   the word index, must be less than the number of words
+     * @return the reference
+     */
+    Object get(int bucket, int word) {
+        return chunks[bucket >>> CHUNK_SHIFT][(bucket & CHUNK_MASK) * words + word];
+    }
+
+    /**
+     * Sets a reference of a bucket. Copies the chunk of the bucket if it
+     * is shared.
+     *
+     * @param bucket the bucket index
+     * @param word   the word index, must be less than the number of words
+     * @param value  the new reference
+     */
+    void put(int bucket, int word, Object value) {
+        writableChunk(bucket >>> CHUNK_SHIFT)[(bucket & CHUNK_MASK) * words + word] = value;
+    }
+
+    /**
+     * Returns the specified chunk for writing. Copies the chunk if this
+     * table does not own it.
+     */
+    private Object[] writableChunk(int chunk) {
+        var c = chunks[chunk];
+        if (!owned[chunk]) {
+            c = chunks[chunk] = c.clone();
+            owned[chunk] = true;
+        }
+        return c;
+    }
+
+    /**
+     * Copies all references of bucket {@code from} into bucket {@code to}.
+     */
+    void copy(int from, int to) {
+        for (var w = 0; w < words; w++) {
+            put(to, w, get(from, w));
+        }
+    }
+
+    /**
+     * Sets all references of a bucket to null.
+     */
+    void clear(int bucket) {
+        for (var w = 0; w < words; w++) {
+            put(bucket, w, null);
+        }
+    }
+
+    /**
+     * Sets all references of all buckets to null. Replaces shared chunks
+     * by new chunks instead of copying them.
+     */
+    void clear() {
+        for (var i = 0; i < chunks.length; i++) {
+            if (owned[i]) {
+                Arrays.fill(chunks[i], null);
+            } else {
+                chunks[i] = new Object[chunks[i].length];
+                owned[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Moves the buckets in the range {@code [index, end)} one bucket to
+     * the right, wrapping around at the end of the table.
+     * <p>
+     * Works like {@link AbstractRobinHoodHashing#moveRight}.
+     */
+    void moveRight(int index, int end) {
+        for (var i = end; i != index; ) {
+            var prev = i == 0 ? capacity - 1 : i - 1;
+            copy(prev, i);
+            i = prev;
+        }
+    }
+
+    /**
+     * Moves the buckets in the range {@code (index, end)} one bucket to
+     * the left, wrapping around at the end of the table.
+     * <p>
+     * Works like {@link AbstractRobinHoodHashing#moveLeft}.
+     */
+    void moveLeft(int index, int end) {
+        var i = index;
+        var next = i == capacity - 1 ? 0 : i + 1;
+        while (next != end) {
+            copy(next, i);
+            i = next;
+            next = i == capacity - 1 ? 0 : i + 1;
+        }
+    }
+
+    /**
+     * Creates a snapshot of this table, which shares all chunks with this
+     * table. Afterwards, both tables copy a chunk when they write into it
+     * for the first time.
+     *
+     * @return a new table
+     */
+    ChunkedTable snapshot() {
+        Arrays.fill(owned, false);
+        return new ChunkedTable(this);
+    }
+}
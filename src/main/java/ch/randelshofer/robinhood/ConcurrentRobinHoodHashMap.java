@@ -0,0 +1,662 @@
+package ch.randelshofer.robinhood;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.murmur3Avalanche;
+
+/**
+ * Concurrent Robin Hood Hash Map.
+ * <ul>
+ * <li>Partitions the keys into segments. Each segment is a
+ * {@link RobinHoodHashMap} with its own table, which grows and shrinks
+ * independently of the other segments.</li>
+ * <li>Each segment is guarded by its own {@link StampedLock}. Writers only
+ * block readers and writers of the same segment.</li>
+ * <li>{@link #get} and {@link #containsKey} do not lock. They read the
+ * segment optimistically, and then validate that no writer has modified
+ * the segment in the meantime. Only if the validation fails, they read
+ * the segment again with a read lock. A writer may shift a cluster of
+ * the table while an optimistic reader probes it, so the reader may
+ * miss its key or may even fail; both outcomes are detected by the
+ * validation. This makes the map well suited for read-mostly data.</li>
+ * <li>Keys are distinguished by their {@link Object#equals} method, and
+ * are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
+ * <li>The segment of a key is selected by the high bits of the
+ * {@link AvalancheAlgorithms#murmur3Avalanche} of its hash code. The
+ * segments distribute the keys over their buckets with
+ * {@link AvalancheAlgorithms#goldenRatioAvalanche}, so that the keys of
+ * a segment do not cluster in a part of its table.</li>
+ * <li>Iterators are weakly consistent: they never throw a
+ * {@link java.util.ConcurrentModificationException}. An iterator
+ * copies the entries of one segment at a time, and reflects the state
+ * of that segment at the time it was copied.</li>
+ * <li>Functions that are passed to {@code compute}, {@code merge} and
+ * similar methods are called while the segment is write-locked. They
+ * must be short and must not modify this map. They may read the map.</li>
+ * <li>Does not allow {@code null} keys or values.</li>
+ * </ul>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ConcurrentRobinHoodHashMap<K, V> extends AbstractMap<K, V>
+        implements ConcurrentMap<K, V>, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * The maximal number of segments.
+     */
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    private final Segment<K, V>[] segments;
+    /**
+     * The number of bits that a hash word is shifted right to obtain
+     * a segment index.
+     */
+    private final int segmentShift;
+    private final HashStrategy<Object> strategy;
+    private transient Set<Entry<K, V>> entrySet;
+    private transient Set<K> keySet;
+
+    /**
+     * Creates a new, empty map with the default expected size (0),
+     * the default load factor (0.5), and a default concurrency level of
+     * four times the number of available processors.
+     */
+    public ConcurrentRobinHoodHashMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a new, empty map with the specified expected size, the
+     * default load factor (0.5), and the default concurrency level.
+     *
+     * @param expectedSize the expected size of the map
+     * @throws IllegalArgumentException if the expected size is less than zero
+     */
+    public ConcurrentRobinHoodHashMap(int expectedSize) {
+        this(expectedSize, 0.5f);
+    }
+
+    /**
+     * Creates a new, empty map with the specified expected size and load
+     * factor, and the default concurrency level.
+     *
+     * @param expectedSize the expected size of the map
+     * @param loadFactor   the load factor of each segment
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    public ConcurrentRobinHoodHashMap(int expectedSize, float loadFactor) {
+        this(expectedSize, loadFactor, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new, empty map with the specified expected size, load
+     * factor and concurrency level.
+     *
+     * @param expectedSize     the expected size of the map
+     * @param loadFactor       the load factor of each segment
+     * @param concurrencyLevel the estimated number of concurrently updating
+     *                         threads, the number of segments is the next
+     *                         power of two
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  if the load factor is non-positive, or
+     *                                  if the concurrency level is not positive
+     */
+    public ConcurrentRobinHoodHashMap(int expectedSize, float loadFactor, int concurrencyLevel) {
+        this(expectedSize, loadFactor, concurrencyLevel, HashStrategy.defaultStrategy());
+    }
+
+    /**
+     * Creates a new, empty map with the default expected size (0), the
+     * default load factor (0.5), the default concurrency level, and the
+     * specified strategy for the keys.
+     *
+     * @param strategy the hash strategy
+     */
+    public ConcurrentRobinHoodHashMap(HashStrategy<? super K> strategy) {
+        this(0, 0.5f, 4 * Runtime.getRuntime().availableProcessors(), strategy);
+    }
+
+    /**
+     * Creates a new, empty map with the specified expected size, load
+     * factor, concurrency level and strategy for the keys.
+     *
+     * @param expectedSize     the expected size of the map
+     * @param loadFactor       the load factor of each segment
+     * @param concurrencyLevel the estimated number of concurrently updating
+     *                         threads, the number of segments is the next
+     *                         power of two
+     * @param strategy         the hash strategy
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  if the load factor is non-positive, or
+     *                                  if the concurrency level is not positive
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentRobinHoodHashMap(int expectedSize, float loadFactor, int concurrencyLevel,
+                                      HashStrategy<? super K> strategy) {
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize=" + expectedSize);
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel=" + concurrencyLevel);
+        }
+        var level = Math.min(MAX_SEGMENTS, concurrencyLevel);
+        var segmentCount = level == 1 ? 1 : Integer.highestOneBit(level - 1) << 1;
+        segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        var segmentSize = (int) ((expectedSize + segmentCount - 1L) / segmentCount);
+        for (var i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentSize, loadFactor, strategy);
+        }
+    }
+
+    /**
+     * Creates a new map with the entries of the specified map.
+     *
+     * @param m a map
+     * @throws NullPointerException if a key or a value is null
+     */
+    public ConcurrentRobinHoodHashMap(Map<? extends K, ? extends V> m) {
+        this(m.size());
+        putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        for (var s : segments) {
+            s.write(m -> {
+                m.clear();
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        return segmentFor(key).write(m -> m.compute(key, remappingFunction));
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        return segmentFor(key).write(m -> m.computeIfAbsent(key, mappingFunction));
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        return segmentFor(key).write(m -> m.computeIfPresent(key, remappingFunction));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        Objects.requireNonNull(value);
+        for (var s : segments) {
+            if (s.read(m -> m.containsValue(value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        var es = entrySet;
+        return es != null ? es : (entrySet = new EntrySet());
+    }
+
+    /**
+     * Performs the given action for each entry. Like the iterators, this
+     * method copies the entries of one segment at a time, and calls the
+     * action after the segment has been unlocked. The action may
+     * therefore modify this map.
+     *
+     * @param action the action
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        for (var s : segments) {
+            var keysAndValues = s.read(AbstractRobinHoodHashMap::toArray);
+            for (var i = 0; i < keysAndValues.length; i += 2) {
+                action.accept((K) keysAndValues[i], (V) keysAndValues[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null.
+     * <p>
+     * Does not lock, unless a writer modifies the segment of the key
+     * concurrently.
+     *
+     * @param key a key
+     * @return the value or null
+     * @throws NullPointerException if the key is null
+     */
+    @Override
+    public V get(Object key) {
+        return segmentFor(key).get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        var value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Returns the hash strategy of the keys of this map.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super K> getHashStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the number of segments.
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (var s : segments) {
+            if (s.size() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        var ks = keySet;
+        return ks != null ? ks : (keySet = new KeySet());
+    }
+
+    /**
+     * Returns the number of entries as a {@code long}. The segments are
+     * counted one after the other, so the result is only an estimate if
+     * the map is modified concurrently.
+     *
+     * @return the number of entries
+     */
+    public long mappingCount() {
+        long n = 0;
+        for (var s : segments) {
+            n += s.size();
+        }
+        return n;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        return segmentFor(key).write(m -> m.merge(key, value, remappingFunction));
+    }
+
+    /**
+     * Creates a new, empty concurrent set, which is backed by a
+     * {@code ConcurrentRobinHoodHashMap}.
+     *
+     * @param <K> the element type
+     * @return a new set
+     */
+    public static <K> Set<K> newKeySet() {
+        return Collections.newSetFromMap(new ConcurrentRobinHoodHashMap<>());
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        return segmentFor(key).write(m -> m.put(key, value));
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        return segmentFor(key).write(m -> m.putIfAbsent(key, value));
+    }
+
+    @Override
+    public V remove(Object key) {
+        return segmentFor(key).write(m -> m.remove(key));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        var s = segmentFor(key);
+        return value != null && s.write(m -> m.remove(key, value));
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Objects.requireNonNull(value);
+        return segmentFor(key).write(m -> m.replace(key, value));
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        return segmentFor(key).write(m -> m.replace(key, oldValue, newValue));
+    }
+
+    /**
+     * Replaces the value of each entry. The function is called while the
+     * segment of the entry is write-locked.
+     *
+     * @param function the function
+     * @throws NullPointerException if the function returns null
+     */
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        for (var s : segments) {
+            s.write(m -> {
+                m.replaceAll((k, v) -> Objects.requireNonNull(function.apply(k, v)));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Returns the segment of the specified key.
+     *
+     * @param key a key
+     * @return the segment
+     * @throws NullPointerException if the key is null
+     */
+    private Segment<K, V> segmentFor(Object key) {
+        return segments[murmur3Avalanche(strategy.hashCode(Objects.requireNonNull(key))) >>> segmentShift & (segments.length - 1)];
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, mappingCount());
+    }
+
+    /**
+     * A segment of the map.
+     * <p>
+     * {@link StampedLock} is not reentrant. The segment remembers the
+     * thread that holds its write lock, so that a function that is called
+     * by a writer can read the segment, and fails when it tries to
+     * modify it.
+     */
+    private static final class Segment<K, V> extends StampedLock {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final RobinHoodHashMap<K, V> map;
+        /**
+         * The thread that holds the write lock, or null.
+         */
+        private transient Thread writer;
+
+        Segment(int expectedSize, float loadFactor, HashStrategy<? super K> strategy) {
+            map = new RobinHoodHashMap<>(expectedSize, loadFactor, strategy,
+                    Avalanche.GOLDEN_RATIO, RangeReduction.FAST_RANGE);
+        }
+
+        /**
+         * Gets the value of the specified key with an optimistic read.
+         * Reads again with a read lock if a writer has interfered.
+         * <p>
+         * An exception that is thrown during the optimistic read is only
+         * ignored, if a writer has interfered. Otherwise, it has been
+         * thrown by the key, and is rethrown.
+         */
+        V get(Object key) {
+            var stamp = tryOptimisticRead();
+            if (stamp != 0) {
+                V value;
+                try {
+                    value = map.get(key);
+                } catch (RuntimeException e) {
+                    if (validate(stamp)) {
+                        throw e;
+                    }
+                    // The table was modified while we probed it.
+                    return read(m -> m.get(key));
+                }
+                if (validate(stamp)) {
+                    return value;
+                }
+            }
+            return read(m -> m.get(key));
+        }
+
+        /**
+         * Applies the specified function to the map with a read lock.
+         */
+        <R> R read(Function<? super RobinHoodHashMap<K, V>, R> function) {
+            if (writer == Thread.currentThread()) {
+                return function.apply(map);
+            }
+            var stamp = readLock();
+            try {
+                return function.apply(map);
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+
+        int size() {
+            var stamp = tryOptimisticRead();
+            var size = map.size();
+            return validate(stamp) ? size : read(RobinHoodHashMap::size);
+        }
+
+        /**
+         * Applies the specified function to the map with a write lock.
+         *
+         * @throws IllegalStateException if the current thread already holds
+         *                               the write lock
+         */
+        <R> R write(Function<? super RobinHoodHashMap<K, V>, R> function) {
+            if (writer == Thread.currentThread()) {
+                throw new IllegalStateException("Recursive update");
+            }
+            var stamp = writeLock();
+            writer = Thread.currentThread();
+            try {
+                return function.apply(map);
+            } finally {
+                writer = null;
+                unlockWrite(stamp);
+            }
+        }
+
+        @Serial
+        private void writeObject(ObjectOutputStream s) throws IOException {
+            var stamp = readLock();
+            try {
+                s.defaultWriteObject();
+            } finally {
+                unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Iterates over the entries, one copy of a segment at a time.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int segmentIndex;
+        /**
+         * The keys and values of the current segment, see
+         * {@link AbstractRobinHoodHashMap#toArray()}.
+         */
+        private Object[] keysAndValues = new Object[0];
+        private int index;
+        private K lastKey;
+
+        @Override
+        public boolean hasNext() {
+            while (index == keysAndValues.length && segmentIndex < segments.length) {
+                keysAndValues = segments[segmentIndex++].read(AbstractRobinHoodHashMap::toArray);
+                index = 0;
+            }
+            return index < keysAndValues.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var key = (K) keysAndValues[index];
+            var value = (V) keysAndValues[index + 1];
+            index += 2;
+            lastKey = key;
+            return new WriteThroughEntry(key, value);
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentRobinHoodHashMap.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * An entry that writes its value through to the map.
+     */
+    private class WriteThroughEntry extends SimpleEntry<K, V> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            Objects.requireNonNull(value);
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public void clear() {
+            ConcurrentRobinHoodHashMap.this.clear();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry<?, ?> e) || e.getKey() == null) {
+                return false;
+            }
+            var value = get(e.getKey());
+            return value != null && value.equals(e.getValue());
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ConcurrentRobinHoodHashMap.this.isEmpty();
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return o instanceof Entry<?, ?> e && e.getKey() != null
+                    && ConcurrentRobinHoodHashMap.this.remove(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentRobinHoodHashMap.this.size();
+        }
+    }
+
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public void clear() {
+            ConcurrentRobinHoodHashMap.this.clear();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ConcurrentRobinHoodHashMap.this.isEmpty();
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            var it = new EntryIterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public K next() {
+                    return it.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    it.remove();
+                }
+            };
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return ConcurrentRobinHoodHashMap.this.remove(o) != null;
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentRobinHoodHashMap.this.size();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Map with copy-on-write snapshots.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
+ * <li>Stores the table in chunks of 2<sup>10</sup> buckets, see
+ * {@link ChunkedTable}. {@link #snapshot()} and {@link #clone()} share
+ * the chunks with the new map, and only copy the array of chunks. The
+ * first modification of a chunk after a snapshot copies that chunk.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} keys.</li>
+ * </ul>
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class CopyOnWriteRobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V> {
+    private ChunkedTable table;
+    private HashStrategy<Object> strategy = HashStrategy.defaultStrategy();
+
+    public CopyOnWriteRobinHoodHashMap() {
+    }
+
+    public CopyOnWriteRobinHoodHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public CopyOnWriteRobinHoodHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    /**
+     * Creates a new, empty map with the default expected size (0),
+     * default load factor (0.5), and the specified strategy for the keys.
+     *
+     * @param strategy the hash strategy
+     */
+    public CopyOnWriteRobinHoodHashMap(HashStrategy<? super K> strategy) {
+        this(0, 0.5f, strategy);
+    }
+
+    /**
+     * Creates a new, empty map with the specified expected size, load
+     * factor and strategy for the keys.
+     *
+     * @param expectedSize the expected size of the map
+     * @param loadFactor   the load factor of the map
+     * @param strategy     the hash strategy
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    @SuppressWarnings("unchecked")
+    public CopyOnWriteRobinHoodHashMap(int expectedSize, float loadFactor, HashStrategy<? super K> strategy) {
+        super(expectedSize, loadFactor);
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+    }
+
+    public CopyOnWriteRobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries, int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+        for (Entry<? extends K, ? extends V> entry : entries) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public CopyOnWriteRobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        this(entries, entries.size(), 0.5f);
+    }
+
+    public CopyOnWriteRobinHoodHashMap(Map<? extends K, ? extends V> m) {
+        this(m.entrySet());
+    }
+
+    @Override
+    protected void clearTable() {
+        table.clear();
+    }
+
+    /**
+     * Returns a copy of this map, which shares the chunks of the table
+     * with this map, see {@link #snapshot()}.
+     */
+    @Override
+    public CopyOnWriteRobinHoodHashMap<K, V> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            CopyOnWriteRobinHoodHashMap<K, V> that = (CopyOnWriteRobinHoodHashMap<K, V>) super.clone();
+            that.table = this.table.snapshot();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new ChunkedTable(capacity, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected K getKeyFromTable(int index) {
+        return (K) table.get(index, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V getValueFromTable(int index) {
+        return (V) table.get(index, 1);
+    }
+
+    /**
+     * Returns the hash strategy of the keys of this map.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super K> getHashStrategy() {
+        return strategy;
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche(e == null ? 0 : strategy.hashCode(e)), length);
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return a == b || a != null && b != null && strategy.equals(a, b);
+    }
+
+    /**
+     * Removes the entries with a single sweep, see
+     * {@link #removeIfInTable}. The filter gets the same entry object for
+     * all buckets, it must not keep a reference to it.
+     */
+    @Override
+    protected boolean removeEntriesIf(Predicate<? super Entry<K, V>> filter) {
+        Objects.requireNonNull(filter);
+        var entry = new BucketEntry();
+        return removeIfInTable(i -> {
+            entry.index = i;
+            return filter.test(entry);
+        });
+    }
+
+    @Override
+    protected void setKeyInTable(int index, K k) {
+        table.put(index, 0, k);
+    }
+
+    @Override
+    protected void setValueInTable(int index, V value) {
+        table.put(index, 1, value);
+    }
+
+    @Override
+    protected void setValueTable(int index, V value) {
+        table.put(index, 1, value);
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        if (table.get(index, 0) == null) {
+            return;
+        }
+        var end = index < capacity - 1 ? index + 1 : 0;
+        while (table.get(end, 0) != null) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+        table.moveRight(index, end);
+        table.clear(index);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = index + 1 == capacity ? 0 : index + 1;
+        while (getCost(end) != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+        table.moveLeft(index, end);
+        table.clear(end == 0 ? capacity - 1 : end - 1);
+    }
+
+    /**
+     * Returns a copy of this map in time proportional to the number of
+     * chunks of the table. The copy and this map share the chunks, until
+     * one of them modifies a chunk.
+     *
+     * @return a copy of this map
+     */
+    public CopyOnWriteRobinHoodHashMap<K, V> snapshot() {
+        return clone();
+    }
+
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        var index = 0;
+        for (var i = 0; i < capacity; i++) {
+            var k = table.get(i, 0);
+            if (k != null) {
+                r[index] = k;
+                r[index + 1] = table.get(i, 1);
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table.clear(index);
+    }
+}
@@ -0,0 +1,212 @@
+package ch.randelshofer.robinhood;
+
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Set with copy-on-write snapshots.
+ * <ul>
+ * <li>Supports up to 2<sup>30</sup> elements.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
+ * <li>Stores the table in chunks of 2<sup>10</sup> buckets, see
+ * {@link ChunkedTable}. {@link #snapshot()} and {@link #clone()} share
+ * the chunks with the new set, and only copy the array of chunks. The
+ * first modification of a chunk after a snapshot copies that chunk.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} values.</li>
+ * </ul>
+ */
+public class CopyOnWriteRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E>
+        implements Cloneable {
+
+    private ChunkedTable table;
+    private HashStrategy<Object> strategy = HashStrategy.defaultStrategy();
+
+
+    /**
+     * Creates a new, empty set with the default expected size (0)
+     * and default load factor (0.5).
+     */
+    public CopyOnWriteRobinHoodHashSet() {
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and default load factor (0.5).
+     *
+     * @param expectedSize the expected size of the set
+     * @throws IllegalArgumentException if the expected size is less than zero
+     */
+    public CopyOnWriteRobinHoodHashSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and load factor.
+     *
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    public CopyOnWriteRobinHoodHashSet(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    /**
+     * Creates a new, empty set with the default expected size (0),
+     * default load factor (0.5), and the specified strategy.
+     *
+     * @param strategy the hash strategy
+     */
+    public CopyOnWriteRobinHoodHashSet(HashStrategy<? super E> strategy) {
+        this(0, 0.5f, strategy);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size, load
+     * factor and strategy.
+     *
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @param strategy     the hash strategy
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    @SuppressWarnings("unchecked")
+    public CopyOnWriteRobinHoodHashSet(int expectedSize, float loadFactor, HashStrategy<? super E> strategy) {
+        super(expectedSize, loadFactor);
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+    }
+
+    public CopyOnWriteRobinHoodHashSet(Collection<? extends E> c) {
+        super(c);
+    }
+
+    public CopyOnWriteRobinHoodHashSet(Collection<? extends E> c, int expectedSize, float loadFactor) {
+        super(c, expectedSize, loadFactor);
+    }
+
+    @Override
+    protected void clearTable() {
+        table.clear();
+    }
+
+    /**
+     * Returns a copy of this set, which shares the chunks of the table
+     * with this set, see {@link #snapshot()}.
+     */
+    @Override
+    public CopyOnWriteRobinHoodHashSet<E> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            CopyOnWriteRobinHoodHashSet<E> that = (CopyOnWriteRobinHoodHashSet<E>) super.clone();
+            that.table = this.table.snapshot();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new ChunkedTable(capacity, 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected E getKeyFromTable(int index) {
+        return (E) table.get(index, 0);
+    }
+
+    /**
+     * Returns the hash strategy of this set.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super E> getHashStrategy() {
+        return strategy;
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche(e == null ? 0 : strategy.hashCode(e)), length);
+    }
+
+    protected boolean isEqual(Object a, Object b) {
+        return a == b || a != null && b != null && strategy.equals(a, b);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return removeIfInTable(i -> filter.test((E) table.get(i, 0)));
+    }
+
+    @Override
+    protected void setKeyInTable(int index, E e) {
+        table.put(index, 0, e);
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        if (table.get(index, 0) == null) {
+            return;
+        }
+        var end = index < capacity - 1 ? index + 1 : 0;
+        while (table.get(end, 0) != null) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+        table.moveRight(index, end);
+        table.clear(index);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = index + 1 == capacity ? 0 : index + 1;
+        while (getCost(end) != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+        table.moveLeft(index, end);
+        table.clear(end == 0 ? capacity - 1 : end - 1);
+    }
+
+    /**
+     * Returns a copy of this set in time proportional to the number of
+     * chunks of the table. The copy and this set share the chunks, until
+     * one of them modifies a chunk.
+     *
+     * @return a copy of this set
+     */
+    public CopyOnWriteRobinHoodHashSet<E> snapshot() {
+        return clone();
+    }
+
+    /**
+     * Returns a spliterator over the buckets of the table, see
+     * {@link BucketSpliterator}.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new BucketSpliterator<>(this::getKeyFromTable, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table.clear(index);
+    }
+}
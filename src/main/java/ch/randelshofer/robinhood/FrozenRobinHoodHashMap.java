@@ -0,0 +1,390 @@
+package ch.randelshofer.robinhood;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Immutable Robin Hood Hash Map.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method.</li>
+ * <li>Is built once with {@link #copyOf}, all mutating methods throw
+ * {@link UnsupportedOperationException}.</li>
+ * <li>Uses a default load factor of 0.875, because there are no
+ * insertions that would have to shift clusters.</li>
+ * <li>Stores the largest cost of all entries. A lookup probes at most
+ * that many buckets after the home bucket. The first buckets of the table
+ * are repeated after its end, so that a lookup never wraps around.</li>
+ * <li>Stores a metadata byte per bucket, like
+ * {@link MetadataRobinHoodHashMap}, so that a lookup compares only
+ * keys with a matching tag.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} keys.</li>
+ * </ul>
+ *
+ * @param <K>
+ * @param <V>
+ */
+public final class FrozenRobinHoodHashMap<K, V> extends AbstractRobinHoodHashMap<K, V> implements Map<K, V> {
+    /**
+     * The table, followed by a copy of its first {@link #maxCost} buckets.
+     */
+    private Object[] table;
+    /**
+     * The metadata of the buckets in {@link #table}, followed by
+     * {@link MetadataTable#PADDING} zero bytes.
+     */
+    private MetadataTable metadata;
+    /**
+     * The largest cost of all entries in the table.
+     */
+    private int maxCost;
+
+    private FrozenRobinHoodHashMap(Object[] keysAndValues, boolean distinct, float loadFactor) {
+        super(keysAndValues.length / 2, loadFactor);
+        buildTable2(table, keysAndValues, keysAndValues.length / 2, distinct);
+        maxCost = Math.max(0, getCostStatistics().getMax());
+        metadata = new MetadataTable(capacity, capacity + maxCost + MetadataTable.PADDING);
+        for (var i = 0; i < capacity; i++) {
+            if (table[i * 2] != null) {
+                metadata.set(i, computeCost(i), hashWord(table[i * 2]));
+            }
+        }
+        table = Arrays.copyOf(table, (capacity + maxCost) * 2);
+        System.arraycopy(table, 0, table, capacity * 2, maxCost * 2);
+        metadata.repeat(maxCost);
+    }
+
+    /**
+     * Returns an immutable map with the entries of the specified map, and
+     * default load factor (0.875).
+     * <p>
+     * Returns the map itself, if it is a {@code FrozenRobinHoodHashMap}.
+     *
+     * @param m   a map
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return an immutable map
+     * @throws NullPointerException if the map contains a null key
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> FrozenRobinHoodHashMap<K, V> copyOf(Map<? extends K, ? extends V> m) {
+        if (m instanceof FrozenRobinHoodHashMap<?, ?> f) {
+            return (FrozenRobinHoodHashMap<K, V>) f;
+        }
+        return copyOf(m, 0.875f);
+    }
+
+    /**
+     * Returns an immutable map with the entries of the specified map, and
+     * the specified load factor.
+     * <p>
+     * The table is built in a single pass, see
+     * {@link RobinHoodHashMap#copyOf}.
+     *
+     * @param m          a map
+     * @param loadFactor the load factor of the map
+     * @param <K>        the key type
+     * @param <V>        the value type
+     * @return an immutable map
+     * @throws NullPointerException     if the map contains a null key
+     * @throws IllegalArgumentException if the load factor is non-positive
+     */
+    public static <K, V> FrozenRobinHoodHashMap<K, V> copyOf(Map<? extends K, ? extends V> m, float loadFactor) {
+        var keysAndValues = new Object[m.size() * 2];
+        var i = 0;
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            if (i == keysAndValues.length) {
+                keysAndValues = Arrays.copyOf(keysAndValues, Math.max(2, i * 2));
+            }
+            keysAndValues[i++] = entry.getKey();
+            keysAndValues[i++] = entry.getValue();
+        }
+        if (i != keysAndValues.length) {
+            keysAndValues = Arrays.copyOf(keysAndValues, i);
+        }
+        return new FrozenRobinHoodHashMap<>(keysAndValues, isDistinct(m), loadFactor);
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void clearTable() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return lookup(key) >= 0;
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new Object[capacity * 2];
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        for (var i = 0; i < capacity * 2; i += 2) {
+            var k = table[i];
+            if (k != null) {
+                action.accept((K) k, (V) table[i + 1]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        var index = lookup(key);
+        return index < 0 ? null : (V) table[index * 2 + 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        var index = lookup(key);
+        return index < 0 ? defaultValue : (V) table[index * 2 + 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected K getKeyFromTable(int index) {
+        return (K) table[index * 2];
+    }
+
+    /**
+     * Returns the largest number of buckets that a lookup probes after
+     * the home bucket.
+     *
+     * @return the largest cost of all entries
+     */
+    public int getMaxCost() {
+        return maxCost;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V getValueFromTable(int index) {
+        return (V) table[index * 2 + 1];
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(hashWord(e), length);
+    }
+
+    /**
+     * Computes the hash word of the specified key, see
+     * {@link MetadataRobinHoodHashSet#hashWord}.
+     */
+    private int hashWord(Object e) {
+        return goldenRatioAvalanche(Objects.hashCode(e));
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * Returns true if the keys of the map are distinct by their
+     * {@link Object#equals} method, because of its class.
+     */
+    private static boolean isDistinct(Map<?, ?> m) {
+        return RobinHoodHashMap.isDistinct(m) || m.getClass() == FrozenRobinHoodHashMap.class;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    /**
+     * Returns the bucket of the specified key, or -1 if the key is absent.
+     * <p>
+     * Probes at most {@link #maxCost} buckets after the home bucket, see
+     * {@link MetadataTable#findPadded}. The returned bucket may be one of the
+     * copies after the end of the table.
+     */
+    private int lookup(Object key) {
+        if (key == null || size == 0) {
+            return -1;
+        }
+        var word = hashWord(key);
+        return metadata.findPadded(this, key, fastRange(word, capacity), word & MetadataTable.TAG_MASK, maxCost);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void setKeyInTable(int index, K key) {
+        table[index * 2] = key;
+    }
+
+    @Override
+    protected void setValueInTable(int index, V value) {
+        table[index * 2 + 1] = value;
+    }
+
+    @Override
+    protected void setValueTable(int index, V value) {
+        table[index * 2 + 1] = value;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        shiftForInsertion2(index, table);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        var index = 0;
+        for (var i = 0; i < capacity * 2; i += 2) {
+            if (table[i] != null) {
+                r[index] = table[i];
+                r[index + 1] = table[i + 1];
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new Values();
+    }
+
+    private class KeySetIterator extends ReadOnlyMapIterator implements Iterator<K> {
+        @Override
+        public K next() {
+            return move().getKey();
+        }
+    }
+
+    private class ValuesIterator extends ReadOnlyMapIterator implements Iterator<V> {
+        @Override
+        public V next() {
+            return move().getValue();
+        }
+    }
+
+    private class EntrySetIterator extends ReadOnlyMapIterator implements Iterator<Entry<K, V>> {
+        @Override
+        public Entry<K, V> next() {
+            return move();
+        }
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        public Iterator<K> iterator() {
+            return new KeySetIterator();
+        }
+
+        public int size() {
+            return FrozenRobinHoodHashMap.this.size();
+        }
+
+        @Override
+        public Spliterator<K> spliterator() {
+            return new BucketSpliterator<>(FrozenRobinHoodHashMap.this::getKeyFromTable,
+                    Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        public Iterator<V> iterator() {
+            return new ValuesIterator();
+        }
+
+        public int size() {
+            return FrozenRobinHoodHashMap.this.size();
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new BucketSpliterator<>(FrozenRobinHoodHashMap.this::getValueFromTable, Spliterator.IMMUTABLE);
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry<?, ?> e)) {
+                return false;
+            }
+            var index = lookup(e.getKey());
+            return index >= 0 && Objects.equals(table[index * 2 + 1], e.getValue());
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntrySetIterator();
+        }
+
+        @Override
+        public int size() {
+            return FrozenRobinHoodHashMap.this.size();
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return new BucketSpliterator<>(i -> new AbstractMap.SimpleImmutableEntry<>(getKeyFromTable(i), getValueFromTable(i)),
+                    Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        }
+    }
+}
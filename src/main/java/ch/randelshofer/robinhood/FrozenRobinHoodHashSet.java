@@ -0,0 +1,265 @@
+package ch.randelshofer.robinhood;
+
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Immutable Robin Hood Hash Set.
+ * <ul>
+ * <li>Supports up to 2<sup>30</sup> elements.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method.</li>
+ * <li>Is built once with {@link #copyOf} or {@link #of}, all mutating
+ * methods throw {@link UnsupportedOperationException}.</li>
+ * <li>Uses a default load factor of 0.875, because there are no
+ * insertions that would have to shift clusters.</li>
+ * <li>Stores the largest cost of all elements. A lookup probes at most
+ * that many buckets after the home bucket. The first buckets of the table
+ * are repeated after its end, so that a lookup never wraps around.</li>
+ * <li>Stores a metadata byte per bucket, like
+ * {@link MetadataRobinHoodHashSet}, so that a lookup compares only
+ * elements with a matching tag.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} values.</li>
+ * </ul>
+ */
+public final class FrozenRobinHoodHashSet<E> extends AbstractRobinHoodHashSet<E>
+        implements Set<E> {
+
+    private static final FrozenRobinHoodHashSet<?> EMPTY = new FrozenRobinHoodHashSet<>(new Object[0], true, 0.875f);
+
+    /**
+     * The table, followed by a copy of its first {@link #maxCost} buckets.
+     */
+    private Object[] table;
+    /**
+     * The metadata of the buckets in {@link #table}, followed by
+     * {@link MetadataTable#PADDING} zero bytes.
+     */
+    private MetadataTable metadata;
+    /**
+     * The largest cost of all elements in the table.
+     */
+    private int maxCost;
+
+    private FrozenRobinHoodHashSet(Object[] elements, boolean distinct, float loadFactor) {
+        super(elements.length, loadFactor);
+        buildTable1(table, elements, elements.length, distinct);
+        maxCost = Math.max(0, getCostStatistics().getMax());
+        metadata = new MetadataTable(capacity, capacity + maxCost + MetadataTable.PADDING);
+        for (var i = 0; i < capacity; i++) {
+            if (table[i] != null) {
+                metadata.set(i, computeCost(i), hashWord(table[i]));
+            }
+        }
+        table = Arrays.copyOf(table, capacity + maxCost);
+        System.arraycopy(table, 0, table, capacity, maxCost);
+        metadata.repeat(maxCost);
+    }
+
+    /**
+     * Returns an immutable set with the elements of the specified
+     * collection, and default load factor (0.875).
+     * <p>
+     * Returns the collection itself, if it is a
+     * {@code FrozenRobinHoodHashSet}.
+     *
+     * @param c   a collection
+     * @param <E> the element type
+     * @return an immutable set
+     * @throws NullPointerException if the collection contains a null element
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> FrozenRobinHoodHashSet<E> copyOf(Collection<? extends E> c) {
+        if (c instanceof FrozenRobinHoodHashSet<?> s) {
+            return (FrozenRobinHoodHashSet<E>) s;
+        }
+        return copyOf(c, 0.875f);
+    }
+
+    /**
+     * Returns an immutable set with the elements of the specified
+     * collection, and the specified load factor.
+     * <p>
+     * The table is built in a single pass, see
+     * {@link RobinHoodHashSet#copyOf}. Duplicate elements are ignored.
+     *
+     * @param c          a collection
+     * @param loadFactor the load factor of the set
+     * @param <E>        the element type
+     * @return an immutable set
+     * @throws NullPointerException     if the collection contains a null
+     *                                  element
+     * @throws IllegalArgumentException if the load factor is non-positive
+     */
+    public static <E> FrozenRobinHoodHashSet<E> copyOf(Collection<? extends E> c, float loadFactor) {
+        return new FrozenRobinHoodHashSet<>(c.toArray(), isDistinct(c), loadFactor);
+    }
+
+    /**
+     * Returns an immutable set with the specified elements, see
+     * {@link #copyOf}.
+     *
+     * @param elements the elements
+     * @param <E>      the element type
+     * @return an immutable set
+     * @throws NullPointerException if an element is null
+     */
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    public static <E> FrozenRobinHoodHashSet<E> of(E... elements) {
+        return elements.length == 0 ? (FrozenRobinHoodHashSet<E>) EMPTY
+                : new FrozenRobinHoodHashSet<>(Arrays.copyOf(elements, elements.length, Object[].class),
+                false, 0.875f);
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void clearTable() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Probes at most {@link #maxCost} buckets after the home bucket, see
+     * {@link MetadataTable#findPadded}.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (o == null || size == 0) {
+            return false;
+        }
+        var word = hashWord(o);
+        return metadata.findPadded(this, o, fastRange(word, capacity), word & MetadataTable.TAG_MASK, maxCost) >= 0;
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        for (var i = 0; i < capacity; i++) {
+            var e = table[i];
+            if (e != null) {
+                action.accept((E) e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected E getKeyFromTable(int index) {
+        return (E) table[index];
+    }
+
+    /**
+     * Returns the largest number of buckets that a lookup probes after
+     * the home bucket.
+     *
+     * @return the largest cost of all elements
+     */
+    public int getMaxCost() {
+        return maxCost;
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(hashWord(e), length);
+    }
+
+    /**
+     * Computes the hash word of the specified element, see
+     * {@link MetadataRobinHoodHashSet#hashWord}.
+     */
+    private int hashWord(Object e) {
+        return goldenRatioAvalanche(Objects.hashCode(e));
+    }
+
+    protected boolean isEqual(Object a, Object b) {
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * Returns true if the elements of the collection are distinct by their
+     * {@link Object#equals} method, because of its class.
+     */
+    private static boolean isDistinct(Collection<?> c) {
+        return RobinHoodHashSet.isDistinct(c) || c.getClass() == FrozenRobinHoodHashSet.class;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void setKeyInTable(int index, E e) {
+        table[index] = e;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        shiftForInsertion1(index, table);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns a spliterator over the buckets of the table, see
+     * {@link BucketSpliterator}.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new BucketSpliterator<>(this::getKeyFromTable,
+                Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,33 @@
+package ch.randelshofer.robinhood;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link HashStrategy} that delegates to a pair of functions.
+ * <p>
+ * The strategy is serializable if both functions are serializable.
+ *
+ * @param hashFunction   computes the hash code of an element
+ * @param equalsFunction returns true if two elements are equal
+ * @param <E>            the element type
+ * @see HashStrategy#of(ToIntFunction, BiPredicate)
+ */
+record FunctionHashStrategy<E>(ToIntFunction<? super E> hashFunction,
+                               BiPredicate<? super E, ? super E> equalsFunction)
+        implements HashStrategy<E>, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int hashCode(E e) {
+        return hashFunction.applyAsInt(e);
+    }
+
+    @Override
+    public boolean equals(E a, E b) {
+        return equalsFunction.test(a, b);
+    }
+}
@@ -0,0 +1,42 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Arrays;
+
+/**
+ * The predefined strategies of {@link HashStrategy}.
+ */
+enum HashStrategies implements HashStrategy<Object> {
+    DEFAULT {
+        @Override
+        public int hashCode(Object e) {
+            return e.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object a, Object b) {
+            return a.equals(b);
+        }
+    },
+    IDENTITY {
+        @Override
+        public int hashCode(Object e) {
+            return System.identityHashCode(e);
+        }
+
+        @Override
+        public boolean equals(Object a, Object b) {
+            return a == b;
+        }
+    },
+    BYTE_ARRAY {
+        @Override
+        public int hashCode(Object e) {
+            return Arrays.hashCode((byte[]) e);
+        }
+
+        @Override
+        public boolean equals(Object a, Object b) {
+            return Arrays.equals((byte[]) a, (byte[]) b);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Defines how a hash set or hash map hashes and compares its elements.
+ * <p>
+ * The methods are never called with {@code null}. Elements that are equal
+ * by {@link #equals(Object, Object)} must have the same
+ * {@link #hashCode(Object)}.
+ * <p>
+ * A set or map with a strategy other than {@link #defaultStrategy()} does
+ * not fulfill the general contracts of {@link java.util.Set} and
+ * {@link java.util.Map}, which are defined in terms of
+ * {@link Object#equals}. {@code contains} and {@code get} may throw a
+ * {@link ClassCastException}, if the strategy can not handle the type of
+ * the argument.
+ *
+ * @param <E> the element type
+ */
+public interface HashStrategy<E> {
+    /**
+     * Computes the hash code of the specified element.
+     *
+     * @param e an element
+     * @return the hash code
+     */
+    int hashCode(E e);
+
+    /**
+     * Returns true if the specified elements are equal.
+     *
+     * @param a an element
+     * @param b an element
+     * @return whether the elements are equal
+     */
+    boolean equals(E a, E b);
+
+    /**
+     * Returns a strategy that uses
+     * {@link java.util.Arrays#hashCode(byte[])} and
+     * {@link java.util.Arrays#equals(byte[], byte[])}.
+     *
+     * @return the strategy
+     */
+    @SuppressWarnings("unchecked")
+    static HashStrategy<byte[]> byteArrayStrategy() {
+        return (HashStrategy<byte[]>) (HashStrategy<?>) HashStrategies.BYTE_ARRAY;
+    }
+
+    /**
+     * Returns a strategy that uses {@link Object#hashCode} and
+     * {@link Object#equals}.
+     *
+     * @param <E> the element type
+     * @return the strategy
+     */
+    @SuppressWarnings("unchecked")
+    static <E> HashStrategy<E> defaultStrategy() {
+        return (HashStrategy<E>) HashStrategies.DEFAULT;
+    }
+
+    /**
+     * Returns a strategy that uses {@link System#identityHashCode} and
+     * the {@code ==} operator.
+     *
+     * @param <E> the element type
+     * @return the strategy
+     */
+    @SuppressWarnings("unchecked")
+    static <E> HashStrategy<E> identityStrategy() {
+        return (HashStrategy<E>) HashStrategies.IDENTITY;
+    }
+
+    /**
+     * Returns a strategy with the specified functions.
+     * <p>
+     * The strategy is serializable if both functions are serializable.
+     * A set or map that uses the strategy can only be serialized if the
+     * strategy is serializable. A lambda expression can be made
+     * serializable with an intersection cast, for example
+     * {@code (ToIntFunction<String> & Serializable) String::length}.
+     *
+     * @param hashCode computes the hash code of an element
+     * @param equals   returns true if two elements are equal
+     * @param <E>      the element type
+     * @return the strategy
+     */
+    static <E> HashStrategy<E> of(ToIntFunction<? super E> hashCode, BiPredicate<? super E, ? super E> equals) {
+        return new FunctionHashStrategy<>(Objects.requireNonNull(hashCode, "hashCode"),
+                Objects.requireNonNull(equals, "equals"));
+    }
+}
+
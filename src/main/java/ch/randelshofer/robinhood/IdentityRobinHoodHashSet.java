@@ -3,6 +3,11 @@ package ch.randelshofer.robinhood;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static ch.randelshofer.robinhood.RangeAlgorithms.powerOf2Range;
 import static ch.randelshofer.robinhood.RangeAlgorithms.roundUpToPowerOf2;
@@ -51,6 +56,21 @@ public class IdentityRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet
         table = new Object[capacity];
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        var mc = modCount;
+        for (var e : table) {
+            if (e != null) {
+                action.accept((E) e);
+            }
+        }
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected E getKeyFromTable(int index) {
@@ -71,6 +91,13 @@ public class IdentityRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet
         return a == b;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return compactTable1(table, i -> filter.test((E) table[i]));
+    }
+
     @Override
     protected void setKeyInTable(int index, E e) {
         table[index] = e;
@@ -86,6 +113,15 @@ public class IdentityRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet
         shiftForRemoval1(index, table);
     }
 
+    /**
+     * Returns a spliterator over the buckets of the table, see
+     * {@link BucketSpliterator}.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new BucketSpliterator<>(this::getKeyFromTable, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
     @Override
     protected void unsetTable(int index) {
         table[index] = null;
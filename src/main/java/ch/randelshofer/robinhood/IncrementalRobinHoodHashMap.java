@@ -0,0 +1,502 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Map that resizes its table incrementally.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>When the table grows, the map keeps the old table, and migrates a
+ * bounded number of buckets from the old table into the new table on each
+ * insertion. Lookups and removals consult both tables while the
+ * migration is in progress. This avoids the latency spike of rehashing
+ * all entries in a single call to {@link #put}.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} keys.</li>
+ * </ul>
+ * <p>
+ * The old table stays a valid Robin Hood table during the migration:
+ * buckets are migrated in runs, that start at a bucket with zero cost, and
+ * end before the next bucket with zero cost. Removing a run does not
+ * affect the probe sequence of any element outside the run.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class IncrementalRobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V> {
+    /**
+     * The minimal number of old buckets that are migrated per insertion.
+     */
+    private static final int MIN_MIGRATION_STEP = 16;
+    /**
+     * The current table. Keys and values are interleaved.
+     */
+    private Object[] table;
+    /**
+     * The old table while a migration is in progress, {@code null}
+     * otherwise. Keys and values are interleaved.
+     */
+    private Object[] oldTable;
+    private int oldCapacity;
+    /**
+     * The old bucket that comes first in the bucket order, see
+     * {@link #getBucketCount()}. This bucket is empty or has zero cost.
+     */
+    private int oldTableStart;
+    /**
+     * The old bucket at which the next run starts.
+     */
+    private int migrationIndex;
+    /**
+     * The number of old buckets that have not been migrated yet.
+     */
+    private int migrationRemaining;
+    /**
+     * The number of old buckets that are migrated per insertion.
+     */
+    private int migrationStep;
+    private HashStrategy<Object> strategy = HashStrategy.defaultStrategy();
+
+    public IncrementalRobinHoodHashMap() {
+    }
+
+    public IncrementalRobinHoodHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public IncrementalRobinHoodHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    /**
+     * Creates a new, empty map with the default expected size (0),
+     * default load factor (0.5), and the specified strategy for the keys.
+     *
+     * @param strategy the hash strategy
+     */
+    public IncrementalRobinHoodHashMap(HashStrategy<? super K> strategy) {
+        this(0, 0.5f, strategy);
+    }
+
+    /**
+     * Creates a new, empty map with the specified expected size, load
+     * factor and strategy for the keys.
+     *
+     * @param expectedSize the expected size of the map
+     * @param loadFactor   the load factor of the map
+     * @param strategy     the hash strategy
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    @SuppressWarnings("unchecked")
+    public IncrementalRobinHoodHashMap(int expectedSize, float loadFactor, HashStrategy<? super K> strategy) {
+        super(expectedSize, loadFactor);
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+    }
+
+    public IncrementalRobinHoodHashMap(Map<? extends K, ? extends V> m) {
+        this(m.size(), 0.5f);
+        putAll(m);
+    }
+
+    public IncrementalRobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        this(entries.size(), 0.5f);
+        for (Entry<? extends K, ? extends V> entry : entries) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(table, null);
+        oldTable = null;
+        oldCapacity = 0;
+    }
+
+    @Override
+    public IncrementalRobinHoodHashMap<K, V> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            IncrementalRobinHoodHashMap<K, V> that = (IncrementalRobinHoodHashMap<K, V>) super.clone();
+            that.table = this.table.clone();
+            if (this.oldTable != null) {
+                that.oldTable = this.oldTable.clone();
+            }
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object o) {
+        return find(o) >= 0 || findInOldTable(o) >= 0;
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        this.table = new Object[capacity * 2];
+    }
+
+    /**
+     * Searches for the specified key in the old table.
+     * <p>
+     * Works like {@link #find(Object, int)}.
+     *
+     * @param expected the key to be found
+     * @return the index of the bucket, or {@code ~index}; -1 if there
+     * is no old table
+     */
+    private int findInOldTable(Object expected) {
+        if (oldTable == null) {
+            return -1;
+        }
+        var h = hash(expected, oldCapacity);
+        var index = h;
+        var expectedKey = h;
+
+        while (true) {
+            var actual = oldTable[index * 2];
+            if (actual == null) {
+                return -index - 1;
+            }
+            if (isEqual(expected, actual)) {
+                return index;
+            }
+            var actualHash = hash(actual, oldCapacity);
+            var actualKey = actualHash <= index ? actualHash : actualHash - oldCapacity;
+            if (actualKey > expectedKey) {
+                return -index - 1;
+            } else {
+                if (++index == oldCapacity) {
+                    index = 0;
+                    expectedKey = expectedKey - oldCapacity;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finishes the migration of the old table, if one is in progress.
+     */
+    private void finishMigration() {
+        migrate(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public V get(Object o) {
+        var index = find(o);
+        if (index >= 0) {
+            return getValueFromTable(index);
+        }
+        index = findInOldTable(o);
+        return index < 0 ? null : getValueFromOldTable(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The buckets of the old table come after the current table. They
+     * start at {@link #oldTableStart} and wrap around, so that no cluster
+     * of the old table crosses the end of the bucket order. Otherwise,
+     * a removal through an iterator could shift an entry that the
+     * iterator has already returned into a bucket that it has not
+     * visited yet.
+     */
+    @Override
+    protected int getBucketCount() {
+        return oldTable == null ? capacity : capacity + oldCapacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected K getKeyFromTable(int index) {
+        return index < capacity ? (K) table[index * 2] : (K) oldTable[toOldIndex(index) * 2];
+    }
+
+    private int getOldCost(int i) {
+        var key = oldTable[i * 2];
+        if (key == null) {
+            return 0;
+        }
+        var h = hash(key, oldCapacity);
+        return (h <= i) ? i - h : i - h + oldCapacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V getValueFromOldTable(int index) {
+        return (V) oldTable[index * 2 + 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V getValueFromTable(int index) {
+        return index < capacity ? (V) table[index * 2 + 1] : (V) oldTable[toOldIndex(index) * 2 + 1];
+    }
+
+    /**
+     * Returns whether a migration from an old table is in progress.
+     *
+     * @return whether there is an old table
+     */
+    public boolean isMigrating() {
+        return oldTable != null;
+    }
+
+    /**
+     * Returns the hash strategy of the keys of this map.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super K> getHashStrategy() {
+        return strategy;
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche(e == null ? 0 : strategy.hashCode(e)), length);
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return a == b || a != null && b != null && strategy.equals(a, b);
+    }
+
+    /**
+     * Migrates runs of buckets from the old table into the current table,
+     * until at least the specified number of buckets have been migrated.
+     *
+     * @param buckets the number of buckets
+     */
+    private void migrate(int buckets) {
+        while (oldTable != null && buckets > 0) {
+            // The run ends before the next bucket with zero cost.
+            var end = migrationIndex;
+            do {
+                end = end + 1 == oldCapacity ? 0 : end + 1;
+            } while (end != migrationIndex && getOldCost(end) != 0);
+
+            var i = migrationIndex;
+            do {
+                var key = oldTable[i * 2];
+                if (key != null) {
+                    var index = ~find(key);
+                    shiftForInsertion(index);
+                    table[index * 2] = key;
+                    table[index * 2 + 1] = oldTable[i * 2 + 1];
+                    oldTable[i * 2] = null;
+                    oldTable[i * 2 + 1] = null;
+                }
+                i = i + 1 == oldCapacity ? 0 : i + 1;
+                buckets--;
+                migrationRemaining--;
+            } while (i != end);
+
+            migrationIndex = end;
+            if (migrationRemaining <= 0) {
+                oldTable = null;
+                oldCapacity = 0;
+            }
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        var result = find(key);
+        if (result >= 0) {
+            var oldValue = getValueFromTable(result);
+            table[result * 2 + 1] = value;
+            return oldValue;
+        }
+        var oldResult = findInOldTable(key);
+        if (oldResult >= 0) {
+            var oldValue = getValueFromOldTable(oldResult);
+            oldTable[oldResult * 2 + 1] = value;
+            return oldValue;
+        }
+
+        migrate(migrationStep);
+        if (size >= threshold) {
+            grow();
+        }
+        var index = ~find(key);
+        shiftForInsertion(index);
+        table[index * 2] = key;
+        table[index * 2 + 1] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V remove(Object o) {
+        var index = find(o);
+        if (index >= 0) {
+            var oldValue = getValueFromTable(index);
+            unsetTable(index);
+            size--;
+            modCount++;
+            shiftForRemoval(index);
+            shrinkIfSparse();
+            return oldValue;
+        }
+        index = findInOldTable(o);
+        if (index >= 0) {
+            var oldValue = getValueFromOldTable(index);
+            oldTable[index * 2] = null;
+            oldTable[index * 2 + 1] = null;
+            size--;
+            modCount++;
+            shiftForRemovalInOldTable(index);
+            shrinkIfSparse();
+            return oldValue;
+        }
+        return null;
+    }
+
+    /**
+     * Finishes the migration first, so that all entries are in a single
+     * table that the sweep can compact, see {@link #compactTable2}. Grows
+     * a full table before that, so that the table has an empty bucket.
+     */
+    @Override
+    protected boolean removeEntriesIf(Predicate<? super Entry<K, V>> filter) {
+        Objects.requireNonNull(filter);
+        if (size != 0 && size == capacity) {
+            grow();
+        }
+        finishMigration();
+        var entry = new BucketEntry();
+        return compactTable2(table, i -> {
+            entry.index = i;
+            return filter.test(entry);
+        });
+    }
+
+    /**
+     * Starts an incremental migration into a table with the specified
+     * capacity. Finishes the previous migration first.
+     */
+    @Override
+    protected void resize(int newCapacity) {
+        finishMigration();
+        oldTable = table;
+        oldCapacity = capacity;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+
+        if (size == 0) {
+            oldTable = null;
+            oldCapacity = 0;
+            return;
+        }
+        // Start at a bucket with zero cost. There always is one,
+        // see AbstractRobinHoodHashing.shiftForRemoval1.
+        migrationIndex = 0;
+        while (migrationIndex < oldCapacity - 1 && getOldCost(migrationIndex) != 0) {
+            migrationIndex++;
+        }
+        oldTableStart = migrationIndex;
+        migrationRemaining = oldCapacity;
+        // Finish the migration before the current table needs to grow.
+        var insertions = Math.max(1, threshold - size);
+        migrationStep = Math.max(MIN_MIGRATION_STEP, (oldCapacity + insertions - 1) / insertions);
+    }
+
+    @Override
+    protected void setKeyInTable(int index, K k) {
+        table[index * 2] = k;
+    }
+
+    @Override
+    protected void setValueInTable(int index, V value) {
+        table[index * 2 + 1] = value;
+    }
+
+    @Override
+    protected void setValueTable(int index, V value) {
+        table[index * 2 + 1] = value;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        shiftForInsertion2(index, table);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        shiftForRemoval2(index, table);
+    }
+
+    private void shiftForRemovalInOldTable(int index) {
+        var end = index + 1 == oldCapacity ? 0 : index + 1;
+        while (getOldCost(end) != 0) {
+            if (++end == oldCapacity) {
+                end = 0;
+            }
+        }
+
+        moveLeft(oldTable, 2, oldCapacity, index, end);
+        var last = end == 0 ? oldCapacity - 1 : end - 1;
+        oldTable[last * 2] = null;
+        oldTable[last * 2 + 1] = null;
+    }
+
+    /**
+     * Shrinks the table in a single step. Only insertions migrate buckets,
+     * so an incremental migration into the smaller table would keep the
+     * large old table alive until enough entries have been put.
+     */
+    @Override
+    protected void shrinkIfSparse() {
+        var previousCapacity = capacity;
+        super.shrinkIfSparse();
+        if (capacity < previousCapacity) {
+            finishMigration();
+        }
+    }
+
+    @Override
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        int index = 0;
+        for (var i = 0; i < getBucketCount(); i++) {
+            var key = getKeyFromTable(i);
+            if (key != null) {
+                r[index] = key;
+                r[index + 1] = getValueFromTable(i);
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Converts an index in the bucket order into an index in the old
+     * table.
+     *
+     * @param index an index in the bucket order, at least {@code capacity}
+     * @return the index in the old table
+     */
+    private int toOldIndex(int index) {
+        var i = index - capacity + oldTableStart;
+        return i < oldCapacity ? i : i - oldCapacity;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table[index * 2] = null;
+        table[index * 2 + 1] = null;
+    }
+}
@@ -0,0 +1,425 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Map with {@code int} keys and {@code int} values.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>Packs the key and the value of an entry into one {@code long},
+ * with the key in the high half, and the value in the low half.
+ * A probe reads one {@code long} per bucket, and a shift moves
+ * the entries with one {@link System#arraycopy}.</li>
+ * <li>The methods {@link #containsKey(int)}, {@link #getOrDefault(int, int)},
+ * {@link #put(int, int)}, {@link #addTo(int, int)} and
+ * {@link #removeOrDefault(int, int)} do not box.</li>
+ * <li>Keys are hashed like {@link Integer#hashCode(int)}.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} values.</li>
+ * </ul>
+ */
+public class IntIntRobinHoodHashMap extends AbstractMutableRobinHoodHashMap<Integer, Integer> {
+    /**
+     * The entries. An entry with key 0 denotes an empty bucket.
+     */
+    private long[] table;
+    /**
+     * Whether the map contains the key 0, which is not stored in the table.
+     * The key 0 is not counted in {@link #size}.
+     */
+    private boolean containsZero;
+    private int zeroValue;
+
+    public IntIntRobinHoodHashMap() {
+    }
+
+    public IntIntRobinHoodHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public IntIntRobinHoodHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public IntIntRobinHoodHashMap(Map<? extends Integer, ? extends Integer> m) {
+        this(m.size(), 0.5f);
+        putAll(m);
+    }
+
+    private static long entry(int key, int value) {
+        return (long) key << 32 | value & 0xffffffffL;
+    }
+
+    private static int keyOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int valueOf(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Adds the specified increment to the value of the specified key.
+     * If the key is not in the map, puts the key with the increment as
+     * its value.
+     *
+     * @param key       a key
+     * @param increment the increment
+     * @return the new value
+     */
+    public int addTo(int key, int increment) {
+        if (key == 0) {
+            var value = containsZero ? zeroValue + increment : increment;
+            put(0, value);
+            return value;
+        }
+        var result = capacity == 0 ? -1 : find(key);
+        if (result >= 0) {
+            var value = valueOf(table[result]) + increment;
+            table[result] = entry(key, value);
+            return value;
+        }
+        insert(result, key, increment);
+        return increment;
+    }
+
+    @Override
+    public void clear() {
+        if (containsZero) {
+            containsZero = false;
+            modCount++;
+        }
+        super.clear();
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(table, 0L);
+    }
+
+    @Override
+    public IntIntRobinHoodHashMap clone() {
+        try {
+            IntIntRobinHoodHashMap that = (IntIntRobinHoodHashMap) super.clone();
+            that.table = this.table.clone();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns whether the map contains the specified key.
+     *
+     * @param key a key
+     * @return whether the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return key == 0 ? containsZero : capacity != 0 && find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(Object o) {
+        return o instanceof Integer key && containsKey(key.intValue());
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new long[capacity];
+    }
+
+    /**
+     * Searches for the specified non-zero key.
+     * <p>
+     * Works like {@link #find(Object, int)}.
+     *
+     * @param expected the key to be found
+     * @return the index of the bucket, or {@code ~index}
+     */
+    private int find(int expected) {
+        var h = hash(expected);
+        var index = h;
+        var expectedKey = h;
+
+        while (true) {
+            var actual = keyOf(table[index]);
+            if (actual == 0) {
+                return -index - 1;
+            }
+            if (actual == expected) {
+                return index;
+            }
+            var actualHash = hash(actual);
+            var actualKey = actualHash <= index ? actualHash : actualHash - capacity;
+            if (actualKey > expectedKey) {
+                return -index - 1;
+            } else {
+                if (++index == capacity) {
+                    index = 0;
+                    expectedKey = expectedKey - capacity;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Integer get(Object o) {
+        if (o instanceof Integer key) {
+            var k = key.intValue();
+            if (k == 0) {
+                return containsZero ? zeroValue : null;
+            }
+            var index = capacity == 0 ? -1 : find(k);
+            return index < 0 ? null : valueOf(table[index]);
+        }
+        return null;
+    }
+
+    @Override
+    protected int getBucketCount() {
+        // The key 0 is in the bucket after the table.
+        return capacity + 1;
+    }
+
+    @Override
+    protected int getCost(int i) {
+        var key = keyOf(table[i]);
+        if (key == 0) {
+            return 0;
+        }
+        var h = hash(key);
+        return (h <= i) ? i - h : i - h + capacity;
+    }
+
+    @Override
+    protected Integer getKeyFromTable(int index) {
+        if (index == capacity) {
+            return containsZero ? 0 : null;
+        }
+        var key = keyOf(table[index]);
+        return key == 0 ? null : key;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key          a key
+     * @param defaultValue the value to be returned if the key is not in the map
+     * @return the value, or {@code defaultValue} if the key is not in the map
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return containsZero ? zeroValue : defaultValue;
+        }
+        var index = capacity == 0 ? -1 : find(key);
+        return index < 0 ? defaultValue : valueOf(table[index]);
+    }
+
+    @Override
+    protected Integer getValueFromTable(int index) {
+        if (index == capacity) {
+            return containsZero ? zeroValue : null;
+        }
+        var entry = table[index];
+        return keyOf(entry) == 0 ? null : valueOf(entry);
+    }
+
+    private int hash(int key) {
+        return fastRange(goldenRatioAvalanche(key), capacity);
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche((Integer) e), length);
+    }
+
+    /**
+     * Inserts the specified non-zero key and value at the position that
+     * was returned by an unsuccessful {@link #find(int)}.
+     */
+    private void insert(int result, int key, int value) {
+        if (size >= threshold) {
+            grow();
+            result = find(key);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        table[index] = entry(key, value);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0 && !containsZero;
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return a.equals(b);
+    }
+
+    /**
+     * Associates the specified value with the specified key.
+     *
+     * @param key   a key
+     * @param value a value
+     * @return the previous value, or 0 if the key was not in the map
+     */
+    public int put(int key, int value) {
+        if (key == 0) {
+            var oldValue = containsZero ? zeroValue : 0;
+            zeroValue = value;
+            if (!containsZero) {
+                containsZero = true;
+                modCount++;
+            }
+            return oldValue;
+        }
+        var result = capacity == 0 ? -1 : find(key);
+        if (result >= 0) {
+            var oldValue = valueOf(table[result]);
+            table[result] = entry(key, value);
+            return oldValue;
+        }
+        insert(result, key, value);
+        return 0;
+    }
+
+    @Override
+    public Integer put(Integer key, Integer value) {
+        Objects.requireNonNull(value, "value");
+        var k = key.intValue();
+        var oldValue = containsKey(k) ? getOrDefault(k, 0) : null;
+        put(k, value.intValue());
+        return oldValue;
+    }
+
+    @Override
+    public Integer remove(Object o) {
+        if (o instanceof Integer key && containsKey(key.intValue())) {
+            return removeOrDefault(key, 0);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the specified key from the map.
+     *
+     * @param key          a key
+     * @param defaultValue the value to be returned if the key is not in the map
+     * @return the previous value, or {@code defaultValue} if the key was not
+     * in the map
+     */
+    public int removeOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            if (!containsZero) {
+                return defaultValue;
+            }
+            containsZero = false;
+            modCount++;
+            return zeroValue;
+        }
+        var index = capacity == 0 ? -1 : find(key);
+        if (index < 0) {
+            return defaultValue;
+        }
+        var oldValue = valueOf(table[index]);
+        table[index] = 0L;
+        size--;
+        modCount++;
+        shiftForRemoval(index);
+        shrinkIfSparse();
+        return oldValue;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldTable = table;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var entry : oldTable) {
+            var key = keyOf(entry);
+            if (key != 0) {
+                var index = ~find(key);
+                shiftForInsertion(index);
+                table[index] = entry;
+            }
+        }
+    }
+
+    @Override
+    protected void setKeyInTable(int index, Integer key) {
+        table[index] = entry(key, valueOf(table[index]));
+    }
+
+    @Override
+    protected void setValueInTable(int index, Integer value) {
+        table[index] = entry(keyOf(table[index]), value);
+    }
+
+    @Override
+    protected void setValueTable(int index, Integer value) {
+        table[index] = entry(keyOf(table[index]), value);
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        if (keyOf(table[index]) == 0) {
+            return;
+        }
+        var end = index;
+        do {
+            if (++end == capacity) {
+                end = 0;
+            }
+        } while (keyOf(table[end]) != 0);
+
+        moveRight(table, 1, capacity, index, end);
+        table[index] = 0L;
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = index + 1 == capacity ? 0 : index + 1;
+        while (getCost(end) != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+
+        moveLeft(table, 1, capacity, index, end);
+        table[end == 0 ? capacity - 1 : end - 1] = 0L;
+    }
+
+    @Override
+    public int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    @Override
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        int index = 0;
+        for (var i = 0; i < getBucketCount(); i++) {
+            var key = getKeyFromTable(i);
+            if (key != null) {
+                r[index] = key;
+                r[index + 1] = getValueFromTable(i);
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table[index] = 0L;
+    }
+}
@@ -0,0 +1,431 @@
+package ch.randelshofer.robinhood;
+
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.Stream;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Set for {@code int} values.
+ * <ul>
+ * <li>Supports up to 2<sup>30</sup> elements.</li>
+ * <li>Stores the elements in an {@code int[]} array. The methods
+ * {@link #add(int)}, {@link #contains(int)} and {@link #remove(int)}
+ * do not allocate objects.</li>
+ * <li>Elements are hashed like {@link Integer#hashCode(int)}.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * </ul>
+ */
+public class IntRobinHoodHashSet extends AbstractMutableRobinHoodHashSet<Integer>
+        implements Cloneable {
+
+    /**
+     * The table. The value 0 denotes an empty bucket.
+     */
+    private int[] table;
+    /**
+     * Whether the set contains the element 0, which is not stored in
+     * the table. The element 0 is not counted in {@link #size}.
+     */
+    private boolean containsZero;
+
+    /**
+     * Creates a new, empty set with the default expected size (0)
+     * and default load factor (0.5).
+     */
+    public IntRobinHoodHashSet() {
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and default load factor (0.5).
+     *
+     * @param expectedSize the expected size of the set
+     * @throws IllegalArgumentException if the expected size is less than zero
+     */
+    public IntRobinHoodHashSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and load factor.
+     *
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    public IntRobinHoodHashSet(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public IntRobinHoodHashSet(Collection<? extends Integer> c) {
+        super(c);
+    }
+
+    public IntRobinHoodHashSet(Collection<? extends Integer> c, int expectedSize, float loadFactor) {
+        super(c, expectedSize, loadFactor);
+    }
+
+    /**
+     * Adds the specified element to the set.
+     *
+     * @param e an element
+     * @return whether the set was modified
+     */
+    public boolean add(int e) {
+        if (e == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            modCount++;
+            return true;
+        }
+        var result = capacity == 0 ? -1 : find(e);
+        if (result >= 0) {
+            return false;
+        }
+        if (size >= threshold) {
+            grow();
+            result = find(e);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        table[index] = e;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean add(Integer e) {
+        return add(e.intValue());
+    }
+
+    @Override
+    public void clear() {
+        if (containsZero) {
+            containsZero = false;
+            modCount++;
+        }
+        super.clear();
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(table, 0);
+    }
+
+    @Override
+    public IntRobinHoodHashSet clone() {
+        try {
+            IntRobinHoodHashSet that = (IntRobinHoodHashSet) super.clone();
+            that.table = this.table.clone();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns whether the set contains the specified element.
+     *
+     * @param e an element
+     * @return whether the element is in the set
+     */
+    public boolean contains(int e) {
+        return e == 0 ? containsZero : capacity != 0 && find(e) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer e && contains(e.intValue());
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new int[capacity];
+    }
+
+    /**
+     * Returns a stream over the elements, including the zero element,
+     * which is not stored in the table.
+     */
+    @Override
+    protected Stream<Integer> elementStream(long parallelismThreshold) {
+        var stream = super.elementStream(parallelismThreshold);
+        return containsZero ? Stream.concat(Stream.of(0), stream) : stream;
+    }
+
+    /**
+     * Searches for the specified non-zero element.
+     * <p>
+     * Works like {@link #find(Object, int)}.
+     *
+     * @param expected the element to be found
+     * @return the index of the bucket, or {@code ~index}
+     */
+    private int find(int expected) {
+        var h = hash(expected);
+        var index = h;
+        var expectedKey = h;
+
+        while (true) {
+            var actual = table[index];
+            if (actual == 0) {
+                return -index - 1;
+            }
+            if (actual == expected) {
+                return index;
+            }
+            var actualHash = hash(actual);
+            var actualKey = actualHash <= index ? actualHash : actualHash - capacity;
+            if (actualKey > expectedKey) {
+                return -index - 1;
+            } else {
+                if (++index == capacity) {
+                    index = 0;
+                    expectedKey = expectedKey - capacity;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected int getCost(int i) {
+        var e = table[i];
+        if (e == 0) {
+            return 0;
+        }
+        var h = hash(e);
+        return (h <= i) ? i - h : i - h + capacity;
+    }
+
+    @Override
+    protected Integer getKeyFromTable(int index) {
+        var e = table[index];
+        return e == 0 ? null : e;
+    }
+
+    private int hash(int e) {
+        return fastRange(goldenRatioAvalanche(e), capacity);
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche((Integer) e), length);
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return a.equals(b);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0 && !containsZero;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new IntSetIterator();
+    }
+
+    /**
+     * Removes the specified element from the set.
+     *
+     * @param e an element
+     * @return whether the set was modified
+     */
+    public boolean remove(int e) {
+        if (e == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            modCount++;
+            return true;
+        }
+        var index = capacity == 0 ? -1 : find(e);
+        if (index < 0) {
+            return false;
+        }
+        table[index] = 0;
+        size--;
+        modCount++;
+        shiftForRemoval(index);
+        shrinkIfSparse();
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer e && remove(e.intValue());
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldTable = table;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var e : oldTable) {
+            if (e != 0) {
+                var index = ~find(e);
+                shiftForInsertion(index);
+                table[index] = e;
+            }
+        }
+    }
+
+    @Override
+    protected void setKeyInTable(int index, Integer e) {
+        table[index] = e;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        if (table[index] == 0) {
+            return;
+        }
+        var end = index;
+        do {
+            if (++end == capacity) {
+                end = 0;
+            }
+        } while (table[end] != 0);
+
+        moveRight(table, 1, capacity, index, end);
+        table[index] = 0;
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = index + 1 == capacity ? 0 : index + 1;
+        while (getCost(end) != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+
+        moveLeft(table, 1, capacity, index, end);
+        table[end == 0 ? capacity - 1 : end - 1] = 0;
+    }
+
+    @Override
+    public int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    @Override
+    public Object[] toArray() {
+        var r = new Object[size()];
+        var it = iterator();
+        for (var i = 0; i < r.length; i++) {
+            r[i] = it.nextInt();
+        }
+        return r;
+    }
+
+    /**
+     * Returns an array with the elements of this set.
+     *
+     * @return a new array
+     */
+    public int[] toIntArray() {
+        var r = new int[size()];
+        var it = iterator();
+        for (var i = 0; i < r.length; i++) {
+            r[i] = it.nextInt();
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table[index] = 0;
+    }
+
+    /**
+     * Iterates over the elements without boxing them.
+     * <p>
+     * The iterator starts at a bucket with zero cost. Backward-shift
+     * deletion never moves an element across a bucket with zero cost,
+     * and therefore {@link #remove()} can not move an element that has
+     * already been returned back into a bucket that has not been visited.
+     */
+    private class IntSetIterator implements PrimitiveIterator.OfInt {
+        private int mod = modCount;
+        private int remaining = size();
+        private int index;
+        private boolean returnZero = containsZero;
+        private boolean canRemove;
+        private int current;
+
+        private IntSetIterator() {
+            while (index < capacity - 1 && getCost(index) != 0) {
+                index++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (mod != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            return remaining > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (returnZero) {
+                returnZero = false;
+                current = 0;
+            } else {
+                while (table[index] == 0) {
+                    index = index == capacity - 1 ? 0 : index + 1;
+                }
+                current = table[index];
+                index = index == capacity - 1 ? 0 : index + 1;
+            }
+            remaining--;
+            canRemove = true;
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (mod != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            // We cannot shrink the table, because this would reorganize
+            // the table.
+            shrinkSuspended = true;
+            try {
+                IntRobinHoodHashSet.this.remove(current);
+            } finally {
+                shrinkSuspended = false;
+            }
+            if (current != 0) {
+                // The bucket of the current element may now hold a shifted element.
+                index = index == 0 ? capacity - 1 : index - 1;
+            }
+            mod = modCount;
+        }
+    }
+}
@@ -7,6 +7,10 @@ import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
 import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
@@ -16,7 +20,8 @@ import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
  * <ul>
  * <li>Supports up to 2<sup>30</sup> elements.</li>
  * <li>Elements are distinguished by their {@link Object#equals} method,
- * and are hashed using their {@link Object#hashCode} method.</li>
+ * and are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
  * <li>Iteration order is the same as the order in which elements
  * were added to the set.</li>
  * <li>Does not allow {@code null} values.</li>
@@ -26,6 +31,7 @@ public class LinkedRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E
         implements SequencedCollection<E> {
     private transient Entry<E> first, last;
     private transient Entry<E>[] table;
+    private HashStrategy<Object> strategy = HashStrategy.defaultStrategy();
 
     public LinkedRobinHoodHashSet() {
     }
@@ -38,6 +44,32 @@ public class LinkedRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E
         super(expectedSize, loadFactor);
     }
 
+    /**
+     * Creates a new, empty set with the default expected size (0),
+     * default load factor (0.5), and the specified strategy.
+     *
+     * @param strategy the hash strategy
+     */
+    public LinkedRobinHoodHashSet(HashStrategy<? super E> strategy) {
+        this(0, 0.5f, strategy);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size, load
+     * factor and strategy.
+     *
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @param strategy     the hash strategy
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    @SuppressWarnings("unchecked")
+    public LinkedRobinHoodHashSet(int expectedSize, float loadFactor, HashStrategy<? super E> strategy) {
+        super(expectedSize, loadFactor);
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+    }
+
     public LinkedRobinHoodHashSet(Collection<? extends E> c) {
         super(c);
     }
@@ -76,6 +108,22 @@ public class LinkedRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E
         table = (Entry<E>[]) new Entry[capacity];
     }
 
+    /**
+     * Performs the action for each element in the order in which the
+     * elements were added to the set.
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        var mc = modCount;
+        for (var current = first; current != null; current = current.next) {
+            action.accept(current.element);
+        }
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
     @Override
     public E getFirst() {
         if (isEmpty()) {
@@ -119,14 +167,23 @@ public class LinkedRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E
         return entry == null ? null : entry.element;
     }
 
+    /**
+     * Returns the hash strategy of this set.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super E> getHashStrategy() {
+        return strategy;
+    }
+
     @Override
     protected int hash(Object e, int length) {
         //return moduloRange(goldenRatioAvalanche(Objects.hashCode(e)), length);
-        return fastRange(goldenRatioAvalanche(Objects.hashCode(e)), length);
+        return fastRange(goldenRatioAvalanche(e == null ? 0 : strategy.hashCode(e)), length);
     }
 
     protected boolean isEqual(Object a, Object b) {
-        return Objects.equals(a, b);
+        return a == b || a != null && b != null && strategy.equals(a, b);
     }
 
     public Iterator<E> iterator() {
@@ -170,13 +227,19 @@ public class LinkedRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E
         return new SetIterator();
     }
 
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return compactTable1(table, i -> filter.test(table[i].element));
+    }
+
     protected void resize(int newCapacity) {
         computeThreshold(size, newCapacity);
         createTable(newCapacity);
         capacity = newCapacity;
         for (Entry<E> current = first; current != null; current = current.next) {
             final E o = current.element;
-            int result = find(o, hash(o, newCapacity));
+            int result = find(o);
             var index = -result - 1;
             shiftForInsertion(index);
             table[index] = current;
@@ -206,6 +269,18 @@ public class LinkedRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E
         shiftForRemoval1(index, table);
     }
 
+    /**
+     * Returns a spliterator over the elements in insertion order.
+     * <p>
+     * The table is not in insertion order, so this spliterator follows
+     * the linked list, and splits off batches of elements, like the
+     * spliterator of {@link java.util.LinkedHashSet}.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(this, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
     @Override
     protected void unsetTable(int index) {
         Entry<E> entry = table[index];
@@ -0,0 +1,418 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Map with {@code long} keys and {@code long} values.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>Stores the key and the value of an entry next to each other in
+ * one {@code long[]} array. A probe reads one cache line per bucket,
+ * and a shift moves the entries with one {@link System#arraycopy}.</li>
+ * <li>The methods {@link #containsKey(long)}, {@link #getOrDefault(long, long)},
+ * {@link #put(long, long)}, {@link #addTo(long, long)} and
+ * {@link #removeOrDefault(long, long)} do not box.</li>
+ * <li>Keys are hashed like {@link Long#hashCode(long)}.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} values.</li>
+ * </ul>
+ */
+public class LongLongRobinHoodHashMap extends AbstractMutableRobinHoodHashMap<Long, Long> {
+    /**
+     * The entries. The key of bucket {@code i} is at index {@code 2 * i},
+     * the value at index {@code 2 * i + 1}. The key 0 denotes an empty
+     * bucket.
+     */
+    private long[] table;
+    /**
+     * Whether the map contains the key 0, which is not stored in the table.
+     * The key 0 is not counted in {@link #size}.
+     */
+    private boolean containsZero;
+    private long zeroValue;
+
+    public LongLongRobinHoodHashMap() {
+    }
+
+    public LongLongRobinHoodHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public LongLongRobinHoodHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public LongLongRobinHoodHashMap(Map<? extends Long, ? extends Long> m) {
+        this(m.size(), 0.5f);
+        putAll(m);
+    }
+
+    /**
+     * Adds the specified increment to the value of the specified key.
+     * If the key is not in the map, puts the key with the increment as
+     * its value.
+     *
+     * @param key       a key
+     * @param increment the increment
+     * @return the new value
+     */
+    public long addTo(long key, long increment) {
+        if (key == 0) {
+            var value = containsZero ? zeroValue + increment : increment;
+            put(0, value);
+            return value;
+        }
+        var result = capacity == 0 ? -1 : find(key);
+        if (result >= 0) {
+            return table[result * 2 + 1] += increment;
+        }
+        insert(result, key, increment);
+        return increment;
+    }
+
+    @Override
+    public void clear() {
+        if (containsZero) {
+            containsZero = false;
+            modCount++;
+        }
+        super.clear();
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(table, 0L);
+    }
+
+    @Override
+    public LongLongRobinHoodHashMap clone() {
+        try {
+            LongLongRobinHoodHashMap that = (LongLongRobinHoodHashMap) super.clone();
+            that.table = this.table.clone();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns whether the map contains the specified key.
+     *
+     * @param key a key
+     * @return whether the key is in the map
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : capacity != 0 && find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(Object o) {
+        return o instanceof Long key && containsKey(key.longValue());
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new long[capacity * 2];
+    }
+
+    /**
+     * Searches for the specified non-zero key.
+     * <p>
+     * Works like {@link #find(Object, int)}.
+     *
+     * @param expected the key to be found
+     * @return the index of the bucket, or {@code ~index}
+     */
+    private int find(long expected) {
+        var h = hash(expected);
+        var index = h;
+        var expectedKey = h;
+
+        while (true) {
+            var actual = table[index * 2];
+            if (actual == 0) {
+                return -index - 1;
+            }
+            if (actual == expected) {
+                return index;
+            }
+            var actualHash = hash(actual);
+            var actualKey = actualHash <= index ? actualHash : actualHash - capacity;
+            if (actualKey > expectedKey) {
+                return -index - 1;
+            } else {
+                if (++index == capacity) {
+                    index = 0;
+                    expectedKey = expectedKey - capacity;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Long get(Object o) {
+        if (o instanceof Long key) {
+            var k = key.longValue();
+            if (k == 0) {
+                return containsZero ? zeroValue : null;
+            }
+            var index = capacity == 0 ? -1 : find(k);
+            return index < 0 ? null : table[index * 2 + 1];
+        }
+        return null;
+    }
+
+    @Override
+    protected int getBucketCount() {
+        // The key 0 is in the bucket after the table.
+        return capacity + 1;
+    }
+
+    @Override
+    protected int getCost(int i) {
+        var key = table[i * 2];
+        if (key == 0) {
+            return 0;
+        }
+        var h = hash(key);
+        return (h <= i) ? i - h : i - h + capacity;
+    }
+
+    @Override
+    protected Long getKeyFromTable(int index) {
+        if (index == capacity) {
+            return containsZero ? 0L : null;
+        }
+        var key = table[index * 2];
+        return key == 0 ? null : key;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key          a key
+     * @param defaultValue the value to be returned if the key is not in the map
+     * @return the value, or {@code defaultValue} if the key is not in the map
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == 0) {
+            return containsZero ? zeroValue : defaultValue;
+        }
+        var index = capacity == 0 ? -1 : find(key);
+        return index < 0 ? defaultValue : table[index * 2 + 1];
+    }
+
+    @Override
+    protected Long getValueFromTable(int index) {
+        if (index == capacity) {
+            return containsZero ? zeroValue : null;
+        }
+        return table[index * 2] == 0 ? null : table[index * 2 + 1];
+    }
+
+    private int hash(long key) {
+        return fastRange(goldenRatioAvalanche(Long.hashCode(key)), capacity);
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche(((Long) e).hashCode()), length);
+    }
+
+    /**
+     * Inserts the specified non-zero key and value at the position that
+     * was returned by an unsuccessful {@link #find(long)}.
+     */
+    private void insert(int result, long key, long value) {
+        if (size >= threshold) {
+            grow();
+            result = find(key);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        table[index * 2] = key;
+        table[index * 2 + 1] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0 && !containsZero;
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return a.equals(b);
+    }
+
+    /**
+     * Associates the specified value with the specified key.
+     *
+     * @param key   a key
+     * @param value a value
+     * @return the previous value, or 0 if the key was not in the map
+     */
+    public long put(long key, long value) {
+        if (key == 0) {
+            var oldValue = containsZero ? zeroValue : 0;
+            zeroValue = value;
+            if (!containsZero) {
+                containsZero = true;
+                modCount++;
+            }
+            return oldValue;
+        }
+        var result = capacity == 0 ? -1 : find(key);
+        if (result >= 0) {
+            var oldValue = table[result * 2 + 1];
+            table[result * 2 + 1] = value;
+            return oldValue;
+        }
+        insert(result, key, value);
+        return 0;
+    }
+
+    @Override
+    public Long put(Long key, Long value) {
+        Objects.requireNonNull(value, "value");
+        var k = key.longValue();
+        var oldValue = containsKey(k) ? getOrDefault(k, 0L) : null;
+        put(k, value.longValue());
+        return oldValue;
+    }
+
+    @Override
+    public Long remove(Object o) {
+        if (o instanceof Long key && containsKey(key.longValue())) {
+            return removeOrDefault(key, 0L);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the specified key from the map.
+     *
+     * @param key          a key
+     * @param defaultValue the value to be returned if the key is not in the map
+     * @return the previous value, or {@code defaultValue} if the key was not
+     * in the map
+     */
+    public long removeOrDefault(long key, long defaultValue) {
+        if (key == 0) {
+            if (!containsZero) {
+                return defaultValue;
+            }
+            containsZero = false;
+            modCount++;
+            return zeroValue;
+        }
+        var index = capacity == 0 ? -1 : find(key);
+        if (index < 0) {
+            return defaultValue;
+        }
+        var oldValue = table[index * 2 + 1];
+        table[index * 2] = 0L;
+        table[index * 2 + 1] = 0L;
+        size--;
+        modCount++;
+        shiftForRemoval(index);
+        shrinkIfSparse();
+        return oldValue;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldTable = table;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var i = 0; i < oldTable.length; i += 2) {
+            var key = oldTable[i];
+            if (key != 0) {
+                var index = ~find(key);
+                shiftForInsertion(index);
+                table[index * 2] = key;
+                table[index * 2 + 1] = oldTable[i + 1];
+            }
+        }
+    }
+
+    @Override
+    protected void setKeyInTable(int index, Long key) {
+        table[index * 2] = key;
+    }
+
+    @Override
+    protected void setValueInTable(int index, Long value) {
+        table[index * 2 + 1] = value;
+    }
+
+    @Override
+    protected void setValueTable(int index, Long value) {
+        table[index * 2 + 1] = value;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        if (table[index * 2] == 0) {
+            return;
+        }
+        var end = index;
+        do {
+            if (++end == capacity) {
+                end = 0;
+            }
+        } while (table[end * 2] != 0);
+
+        moveRight(table, 2, capacity, index, end);
+        table[index * 2] = 0L;
+        table[index * 2 + 1] = 0L;
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = index + 1 == capacity ? 0 : index + 1;
+        while (getCost(end) != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+
+        moveLeft(table, 2, capacity, index, end);
+        var last = end == 0 ? capacity - 1 : end - 1;
+        table[last * 2] = 0L;
+        table[last * 2 + 1] = 0L;
+    }
+
+    @Override
+    public int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    @Override
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        int index = 0;
+        for (var i = 0; i < getBucketCount(); i++) {
+            var key = getKeyFromTable(i);
+            if (key != null) {
+                r[index] = key;
+                r[index + 1] = getValueFromTable(i);
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table[index * 2] = 0L;
+        table[index * 2 + 1] = 0L;
+    }
+}
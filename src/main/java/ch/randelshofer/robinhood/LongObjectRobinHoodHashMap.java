@@ -0,0 +1,388 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Map with {@code long} keys.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>Stores the keys in a {@code long[]} array, and the values in an
+ * {@code Object[]} array. The methods {@link #get(long)},
+ * {@link #getOrDefault(long, Object)}, {@link #containsKey(long)},
+ * {@link #put(long, Object)} and {@link #remove(long)} do not box keys.</li>
+ * <li>Keys are hashed like {@link Long#hashCode(long)}.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * </ul>
+ *
+ * @param <V>
+ */
+public class LongObjectRobinHoodHashMap<V> extends AbstractMutableRobinHoodHashMap<Long, V> {
+    /**
+     * The keys. The key 0 denotes an empty bucket.
+     */
+    private long[] keys;
+    private Object[] values;
+    /**
+     * Whether the map contains the key 0, which is not stored in the table.
+     * The key 0 is not counted in {@link #size}.
+     */
+    private boolean containsZero;
+    private V zeroValue;
+
+    public LongObjectRobinHoodHashMap() {
+    }
+
+    public LongObjectRobinHoodHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public LongObjectRobinHoodHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public LongObjectRobinHoodHashMap(Map<? extends Long, ? extends V> m) {
+        this(m.size(), 0.5f);
+        putAll(m);
+    }
+
+    @Override
+    public void clear() {
+        if (containsZero) {
+            containsZero = false;
+            zeroValue = null;
+            modCount++;
+        }
+        super.clear();
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+    }
+
+    @Override
+    public LongObjectRobinHoodHashMap<V> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            LongObjectRobinHoodHashMap<V> that = (LongObjectRobinHoodHashMap<V>) super.clone();
+            that.keys = this.keys.clone();
+            that.values = this.values.clone();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns whether the map contains the specified key.
+     *
+     * @param key a key
+     * @return whether the key is in the map
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : capacity != 0 && find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(Object o) {
+        return o instanceof Long key && containsKey(key.longValue());
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Searches for the specified non-zero key.
+     * <p>
+     * Works like {@link #find(Object, int)}.
+     *
+     * @param expected the key to be found
+     * @return the index of the bucket, or {@code ~index}
+     */
+    private int find(long expected) {
+        var h = hash(expected);
+        var index = h;
+        var expectedKey = h;
+
+        while (true) {
+            var actual = keys[index];
+            if (actual == 0) {
+                return -index - 1;
+            }
+            if (actual == expected) {
+                return index;
+            }
+            var actualHash = hash(actual);
+            var actualKey = actualHash <= index ? actualHash : actualHash - capacity;
+            if (actualKey > expectedKey) {
+                return -index - 1;
+            } else {
+                if (++index == capacity) {
+                    index = 0;
+                    expectedKey = expectedKey - capacity;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key a key
+     * @return the value, or {@code null} if the key is not in the map
+     */
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    public V get(Object o) {
+        return o instanceof Long key ? get(key.longValue()) : null;
+    }
+
+    @Override
+    protected int getBucketCount() {
+        // The key 0 is in the bucket after the table.
+        return capacity + 1;
+    }
+
+    @Override
+    protected int getCost(int i) {
+        var key = keys[i];
+        if (key == 0) {
+            return 0;
+        }
+        var h = hash(key);
+        return (h <= i) ? i - h : i - h + capacity;
+    }
+
+    @Override
+    protected Long getKeyFromTable(int index) {
+        if (index == capacity) {
+            return containsZero ? 0L : null;
+        }
+        var key = keys[index];
+        return key == 0 ? null : key;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key          a key
+     * @param defaultValue the value to be returned if the key is not in the map
+     * @return the value, or {@code defaultValue} if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        if (key == 0) {
+            return containsZero ? zeroValue : defaultValue;
+        }
+        var index = capacity == 0 ? -1 : find(key);
+        return index < 0 ? defaultValue : (V) values[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V getValueFromTable(int index) {
+        return index == capacity ? zeroValue : (V) values[index];
+    }
+
+    private int hash(long key) {
+        return fastRange(goldenRatioAvalanche(Long.hashCode(key)), capacity);
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche(((Long) e).hashCode()), length);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0 && !containsZero;
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return a.equals(b);
+    }
+
+    /**
+     * Associates the specified value with the specified key.
+     *
+     * @param key   a key
+     * @param value a value
+     * @return the previous value, or {@code null} if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0) {
+            var oldValue = zeroValue;
+            zeroValue = value;
+            if (!containsZero) {
+                containsZero = true;
+                modCount++;
+            }
+            return oldValue;
+        }
+        var result = capacity == 0 ? -1 : find(key);
+        if (result >= 0) {
+            var oldValue = (V) values[result];
+            values[result] = value;
+            return oldValue;
+        }
+        if (size >= threshold) {
+            grow();
+            result = find(key);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V put(Long key, V value) {
+        return put(key.longValue(), value);
+    }
+
+    /**
+     * Removes the specified key from the map.
+     *
+     * @param key a key
+     * @return the previous value, or {@code null} if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            if (!containsZero) {
+                return null;
+            }
+            var oldValue = zeroValue;
+            containsZero = false;
+            zeroValue = null;
+            modCount++;
+            return oldValue;
+        }
+        var index = capacity == 0 ? -1 : find(key);
+        if (index < 0) {
+            return null;
+        }
+        var oldValue = (V) values[index];
+        keys[index] = 0;
+        values[index] = null;
+        size--;
+        modCount++;
+        shiftForRemoval(index);
+        shrinkIfSparse();
+        return oldValue;
+    }
+
+    @Override
+    public V remove(Object o) {
+        return o instanceof Long key ? remove(key.longValue()) : null;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var i = 0; i < oldKeys.length; i++) {
+            var key = oldKeys[i];
+            if (key != 0) {
+                var index = ~find(key);
+                shiftForInsertion(index);
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    protected void setKeyInTable(int index, Long key) {
+        keys[index] = key;
+    }
+
+    @Override
+    protected void setValueInTable(int index, V value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected void setValueTable(int index, V value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        if (keys[index] == 0) {
+            return;
+        }
+        var end = index;
+        do {
+            if (++end == capacity) {
+                end = 0;
+            }
+        } while (keys[end] != 0);
+
+        moveRight(keys, 1, capacity, index, end);
+        moveRight(values, 1, capacity, index, end);
+        keys[index] = 0;
+        values[index] = null;
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = index + 1 == capacity ? 0 : index + 1;
+        while (getCost(end) != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+
+        moveLeft(keys, 1, capacity, index, end);
+        moveLeft(values, 1, capacity, index, end);
+        var last = end == 0 ? capacity - 1 : end - 1;
+        keys[last] = 0;
+        values[last] = null;
+    }
+
+    @Override
+    public int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    @Override
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        int index = 0;
+        for (var i = 0; i < getBucketCount(); i++) {
+            var key = getKeyFromTable(i);
+            if (key != null) {
+                r[index] = key;
+                r[index + 1] = getValueFromTable(i);
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        keys[index] = 0;
+        values[index] = null;
+    }
+}
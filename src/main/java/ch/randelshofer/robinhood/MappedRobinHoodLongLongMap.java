@@ -0,0 +1,147 @@
+package ch.randelshofer.robinhood;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Immutable Robin Hood Hash Map with {@code long} keys and {@code long}
+ * values, that is mapped into memory from a file.
+ * <ul>
+ * <li>A file is created with {@link #write(Path, Map, float)}, and is
+ * opened with {@link #open(Path)}.</li>
+ * <li>Opening a file does not read the entries. The methods
+ * {@link #containsKey(long)} and {@link #getOrDefault(long, long)} read the
+ * buckets directly from the mapped file, and therefore from the page cache
+ * of the operating system.</li>
+ * <li>The file format is described in {@link MappedTableFormat}.</li>
+ * <li>The mapping must be released with {@link #close()}. Accessing the
+ * map after it has been closed throws an {@link IllegalStateException}.
+ * The map must not be closed while other threads access it.</li>
+ * <li>Can be accessed concurrently by multiple threads.</li>
+ * <li>Keys are hashed like {@link Long#hashCode(long)}.</li>
+ * </ul>
+ */
+public final class MappedRobinHoodLongLongMap implements AutoCloseable {
+    private final OffHeapTable table;
+    private final int capacity;
+    private final int size;
+    private final boolean containsZero;
+    private final long zeroValue;
+
+    private MappedRobinHoodLongLongMap(MappedTableFormat header, OffHeapTable table) {
+        this.table = table;
+        this.capacity = header.capacity;
+        this.size = header.size;
+        this.containsZero = header.containsZero;
+        this.zeroValue = header.zeroValue;
+    }
+
+    /**
+     * Opens a map from a file that has been created with
+     * {@link #write(Path, Map, float)}.
+     *
+     * @param path the path of the file
+     * @return the map
+     * @throws IOException if the file can not be read, or is not a map
+     */
+    public static MappedRobinHoodLongLongMap open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var header = MappedTableFormat.readHeader(channel, 2);
+            return new MappedRobinHoodLongLongMap(header, header.mapTable(channel));
+        }
+    }
+
+    /**
+     * Writes the specified entries into a file with the default load
+     * factor (0.5). Replaces the file if it exists.
+     *
+     * @param path the path of the file
+     * @param m    the entries
+     * @throws IOException if writing fails
+     */
+    public static void write(Path path, Map<? extends Long, ? extends Long> m) throws IOException {
+        write(path, m, 0.5f);
+    }
+
+    /**
+     * Writes the specified entries into a file with the specified load
+     * factor. Replaces the file if it exists.
+     *
+     * @param path       the path of the file
+     * @param m          the entries
+     * @param loadFactor the load factor of the table
+     * @throws IOException              if writing fails
+     * @throws IllegalArgumentException if the load factor is non-positive
+     */
+    public static void write(Path path, Map<? extends Long, ? extends Long> m, float loadFactor) throws IOException {
+        try (var map = new OffHeapLongLongRobinHoodHashMap(m.size(), loadFactor)) {
+            for (var entry : m.entrySet()) {
+                map.put(entry.getKey().longValue(), entry.getValue().longValue());
+            }
+            MappedTableFormat.write(path, map.getTable(), 2, map.size(),
+                    map.containsKey(0L), map.getOrDefault(0L, 0L));
+        }
+    }
+
+    /**
+     * Unmaps the file. Does nothing if the map has already been closed.
+     */
+    @Override
+    public void close() {
+        table.close();
+    }
+
+    /**
+     * Returns whether the map contains the specified key.
+     *
+     * @param key a key
+     * @return whether the key is in the map
+     */
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : capacity != 0 && table.find(key) >= 0;
+    }
+
+    /**
+     * Returns the number of buckets of the table.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key          a key
+     * @param defaultValue the value to be returned if the key is not in the map
+     * @return the value, or {@code defaultValue} if the key is not in the map
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == 0) {
+            return containsZero ? zeroValue : defaultValue;
+        }
+        var index = capacity == 0 ? -1 : table.find(key);
+        return index < 0 ? defaultValue : table.get(index, 1);
+    }
+
+    /**
+     * Returns whether the map has been closed.
+     *
+     * @return whether the file has been unmapped
+     */
+    public boolean isClosed() {
+        return table.isClosed();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
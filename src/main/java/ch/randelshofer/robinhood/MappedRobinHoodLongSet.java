@@ -0,0 +1,154 @@
+package ch.randelshofer.robinhood;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Immutable Robin Hood Hash Set for {@code long} values, that is mapped
+ * into memory from a file.
+ * <ul>
+ * <li>A file is created with {@link #write(Path, Collection, float)}, and
+ * is opened with {@link #open(Path)}.</li>
+ * <li>Opening a file does not read the elements. The method
+ * {@link #contains(long)} reads the buckets directly from the mapped file,
+ * and therefore from the page cache of the operating system.</li>
+ * <li>The file format is described in {@link MappedTableFormat}.</li>
+ * <li>The mapping must be released with {@link #close()}. Accessing the
+ * set after it has been closed throws an {@link IllegalStateException}.
+ * The set must not be closed while other threads access it.</li>
+ * <li>Can be accessed concurrently by multiple threads.</li>
+ * <li>Elements are hashed like {@link Long#hashCode(long)}.</li>
+ * </ul>
+ */
+public final class MappedRobinHoodLongSet implements AutoCloseable {
+    private final OffHeapTable table;
+    private final int capacity;
+    private final int size;
+    private final boolean containsZero;
+
+    private MappedRobinHoodLongSet(MappedTableFormat header, OffHeapTable table) {
+        this.table = table;
+        this.capacity = header.capacity;
+        this.size = header.size;
+        this.containsZero = header.containsZero;
+    }
+
+    /**
+     * Opens a set from a file that has been created with
+     * {@link #write(Path, Collection, float)}.
+     *
+     * @param path the path of the file
+     * @return the set
+     * @throws IOException if the file can not be read, or is not a set
+     */
+    public static MappedRobinHoodLongSet open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var header = MappedTableFormat.readHeader(channel, 1);
+            return new MappedRobinHoodLongSet(header, header.mapTable(channel));
+        }
+    }
+
+    /**
+     * Writes the specified elements into a file with the default load
+     * factor (0.5). Replaces the file if it exists.
+     *
+     * @param path the path of the file
+     * @param c    the elements
+     * @throws IOException if writing fails
+     */
+    public static void write(Path path, Collection<? extends Long> c) throws IOException {
+        write(path, c, 0.5f);
+    }
+
+    /**
+     * Writes the specified elements into a file with the specified load
+     * factor. Replaces the file if it exists.
+     *
+     * @param path       the path of the file
+     * @param c          the elements
+     * @param loadFactor the load factor of the table
+     * @throws IOException              if writing fails
+     * @throws IllegalArgumentException if the load factor is non-positive
+     */
+    public static void write(Path path, Collection<? extends Long> c, float loadFactor) throws IOException {
+        try (var set = new OffHeapLongRobinHoodHashSet(c.size(), loadFactor)) {
+            if (c instanceof LongRobinHoodHashSet s) {
+                for (var it = s.iterator(); it.hasNext(); ) {
+                    set.add(it.nextLong());
+                }
+            } else {
+                for (var e : c) {
+                    set.add(e.longValue());
+                }
+            }
+            MappedTableFormat.write(path, set.getTable(), 1, set.size(), set.contains(0L), 0L);
+        }
+    }
+
+    /**
+     * Unmaps the file. Does nothing if the set has already been closed.
+     */
+    @Override
+    public void close() {
+        table.close();
+    }
+
+    /**
+     * Returns whether the set contains the specified element.
+     *
+     * @param e an element
+     * @return whether the element is in the set
+     */
+    public boolean contains(long e) {
+        return e == 0 ? containsZero : capacity != 0 && table.find(e) >= 0;
+    }
+
+    /**
+     * Returns the number of buckets of the table.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns whether the set has been closed.
+     *
+     * @return whether the file has been unmapped
+     */
+    public boolean isClosed() {
+        return table.isClosed();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an array with the elements of this set.
+     *
+     * @return a new array
+     */
+    public long[] toLongArray() {
+        var r = new long[size];
+        var index = 0;
+        if (containsZero) {
+            r[index++] = 0L;
+        }
+        for (var i = 0; i < capacity; i++) {
+            var e = table.get(i, 0);
+            if (e != 0) {
+                r[index++] = e;
+            }
+        }
+        return r;
+    }
+}
@@ -0,0 +1,147 @@
+package ch.randelshofer.robinhood;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The file format of {@link MappedRobinHoodLongSet} and
+ * {@link MappedRobinHoodLongLongMap}.
+ * <p>
+ * A file consists of a header of {@value #HEADER_SIZE} bytes, followed by
+ * the buckets of an {@link OffHeapTable}. All values are stored in
+ * little-endian order.
+ * <pre>
+ * offset  size  content
+ *      0     4  magic number 'RHHT'
+ *      4     4  version (1)
+ *      8     4  words per bucket (1 for a set, 2 for a map)
+ *     12     4  capacity (number of buckets)
+ *     16     4  size (number of elements, including the element 0)
+ *     20     4  flags (bit 0: contains the element 0)
+ *     24     8  value of the key 0
+ *     32        buckets
+ * </pre>
+ * The buckets are in the order of the Robin Hood table. The element 0
+ * denotes an empty bucket, and is therefore stored in the header.
+ */
+final class MappedTableFormat {
+    static final int MAGIC = 'R' | 'H' << 8 | 'H' << 16 | 'T' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    private static final int FLAG_CONTAINS_ZERO = 1;
+
+    final int words;
+    final int capacity;
+    final int size;
+    final boolean containsZero;
+    final long zeroValue;
+
+    private MappedTableFormat(int words, int capacity, int size, boolean containsZero, long zeroValue) {
+        this.words = words;
+        this.capacity = capacity;
+        this.size = size;
+        this.containsZero = containsZero;
+        this.zeroValue = zeroValue;
+    }
+
+    /**
+     * Reads and validates the header of a file.
+     *
+     * @param channel the file channel
+     * @param words   the expected number of words per bucket
+     * @return the header
+     * @throws IOException if reading fails, or if the file is not a
+     *                     valid table with the expected number of words
+     */
+    static MappedTableFormat readHeader(FileChannel channel, int words) throws IOException {
+        var b = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (channel.read(b, b.position()) < 0) {
+                throw new IOException("Unexpected end of file in header.");
+            }
+        }
+        if (b.getInt(0) != MAGIC) {
+            throw new IOException("Illegal magic number: 0x" + Integer.toHexString(b.getInt(0)));
+        }
+        if (b.getInt(4) != VERSION) {
+            throw new IOException("Unsupported version: " + b.getInt(4));
+        }
+        if (b.getInt(8) != words) {
+            throw new IOException("Illegal words per bucket: " + b.getInt(8) + ", expected: " + words);
+        }
+        var capacity = b.getInt(12);
+        var size = b.getInt(16);
+        var containsZero = (b.getInt(20) & FLAG_CONTAINS_ZERO) != 0;
+        if (capacity < 0 || capacity > 1 << 30) {
+            throw new IOException("Illegal capacity: " + capacity);
+        }
+        // The element 0 is stored in the header, all others in the buckets.
+        var sizeInTable = containsZero ? size - 1 : size;
+        if (sizeInTable < 0 || sizeInTable > capacity) {
+            throw new IOException("Illegal size: " + size + " for capacity: " + capacity);
+        }
+        if (channel.size() < HEADER_SIZE + OffHeapTable.byteSize(capacity, words)) {
+            throw new IOException("File is too short for capacity: " + capacity);
+        }
+        return new MappedTableFormat(words, capacity, size, containsZero, b.getLong(24));
+    }
+
+    /**
+     * Writes a table into a file. Replaces the file if it exists.
+     * <p>
+     * The table is written into a temporary file in the same directory,
+     * which is then moved over the file atomically. A process that has
+     * mapped the old file keeps reading the old buckets, truncating the
+     * file under its mapping would make its reads fail.
+     *
+     * @param path         the path of the file
+     * @param table        the table
+     * @param words        the number of words per bucket
+     * @param size         the number of elements, including the element 0
+     * @param containsZero whether the element 0 is present
+     * @param zeroValue    the value of the key 0
+     * @throws IOException if writing fails
+     */
+    static void write(Path path, OffHeapTable table, int words, int size, boolean containsZero, long zeroValue) throws IOException {
+        var b = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(words)
+                .putInt(table.capacity())
+                .putInt(size)
+                .putInt(containsZero ? FLAG_CONTAINS_ZERO : 0)
+                .putLong(zeroValue)
+                .flip();
+        var target = path.toAbsolutePath();
+        var temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (var channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (b.hasRemaining()) {
+                    channel.write(b, b.position());
+                }
+                table.write(channel, HEADER_SIZE);
+                channel.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Maps the buckets of a file, whose header has been read.
+     *
+     * @param channel the file channel
+     * @return the table
+     * @throws IOException if mapping fails
+     */
+    OffHeapTable mapTable(FileChannel channel) throws IOException {
+        return OffHeapTable.map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE, capacity, words);
+    }
+}
@@ -0,0 +1,72 @@
+package ch.randelshofer.robinhood;
+
+/**
+ * Compares the metadata bytes of multiple consecutive buckets at once.
+ * <p>
+ * See {@link MetadataTable#metadata(int, int)} for the layout
+ * of a metadata byte.
+ * <p>
+ * {@link #getInstance()} returns a probe that uses the Vector API, if the
+ * module {@code jdk.incubator.vector} has been resolved at startup
+ * (for example with {@code --add-modules jdk.incubator.vector}).
+ * Otherwise, it returns a probe that uses SWAR operations on 64-bit words.
+ * <p>
+ * The Vector API probe is in the source root {@code src/main/java-vector},
+ * which is the only source root that is compiled with the incubator module.
+ */
+abstract class MetadataProbe {
+    private static final MetadataProbe INSTANCE = createInstance();
+
+    /**
+     * Gets the fastest probe that is supported by the current runtime.
+     *
+     * @return a probe
+     */
+    public static MetadataProbe getInstance() {
+        return INSTANCE;
+    }
+
+    private static MetadataProbe createInstance() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (MetadataProbe) Class.forName("ch.randelshofer.robinhood.VectorMetadataProbe")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall back to SWAR
+            }
+        }
+        return new SwarMetadataProbe();
+    }
+
+    /**
+     * Returns the number of metadata bytes that this probe reads at once.
+     *
+     * @return the number of lanes
+     */
+    public abstract int lanes();
+
+    /**
+     * Probes the buckets {@code [index, index + n)} for an element with the
+     * specified tag, that has cost {@code cost} at bucket {@code index}.
+     * <p>
+     * Lane {@code i} holds the bucket {@code index + i}. An element in
+     * lane {@code i} matches, if it has cost {@code cost + i} and the
+     * specified tag. Probing stops at the first lane, that holds an
+     * element with a lower cost than {@code cost + i}, or that is empty.
+     * <p>
+     * The result holds the index of the stop lane in the upper 32 bits,
+     * or {@code n} if probing did not stop. The lower 32 bits hold a mask
+     * with bit {@code i} set for each matching lane {@code i} before the
+     * stop lane.
+     *
+     * @param metadata the metadata array, must hold {@link #lanes()} bytes
+     *                 starting at {@code index}
+     * @param index    the index of the first bucket
+     * @param cost     the cost of the element at bucket {@code index}
+     * @param tag      the tag of the element
+     * @param n        the number of lanes to probe, must be in the range
+     *                 {@code [1, min(lanes(), MetadataTable.SATURATED - 1 - cost)]}
+     * @return the stop lane and the match mask
+     */
+    public abstract long probe(byte[] metadata, int index, int cost, int tag, int n);
+}
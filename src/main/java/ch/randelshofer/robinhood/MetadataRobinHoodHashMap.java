@@ -0,0 +1,247 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Map with a metadata array.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method.</li>
+ * <li>Stores the probe distance and a 4-bit tag of each key in a
+ * {@code byte[]} array next to the table. Probing scans the metadata
+ * 8 buckets at a time, and only reads keys from the table if their
+ * tag matches.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} keys.</li>
+ * </ul>
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class MetadataRobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V> {
+    private Object[] table;
+    /**
+     * The metadata of the buckets.
+     */
+    private MetadataTable metadata;
+
+    public MetadataRobinHoodHashMap() {
+    }
+
+    public MetadataRobinHoodHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public MetadataRobinHoodHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public MetadataRobinHoodHashMap(Map<? extends K, ? extends V> m, float loadFactor) {
+        this(m, (int) (m.size() / loadFactor), loadFactor);
+    }
+
+    public MetadataRobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries, int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+        for (Entry<? extends K, ? extends V> entry : entries) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public MetadataRobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries) {
+        this(entries, entries.size(), 0.5f);
+    }
+
+    public MetadataRobinHoodHashMap(Map<? extends K, ? extends V> m, int expectedSize, float loadFactor) {
+        this(m.entrySet(), expectedSize, loadFactor);
+    }
+
+    public MetadataRobinHoodHashMap(Map<? extends K, ? extends V> m) {
+        this(m, m.size(), 0.5f);
+    }
+
+    /**
+     * Computes the hash word of the key once, and derives the metadata
+     * from it, instead of computing it again in {@link #setKeyInTable}.
+     */
+    @Override
+    public V put(K key, V value) {
+        var word = hashWord(key);
+        var result = capacity == 0 ? -1 : findWord(key, word);
+        if (result >= 0) {
+            V oldValue = getValueFromTable(result);
+            table[result * 2 + 1] = value;
+            return oldValue;
+        }
+        if (size >= threshold) {
+            grow();
+            result = findWord(key, word);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        setKeyInTable(index, key, word);
+        table[index * 2 + 1] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(table, null);
+        metadata.clear();
+    }
+
+    @Override
+    public MetadataRobinHoodHashMap<K, V> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            MetadataRobinHoodHashMap<K, V> that = (MetadataRobinHoodHashMap<K, V>) super.clone();
+            that.table = this.table.clone();
+            that.metadata = this.metadata.copy();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        this.table = new Object[capacity * 2];
+        this.metadata = new MetadataTable(capacity, capacity);
+    }
+
+    @Override
+    protected int find(Object expected) {
+        if (capacity == 0) {
+            return -1;
+        }
+        return findWord(expected, hashWord(expected));
+    }
+
+    private int findWord(Object expected, int word) {
+        return metadata.find(this, expected, fastRange(word, capacity), word & MetadataTable.TAG_MASK);
+    }
+
+    @Override
+    protected int getCost(int i) {
+        return metadata.getCost(this, i);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected K getKeyFromTable(int index) {
+        return (K) table[index * 2];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V getValueFromTable(int index) {
+        return (V) table[index * 2 + 1];
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(hashWord(e), length);
+    }
+
+    /**
+     * Computes the hash word of the specified key.
+     * <p>
+     * The high bits of the word determine the bucket index,
+     * the low bits determine the tag.
+     *
+     * @param e a key
+     * @return the hash word
+     */
+    protected int hashWord(Object e) {
+        return goldenRatioAvalanche(Objects.hashCode(e));
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return Objects.equals(a, b);
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldTable = table;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var i = 0; i < oldTable.length; i += 2) {
+            var o = oldTable[i];
+            if (o != null) {
+                var word = hashWord(o);
+                var index = ~findWord(o, word);
+                shiftForInsertion(index);
+                setKeyInTable(index, o, word);
+                table[index * 2 + 1] = oldTable[i + 1];
+            }
+        }
+    }
+
+    @Override
+    protected void setKeyInTable(int index, K k) {
+        setKeyInTable(index, k, hashWord(k));
+    }
+
+    private void setKeyInTable(int index, Object k, int word) {
+        table[index * 2] = k;
+        var h = fastRange(word, capacity);
+        metadata.set(index, h <= index ? index - h : index - h + capacity, word);
+    }
+
+    @Override
+    protected void setValueInTable(int index, V value) {
+        table[index * 2 + 1] = value;
+    }
+
+    @Override
+    protected void setValueTable(int index, V k) {
+        table[index * 2 + 1] = k;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        var end = metadata.shiftForInsertion(index);
+        moveRight(table, 2, capacity, index, end);
+        table[index * 2] = null;
+        table[index * 2 + 1] = null;
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = metadata.shiftForRemoval(this, index);
+        moveLeft(table, 2, capacity, index, end);
+        var last = end == 0 ? capacity - 1 : end - 1;
+        table[last * 2] = null;
+        table[last * 2 + 1] = null;
+    }
+
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        int index = 0;
+        for (var i = 0; i < table.length; i += 2) {
+            if (table[i] != null) {
+                r[index] = table[i];
+                r[index + 1] = table[i + 1];
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table[index * 2] = null;
+        table[index * 2 + 1] = null;
+        metadata.clear(index);
+    }
+}
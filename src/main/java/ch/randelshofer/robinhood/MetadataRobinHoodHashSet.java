@@ -0,0 +1,248 @@
+package ch.randelshofer.robinhood;
+
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Set with a metadata array.
+ * <ul>
+ * <li>Supports up to 2<sup>30</sup> elements.</li>
+ * <li>Elements are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method.</li>
+ * <li>Stores the probe distance and a 4-bit tag of each element in a
+ * {@code byte[]} array next to the table. Probing scans the metadata
+ * 8 buckets at a time, and only reads elements from the table if their
+ * tag matches.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} values.</li>
+ * </ul>
+ */
+public class MetadataRobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E>
+        implements Cloneable {
+
+    private Object[] table;
+    /**
+     * The metadata of the buckets.
+     */
+    private MetadataTable metadata;
+
+
+    /**
+     * Creates a new, empty set with the default expected size (0)
+     * and default load factor (0.5).
+     */
+    public MetadataRobinHoodHashSet() {
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and default load factor (0.5).
+     *
+     * @param expectedSize the expected size of the set
+     * @throws IllegalArgumentException if the expected size is less than zero
+     */
+    public MetadataRobinHoodHashSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and load factor.
+     *
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    public MetadataRobinHoodHashSet(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public MetadataRobinHoodHashSet(Collection<? extends E> c) {
+        super(c);
+    }
+
+    public MetadataRobinHoodHashSet(Collection<? extends E> c, int expectedSize, float loadFactor) {
+        super(c, expectedSize, loadFactor);
+    }
+
+    /**
+     * Computes the hash word of the element once, and derives the metadata
+     * from it, instead of computing it again in {@link #setKeyInTable}.
+     */
+    @Override
+    public boolean add(E e) {
+        var word = hashWord(e);
+        var result = capacity == 0 ? -1 : findWord(e, word);
+        if (result >= 0) {
+            return false;
+        }
+        if (size >= threshold) {
+            grow();
+            result = findWord(e, word);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        setKeyInTable(index, e, word);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(table, null);
+        metadata.clear();
+    }
+
+    @Override
+    public MetadataRobinHoodHashSet<E> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            MetadataRobinHoodHashSet<E> that = (MetadataRobinHoodHashSet<E>) super.clone();
+            that.table = this.table.clone();
+            that.metadata = this.metadata.copy();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = new Object[capacity];
+        metadata = new MetadataTable(capacity, capacity);
+    }
+
+    @Override
+    protected int find(Object expected) {
+        if (capacity == 0) {
+            return -1;
+        }
+        return findWord(expected, hashWord(expected));
+    }
+
+    private int findWord(Object expected, int word) {
+        return metadata.find(this, expected, fastRange(word, capacity), word & MetadataTable.TAG_MASK);
+    }
+
+    @Override
+    protected int getCost(int i) {
+        return metadata.getCost(this, i);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        var mc = modCount;
+        for (var e : table) {
+            if (e != null) {
+                action.accept((E) e);
+            }
+        }
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected E getKeyFromTable(int index) {
+        return (E) table[index];
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(hashWord(e), length);
+    }
+
+    /**
+     * Computes the hash word of the specified element.
+     * <p>
+     * The high bits of the word determine the bucket index,
+     * the low bits determine the tag.
+     *
+     * @param e an element
+     * @return the hash word
+     */
+    protected int hashWord(Object e) {
+        return goldenRatioAvalanche(Objects.hashCode(e));
+    }
+
+    protected boolean isEqual(Object a, Object b) {
+        return Objects.equals(a, b);
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldTable = table;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var o : oldTable) {
+            if (o != null) {
+                var word = hashWord(o);
+                var index = ~findWord(o, word);
+                shiftForInsertion(index);
+                setKeyInTable(index, o, word);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return removeIfInTable(i -> filter.test((E) table[i]));
+    }
+
+    @Override
+    protected void setKeyInTable(int index, E e) {
+        setKeyInTable(index, e, hashWord(e));
+    }
+
+    private void setKeyInTable(int index, Object e, int word) {
+        table[index] = e;
+        var h = fastRange(word, capacity);
+        metadata.set(index, h <= index ? index - h : index - h + capacity, word);
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        var end = metadata.shiftForInsertion(index);
+        moveRight(table, 1, capacity, index, end);
+        table[index] = null;
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = metadata.shiftForRemoval(this, index);
+        moveLeft(table, 1, capacity, index, end);
+        table[end == 0 ? capacity - 1 : end - 1] = null;
+    }
+
+    /**
+     * Returns a spliterator over the buckets of the table, see
+     * {@link BucketSpliterator}.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new BucketSpliterator<>(this::getKeyFromTable, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table[index] = null;
+        metadata.clear(index);
+    }
+}
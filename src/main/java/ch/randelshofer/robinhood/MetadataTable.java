@@ -0,0 +1,382 @@
+package ch.randelshofer.robinhood;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The metadata of the buckets of a table. Each bucket has one metadata
+ * byte, see {@link #metadata(int, int)}.
+ * <p>
+ * The elements stay in the table of the owning hash set or map. Methods
+ * that need to compare elements, or to compute the cost of an element
+ * with a saturated distance code, take the owner as a parameter.
+ * <p>
+ * Only the tables that store metadata use this class, so that the other
+ * tables do not load a {@link MetadataProbe}.
+ */
+final class MetadataTable implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * Number of tag bits in a metadata byte.
+     */
+    static final int TAG_BITS = 4;
+    /**
+     * Mask for the tag bits in a metadata byte.
+     */
+    static final int TAG_MASK = (1 << TAG_BITS) - 1;
+    /**
+     * The largest distance code in a metadata byte. This code is used
+     * for all costs {@literal >= SATURATED - 1}.
+     */
+    static final int SATURATED = 15;
+    /**
+     * The number of metadata bytes after the last bucket that
+     * {@link #findPadded} may read. This is the largest number
+     * of lanes of a {@link MetadataProbe}.
+     */
+    static final int PADDING = 16;
+    /**
+     * The probe that is used by {@link #find} and {@link #findPadded}.
+     */
+    private static final MetadataProbe PROBE = MetadataProbe.getInstance();
+
+    private final int capacity;
+    private final byte[] metadata;
+
+    /**
+     * Allocates the metadata for the specified number of buckets.
+     * All buckets are empty.
+     *
+     * @param capacity the number of buckets
+     * @param length   the length of the metadata array, must be at least
+     *                 {@code capacity}
+     */
+    MetadataTable(int capacity, int length) {
+        this.capacity = capacity;
+        this.metadata = new byte[length];
+    }
+
+    private MetadataTable(MetadataTable that) {
+        this.capacity = that.capacity;
+        this.metadata = that.metadata.clone();
+    }
+
+    /**
+     * Creates a metadata byte for a bucket.
+     * <p>
+     * A metadata byte holds a distance code in its upper 4 bits, and a tag
+     * in its lower 4 bits. A metadata byte with value 0 denotes an empty
+     * bucket. The distance code is {@code cost + 1}, saturated at
+     * {@link #SATURATED}. The tag holds some bits of the hash of
+     * the element that are not used for computing the bucket index.
+     *
+     * @param cost the cost {@code c} of the element
+     * @param tag  the tag of the element
+     * @return the metadata byte
+     */
+    static byte metadata(int cost, int tag) {
+        return (byte) ((Math.min(cost + 1, SATURATED) << TAG_BITS) | (tag & TAG_MASK));
+    }
+
+    /**
+     * Returns a copy of this table.
+     */
+    MetadataTable copy() {
+        return new MetadataTable(this);
+    }
+
+    /**
+     * Sets the metadata of a bucket.
+     *
+     * @param index the bucket index
+     * @param cost  the cost {@code c} of the element in the bucket
+     * @param tag   the tag of the element in the bucket
+     */
+    void set(int index, int cost, int tag) {
+        metadata[index] = metadata(cost, tag);
+    }
+
+    /**
+     * Marks a bucket as empty.
+     *
+     * @param index the bucket index
+     */
+    void clear(int index) {
+        metadata[index] = 0;
+    }
+
+    /**
+     * Marks all buckets as empty.
+     */
+    void clear() {
+        Arrays.fill(metadata, (byte) 0);
+    }
+
+    /**
+     * Repeats the metadata of the first {@code n} buckets after the last
+     * bucket, see {@link #findPadded}.
+     *
+     * @param n the number of buckets
+     */
+    void repeat(int n) {
+        System.arraycopy(metadata, 0, metadata, capacity, n);
+    }
+
+    /**
+     * Gets {@code c} for the entry at index {@code i}.
+     *
+     * @param owner the hash set or map that holds the elements
+     * @param i     the bucket index
+     * @return the cost
+     */
+    int getCost(AbstractRobinHoodHashing<?> owner, int i) {
+        var code = (metadata[i] & 0xff) >>> TAG_BITS;
+        if (code == 0) {
+            return 0;
+        }
+        return code < SATURATED ? code - 1 : owner.computeCost(i);
+    }
+
+    /**
+     * Searches for the specified element.
+     * <p>
+     * Returns the same result as
+     * {@link AbstractRobinHoodHashing#find(Object, int)}, but only
+     * reads elements from the table if their tag matches. Compares
+     * multiple metadata bytes at once with a {@link MetadataProbe}, when
+     * the probe sequence allows it.
+     *
+     * @param owner    the hash set or map that holds the elements
+     * @param expected the object to be found
+     * @param h        the hash of the object to be found
+     * @param tag      the tag of the object to be found
+     * @return the index of the bucket, or {@code ~index}
+     */
+    int find(AbstractRobinHoodHashing<?> owner, Object expected, int h, int tag) {
+        var metadata = this.metadata;
+        var capacity = this.capacity;
+        var index = h;
+        var cost = 0;
+        var probe = PROBE;
+        var lanes = probe.lanes();
+
+        while (true) {
+            var n = Math.min(lanes, SATURATED - 1 - cost);
+            if (n > 0 && index <= capacity - lanes) {
+                var result = probe.probe(metadata, index, cost, tag, n);
+                for (var matches = (int) result; matches != 0; matches &= matches - 1) {
+                    var i = index + Integer.numberOfTrailingZeros(matches);
+                    if (owner.isEqual(expected, owner.getKeyFromTable(i))) {
+                        return i;
+                    }
+                }
+                var stop = (int) (result >>> 32);
+                if (stop < n) {
+                    return -(index + stop) - 1;
+                }
+                cost += n;
+                index += n;
+                if (index == capacity) {
+                    index = 0;
+                }
+                continue;
+            }
+
+            var m = metadata[index] & 0xff;
+            var actualCode = m >>> TAG_BITS;
+            var expectedCode = Math.min(cost + 1, SATURATED);
+            if (actualCode < expectedCode) {
+                return -index - 1;
+            }
+            if (actualCode == expectedCode && (m & TAG_MASK) == tag) {
+                if (actualCode < SATURATED) {
+                    if (owner.isEqual(expected, owner.getKeyFromTable(index))) {
+                        return index;
+                    }
+                } else {
+                    var actualCost = owner.computeCost(index);
+                    if (actualCost < cost) {
+                        return -index - 1;
+                    }
+                    if (actualCost == cost && owner.isEqual(expected, owner.getKeyFromTable(index))) {
+                        return index;
+                    }
+                }
+            } else if (actualCode == SATURATED && expectedCode == SATURATED
+                    && owner.computeCost(index) < cost) {
+                return -index - 1;
+            }
+            cost++;
+            if (++index == capacity) {
+                index = 0;
+            }
+        }
+    }
+
+    /**
+     * Searches for the specified element in a table that is not modified
+     * anymore, and that repeats its first {@code maxCost} buckets after
+     * its end.
+     * <p>
+     * Unlike {@link #find}, this method never wraps around,
+     * and probes at most {@code maxCost} buckets after the home bucket.
+     * The metadata array must hold {@link #PADDING} zero bytes
+     * after the repeated buckets, see {@link #repeat(int)}.
+     *
+     * @param owner    the hash set or map that holds the elements
+     * @param expected the object to be found
+     * @param h        the hash of the object to be found
+     * @param tag      the tag of the object to be found
+     * @param maxCost  the largest cost of all elements in the table
+     * @return the index of the bucket, which may be one of the repeated
+     * buckets, or -1 if the element is absent
+     */
+    int findPadded(AbstractRobinHoodHashing<?> owner, Object expected, int h, int tag, int maxCost) {
+        var metadata = this.metadata;
+        var index = h;
+        var cost = 0;
+        var probe = PROBE;
+        var lanes = probe.lanes();
+
+        while (cost < SATURATED - 1) {
+            var n = Math.min(Math.min(lanes, SATURATED - 1 - cost), maxCost + 1 - cost);
+            if (n <= 0) {
+                return -1;
+            }
+            var result = probe.probe(metadata, index, cost, tag, n);
+            for (var matches = (int) result; matches != 0; matches &= matches - 1) {
+                var i = index + Integer.numberOfTrailingZeros(matches);
+                if (owner.isEqual(expected, owner.getKeyFromTable(i))) {
+                    return i;
+                }
+            }
+            if ((int) (result >>> 32) < n) {
+                return -1;
+            }
+            cost += n;
+            index += n;
+        }
+
+        // The distance codes of the remaining buckets are saturated.
+        for (; cost <= maxCost; cost++, index++) {
+            var m = metadata[index] & 0xff;
+            if (m >>> TAG_BITS < SATURATED) {
+                return -1;
+            }
+            if ((m & TAG_MASK) == tag && owner.isEqual(expected, owner.getKeyFromTable(index))) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Shifts the metadata of the buckets starting at {@code index} forward
+     * by one bucket, and clears the metadata at {@code index}.
+     * <p>
+     * The caller must shift the table buckets in the same way, see
+     * {@link AbstractRobinHoodHashing#moveRight(Object, int, int, int, int)}.
+     *
+     * @param index the bucket index
+     * @return the bucket that terminated the shift
+     */
+    int shiftForInsertion(int index) {
+        var metadata = this.metadata;
+        if (metadata[index] == 0) {
+            return index;
+        }
+
+        // Find the first empty bucket, 8 buckets at a time.
+        var length = capacity;
+        var end = index;
+        while (true) {
+            if (end <= length - 8) {
+                var empty = SwarAlgorithms.zeroLanes(SwarAlgorithms.readLong(metadata, end));
+                if (empty != 0) {
+                    end += SwarAlgorithms.firstLane(empty);
+                    break;
+                }
+                end += 8;
+            } else {
+                if (metadata[end] == 0) {
+                    break;
+                }
+                end++;
+            }
+            if (end == length) {
+                end = 0;
+            }
+        }
+
+        // All shifted elements move one bucket away from their home bucket.
+        for (var i = index; i != end; i = i == length - 1 ? 0 : i + 1) {
+            if ((metadata[i] & 0xff) >>> TAG_BITS < SATURATED) {
+                metadata[i] += 1 << TAG_BITS;
+            }
+        }
+
+        AbstractRobinHoodHashing.moveRight(metadata, 1, length, index, end);
+        metadata[index] = 0;
+        return end;
+    }
+
+    /**
+     * Shifts the metadata of the buckets after {@code index} back by one
+     * bucket. The metadata at {@code index} must already have been
+     * cleared.
+     * <p>
+     * This method must be called before the caller shifts the table buckets,
+     * see {@link AbstractRobinHoodHashing#moveLeft(Object, int, int, int, int)}.
+     *
+     * @param owner the hash set or map that holds the elements
+     * @param index the bucket index
+     * @return the bucket that terminated the shift
+     */
+    int shiftForRemoval(AbstractRobinHoodHashing<?> owner, int index) {
+        // Find the first bucket with zero cost, 8 buckets at a time.
+        // A bucket has zero cost if its metadata is less than
+        // 2 << TAG_BITS. We compare the metadata shifted right by
+        // one, because the SWAR comparison requires lanes < 0x80.
+        var metadata = this.metadata;
+        var length = capacity;
+        var end = index + 1 == length ? 0 : index + 1;
+        var limits = (1L << TAG_BITS) * SwarAlgorithms.ONES;
+        while (true) {
+            if (end <= length - 8) {
+                var word = (SwarAlgorithms.readLong(metadata, end) >>> 1) & SwarAlgorithms.LOWS;
+                var zeroCost = SwarAlgorithms.lessThanLanes(word, limits);
+                if (zeroCost != 0) {
+                    end += SwarAlgorithms.firstLane(zeroCost);
+                    break;
+                }
+                end += 8;
+            } else {
+                if ((metadata[end] & 0xff) < 2 << TAG_BITS) {
+                    break;
+                }
+                end++;
+            }
+            if (end == length) {
+                end = 0;
+            }
+        }
+
+        // All shifted elements move one bucket closer to their home bucket.
+        // We must compute saturated costs before the table is shifted.
+        var first = index + 1 == length ? 0 : index + 1;
+        for (var i = first; i != end; i = i == length - 1 ? 0 : i + 1) {
+            var m = metadata[i] & 0xff;
+            if (m >>> TAG_BITS < SATURATED) {
+                metadata[i] = (byte) (m - (1 << TAG_BITS));
+            } else {
+                metadata[i] = metadata(owner.computeCost(i) - 1, m);
+            }
+        }
+
+        AbstractRobinHoodHashing.moveLeft(metadata, 1, length, index, end);
+        metadata[end == 0 ? length - 1 : end - 1] = 0;
+        return end;
+    }
+}
@@ -0,0 +1,286 @@
+package ch.randelshofer.robinhood;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Map with {@code long} values.
+ * <ul>
+ * <li>Supports up to 2<sup>29</sup> entries.</li>
+ * <li>Keys are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method.</li>
+ * <li>Stores the keys in an {@code Object[]} array, and the values in a
+ * {@code long[]} array. The methods {@link #getOrDefault(Object, long)},
+ * {@link #put(Object, long)}, {@link #addTo(Object, long)},
+ * {@link #increment(Object)} and {@link #removeOrDefault(Object, long)}
+ * do not box values.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * <li>Does not allow {@code null} keys and {@code null} values.</li>
+ * </ul>
+ *
+ * @param <K>
+ */
+public class ObjectLongRobinHoodHashMap<K> extends AbstractMutableRobinHoodHashMap<K, Long> {
+    private Object[] keys;
+    /**
+     * The values. The content of a bucket is undefined if the key
+     * bucket is empty.
+     */
+    private long[] values;
+
+    public ObjectLongRobinHoodHashMap() {
+    }
+
+    public ObjectLongRobinHoodHashMap(int expectedSize) {
+        super(expectedSize);
+    }
+
+    public ObjectLongRobinHoodHashMap(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public ObjectLongRobinHoodHashMap(Map<? extends K, ? extends Long> m) {
+        this(m.size(), 0.5f);
+        putAll(m);
+    }
+
+    /**
+     * Adds the specified increment to the value of the specified key.
+     * If the key is not in the map, puts the key with the increment as
+     * its value.
+     *
+     * @param key       a key
+     * @param increment the increment
+     * @return the new value
+     */
+    public long addTo(K key, long increment) {
+        Objects.requireNonNull(key, "key");
+        var result = find(key);
+        if (result >= 0) {
+            return values[result] += increment;
+        }
+        insert(result, key, increment);
+        return increment;
+    }
+
+    @Override
+    protected void clearTable() {
+        Arrays.fill(keys, null);
+    }
+
+    @Override
+    public ObjectLongRobinHoodHashMap<K> clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            ObjectLongRobinHoodHashMap<K> that = (ObjectLongRobinHoodHashMap<K>) super.clone();
+            that.keys = this.keys.clone();
+            that.values = this.values.clone();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (value instanceof Long v) {
+            var expected = v.longValue();
+            for (int i = 0; i < capacity; i++) {
+                if (keys[i] != null && values[i] == expected) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        keys = new Object[capacity];
+        values = new long[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected K getKeyFromTable(int index) {
+        return (K) keys[index];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key          a key
+     * @param defaultValue the value to be returned if the key is not in the map
+     * @return the value, or {@code defaultValue} if the key is not in the map
+     */
+    public long getOrDefault(Object key, long defaultValue) {
+        var index = find(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    @Override
+    protected Long getValueFromTable(int index) {
+        return keys[index] == null ? null : values[index];
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche(Objects.hashCode(e)), length);
+    }
+
+    /**
+     * Adds 1 to the value of the specified key.
+     * If the key is not in the map, puts the key with the value 1.
+     *
+     * @param key a key
+     * @return the new value
+     */
+    public long increment(K key) {
+        return addTo(key, 1L);
+    }
+
+    /**
+     * Inserts the specified key and value at the position that was
+     * returned by an unsuccessful {@link #find(Object)}.
+     */
+    private void insert(int result, K key, long value) {
+        if (size >= threshold) {
+            grow();
+            result = find(key);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * Associates the specified value with the specified key.
+     *
+     * @param key   a key
+     * @param value a value
+     * @return the previous value, or 0 if the key was not in the map
+     */
+    public long put(K key, long value) {
+        Objects.requireNonNull(key, "key");
+        var result = find(key);
+        if (result >= 0) {
+            var oldValue = values[result];
+            values[result] = value;
+            return oldValue;
+        }
+        insert(result, key, value);
+        return 0;
+    }
+
+    @Override
+    public Long put(K key, Long value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        var result = find(key);
+        if (result >= 0) {
+            var oldValue = values[result];
+            values[result] = value;
+            return oldValue;
+        }
+        insert(result, key, value);
+        return null;
+    }
+
+    /**
+     * Removes the specified key from the map.
+     *
+     * @param key          a key
+     * @param defaultValue the value to be returned if the key is not in the map
+     * @return the previous value, or {@code defaultValue} if the key was not
+     * in the map
+     */
+    public long removeOrDefault(Object key, long defaultValue) {
+        var index = find(key);
+        if (index < 0) {
+            return defaultValue;
+        }
+        var oldValue = values[index];
+        keys[index] = null;
+        size--;
+        modCount++;
+        shiftForRemoval(index);
+        shrinkIfSparse();
+        return oldValue;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var i = 0; i < oldKeys.length; i++) {
+            var key = oldKeys[i];
+            if (key != null) {
+                var index = ~find(key);
+                shiftForInsertion(index);
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    protected void setKeyInTable(int index, K key) {
+        keys[index] = key;
+    }
+
+    @Override
+    protected void setValueInTable(int index, Long value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected void setValueTable(int index, Long value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        var end = shiftForInsertion1(index, keys);
+        moveRight(values, 1, capacity, index, end);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = shiftForRemoval1(index, keys);
+        moveLeft(values, 1, capacity, index, end);
+    }
+
+    @Override
+    protected Object[] toArray() {
+        var r = new Object[size() * 2];
+        int index = 0;
+        for (var i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                r[index] = keys[i];
+                r[index + 1] = values[i];
+                index += 2;
+            }
+        }
+        return r;
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        keys[index] = null;
+    }
+}
@@ -0,0 +1,439 @@
+package ch.randelshofer.robinhood;
+
+
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.Stream;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Robin Hood Hash Set for {@code long} values, that stores its table
+ * outside the Java heap.
+ * <ul>
+ * <li>Supports up to 2<sup>30</sup> elements.</li>
+ * <li>Stores the elements in direct {@link java.nio.ByteBuffer}s, which
+ * are not scanned or copied by the garbage collector.</li>
+ * <li>The memory of the table must be released with {@link #close()}.
+ * Accessing the set after it has been closed throws an
+ * {@link IllegalStateException}.</li>
+ * <li>Is not serializable.</li>
+ * <li>The methods
+ * {@link #add(long)}, {@link #contains(long)} and {@link #remove(long)}
+ * do not allocate objects.</li>
+ * <li>Elements are hashed like {@link Long#hashCode(long)}.</li>
+ * <li>Iteration order is not guaranteed.</li>
+ * </ul>
+ */
+public class OffHeapLongRobinHoodHashSet extends AbstractMutableRobinHoodHashSet<Long>
+        implements Cloneable, AutoCloseable {
+
+    /**
+     * The table. The value 0 denotes an empty bucket.
+     */
+    private transient OffHeapTable table;
+    /**
+     * Whether the set contains the element 0, which is not stored in
+     * the table. The element 0 is not counted in {@link #size}.
+     */
+    private boolean containsZero;
+
+    /**
+     * Creates a new, empty set with the default expected size (0)
+     * and default load factor (0.5).
+     */
+    public OffHeapLongRobinHoodHashSet() {
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and default load factor (0.5).
+     *
+     * @param expectedSize the expected size of the set
+     * @throws IllegalArgumentException if the expected size is less than zero
+     */
+    public OffHeapLongRobinHoodHashSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size
+     * and load factor.
+     *
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    public OffHeapLongRobinHoodHashSet(int expectedSize, float loadFactor) {
+        super(expectedSize, loadFactor);
+    }
+
+    public OffHeapLongRobinHoodHashSet(Collection<? extends Long> c) {
+        super(c);
+    }
+
+    public OffHeapLongRobinHoodHashSet(Collection<? extends Long> c, int expectedSize, float loadFactor) {
+        super(c, expectedSize, loadFactor);
+    }
+
+    /**
+     * Adds the specified element to the set.
+     *
+     * @param e an element
+     * @return whether the set was modified
+     */
+    public boolean add(long e) {
+        if (e == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            modCount++;
+            return true;
+        }
+        var result = capacity == 0 ? -1 : find(e);
+        if (result >= 0) {
+            return false;
+        }
+        if (size >= threshold) {
+            grow();
+            result = find(e);
+        }
+        var index = ~result;
+        shiftForInsertion(index);
+        table.put(index, 0, e);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean add(Long e) {
+        return add(e.longValue());
+    }
+
+    @Override
+    public void clear() {
+        if (containsZero) {
+            containsZero = false;
+            modCount++;
+        }
+        super.clear();
+    }
+
+    @Override
+    protected void clearTable() {
+        table.clear();
+    }
+
+    @Override
+    public OffHeapLongRobinHoodHashSet clone() {
+        try {
+            OffHeapLongRobinHoodHashSet that = (OffHeapLongRobinHoodHashSet) super.clone();
+            that.table = this.table.copy();
+            return that;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns whether the set contains the specified element.
+     *
+     * @param e an element
+     * @return whether the element is in the set
+     */
+    public boolean contains(long e) {
+        return e == 0 ? containsZero : capacity != 0 && find(e) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long e && contains(e.longValue());
+    }
+
+    /**
+     * Releases the memory of the table. Does nothing if the set has
+     * already been closed.
+     */
+    @Override
+    public void close() {
+        table.close();
+    }
+
+    @Override
+    protected void createTable(int capacity) {
+        table = OffHeapTable.allocate(capacity, 1);
+    }
+
+    /**
+     * Returns a stream over the elements, including the zero element,
+     * which is not stored in the table.
+     */
+    @Override
+    protected Stream<Long> elementStream(long parallelismThreshold) {
+        var stream = super.elementStream(parallelismThreshold);
+        return containsZero ? Stream.concat(Stream.of(0L), stream) : stream;
+    }
+
+    /**
+     * Searches for the specified non-zero element.
+     * <p>
+     * Works like {@link OffHeapTable#find(long)}.
+     *
+     * @param expected the element to be found
+     * @return the index of the bucket, or {@code ~index}
+     */
+    private int find(long expected) {
+        return table.find(expected);
+    }
+
+    /**
+     * Returns the table of this set. Used for writing the table into a file.
+     */
+    OffHeapTable getTable() {
+        return table;
+    }
+
+    @Override
+    protected int getCost(int i) {
+        return table.getCost(i);
+    }
+
+    @Override
+    protected Long getKeyFromTable(int index) {
+        var e = table.get(index, 0);
+        return e == 0 ? null : e;
+    }
+
+    @Override
+    protected int hash(Object e, int length) {
+        return fastRange(goldenRatioAvalanche(((Long) e).hashCode()), length);
+    }
+
+    @Override
+    protected boolean isEqual(Object a, Object b) {
+        return a.equals(b);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0 && !containsZero;
+    }
+
+    /**
+     * Returns whether the set has been closed.
+     *
+     * @return whether the memory of the table has been released
+     */
+    public boolean isClosed() {
+        return table.isClosed();
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new OffHeapLongSetIterator();
+    }
+
+    /**
+     * Removes the specified element from the set.
+     *
+     * @param e an element
+     * @return whether the set was modified
+     */
+    public boolean remove(long e) {
+        if (e == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            modCount++;
+            return true;
+        }
+        var index = capacity == 0 ? -1 : find(e);
+        if (index < 0) {
+            return false;
+        }
+        table.put(index, 0, 0L);
+        size--;
+        modCount++;
+        shiftForRemoval(index);
+        shrinkIfSparse();
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long e && remove(e.longValue());
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        var oldTable = table;
+        computeThreshold(size, newCapacity);
+        createTable(newCapacity);
+        capacity = newCapacity;
+        for (var i = 0; i < oldTable.capacity(); i++) {
+            var e = oldTable.get(i, 0);
+            if (e != 0) {
+                var index = ~find(e);
+                shiftForInsertion(index);
+                table.put(index, 0, e);
+            }
+        }
+        oldTable.close();
+    }
+
+    @Override
+    protected void setKeyInTable(int index, Long e) {
+        table.put(index, 0, e);
+    }
+
+    @Override
+    protected void shiftForInsertion(int index) {
+        if (table.get(index, 0) == 0) {
+            return;
+        }
+        var end = index;
+        do {
+            if (++end == capacity) {
+                end = 0;
+            }
+        } while (table.get(end, 0) != 0);
+
+        table.moveRight(index, end);
+        table.put(index, 0, 0L);
+    }
+
+    @Override
+    protected void shiftForRemoval(int index) {
+        var end = index + 1 == capacity ? 0 : index + 1;
+        while (getCost(end) != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+
+        table.moveLeft(index, end);
+        table.put(end == 0 ? capacity - 1 : end - 1, 0, 0L);
+    }
+
+    @Override
+    public int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    @Override
+    public Object[] toArray() {
+        var r = new Object[size()];
+        var it = iterator();
+        for (var i = 0; i < r.length; i++) {
+            r[i] = it.nextLong();
+        }
+        return r;
+    }
+
+    /**
+     * Returns an array with the elements of this set.
+     *
+     * @return a new array
+     */
+    public long[] toLongArray() {
+        var r = new long[size()];
+        var it = iterator();
+        for (var i = 0; i < r.length; i++) {
+            r[i] = it.nextLong();
+        }
+        return r;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws NotSerializableException {
+        throw new NotSerializableException(getClass().getName());
+    }
+
+    @Override
+    protected void unsetTable(int index) {
+        table.put(index, 0, 0L);
+    }
+
+    /**
+     * Iterates over the elements without boxing them.
+     * <p>
+     * The iterator starts at a bucket with zero cost. Backward-shift
+     * deletion never moves an element across a bucket with zero cost,
+     * and therefore {@link #remove()} can not move an element that has
+     * already been returned back into a bucket that has not been visited.
+     */
+    private class OffHeapLongSetIterator implements PrimitiveIterator.OfLong {
+        private int mod = modCount;
+        private int remaining = size();
+        private int index;
+        private boolean returnZero = containsZero;
+        private boolean canRemove;
+        private long current;
+
+        private OffHeapLongSetIterator() {
+            while (index < capacity - 1 && getCost(index) != 0) {
+                index++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (mod != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            return remaining > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (returnZero) {
+                returnZero = false;
+                current = 0;
+            } else {
+                while (table.get(index, 0) == 0) {
+                    index = index == capacity - 1 ? 0 : index + 1;
+                }
+                current = table.get(index, 0);
+                index = index == capacity - 1 ? 0 : index + 1;
+            }
+            remaining--;
+            canRemove = true;
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (mod != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            // We cannot shrink the table, because this would reorganize
+            // the table.
+            shrinkSuspended = true;
+            try {
+                OffHeapLongRobinHoodHashSet.this.remove(current);
+            } finally {
+                shrinkSuspended = false;
+            }
+            if (current != 0) {
+                // The bucket of the current element may now hold a shifted element.
+                index = index == 0 ? capacity - 1 : index - 1;
+            }
+            mod = modCount;
+        }
+    }
+}
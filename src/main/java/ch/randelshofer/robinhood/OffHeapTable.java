@@ -0,0 +1,367 @@
+package ch.randelshofer.robinhood;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * A table of buckets outside the Java heap. Each bucket consists of
+ * {@code 1} or {@code 2} {@code long} words.
+ * <p>
+ * The buckets are stored in direct or memory-mapped {@link ByteBuffer}s.
+ * Since a {@link ByteBuffer} can hold at most 2<sup>31</sup>-1 bytes, the
+ * buckets are split into chunks of 2<sup>30</sup> bytes. The words are
+ * stored in little-endian order.
+ * <p>
+ * The memory of the table is released by {@link #close()}. Accessing the
+ * table after it has been closed throws an {@link IllegalStateException}.
+ */
+final class OffHeapTable implements AutoCloseable {
+    /**
+     * The base-2 logarithm of the number of bytes in a chunk.
+     */
+    private static final int CHUNK_BYTES_SHIFT = 30;
+    /**
+     * Invokes {@code sun.misc.Unsafe.invokeCleaner(ByteBuffer)}, or is
+     * {@code null} if this method is not available. If it is not
+     * available, the memory is released when the buffers are garbage
+     * collected.
+     */
+    private static final MethodHandle INVOKE_CLEANER = lookupInvokeCleaner();
+
+    private final int capacity;
+    private final int words;
+    /**
+     * The base-2 logarithm of the number of bytes in a chunk.
+     */
+    private final int chunkBytesShift;
+    /**
+     * The base-2 logarithm of the number of buckets in a chunk.
+     */
+    private final int chunkShift;
+    private final int chunkMask;
+    private ByteBuffer[] chunks;
+
+    private OffHeapTable(int capacity, int words, int chunkBytesShift) {
+        if (words != 1 && words != 2) {
+            throw new IllegalArgumentException("words=" + words);
+        }
+        this.capacity = capacity;
+        this.words = words;
+        this.chunkBytesShift = chunkBytesShift;
+        this.chunkShift = chunkBytesShift - 3 - (words - 1);
+        this.chunkMask = (1 << chunkShift) - 1;
+    }
+
+    /**
+     * Allocates a table with the specified number of buckets.
+     * All words are initialized to zero.
+     *
+     * @param capacity the number of buckets
+     * @param words    the number of words per bucket, must be 1 or 2
+     * @return a new table
+     */
+    static OffHeapTable allocate(int capacity, int words) {
+        return allocate(capacity, words, CHUNK_BYTES_SHIFT);
+    }
+
+    /**
+     * Allocates a table with the specified number of buckets and
+     * chunk size.
+     *
+     * @param capacity        the number of buckets
+     * @param words           the number of words per bucket, must be 1 or 2
+     * @param chunkBytesShift the base-2 logarithm of the number of bytes
+     *                        in a chunk, must be in the range {@code [4, 30]}
+     * @return a new table
+     */
+    static OffHeapTable allocate(int capacity, int words, int chunkBytesShift) {
+        var table = new OffHeapTable(capacity, words, chunkBytesShift);
+        var chunks = new ByteBuffer[table.chunkCount()];
+        for (var i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(table.chunkBytes(i)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        table.chunks = chunks;
+        return table;
+    }
+
+    /**
+     * Maps a table with the specified number of buckets from a file.
+     *
+     * @param channel  the file channel
+     * @param mode     the map mode
+     * @param position the position of the first bucket in the file
+     * @param capacity the number of buckets
+     * @param words    the number of words per bucket, must be 1 or 2
+     * @return a new table
+     * @throws IOException if mapping fails
+     */
+    static OffHeapTable map(FileChannel channel, FileChannel.MapMode mode, long position, int capacity, int words) throws IOException {
+        var table = new OffHeapTable(capacity, words, CHUNK_BYTES_SHIFT);
+        var chunks = new ByteBuffer[table.chunkCount()];
+        for (var i = 0; i < chunks.length; i++) {
+            chunks[i] = channel.map(mode, position + ((long) i << CHUNK_BYTES_SHIFT), table.chunkBytes(i))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        table.chunks = chunks;
+        return table;
+    }
+
+    private static MethodHandle lookupInvokeCleaner() {
+        try {
+            var unsafeClass = Class.forName("sun.misc.Unsafe");
+            var theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private int chunkBytes(int chunk) {
+        var bytesPerBucket = words * 8L;
+        var bucketsInChunk = Math.min(capacity - ((long) chunk << chunkShift), 1L << chunkShift);
+        return (int) (bucketsInChunk * bytesPerBucket);
+    }
+
+    private int chunkCount() {
+        return Math.max(1, (int) ((capacity + (long) chunkMask) >>> chunkShift));
+    }
+
+    /**
+     * Returns the number of bytes that a table with the specified
+     * number of buckets occupies.
+     *
+     * @param capacity the number of buckets
+     * @param words    the number of words per bucket
+     * @return the number of bytes
+     */
+    static long byteSize(int capacity, int words) {
+        return (long) capacity * words * 8;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private ByteBuffer chunk(int bucket) {
+        var c = chunks;
+        if (c == null) {
+            throw new IllegalStateException("closed");
+        }
+        return c[bucket >>> chunkShift];
+    }
+
+    /**
+     * Gets a word of a bucket.
+     *
+     * @param bucket the bucket index
+     * @param word   the word index, must be less than the number of words
+     * @return the word
+     */
+    long get(int bucket, int word) {
+        return chunk(bucket).getLong(((bucket & chunkMask) * words + word) << 3);
+    }
+
+    /**
+     * Sets a word of a bucket.
+     *
+     * @param bucket the bucket index
+     * @param word   the word index, must be less than the number of words
+     * @param value  the new value of the word
+     */
+    void put(int bucket, int word, long value) {
+        chunk(bucket).putLong(((bucket & chunkMask) * words + word) << 3, value);
+    }
+
+    /**
+     * Copies all words of bucket {@code from} into bucket {@code to}.
+     */
+    void copy(int from, int to) {
+        for (var w = 0; w < words; w++) {
+            put(to, w, get(from, w));
+        }
+    }
+
+    /**
+     * Sets all words of a bucket to zero.
+     */
+    void clear(int bucket) {
+        for (var w = 0; w < words; w++) {
+            put(bucket, w, 0L);
+        }
+    }
+
+    /**
+     * Sets all words of all buckets to zero.
+     */
+    void clear() {
+        var zeroes = new byte[8192];
+        for (var i = 0; i < chunkCount(); i++) {
+            var b = chunk(i << chunkShift).duplicate().clear();
+            while (b.hasRemaining()) {
+                b.put(zeroes, 0, Math.min(zeroes.length, b.remaining()));
+            }
+        }
+    }
+
+    /**
+     * Moves the buckets in the range {@code [index, end)} one bucket to
+     * the right, wrapping around at the end of the table.
+     * <p>
+     * Works like {@link AbstractRobinHoodHashing#moveRight}.
+     */
+    void moveRight(int index, int end) {
+        for (var i = end; i != index; ) {
+            var prev = i == 0 ? capacity - 1 : i - 1;
+            copy(prev, i);
+            i = prev;
+        }
+    }
+
+    /**
+     * Moves the buckets in the range {@code (index, end)} one bucket to
+     * the left, wrapping around at the end of the table.
+     * <p>
+     * Works like {@link AbstractRobinHoodHashing#moveLeft}.
+     */
+    void moveLeft(int index, int end) {
+        var i = index;
+        var next = i == capacity - 1 ? 0 : i + 1;
+        while (next != end) {
+            copy(next, i);
+            i = next;
+            next = i == capacity - 1 ? 0 : i + 1;
+        }
+    }
+
+    /**
+     * Returns the home bucket of a {@code long} key.
+     * <p>
+     * All tables that store a {@code long} key in word 0 of a bucket use
+     * this hash function. A table that has been written into a file can
+     * therefore be searched after it has been mapped back into memory.
+     *
+     * @param key a key
+     * @return the index of the home bucket
+     */
+    int hash(long key) {
+        return fastRange(goldenRatioAvalanche(Long.hashCode(key)), capacity);
+    }
+
+    /**
+     * Searches for the specified non-zero key in word 0 of the buckets.
+     * The key 0 denotes an empty bucket. The table must not be empty.
+     * <p>
+     * Works like {@link AbstractRobinHoodHashing#find(Object, int)}.
+     *
+     * @param expected the key to be found
+     * @return the index of the bucket, or {@code ~index}
+     */
+    int find(long expected) {
+        var h = hash(expected);
+        var index = h;
+        var expectedKey = h;
+
+        while (true) {
+            var actual = get(index, 0);
+            if (actual == 0) {
+                return -index - 1;
+            }
+            if (actual == expected) {
+                return index;
+            }
+            var actualHash = hash(actual);
+            var actualKey = actualHash <= index ? actualHash : actualHash - capacity;
+            if (actualKey > expectedKey) {
+                return -index - 1;
+            } else {
+                if (++index == capacity) {
+                    index = 0;
+                    expectedKey = expectedKey - capacity;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the distance of the key in word 0 of the specified bucket
+     * from its home bucket, or 0 if the bucket is empty.
+     *
+     * @param bucket the bucket index
+     * @return the cost
+     */
+    int getCost(int bucket) {
+        var key = get(bucket, 0);
+        if (key == 0) {
+            return 0;
+        }
+        var h = hash(key);
+        return (h <= bucket) ? bucket - h : bucket - h + capacity;
+    }
+
+    /**
+     * Writes all buckets of this table into the specified file channel.
+     *
+     * @param channel  the file channel
+     * @param position the position of the first bucket in the file
+     * @throws IOException if writing fails
+     */
+    void write(FileChannel channel, long position) throws IOException {
+        for (var i = 0; i < chunkCount(); i++) {
+            var b = chunk(i << chunkShift).duplicate().clear();
+            var p = position + ((long) i << chunkBytesShift);
+            while (b.hasRemaining()) {
+                p += channel.write(b, p);
+            }
+        }
+    }
+
+    /**
+     * Creates a copy of this table in newly allocated memory.
+     *
+     * @return a new table
+     */
+    OffHeapTable copy() {
+        var that = allocate(capacity, words, chunkBytesShift);
+        for (var i = 0; i < chunkCount(); i++) {
+            that.chunks[i].duplicate().put(chunk(i << chunkShift).duplicate().clear());
+        }
+        return that;
+    }
+
+    /**
+     * Returns whether this table has been closed.
+     */
+    boolean isClosed() {
+        return chunks == null;
+    }
+
+    /**
+     * Releases the memory of this table. Does nothing if the table
+     * has already been closed.
+     */
+    @Override
+    public void close() {
+        var c = chunks;
+        chunks = null;
+        if (c != null && INVOKE_CLEANER != null) {
+            for (var b : c) {
+                try {
+                    INVOKE_CLEANER.invokeExact(b);
+                } catch (Throwable e) {
+                    // the memory is released by the garbage collector
+                }
+            }
+        }
+    }
+}
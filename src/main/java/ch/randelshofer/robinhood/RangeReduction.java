@@ -0,0 +1,53 @@
+package ch.randelshofer.robinhood;
+
+/**
+ * Selects the range reduction, that maps an avalanched hash code to a
+ * bucket of the table, see {@link Avalanche}.
+ */
+public enum RangeReduction {
+    /**
+     * Uses {@link RangeAlgorithms#fastRange(int, int)}, which uses the
+     * high bits of the hash code.
+     */
+    FAST_RANGE,
+    /**
+     * Uses {@link RangeAlgorithms#fastMod(int, int, long)}, which uses the
+     * low bits of the hash code, with any table length.
+     */
+    FAST_MOD,
+    /**
+     * Uses {@link RangeAlgorithms#powerOf2Range(int, int)}, which uses the
+     * low bits of the hash code. The table length is rounded up to a power
+     * of two.
+     */
+    POWER_OF_2;
+
+    /**
+     * Maps the specified word into the range {@code [0, length)}.
+     *
+     * @param word    an avalanched hash code
+     * @param length  the table length, must be {@literal > 0}
+     * @param inverse the inverse of the length, see
+     *                {@link RangeAlgorithms#compute64BitInverse(int)},
+     *                only used by {@link #FAST_MOD}
+     * @return the bucket
+     */
+    int apply(int word, int length, long inverse) {
+        return switch (this) {
+            case FAST_RANGE -> RangeAlgorithms.fastRange(word, length);
+            case FAST_MOD -> RangeAlgorithms.fastMod(word, length, inverse);
+            case POWER_OF_2 -> RangeAlgorithms.powerOf2Range(word, length);
+        };
+    }
+
+    /**
+     * Rounds the capacity up so that it supports this range reduction.
+     *
+     * @param desiredCapacity the desired capacity
+     * @return the capacity
+     */
+    int roundCapacity(int desiredCapacity) {
+        return this == POWER_OF_2 ? RangeAlgorithms.roundUpToPowerOf2(desiredCapacity)
+                : Math.min(1 << 30, desiredCapacity);
+    }
+}
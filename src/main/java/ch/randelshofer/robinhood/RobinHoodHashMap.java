@@ -2,18 +2,36 @@ package ch.randelshofer.robinhood;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
-import static ch.randelshofer.robinhood.RangeAlgorithms.moduloRange;
+import static ch.randelshofer.robinhood.RangeAlgorithms.compute64BitInverse;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
 
 /**
  * Robin Hood Hash Map.
  * <ul>
  * <li>Supports up to 2<sup>29</sup> entries.</li>
  * <li>Elements are distinguished by their {@link Object#equals} method,
- * and are hashed using their {@link Object#hashCode} method.</li>
+ * and are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
+ * <li>The hash code is spread with an {@link Avalanche} step, and mapped
+ * to a bucket with a {@link RangeReduction}. The defaults are
+ * {@link Avalanche#GOLDEN_RATIO} and {@link RangeReduction#FAST_RANGE}.</li>
+ * <li>Each instance seeds the avalanche step with a random seed, so that
+ * the buckets of the keys can not be predicted, see
+ * {@link #setSeed(int)}.</li>
+ * <li>Can guard against keys whose hash codes collide on purpose, see
+ * {@link #setMaxProbeLength(int)}.</li>
  * <li>Iteration order is not guaranteed.</li>
  * <li>Does not allow {@code null} keys.</li>
  * </ul>
@@ -23,6 +41,39 @@ import static ch.randelshofer.robinhood.RangeAlgorithms.moduloRange;
  */
 public class RobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V> {
     private Object[] table;
+    private HashStrategy<Object> strategy = HashStrategy.defaultStrategy();
+    private Avalanche avalanche = Avalanche.GOLDEN_RATIO;
+    private RangeReduction rangeReduction = RangeReduction.FAST_RANGE;
+    /**
+     * Whether this map uses the default strategy, avalanche step and
+     * range reduction. {@link #find} computes the hash of every probed
+     * element, so {@link #hash} and {@link #isEqual} call the default
+     * functions directly instead of dispatching on the fields.
+     */
+    private boolean defaultPipeline = true;
+    /**
+     * The table length for which {@link #inverse} has been computed.
+     */
+    private int inverseLength;
+    /**
+     * The inverse of {@link #inverseLength} for
+     * {@link RangeReduction#FAST_MOD}.
+     */
+    private long inverse;
+    /**
+     * The seed of the avalanche step. Each instance draws a random seed,
+     * see {@link #setSeed(int)}.
+     */
+    private int seed = ThreadLocalRandom.current().nextInt();
+    /**
+     * The longest allowed probe of an insertion, see
+     * {@link #setMaxProbeLength(int)}.
+     */
+    private int maxProbeLength = Integer.MAX_VALUE;
+    /**
+     * The size at which the probe length guard acted last.
+     */
+    private int guardSize;
 
     public RobinHoodHashMap() {
     }
@@ -35,23 +86,95 @@ public class RobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V
         super(expectedSize, loadFactor);
     }
 
+    /**
+     * Creates a new, empty map with the default expected size (0),
+     * default load factor (0.5), and the specified strategy for the keys.
+     *
+     * @param strategy the hash strategy
+     */
+    public RobinHoodHashMap(HashStrategy<? super K> strategy) {
+        this(0, 0.5f, strategy, Avalanche.GOLDEN_RATIO, RangeReduction.FAST_RANGE);
+    }
+
+    /**
+     * Creates a new, empty map with the specified expected size, load
+     * factor, strategy for the keys, avalanche step and range reduction.
+     *
+     * @param expectedSize   the expected size of the map
+     * @param loadFactor     the load factor of the map
+     * @param strategy       the hash strategy
+     * @param avalanche      the avalanche step
+     * @param rangeReduction the range reduction
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    @SuppressWarnings("unchecked")
+    public RobinHoodHashMap(int expectedSize, float loadFactor, HashStrategy<? super K> strategy,
+                            Avalanche avalanche, RangeReduction rangeReduction) {
+        super(expectedSize, loadFactor);
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+        this.avalanche = Objects.requireNonNull(avalanche, "avalanche");
+        this.rangeReduction = Objects.requireNonNull(rangeReduction, "rangeReduction");
+        this.defaultPipeline = strategy == HashStrategy.defaultStrategy()
+                && avalanche == Avalanche.GOLDEN_RATIO && rangeReduction == RangeReduction.FAST_RANGE;
+        var roundedCapacity = roundCapacity(capacity);
+        if (roundedCapacity != capacity) {
+            capacity = roundedCapacity;
+            computeThreshold(expectedSize, capacity);
+            createTable(capacity);
+        }
+    }
+
     public RobinHoodHashMap(Map<? extends K, ? extends V> m, float loadFactor) {
         this(m, (int) (m.size() / loadFactor), loadFactor);
     }
 
+    /**
+     * Creates a new map with the specified entries, expected size and
+     * load factor.
+     * <p>
+     * Instead of putting the entries one by one, the table is built in a
+     * single pass, see {@link AbstractRobinHoodHashing#buildTable2}. If
+     * a key occurs more than once, the last value wins.
+     *
+     * @param entries      the entries
+     * @param expectedSize the expected size of the map
+     * @param loadFactor   the load factor of the map
+     * @throws NullPointerException     if a key is null
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
     public RobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries, int expectedSize, float loadFactor) {
-        super(expectedSize, loadFactor);
-        for (Entry<? extends K, ? extends V> entry : entries) {
-            put(entry.getKey(), entry.getValue());
-        }
+        this(toKeysAndValues(entries), false, expectedSize, loadFactor);
+    }
+
+    private RobinHoodHashMap(Object[] keysAndValues, boolean distinct, int expectedSize, float loadFactor) {
+        super(Math.max(expectedSize, keysAndValues.length / 2), loadFactor);
+        buildTable2(table, keysAndValues, keysAndValues.length / 2, distinct);
     }
 
     public RobinHoodHashMap(Collection<? extends Entry<? extends K, ? extends V>> entries) {
         this(entries, entries.size(), 0.5f);
     }
 
+    /**
+     * Creates a new map with the entries of the specified map, expected
+     * size and load factor.
+     * <p>
+     * The table is built in a single pass. If the map is a
+     * {@link HashMap}, a {@link LinkedHashMap} or a
+     * {@code RobinHoodHashMap}, its keys are known to be distinct, and
+     * are not compared with each other.
+     *
+     * @param m            a map
+     * @param expectedSize the expected size of the map
+     * @param loadFactor   the load factor of the map
+     * @throws NullPointerException     if a key is null
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
     public RobinHoodHashMap(Map<? extends K, ? extends V> m, int expectedSize, float loadFactor) {
-        this(m.entrySet(), expectedSize, loadFactor);
+        this(toKeysAndValues(m.entrySet()), isDistinct(m), expectedSize, loadFactor);
     }
 
     public RobinHoodHashMap(Map<? extends K, ? extends V> m) {
@@ -75,9 +198,113 @@ public class RobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V
         }
     }
 
+    /**
+     * Locates the bucket of the key once, and then updates, inserts or
+     * removes the entry there.
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        var result = find(key);
+        V oldValue = result < 0 ? null : getValueFromTable(result);
+        var mc = modCount;
+        V newValue = remappingFunction.apply(key, oldValue);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (result < 0) {
+            if (newValue != null) {
+                insert(result, key, newValue);
+            }
+        } else if (newValue == null) {
+            removeAt(result);
+        } else {
+            setValueInTable(result, newValue);
+        }
+        return newValue;
+    }
+
+    /**
+     * Locates the bucket of the key once, and then updates or inserts
+     * the entry there.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        var result = find(key);
+        if (result >= 0) {
+            V oldValue = getValueFromTable(result);
+            if (oldValue != null) {
+                return oldValue;
+            }
+        }
+        var mc = modCount;
+        V newValue = mappingFunction.apply(key);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (newValue != null) {
+            if (result < 0) {
+                insert(result, key, newValue);
+            } else {
+                setValueInTable(result, newValue);
+            }
+        }
+        return newValue;
+    }
+
+    /**
+     * Locates the bucket of the key once, and then updates or removes
+     * the entry there.
+     */
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        var result = find(key);
+        if (result < 0) {
+            return null;
+        }
+        V oldValue = getValueFromTable(result);
+        if (oldValue == null) {
+            return null;
+        }
+        var mc = modCount;
+        V newValue = remappingFunction.apply(key, oldValue);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (newValue == null) {
+            removeAt(result);
+        } else {
+            setValueInTable(result, newValue);
+        }
+        return newValue;
+    }
+
     @Override
     protected void createTable(int capacity) {
         this.table = new Object[capacity * 2];
+        if (capacity > 0 && capacity != inverseLength) {
+            inverseLength = capacity;
+            inverse = compute64BitInverse(capacity);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        var mc = modCount;
+        var t = table;
+        for (var i = 0; i < t.length; i += 2) {
+            var k = t[i];
+            if (k != null) {
+                action.accept((K) k, (V) t[i + 1]);
+            }
+        }
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -92,15 +319,294 @@ public class RobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V
         return (V) table[index * 2 + 1];
     }
 
+    /**
+     * Returns the hash strategy of the keys of this map.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super K> getHashStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the longest allowed probe of an insertion.
+     *
+     * @return the maximal probe length, {@link Integer#MAX_VALUE} if the
+     * guard is disabled
+     */
+    public int getMaxProbeLength() {
+        return maxProbeLength;
+    }
+
+    /**
+     * Returns the seed of the avalanche step.
+     *
+     * @return the seed
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        var result = find(key);
+        return result < 0 ? defaultValue : getValueFromTable(result);
+    }
+
+    @Override
+    public int hashCode() {
+        var h = 0;
+        var t = table;
+        for (var i = 0; i < t.length; i += 2) {
+            if (t[i] != null) {
+                h += t[i].hashCode() ^ Objects.hashCode(t[i + 1]);
+            }
+        }
+        return h;
+    }
+
     @Override
     protected int hash(Object e, int length) {
-        return moduloRange(goldenRatioAvalanche(Objects.hashCode(e)), length);
-        //return fastRange(goldenRatioAvalanche(Objects.hashCode(e)), length);
+        if (defaultPipeline) {
+            return fastRange(goldenRatioAvalanche(Objects.hashCode(e), seed), length);
+        }
+        var h = e == null ? 0 : strategy.hashCode(e);
+        return rangeReduction.apply(avalanche.apply(h, seed), length, inverseOf(length));
+    }
+
+    /**
+     * Returns the inverse of the specified table length for
+     * {@link RangeReduction#FAST_MOD}. Only computes it, if the length is
+     * not the current table length. The other range reductions do not use
+     * the inverse.
+     */
+    private long inverseOf(int length) {
+        if (length == inverseLength || rangeReduction != RangeReduction.FAST_MOD) {
+            return inverse;
+        }
+        return compute64BitInverse(length);
+    }
+
+    /**
+     * Returns true if the keys of the map are distinct by their
+     * {@link Object#equals} method, because of its class.
+     */
+    static boolean isDistinct(Map<?, ?> m) {
+        var type = m.getClass();
+        return type == HashMap.class || type == LinkedHashMap.class
+                || type == RobinHoodHashMap.class
+                && ((RobinHoodHashMap<?, ?>) m).strategy == HashStrategy.defaultStrategy();
     }
 
     @Override
     protected boolean isEqual(Object a, Object b) {
-        return Objects.equals(a, b);
+        if (defaultPipeline) {
+            return Objects.equals(a, b);
+        }
+        return a == b || a != null && b != null && strategy.equals(a, b);
+    }
+
+    /**
+     * Locates the bucket of the key once, and then updates, inserts or
+     * removes the entry there.
+     */
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        var result = find(key);
+        if (result < 0) {
+            insert(result, key, value);
+            return value;
+        }
+        V oldValue = getValueFromTable(result);
+        if (oldValue == null) {
+            setValueInTable(result, value);
+            return value;
+        }
+        var mc = modCount;
+        V newValue = remappingFunction.apply(oldValue, value);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (newValue == null) {
+            removeAt(result);
+        } else {
+            setValueInTable(result, newValue);
+        }
+        return newValue;
+    }
+
+    /**
+     * Creates a new map with the entries of the specified map, and builds
+     * the table with tasks in the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     * <p>
+     * The table is cut into segments of home buckets, which are built in
+     * parallel, see {@link AbstractRobinHoodHashing#parallelBuildTable2}.
+     * This pays off for large maps.
+     *
+     * @param m   a map
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return a new map
+     * @throws NullPointerException if the map contains a null key
+     */
+    public static <K, V> RobinHoodHashMap<K, V> parallelCopyOf(Map<? extends K, ? extends V> m) {
+        var keysAndValues = toKeysAndValues(m.entrySet());
+        var count = keysAndValues.length / 2;
+        var map = new RobinHoodHashMap<K, V>(count, 0.5f);
+        map.parallelBuildTable2(map.table, keysAndValues, count, isDistinct(m));
+        return map;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        var result = find(key);
+        if (result < 0) {
+            insert(result, key, value);
+            return null;
+        }
+        V oldValue = getValueFromTable(result);
+        if (oldValue == null) {
+            setValueInTable(result, value);
+        }
+        return oldValue;
+    }
+
+    /**
+     * Removes the entries and compacts the table with a single sweep, see
+     * {@link #compactTable2}. The filter gets the same entry object for
+     * all buckets, it must not keep a reference to it.
+     */
+    @Override
+    protected boolean removeEntriesIf(Predicate<? super Entry<K, V>> filter) {
+        Objects.requireNonNull(filter);
+        var entry = new BucketEntry();
+        return compactTable2(table, i -> {
+            entry.index = i;
+            return filter.test(entry);
+        });
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        var result = find(key);
+        if (result < 0) {
+            return null;
+        }
+        V oldValue = getValueFromTable(result);
+        setValueInTable(result, value);
+        return oldValue;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        var result = find(key);
+        if (result < 0 || !Objects.equals(getValueFromTable(result), oldValue)) {
+            return false;
+        }
+        setValueInTable(result, newValue);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        var mc = modCount;
+        var t = table;
+        for (var i = 0; i < t.length; i += 2) {
+            var k = t[i];
+            if (k != null) {
+                t[i + 1] = function.apply((K) k, (V) t[i + 1]);
+            }
+        }
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Guards the probe length, see {@link #setMaxProbeLength(int)}.
+     */
+    @Override
+    protected int prepareInsertion(Object e, int result) {
+        result = super.prepareInsertion(e, result);
+        if (maxProbeLength != Integer.MAX_VALUE && size >= guardSize + (guardSize >>> 1)) {
+            var index = ~result;
+            var h = hash(e, capacity);
+            var cost = h <= index ? index - h : index - h + capacity;
+            if (cost > maxProbeLength) {
+                guardSize = size;
+                if (avalanche != Avalanche.NONE) {
+                    seed = ThreadLocalRandom.current().nextInt();
+                    resize(capacity);
+                } else if (size >= threshold / 4) {
+                    grow();
+                }
+                result = find(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rounds the capacity up so that it supports the range reduction. The
+     * range reduction is not yet set while the super constructor runs.
+     */
+    @Override
+    protected int roundCapacity(int desiredCapacity) {
+        return rangeReduction == null ? super.roundCapacity(desiredCapacity)
+                : rangeReduction.roundCapacity(desiredCapacity);
+    }
+
+    /**
+     * Sets the longest allowed probe of an insertion, that is the number
+     * of buckets between the home bucket of a key and the bucket where it
+     * is inserted.
+     * <p>
+     * If an insertion would probe longer, the map draws a new random seed
+     * for the avalanche step, and reinserts all entries. An adversary, who
+     * has crafted keys that collide in their home buckets, can not predict
+     * the new hash function, in particular with {@link Avalanche#MURMUR3}.
+     * With {@link Avalanche#NONE}, a seed does not break up clusters, and
+     * the table is grown instead, unless it is less than a quarter full.
+     * <p>
+     * The guard acts again only after the size has grown by half, so that
+     * the reinsertions cost amortized constant time per insertion. Keys
+     * with equal hash codes can not be separated by any seed, they still
+     * form a cluster.
+     *
+     * @param maxProbeLength the maximal probe length,
+     *                       {@link Integer#MAX_VALUE} disables the guard
+     * @throws IllegalArgumentException if the length is negative
+     */
+    public void setMaxProbeLength(int maxProbeLength) {
+        if (maxProbeLength < 0) {
+            throw new IllegalArgumentException("maxProbeLength=" + maxProbeLength);
+        }
+        this.maxProbeLength = maxProbeLength;
+    }
+
+    /**
+     * Sets the seed of the avalanche step, and reinserts all entries.
+     * <p>
+     * A new map draws a random seed, so that an adversary can not
+     * craft keys that collide in their home buckets. Seed {@code 0}
+     * yields the unseeded avalanche step, which makes the layout of the
+     * table, and the iteration order, deterministic.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(int seed) {
+        if (seed != this.seed) {
+            this.seed = seed;
+            if (size != 0) {
+                resize(capacity);
+            }
+            modCount++;
+        }
     }
 
     @Override
@@ -141,6 +647,19 @@ public class RobinHoodHashMap<K, V> extends AbstractMutableRobinHoodHashMap<K, V
         return r;
     }
 
+    private static Object[] toKeysAndValues(Collection<? extends Entry<?, ?>> entries) {
+        var keysAndValues = new Object[entries.size() * 2];
+        var i = 0;
+        for (Entry<?, ?> entry : entries) {
+            if (i == keysAndValues.length) {
+                keysAndValues = Arrays.copyOf(keysAndValues, Math.max(2, i * 2));
+            }
+            keysAndValues[i++] = entry.getKey();
+            keysAndValues[i++] = entry.getValue();
+        }
+        return i == keysAndValues.length ? keysAndValues : Arrays.copyOf(keysAndValues, i);
+    }
+
     @Override
     protected void unsetTable(int index) {
         table[index * 2] = null;
@@ -3,10 +3,17 @@ package ch.randelshofer.robinhood;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.compute64BitInverse;
 import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
 
 /**
@@ -14,7 +21,16 @@ import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
  * <ul>
  * <li>Supports up to 2<sup>30</sup> elements.</li>
  * <li>Elements are distinguished by their {@link Object#equals} method,
- * and are hashed using their {@link Object#hashCode} method.</li>
+ * and are hashed using their {@link Object#hashCode} method, unless a
+ * {@link HashStrategy} is specified.</li>
+ * <li>The hash code is spread with an {@link Avalanche} step, and mapped
+ * to a bucket with a {@link RangeReduction}. The defaults are
+ * {@link Avalanche#GOLDEN_RATIO} and {@link RangeReduction#FAST_RANGE}.</li>
+ * <li>Each instance seeds the avalanche step with a random seed, so that
+ * the buckets of the keys can not be predicted, see
+ * {@link #setSeed(int)}.</li>
+ * <li>Can guard against keys whose hash codes collide on purpose, see
+ * {@link #setMaxProbeLength(int)}.</li>
  * <li>Iteration order is not guaranteed.</li>
  * <li>Does not allow {@code null} values.</li>
  * </ul>
@@ -23,6 +39,39 @@ public class RobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E>
         implements Cloneable {
 
     private Object[] table;
+    private HashStrategy<Object> strategy = HashStrategy.defaultStrategy();
+    private Avalanche avalanche = Avalanche.GOLDEN_RATIO;
+    private RangeReduction rangeReduction = RangeReduction.FAST_RANGE;
+    /**
+     * Whether this set uses the default strategy, avalanche step and
+     * range reduction. {@link #find} computes the hash of every probed
+     * element, so {@link #hash} and {@link #isEqual} call the default
+     * functions directly instead of dispatching on the fields.
+     */
+    private boolean defaultPipeline = true;
+    /**
+     * The table length for which {@link #inverse} has been computed.
+     */
+    private int inverseLength;
+    /**
+     * The inverse of {@link #inverseLength} for
+     * {@link RangeReduction#FAST_MOD}.
+     */
+    private long inverse;
+    /**
+     * The seed of the avalanche step. Each instance draws a random seed,
+     * see {@link #setSeed(int)}.
+     */
+    private int seed = ThreadLocalRandom.current().nextInt();
+    /**
+     * The longest allowed probe of an insertion, see
+     * {@link #setMaxProbeLength(int)}.
+     */
+    private int maxProbeLength = Integer.MAX_VALUE;
+    /**
+     * The size at which the probe length guard acted last.
+     */
+    private int guardSize;
 
 
     /**
@@ -56,12 +105,145 @@ public class RobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E>
         super(expectedSize, loadFactor);
     }
 
+    /**
+     * Creates a new, empty set with the default expected size (0),
+     * default load factor (0.5), and the specified strategy.
+     *
+     * @param strategy the hash strategy
+     */
+    public RobinHoodHashSet(HashStrategy<? super E> strategy) {
+        this(0, 0.5f, strategy, Avalanche.GOLDEN_RATIO, RangeReduction.FAST_RANGE);
+    }
+
+    /**
+     * Creates a new, empty set with the specified expected size, load
+     * factor, strategy, avalanche step and range reduction.
+     *
+     * @param expectedSize   the expected size of the set
+     * @param loadFactor     the load factor of the set
+     * @param strategy       the hash strategy
+     * @param avalanche      the avalanche step
+     * @param rangeReduction the range reduction
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
+    @SuppressWarnings("unchecked")
+    public RobinHoodHashSet(int expectedSize, float loadFactor, HashStrategy<? super E> strategy,
+                            Avalanche avalanche, RangeReduction rangeReduction) {
+        super(expectedSize, loadFactor);
+        this.strategy = (HashStrategy<Object>) Objects.requireNonNull(strategy, "strategy");
+        this.avalanche = Objects.requireNonNull(avalanche, "avalanche");
+        this.rangeReduction = Objects.requireNonNull(rangeReduction, "rangeReduction");
+        this.defaultPipeline = strategy == HashStrategy.defaultStrategy()
+                && avalanche == Avalanche.GOLDEN_RATIO && rangeReduction == RangeReduction.FAST_RANGE;
+        var roundedCapacity = roundCapacity(capacity);
+        if (roundedCapacity != capacity) {
+            capacity = roundedCapacity;
+            computeThreshold(expectedSize, capacity);
+            createTable(capacity);
+        }
+    }
+
+    /**
+     * Creates a new set with the elements of the specified collection
+     * and default load factor (0.5).
+     * <p>
+     * The table is built in a single pass, see {@link #copyOf}.
+     *
+     * @param c a collection
+     */
     public RobinHoodHashSet(Collection<? extends E> c) {
-        super(c);
+        this(c, c.size(), 0.5f);
     }
 
+    /**
+     * Creates a new set with the elements of the specified collection,
+     * the specified expected size and load factor.
+     * <p>
+     * The table is built in a single pass, see {@link #copyOf}.
+     *
+     * @param c            a collection
+     * @param expectedSize the expected size of the set
+     * @param loadFactor   the load factor of the set
+     * @throws IllegalArgumentException if the expected size is less than zero,
+     *                                  or if the load factor is non-positive
+     */
     public RobinHoodHashSet(Collection<? extends E> c, int expectedSize, float loadFactor) {
-        super(c, expectedSize, loadFactor);
+        this(c.toArray(), isDistinct(c), expectedSize, loadFactor);
+    }
+
+    private RobinHoodHashSet(Object[] elements, boolean distinct, int expectedSize, float loadFactor) {
+        this(elements, elements.length, distinct, expectedSize, loadFactor);
+    }
+
+    private RobinHoodHashSet(Object[] elements, int count, boolean distinct, int expectedSize, float loadFactor) {
+        super(Math.max(expectedSize, count), loadFactor);
+        buildTable1(table, elements, count, distinct);
+    }
+
+    /**
+     * Returns a new builder.
+     *
+     * @param <E> the element type
+     * @return a new builder
+     */
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Creates a new set with the elements of the specified collection.
+     * <p>
+     * Instead of adding the elements one by one, this method sorts them by
+     * their home bucket, and lays out the table in a single pass, see
+     * {@link AbstractRobinHoodHashing#buildTable1}. Duplicate elements
+     * are ignored. If the collection is a {@link HashSet}, a
+     * {@link LinkedHashSet} or a {@code RobinHoodHashSet}, its elements are
+     * known to be distinct, and are not compared with each other.
+     *
+     * @param c   a collection
+     * @param <E> the element type
+     * @return a new set
+     * @throws NullPointerException if the collection contains a null element
+     */
+    public static <E> RobinHoodHashSet<E> copyOf(Collection<? extends E> c) {
+        var elements = c.toArray();
+        return new RobinHoodHashSet<>(elements, isDistinct(c), elements.length, 0.5f);
+    }
+
+    /**
+     * Creates a new set with the specified elements, see {@link #copyOf}.
+     *
+     * @param elements the elements
+     * @param <E>      the element type
+     * @return a new set
+     * @throws NullPointerException if an element is null
+     */
+    @SafeVarargs
+    public static <E> RobinHoodHashSet<E> of(E... elements) {
+        return new RobinHoodHashSet<>(Arrays.copyOf(elements, elements.length, Object[].class), false,
+                elements.length, 0.5f);
+    }
+
+    /**
+     * Creates a new set with the elements of the specified collection,
+     * and builds the table with tasks in the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     * <p>
+     * The table is cut into segments of home buckets, which are built in
+     * parallel, see {@link AbstractRobinHoodHashing#parallelBuildTable1}.
+     * This pays off for large collections.
+     *
+     * @param c   a collection
+     * @param <E> the element type
+     * @return a new set
+     * @throws NullPointerException if the collection contains a null element
+     */
+    public static <E> RobinHoodHashSet<E> parallelCopyOf(Collection<? extends E> c) {
+        var elements = c.toArray();
+        var set = new RobinHoodHashSet<E>(elements.length, 0.5f);
+        set.parallelBuildTable1(set.table, elements, elements.length, isDistinct(c));
+        return set;
     }
 
     @Override
@@ -84,6 +266,25 @@ public class RobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E>
     @Override
     protected void createTable(int capacity) {
         table = new Object[capacity];
+        if (capacity > 0 && capacity != inverseLength) {
+            inverseLength = capacity;
+            inverse = compute64BitInverse(capacity);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        var mc = modCount;
+        for (var e : table) {
+            if (e != null) {
+                action.accept((E) e);
+            }
+        }
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -92,13 +293,166 @@ public class RobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E>
         return (E) table[index];
     }
 
+    /**
+     * Returns the hash strategy of this set.
+     *
+     * @return the hash strategy
+     */
+    public HashStrategy<? super E> getHashStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the longest allowed probe of an insertion.
+     *
+     * @return the maximal probe length, {@link Integer#MAX_VALUE} if the
+     * guard is disabled
+     */
+    public int getMaxProbeLength() {
+        return maxProbeLength;
+    }
+
+    /**
+     * Returns the seed of the avalanche step.
+     *
+     * @return the seed
+     */
+    public int getSeed() {
+        return seed;
+    }
+
     @Override
     protected int hash(Object e, int length) {
-        return fastRange(goldenRatioAvalanche(Objects.hashCode(e)), length);
+        if (defaultPipeline) {
+            return fastRange(goldenRatioAvalanche(Objects.hashCode(e), seed), length);
+        }
+        var h = e == null ? 0 : strategy.hashCode(e);
+        return rangeReduction.apply(avalanche.apply(h, seed), length, inverseOf(length));
+    }
+
+    /**
+     * Returns the inverse of the specified table length for
+     * {@link RangeReduction#FAST_MOD}. Only computes it, if the length is
+     * not the current table length. The other range reductions do not use
+     * the inverse.
+     */
+    private long inverseOf(int length) {
+        if (length == inverseLength || rangeReduction != RangeReduction.FAST_MOD) {
+            return inverse;
+        }
+        return compute64BitInverse(length);
     }
 
     protected boolean isEqual(Object a, Object b) {
-        return Objects.equals(a, b);
+        if (defaultPipeline) {
+            return Objects.equals(a, b);
+        }
+        return a == b || a != null && b != null && strategy.equals(a, b);
+    }
+
+    /**
+     * Returns true if the elements of the collection are distinct by their
+     * {@link Object#equals} method, because of its class.
+     */
+    static boolean isDistinct(Collection<?> c) {
+        var type = c.getClass();
+        return type == HashSet.class || type == LinkedHashSet.class
+                || type == RobinHoodHashSet.class
+                && ((RobinHoodHashSet<?>) c).strategy == HashStrategy.defaultStrategy();
+    }
+
+    /**
+     * Guards the probe length, see {@link #setMaxProbeLength(int)}.
+     */
+    @Override
+    protected int prepareInsertion(Object e, int result) {
+        result = super.prepareInsertion(e, result);
+        if (maxProbeLength != Integer.MAX_VALUE && size >= guardSize + (guardSize >>> 1)) {
+            var index = ~result;
+            var h = hash(e, capacity);
+            var cost = h <= index ? index - h : index - h + capacity;
+            if (cost > maxProbeLength) {
+                guardSize = size;
+                if (avalanche != Avalanche.NONE) {
+                    seed = ThreadLocalRandom.current().nextInt();
+                    resize(capacity);
+                } else if (size >= threshold / 4) {
+                    grow();
+                }
+                result = find(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rounds the capacity up so that it supports the range reduction. The
+     * range reduction is not yet set while the super constructor runs.
+     */
+    @Override
+    protected int roundCapacity(int desiredCapacity) {
+        return rangeReduction == null ? super.roundCapacity(desiredCapacity)
+                : rangeReduction.roundCapacity(desiredCapacity);
+    }
+
+    /**
+     * Removes the elements and compacts the table with a single sweep,
+     * instead of an iterator that searches each element again, see
+     * {@link #compactTable1}.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return compactTable1(table, i -> filter.test((E) table[i]));
+    }
+
+    /**
+     * Sets the longest allowed probe of an insertion, that is the number
+     * of buckets between the home bucket of a key and the bucket where it
+     * is inserted.
+     * <p>
+     * If an insertion would probe longer, the set draws a new random seed
+     * for the avalanche step, and reinserts all elements. An adversary, who
+     * has crafted keys that collide in their home buckets, can not predict
+     * the new hash function, in particular with {@link Avalanche#MURMUR3}.
+     * With {@link Avalanche#NONE}, a seed does not break up clusters, and
+     * the table is grown instead, unless it is less than a quarter full.
+     * <p>
+     * The guard acts again only after the size has grown by half, so that
+     * the reinsertions cost amortized constant time per insertion. Keys
+     * with equal hash codes can not be separated by any seed, they still
+     * form a cluster.
+     *
+     * @param maxProbeLength the maximal probe length,
+     *                       {@link Integer#MAX_VALUE} disables the guard
+     * @throws IllegalArgumentException if the length is negative
+     */
+    public void setMaxProbeLength(int maxProbeLength) {
+        if (maxProbeLength < 0) {
+            throw new IllegalArgumentException("maxProbeLength=" + maxProbeLength);
+        }
+        this.maxProbeLength = maxProbeLength;
+    }
+
+    /**
+     * Sets the seed of the avalanche step, and reinserts all elements.
+     * <p>
+     * A new set draws a random seed, so that an adversary can not
+     * craft keys that collide in their home buckets. Seed {@code 0}
+     * yields the unseeded avalanche step, which makes the layout of the
+     * table, and the iteration order, deterministic.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(int seed) {
+        if (seed != this.seed) {
+            this.seed = seed;
+            if (size != 0) {
+                resize(capacity);
+            }
+            modCount++;
+        }
     }
 
     @Override
@@ -116,12 +470,86 @@ public class RobinHoodHashSet<E> extends AbstractMutableRobinHoodHashSet<E>
         shiftForRemoval1(index, table);
     }
 
+    /**
+     * Returns a spliterator over the buckets of the table, see
+     * {@link BucketSpliterator}.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new BucketSpliterator<>(this::getKeyFromTable, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
     @Override
     protected void unsetTable(int index) {
         table[index] = null;
     }
 
-    public Spliterator<E> spliterator() {
-        return new SetSpliterator(0, capacity);
+    /**
+     * Collects elements, and then builds a {@link RobinHoodHashSet} in a
+     * single pass, see {@link #copyOf}.
+     *
+     * @param <E> the element type
+     */
+    public static class Builder<E> {
+        private Object[] elements = new Object[16];
+        private int count;
+        private float loadFactor = 0.5f;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds an element.
+         *
+         * @param e an element
+         * @return this builder
+         * @throws NullPointerException if the element is null
+         */
+        public Builder<E> add(E e) {
+            Objects.requireNonNull(e);
+            if (count == elements.length) {
+                elements = Arrays.copyOf(elements, count * 2);
+            }
+            elements[count++] = e;
+            return this;
+        }
+
+        /**
+         * Adds all elements of the specified collection.
+         *
+         * @param c a collection
+         * @return this builder
+         * @throws NullPointerException if the collection contains a null element
+         */
+        public Builder<E> addAll(Collection<? extends E> c) {
+            for (E e : c) {
+                add(e);
+            }
+            return this;
+        }
+
+        /**
+         * Builds a new set with the elements that have been added so far.
+         *
+         * @return a new set
+         */
+        public RobinHoodHashSet<E> build() {
+            return new RobinHoodHashSet<>(elements, count, false, count, loadFactor);
+        }
+
+        /**
+         * Sets the load factor of the set.
+         *
+         * @param loadFactor the load factor
+         * @return this builder
+         * @throws IllegalArgumentException if the load factor is non-positive
+         */
+        public Builder<E> loadFactor(float loadFactor) {
+            if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+                throw new IllegalArgumentException("loadFactor=" + loadFactor);
+            }
+            this.loadFactor = loadFactor;
+            return this;
+        }
     }
 }
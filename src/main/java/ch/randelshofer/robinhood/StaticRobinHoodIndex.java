@@ -0,0 +1,402 @@
+package ch.randelshofer.robinhood;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import static ch.randelshofer.robinhood.AbstractRobinHoodHashing.moveLeft;
+import static ch.randelshofer.robinhood.AbstractRobinHoodHashing.moveRight;
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.murmur3Avalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+
+/**
+ * Immutable index that maps a fixed set of keys to the ordinals
+ * {@code [0, size)}.
+ * <ul>
+ * <li>Supports up to 2<sup>30</sup> keys.</li>
+ * <li>Keys are distinguished by their {@link Object#equals} method,
+ * and are hashed using their {@link Object#hashCode} method.</li>
+ * <li>The ordinal of a key is its position in the collection from which
+ * the index was built, counting only the first occurrence of a key.</li>
+ * <li>Does not allow {@code null} keys.</li>
+ * </ul>
+ * The keys are stored in a Robin Hood table, whose cost is capped at
+ * build time, see {@link #copyOf(Collection, int, float)}. A lookup
+ * probes at most {@link #getMaxCost()} buckets after the home bucket.
+ * The first buckets of the table are repeated after its end, so that a
+ * lookup never wraps around. A bucket holds the hash word and the
+ * ordinal of a key in a {@code long}.
+ * <p>
+ * A lookup makes two random memory accesses, before it compares keys:
+ * it reads the seed of the group of the key (see below) from a byte
+ * array, and then, with the default cap of 2, at most 3 adjacent
+ * buckets, which are usually in one cache line. It reads only keys with
+ * a matching hash word.
+ * <p>
+ * A single seed for all keys can only cap the cost for a few hundred
+ * keys. Therefore, the keys are split into groups of about 4 keys, and
+ * each group has its own seed, like the pilots of the hash-and-displace
+ * family of perfect hash functions. The home bucket of a key is computed
+ * with {@link AvalancheAlgorithms#murmur3Avalanche(int, int)} and the
+ * seed of its group.
+ *
+ * @param <K> the key type
+ */
+public final class StaticRobinHoodIndex<K> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * The average number of keys in a group.
+     */
+    private static final int GROUP_SIZE = 4;
+    /**
+     * The number of seeds that are tried for a group.
+     */
+    private static final int SEED_COUNT = 256;
+    /**
+     * The lowest load factor to which the table is grown, before the
+     * cap of the cost is raised.
+     */
+    private static final float MIN_LOAD_FACTOR = 0.25f;
+
+    /**
+     * The distinct keys in the order of their ordinals.
+     */
+    private final Object[] keys;
+    /**
+     * The table, followed by a copy of its first {@link #maxCost} buckets.
+     * <p>
+     * A bucket holds the hash word of a key in the upper 32 bits, and
+     * the ordinal of the key plus one in the lower 32 bits. An empty
+     * bucket holds 0.
+     */
+    private long[] table;
+    /**
+     * The seed index of each group.
+     */
+    private final byte[] seeds;
+    /**
+     * The largest cost of all keys in the table.
+     */
+    private int maxCost;
+    /**
+     * The number of buckets in the table, without the copied buckets.
+     */
+    private int capacity;
+    /**
+     * The number of keys in the table.
+     */
+    private int size;
+
+    private StaticRobinHoodIndex(Object[] keys, int costLimit, float loadFactor) {
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("loadFactor=" + loadFactor);
+        }
+        this.keys = keys;
+        this.capacity = Math.min(1 << 30, Math.max(keys.length, (int) (keys.length / Math.min(1f, loadFactor))));
+        this.seeds = new byte[Math.max(1, keys.length / GROUP_SIZE)];
+        var initialCapacity = capacity;
+        while (!buildTable(costLimit)) {
+            var newCapacity = (int) Math.min(1 << 30, capacity * 1.25f + 1);
+            if (newCapacity * MIN_LOAD_FACTOR > keys.length || newCapacity == capacity) {
+                // The keys have too many equal hash codes for this cap.
+                newCapacity = initialCapacity;
+                costLimit++;
+            }
+            capacity = newCapacity;
+        }
+
+        for (var i = 0; i < capacity; i++) {
+            maxCost = Math.max(maxCost, getCost(i));
+        }
+        table = Arrays.copyOf(table, capacity + maxCost);
+        System.arraycopy(table, 0, table, capacity, maxCost);
+    }
+
+    /**
+     * Creates an index for the specified keys, with a cost cap of 2 and
+     * default load factor (0.5).
+     *
+     * @param keys the keys
+     * @param <K>  the key type
+     * @return a new index
+     * @throws NullPointerException if the collection contains a null key
+     */
+    public static <K> StaticRobinHoodIndex<K> copyOf(Collection<? extends K> keys) {
+        return copyOf(keys, 2, 0.5f);
+    }
+
+    /**
+     * Creates an index for the specified keys.
+     * <p>
+     * The groups are processed from the largest to the smallest. For each
+     * group, this method tries up to 256 seeds, until it finds a seed
+     * for which all keys of the group can be inserted without exceeding
+     * the cost cap, neither for the keys of the group nor for keys that
+     * have to be shifted. If no seed fits, the table is grown by 25 %,
+     * and all groups are processed again. If the load factor drops below
+     * 0.25, the keys have too many equal hash codes, and the cap is
+     * raised by one.
+     *
+     * @param keys       the keys
+     * @param costCap    the largest desired cost of a key
+     * @param loadFactor the load factor of the table
+     * @param <K>        the key type
+     * @return a new index
+     * @throws NullPointerException     if the collection contains a null key
+     * @throws IllegalArgumentException if the cost cap is negative, or if
+     *                                  the load factor is non-positive
+     */
+    public static <K> StaticRobinHoodIndex<K> copyOf(Collection<? extends K> keys, int costCap, float loadFactor) {
+        if (costCap < 0) {
+            throw new IllegalArgumentException("costCap=" + costCap);
+        }
+        var distinct = new LinkedRobinHoodHashSet<K>(keys.size());
+        for (K key : keys) {
+            distinct.add(Objects.requireNonNull(key));
+        }
+        return new StaticRobinHoodIndex<>(distinct.toArray(), costCap, loadFactor);
+    }
+
+    /**
+     * Inserts all keys into an empty table with the current capacity.
+     *
+     * @param costLimit the largest allowed cost
+     * @return whether a seed has been found for all groups
+     */
+    private boolean buildTable(int costLimit) {
+        table = new long[capacity];
+        size = 0;
+        Arrays.fill(seeds, (byte) 0);
+
+        // Sort the keys by group, and the groups by descending size.
+        var groupCount = seeds.length;
+        var starts = new int[groupCount + 1];
+        for (var key : keys) {
+            starts[group(key.hashCode()) + 1]++;
+        }
+        var order = new long[groupCount];
+        for (var g = 0; g < groupCount; g++) {
+            order[g] = (long) -starts[g + 1] << 32 | g;
+            starts[g + 1] += starts[g];
+        }
+        Arrays.sort(order);
+        var members = new int[keys.length];
+        var next = Arrays.copyOf(starts, groupCount);
+        for (var i = 0; i < keys.length; i++) {
+            members[next[group(keys[i].hashCode())]++] = i;
+        }
+
+        for (var o : order) {
+            var g = (int) o;
+            var from = starts[g];
+            var to = starts[g + 1];
+            var inserted = from;
+            for (var s = 0; s < SEED_COUNT && inserted < to; s++) {
+                seeds[g] = (byte) s;
+                inserted = from;
+                while (inserted < to && insert(members[inserted], costLimit)) {
+                    inserted++;
+                }
+                if (inserted < to) {
+                    for (var i = inserted - 1; i >= from; i--) {
+                        remove(keys[members[i]]);
+                    }
+                }
+            }
+            if (inserted < to) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches for the specified key during the build.
+     *
+     * @param key  a key
+     * @param word the hash word of the key
+     * @return the index of the bucket that contains the key, or
+     * {@code ~index} of the bucket where the key would be inserted
+     */
+    private int find(Object key, int word) {
+        var index = fastRange(word, capacity);
+        for (var cost = 0; ; cost++) {
+            var bucket = table[index];
+            if (bucket == 0 || getCost(index) < cost) {
+                return ~index;
+            }
+            if ((int) (bucket >>> 32) == word && key.equals(keys[(int) bucket - 1])) {
+                return index;
+            }
+            index = index == capacity - 1 ? 0 : index + 1;
+        }
+    }
+
+    /**
+     * Gets the cost from the hash word in the bucket.
+     */
+    private int getCost(int i) {
+        var bucket = table[i];
+        if (bucket == 0) {
+            return 0;
+        }
+        var h = fastRange((int) (bucket >>> 32), capacity);
+        return h <= i ? i - h : i - h + capacity;
+    }
+
+    /**
+     * Returns the key with the specified ordinal.
+     *
+     * @param ordinal an ordinal in {@code [0, size)}
+     * @return the key
+     * @throws IndexOutOfBoundsException if the ordinal is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public K getKey(int ordinal) {
+        Objects.checkIndex(ordinal, keys.length);
+        return (K) keys[ordinal];
+    }
+
+    /**
+     * Returns the largest number of buckets that a lookup probes after
+     * the home bucket. This is the cost cap, unless the cap had to be
+     * raised, or all keys fit with a lower cost.
+     *
+     * @return the largest cost of all keys
+     */
+    public int getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Returns the group of a key with the specified hash code.
+     */
+    private int group(int hashCode) {
+        return fastRange(goldenRatioAvalanche(hashCode), seeds.length);
+    }
+
+    /**
+     * Computes the hash word of the specified key with the seed of its
+     * group.
+     */
+    private int hashWord(Object e) {
+        var h = Objects.hashCode(e);
+        return murmur3Avalanche(h, seeds[group(h)] * 0x9E3779B9);
+    }
+
+    /**
+     * Returns the ordinal of the specified key, or -1 if the index does not
+     * contain the key.
+     *
+     * @param key a key
+     * @return the ordinal of the key or -1
+     */
+    public int indexOf(Object key) {
+        if (key == null || size == 0) {
+            return -1;
+        }
+        var table = this.table;
+        var word = hashWord(key);
+        var index = fastRange(word, capacity);
+        for (int i = index, end = index + maxCost; i <= end; i++) {
+            var bucket = table[i];
+            if (bucket == 0) {
+                return -1;
+            }
+            if ((int) (bucket >>> 32) == word) {
+                var ordinal = (int) bucket - 1;
+                if (key.equals(keys[ordinal])) {
+                    return ordinal;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts the key with the specified ordinal, unless the cost of the
+     * key or of a key that has to be shifted would exceed the limit.
+     *
+     * @return whether the key has been inserted
+     */
+    private boolean insert(int ordinal, int costLimit) {
+        var key = keys[ordinal];
+        var word = hashWord(key);
+        var index = ~find(key, word);
+        var h = fastRange(word, capacity);
+        if ((h <= index ? index - h : index - h + capacity) > costLimit) {
+            return false;
+        }
+        for (var i = index; table[i] != 0; i = i == capacity - 1 ? 0 : i + 1) {
+            if (getCost(i) >= costLimit) {
+                return false;
+            }
+        }
+        shiftForInsertion(index);
+        table[index] = (long) word << 32 | (ordinal + 1);
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns the keys in the order of their ordinals.
+     *
+     * @return an unmodifiable list
+     */
+    @SuppressWarnings("unchecked")
+    public List<K> keys() {
+        return (List<K>) Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * Removes a key, that has just been inserted with {@link #insert}.
+     * Backward-shift deletion restores the table that was present before
+     * the insertion.
+     */
+    private void remove(Object key) {
+        var index = find(key, hashWord(key));
+        table[index] = 0;
+        shiftForRemoval(index);
+        size--;
+    }
+
+    private void shiftForInsertion(int index) {
+        if (table[index] == 0) {
+            return;
+        }
+        var end = index < capacity - 1 ? index + 1 : 0;
+        while (table[end] != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+        moveRight(table, 1, capacity, index, end);
+        table[index] = 0;
+    }
+
+    private void shiftForRemoval(int index) {
+        var end = index < capacity - 1 ? index + 1 : 0;
+        while (getCost(end) != 0) {
+            if (++end == capacity) {
+                end = 0;
+            }
+        }
+        moveLeft(table, 1, capacity, index, end);
+        table[end == 0 ? capacity - 1 : end - 1] = 0;
+    }
+
+    /**
+     * Returns the number of keys in the index.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,110 @@
+package ch.randelshofer.robinhood;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Provides SIMD-within-a-register (SWAR) algorithms, that process the
+ * 8 bytes of a 64-bit word in parallel.
+ * <p>
+ * The bytes are read in little-endian order, so that byte {@code i} of
+ * an array ends up in lane {@code i}, which occupies bits
+ * {@code [8*i, 8*i+8)} of the word.
+ * <p>
+ * Reference: Sean Eron Anderson (2005). Bit Twiddling Hacks
+ * in {@link ch.randelshofer.robinhood}.
+ */
+class SwarAlgorithms {
+    /**
+     * A word with the value 1 in each lane.
+     */
+    public static final long ONES = 0x0101010101010101L;
+    /**
+     * A word with the high bit set in each lane.
+     */
+    public static final long HIGHS = 0x8080808080808080L;
+    /**
+     * A word with the value 0x7f in each lane.
+     */
+    public static final long LOWS = 0x7f7f7f7f7f7f7f7fL;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    public SwarAlgorithms() {
+    }
+
+    /**
+     * Reads 8 bytes starting at the specified index as a word.
+     *
+     * @param a     a byte array
+     * @param index an index, {@code index + 8} must not exceed the array length
+     * @return the word
+     */
+    public static long readLong(byte[] a, int index) {
+        return (long) LONGS.get(a, index);
+    }
+
+    /**
+     * Returns a word, that has the high bit set in each lane in which
+     * {@code x} is zero.
+     * <p>
+     * Unlike the well-known {@code (x - ONES) & ~x & HIGHS}, this
+     * formula does not produce false positives.
+     *
+     * @param x a word
+     * @return a mask with the high bit of each zero lane set
+     */
+    public static long zeroLanes(long x) {
+        return ~(((x & LOWS) + LOWS) | x | LOWS);
+    }
+
+    /**
+     * Returns a word, that has the high bit set in each lane in which
+     * {@code x} is equal to {@code y}.
+     *
+     * @param x a word
+     * @param y a word
+     * @return a mask with the high bit of each equal lane set
+     */
+    public static long equalLanes(long x, long y) {
+        return zeroLanes(x ^ y);
+    }
+
+    /**
+     * Returns a word, that has the high bit set in each lane in which
+     * {@code x} is less than {@code y}.
+     *
+     * @param x a word, all lanes must be in the range {@code [0, 0x7f]}
+     * @param y a word, all lanes must be in the range {@code [0, 0x7f]}
+     * @return a mask with the high bit of each lesser lane set
+     */
+    public static long lessThanLanes(long x, long y) {
+        return ~((x | HIGHS) - y) & HIGHS;
+    }
+
+    /**
+     * Gathers the high bits of the lanes into the lowest 8 bits of
+     * the result, so that bit {@code i} of the result is the high bit of
+     * lane {@code i}.
+     *
+     * @param mask a mask, only the high bits of the lanes may be set
+     * @return the gathered bits in the range {@code [0, 0xff]}
+     */
+    public static int gatherLanes(long mask) {
+        return (int) (((mask >>> 7) * 0x0102040810204080L) >>> 56);
+    }
+
+    /**
+     * Returns the index of the lowest lane that has its high bit set.
+     *
+     * @param mask a mask, must not be zero
+     * @return the lane index in the range {@code [0, 8)}
+     */
+    public static int firstLane(long mask) {
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+}
@@ -0,0 +1,41 @@
+package ch.randelshofer.robinhood;
+
+import static ch.randelshofer.robinhood.MetadataTable.TAG_BITS;
+
+/**
+ * Compares 8 metadata bytes at once with SWAR operations.
+ */
+class SwarMetadataProbe extends MetadataProbe {
+    /**
+     * Lane {@code i} holds the value {@code i + 1}.
+     */
+    private static final long LANE_INCREMENTS = 0x0807060504030201L;
+
+    @Override
+    public int lanes() {
+        return 8;
+    }
+
+    @Override
+    public long probe(byte[] metadata, int index, int cost, int tag, int n) {
+        var word = SwarAlgorithms.readLong(metadata, index);
+        var expectedCodes = LANE_INCREMENTS + cost * SwarAlgorithms.ONES;
+        var actualCodes = (word >>> TAG_BITS) & 0x0f0f0f0f0f0f0f0fL;
+        var stops = SwarAlgorithms.lessThanLanes(actualCodes, expectedCodes);
+        if (n < 8) {
+            stops |= SwarAlgorithms.HIGHS << (n * 8);
+        }
+        // Lanes with an expected code above the saturated code overflow
+        // into the next lane. This is harmless, because such lanes
+        // are at or after the stop lane.
+        var matches = SwarAlgorithms.equalLanes(word, (expectedCodes << TAG_BITS) | tag * SwarAlgorithms.ONES);
+        int stop;
+        if (stops == 0) {
+            stop = 8;
+        } else {
+            stop = SwarAlgorithms.firstLane(stops);
+            matches &= (stops & -stops) - 1;
+        }
+        return (long) stop << 32 | SwarAlgorithms.gatherLanes(matches);
+    }
+}
@@ -83,6 +83,9 @@
  * University of Waterloo. Waterloo, Ontario, N2L 3G1.</dt>
  * <dd><a href="https://cs.uwaterloo.ca/research/tr/1986/CS-86-14.pdf">cs.waterloo.ca</a></dd>
  *
+ * <dt>Sean Eron Anderson (2005). Bit Twiddling Hacks.</dt>
+ * <dd><a href="https://graphics.stanford.edu/~seander/bithacks.html">stanford.edu</a></dd>
+ *
  * <dt>Sebastiano Vigna (2002-2021). FastUtil. Apache License 2.0.</dt>
  * <dd><a href="https://github.com/vigna/fastutil">github.com</a></dd>
  * </dl>
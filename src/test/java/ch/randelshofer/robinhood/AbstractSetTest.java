@@ -2,11 +2,17 @@ package ch.randelshofer.robinhood;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -26,6 +32,45 @@ public abstract class AbstractSetTest {
 
     protected abstract <T> Set<T> create(int expectedMaxSize, float maxLoadFactor);
 
+    @Test
+    public void shouldSplitSpliteratorIntoDisjointParts() {
+        Random rng = new Random(0);
+        for (int round = 0; round < 50; round++) {
+            Set<Integer> set = create(0, new float[]{0.5f, 0.75f, 1f}[round % 3]);
+            int n = rng.nextInt(3000);
+            for (int i = 0; i < n; i++) {
+                set.add(rng.nextInt(4 * n + 1) - n);
+            }
+            List<Integer> expected = new ArrayList<>(set);
+            Spliterator<Integer> spliterator = set.spliterator();
+            assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+            assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+            assertEquals(set.size(), spliterator.estimateSize());
+
+            List<Integer> actual = new ArrayList<>();
+            splitRecursively(spliterator, actual, rng);
+            actual.sort(null);
+            expected.sort(null);
+            assertEquals(expected, actual);
+            assertEquals(expected.size(), set.parallelStream().count());
+            assertEquals(expected.stream().mapToLong(e -> e).sum(),
+                    set.parallelStream().mapToLong(e -> e).sum());
+        }
+    }
+
+    private static void splitRecursively(Spliterator<Integer> spliterator, List<Integer> actual, Random rng) {
+        if (rng.nextInt(4) == 0) {
+            spliterator.tryAdvance(actual::add);
+        }
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            spliterator.forEachRemaining(actual::add);
+            return;
+        }
+        splitRecursively(prefix, actual, rng);
+        splitRecursively(spliterator, actual, rng);
+    }
+
     @Test
     public void testAdd1ElementWithZeroInitialCapacity() {
         Set<Key> set = create(0, 0.75f);
@@ -215,6 +260,90 @@ public abstract class AbstractSetTest {
         }
     }
 
+    @Test
+    public void shouldRemoveElementsFromFullTable() {
+        for (int n = 1; n <= 16; n++) {
+            for (int first = 0; first < n; first++) {
+                Set<Key> set = create(n, 1f);
+                List<Key> list = IntStream.range(0, n).mapToObj(Key::new).collect(Collectors.toList());
+                set.addAll(list);
+
+                for (int i = 0; i < n; i++) {
+                    Key removed = list.get((first + i) % n);
+                    assertTrue(set.remove(removed), "removing " + removed);
+                    assertFalse(set.contains(removed));
+                    for (int j = i + 1; j < n; j++) {
+                        Key k = list.get((first + j) % n);
+                        assertTrue(set.contains(k), "failed to keep " + k + " after removing " + removed);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldRemoveIfTestingEachElementOnce() {
+        Random rng = new Random(0);
+        for (int round = 0; round < 100; round++) {
+            int n = rng.nextInt(300);
+            // round 0 mod 4 fills the table completely
+            Set<Key> set = create(n, round % 4 == 0 ? 1f : 0.75f);
+            List<Key> list = IntStream.range(0, n).mapToObj(i -> new Key(rng.nextInt(4 * n + 1)))
+                    .distinct().collect(Collectors.toList());
+            set.addAll(list);
+
+            Map<Key, Integer> tested = new HashMap<>();
+            boolean removed = set.removeIf(e -> {
+                tested.merge(e, 1, Integer::sum);
+                return (e.id() & 1) == 0;
+            });
+
+            assertEquals(list.size(), tested.size());
+            assertTrue(tested.values().stream().allMatch(count -> count == 1));
+            List<Key> expected = list.stream().filter(e -> (e.id() & 1) != 0).collect(Collectors.toList());
+            assertEquals(expected.size() != list.size(), removed);
+            assertEquals(new HashSet<>(expected), set);
+            List<Key> visited = new ArrayList<>();
+            set.forEach(visited::add);
+            assertEquals(new HashSet<>(expected), new HashSet<>(visited));
+            assertEquals(expected.size(), visited.size());
+        }
+    }
+
+    @Test
+    public void shouldRetainAndRemoveAllInBulk() {
+        Random rng = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            int n = rng.nextInt(500);
+            Key[] keys = new Key[2 * n + 1];
+            Arrays.setAll(keys, Key::new);
+            Set<Key> set = create(0, round % 2 == 0 ? 1f : 0.5f);
+            Set<Key> expected = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                Key k = keys[rng.nextInt(keys.length)];
+                set.add(k);
+                expected.add(k);
+            }
+            Set<Key> other = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                other.add(keys[rng.nextInt(keys.length)]);
+            }
+
+            assertEquals(expected.retainAll(other), set.retainAll(other));
+            assertEquals(expected, set);
+            assertFalse(set.retainAll(set));
+            assertEquals(expected, set);
+            Set<Key> some = other.stream().filter(k -> (k.id() & 3) == 0).collect(Collectors.toSet());
+            assertEquals(expected.removeAll(some), set.removeAll(some));
+            assertEquals(expected, set);
+            for (Key k : expected) {
+                assertTrue(set.contains(k), "contains " + k);
+            }
+            assertEquals(!expected.isEmpty(), set.removeAll(set));
+            assertTrue(set.isEmpty());
+        }
+    }
+
     private <T> boolean containsAny(Set<T> set, Collection<T> c) {
         for (T e : c) {
             if (set.contains(e)) {
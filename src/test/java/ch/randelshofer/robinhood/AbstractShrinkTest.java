@@ -0,0 +1,87 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that a table shrinks on removal below its shrink factor.
+ * <p>
+ * Subclasses pass a factory for an empty table with load factor 0.5,
+ * and the operations that add, remove and find the keys 0 to 999.
+ *
+ * @param <T> the table type
+ */
+public abstract class AbstractShrinkTest<T extends AbstractRobinHoodHashing<?>> {
+    private final Supplier<T> factory;
+    private final BiConsumer<T, Integer> add;
+    private final BiPredicate<T, Integer> remove;
+    private final BiPredicate<T, Integer> contains;
+    private final Function<T, Iterator<?>> iterator;
+    private T table;
+    private int peakCapacity;
+
+    protected AbstractShrinkTest(Supplier<T> factory, BiConsumer<T, Integer> add, BiPredicate<T, Integer> remove,
+                                 BiPredicate<T, Integer> contains, Function<T, Iterator<?>> iterator) {
+        this.factory = factory;
+        this.add = add;
+        this.remove = remove;
+        this.contains = contains;
+        this.iterator = iterator;
+    }
+
+    @BeforeEach
+    public void fillTable() {
+        table = factory.get();
+        table.setShrinkFactor(0.125f);
+        for (int i = 0; i < 1000; i++) {
+            add.accept(table, i);
+        }
+        peakCapacity = table.getCapacity();
+    }
+
+    @AfterEach
+    public void closeTable() throws Exception {
+        if (table instanceof AutoCloseable c) {
+            c.close();
+        }
+    }
+
+    @Test
+    public void shouldShrinkOnRemovalBelowShrinkFactor() {
+        for (int i = 0; i < 990; i++) {
+            assertTrue(remove.test(table, i), "remove " + i);
+        }
+        assertEquals(10, table.size());
+        assertTrue(table.getCapacity() < peakCapacity / 8, "capacity " + table.getCapacity());
+        for (int i = 990; i < 1000; i++) {
+            assertTrue(contains.test(table, i), "contains " + i);
+        }
+    }
+
+    @Test
+    public void shouldNotShrinkWhileIteratorRemoves() {
+        int visited = 0;
+        for (Iterator<?> it = iterator.apply(table); it.hasNext(); ) {
+            if (((Number) it.next()).intValue() >= 10) {
+                it.remove();
+            }
+            visited++;
+        }
+        assertEquals(1000, visited);
+        assertEquals(10, table.size());
+        assertEquals(peakCapacity, table.getCapacity());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(contains.test(table, i), "contains " + i);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ch.randelshofer.robinhood;
+
+import ch.randelshofer.robinhood.CachedHashRobinHoodHashSetTest.CountingKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CachedHashRobinHoodHashMapTest extends AbstractSetTest {
+
+
+    @Override
+    protected <T> Set<T> create(int expectedMaxSize, float maxLoadFactor) {
+        return Collections.newSetFromMap(new CachedHashRobinHoodHashMap<>(expectedMaxSize, maxLoadFactor));
+    }
+
+    @Test
+    public void shouldComputeHashCodeOnceWhenPutting() {
+        CachedHashRobinHoodHashMap<CountingKey, Integer> map = new CachedHashRobinHoodHashMap<>(4, 0.75f);
+        CountingKey.hashCodeCount = 0;
+        for (int i = 0; i < 100; i++) {
+            assertNull(map.put(new CountingKey(i), i));
+        }
+        assertEquals(42, map.put(new CountingKey(42), -42));
+        assertEquals(101, CountingKey.hashCodeCount);
+        assertEquals(-42, map.get(new CountingKey(42)));
+        assertEquals(100, map.size());
+    }
+
+    @Test
+    public void shouldUseHashStrategyForKeys() {
+        CachedHashRobinHoodHashMap<byte[], Integer> map = new CachedHashRobinHoodHashMap<>(HashStrategy.byteArrayStrategy());
+        for (int i = 0; i < 1000; i++) {
+            assertNull(map.put(new byte[]{(byte) i, (byte) (i >>> 8)}, i));
+        }
+        assertEquals(1, map.put(new byte[]{1, 0}, -1));
+        assertEquals(-1, map.get(new byte[]{1, 0}));
+        assertEquals(999, map.remove(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertNull(map.get(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertEquals(999, map.size());
+    }
+}
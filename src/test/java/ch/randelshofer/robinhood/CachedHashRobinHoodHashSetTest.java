@@ -0,0 +1,83 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachedHashRobinHoodHashSetTest extends AbstractSetTest {
+
+
+    @Override
+    protected <T> CachedHashRobinHoodHashSet<T> create(int expectedMaxSize, float maxLoadFactor) {
+        return new CachedHashRobinHoodHashSet<>(expectedMaxSize, maxLoadFactor);
+    }
+
+    @Test
+    public void shouldNotComputeHashCodeOfElementsInTheSet() {
+        CachedHashRobinHoodHashSet<CountingKey> set = create(4, 0.75f);
+        CountingKey[] keys = IntStream.range(0, 100).mapToObj(CountingKey::new).toArray(CountingKey[]::new);
+        for (CountingKey key : keys) {
+            set.add(key);
+        }
+        CountingKey.hashCodeCount = 0;
+
+        assertTrue(set.contains(new CountingKey(42)));
+        assertFalse(set.contains(new CountingKey(4242)));
+        assertTrue(set.remove(new CountingKey(7)));
+        set.sizeToFit(0.25f);
+
+        assertEquals(3, CountingKey.hashCodeCount);
+        assertEquals(99, set.size());
+        for (CountingKey key : keys) {
+            assertEquals(key.id != 7, set.contains(key));
+        }
+    }
+
+    @Test
+    public void shouldComputeHashCodeOnceWhenAdding() {
+        CachedHashRobinHoodHashSet<CountingKey> set = create(4, 0.75f);
+        CountingKey.hashCodeCount = 0;
+        for (int i = 0; i < 100; i++) {
+            assertTrue(set.add(new CountingKey(i)));
+        }
+        assertFalse(set.add(new CountingKey(42)));
+        assertEquals(101, CountingKey.hashCodeCount);
+    }
+
+    static class CountingKey {
+        static int hashCodeCount;
+        final int id;
+
+        CountingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CountingKey that && this.id == that.id;
+        }
+
+        @Override
+        public int hashCode() {
+            hashCodeCount++;
+            return id & 7;
+        }
+    }
+
+    @Test
+    public void shouldUseHashStrategy() {
+        CachedHashRobinHoodHashSet<byte[]> set = new CachedHashRobinHoodHashSet<>(HashStrategy.byteArrayStrategy());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.add(new byte[]{(byte) i, (byte) (i >>> 8)}));
+        }
+        assertFalse(set.add(new byte[]{1, 0}));
+        assertTrue(set.contains(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertTrue(set.remove(new byte[]{1, 0}));
+        assertFalse(set.contains(new byte[]{1, 0}));
+        assertEquals(999, set.size());
+    }
+}
@@ -0,0 +1,245 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentRobinHoodHashMapTest {
+
+    @Test
+    public void shouldWorkLikeHashMap() {
+        Random rng = new Random(0);
+        for (int concurrencyLevel : new int[]{1, 3, 16}) {
+            ConcurrentRobinHoodHashMap<Integer, Integer> map = new ConcurrentRobinHoodHashMap<>(0, 0.5f, concurrencyLevel);
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                int key = rng.nextInt(2000);
+                switch (rng.nextInt(4)) {
+                    case 0 -> assertEquals(expected.put(key, i), map.put(key, i));
+                    case 1 -> assertEquals(expected.remove(key), map.remove(key));
+                    case 2 -> assertEquals(expected.merge(key, 1, Integer::sum), map.merge(key, 1, Integer::sum));
+                    default -> assertEquals(expected.get(key), map.get(key));
+                }
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected, map);
+            assertEquals(map, expected);
+            assertEquals(expected.hashCode(), map.hashCode());
+        }
+    }
+
+    @Test
+    public void shouldRoundConcurrencyLevelUpToPowerOfTwo() {
+        assertEquals(1, new ConcurrentRobinHoodHashMap<>(0, 0.5f, 1).getSegmentCount());
+        assertEquals(4, new ConcurrentRobinHoodHashMap<>(0, 0.5f, 3).getSegmentCount());
+        assertEquals(16, new ConcurrentRobinHoodHashMap<>(0, 0.5f, 16).getSegmentCount());
+        assertEquals(1 << 16, new ConcurrentRobinHoodHashMap<>(0, 0.5f, Integer.MAX_VALUE).getSegmentCount());
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentRobinHoodHashMap<>(0, 0.5f, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentRobinHoodHashMap<>(-1, 0.5f, 1));
+    }
+
+    @Test
+    public void shouldRejectNullKeysAndValues() {
+        ConcurrentRobinHoodHashMap<Integer, Integer> map = new ConcurrentRobinHoodHashMap<>();
+        assertThrows(NullPointerException.class, () -> map.put(null, 1));
+        assertThrows(NullPointerException.class, () -> map.put(1, null));
+        assertThrows(NullPointerException.class, () -> map.get(null));
+        assertThrows(NullPointerException.class, () -> map.containsValue(null));
+    }
+
+    @Test
+    public void shouldUpdateConcurrentlyFromManyThreads() throws InterruptedException, ExecutionException {
+        int threads = 8;
+        int keys = 10_000;
+        ConcurrentRobinHoodHashMap<Integer, Integer> map = new ConcurrentRobinHoodHashMap<>(0, 0.5f, threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < keys; i++) {
+                        map.merge(i, 1, Integer::sum);
+                        map.put(keys + thread * keys + i, i);
+                        if (i % 2 == 0) {
+                            map.remove(keys + thread * keys + i);
+                        }
+                        // Iterators must not fail while other threads modify the map
+                        if (i % 1000 == 0) {
+                            map.forEach((k, v) -> assertTrue(v >= 0));
+                            map.entrySet().forEach(e -> assertTrue(e.getValue() >= 0));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(keys + threads * keys / 2, map.size());
+        IntStream.range(0, keys).forEach(i -> assertEquals(threads, map.get(i)));
+        for (int t = 0; t < threads; t++) {
+            for (int i = 1; i < keys; i += 2) {
+                assertEquals(i, map.get(keys + t * keys + i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRemoveWithIteratorAndWriteThroughEntries() {
+        ConcurrentRobinHoodHashMap<Integer, Integer> map = new ConcurrentRobinHoodHashMap<>();
+        IntStream.range(0, 1000).forEach(i -> map.put(i, i));
+        for (var e : map.entrySet()) {
+            e.setValue(e.getValue() * 2);
+        }
+        map.keySet().removeIf(k -> k % 2 == 0);
+        assertEquals(500, map.size());
+        map.forEach((k, v) -> {
+            assertEquals(1, k % 2);
+            assertEquals(2 * k, v);
+        });
+    }
+
+    @Test
+    public void shouldFindStableKeysWhileWriterShiftsClusters() throws InterruptedException, ExecutionException {
+        // A single segment, so that every write shifts the clusters that
+        // the readers probe, and resizes the table from time to time.
+        ConcurrentRobinHoodHashMap<Integer, Integer> map = new ConcurrentRobinHoodHashMap<>(0, 0.75f, 1);
+        int stable = 1000;
+        IntStream.range(0, stable).forEach(i -> map.put(i, -i));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int round = 0; round < 20; round++) {
+                    for (int i = stable; i < 20 * stable; i++) {
+                        map.put(i, i);
+                    }
+                    for (int i = stable; i < 20 * stable; i++) {
+                        map.remove(i);
+                    }
+                }
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                readers.add(executor.submit(() -> {
+                    while (!writer.isDone()) {
+                        for (int i = 0; i < stable; i++) {
+                            assertEquals(-i, map.get(i));
+                            assertTrue(map.containsKey(i));
+                        }
+                    }
+                }));
+            }
+            writer.get();
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(stable, map.size());
+    }
+
+    @Test
+    public void shouldAllowReadsButRejectUpdatesInsideCompute() {
+        ConcurrentRobinHoodHashMap<Integer, Integer> map = new ConcurrentRobinHoodHashMap<>(0, 0.5f, 1);
+        map.put(1, 10);
+        map.put(2, 20);
+        assertEquals(30, map.compute(1, (k, v) -> v + map.get(2)));
+        assertEquals(2, map.computeIfAbsent(3, k -> map.size()));
+        assertThrows(IllegalStateException.class, () -> map.compute(1, (k, v) -> map.put(4, 40)));
+        assertEquals(Map.of(1, 30, 2, 20, 3, 2), map);
+
+        Set<Integer> set = ConcurrentRobinHoodHashMap.newKeySet();
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertEquals(Set.of(5), set);
+    }
+
+    @Test
+    public void shouldAllowUpdatesInsideForEach() {
+        ConcurrentRobinHoodHashMap<Integer, Integer> map = new ConcurrentRobinHoodHashMap<>(0, 0.5f, 1);
+        for (int i = 0; i < 10; i++) {
+            map.put(i, i);
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> map.forEach((k, v) -> {
+            if (k % 2 == 0) {
+                map.put(k, v + 1);
+            } else {
+                map.remove(k);
+            }
+            map.compute(k + 100, (k2, v2) -> k);
+        }));
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            if (i % 2 == 0) {
+                expected.put(i, i + 1);
+            }
+            expected.put(i + 100, i);
+        }
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void shouldPropagateExceptionsOfKeysFromOptimisticReads() {
+        ConcurrentRobinHoodHashMap<Object, Integer> map = new ConcurrentRobinHoodHashMap<>(0, 0.5f, 1);
+        map.put(new FailingKey(), 1);
+        FailingKey.equalsCount = 0;
+        assertThrows(UnsupportedOperationException.class, () -> map.get(new FailingKey()));
+        assertThrows(UnsupportedOperationException.class, () -> map.containsKey(new FailingKey()));
+        // The map must not retry the read under the lock.
+        assertEquals(2, FailingKey.equalsCount);
+    }
+
+    /**
+     * All instances have the same hash code, and {@code equals} throws
+     * an exception.
+     */
+    private static class FailingKey {
+        static int equalsCount;
+
+        @Override
+        public boolean equals(Object obj) {
+            equalsCount++;
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    @Test
+    public void shouldUseHashStrategyForKeys() {
+        ConcurrentRobinHoodHashMap<byte[], Integer> map = new ConcurrentRobinHoodHashMap<>(HashStrategy.byteArrayStrategy());
+        for (int i = 0; i < 1000; i++) {
+            assertNull(map.put(new byte[]{(byte) i, (byte) (i >>> 8)}, i));
+        }
+        assertEquals(1, map.put(new byte[]{1, 0}, -1));
+        assertEquals(-1, map.get(new byte[]{1, 0}));
+        assertEquals(999, map.remove(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertNull(map.get(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertEquals(999, map.size());
+    }
+}
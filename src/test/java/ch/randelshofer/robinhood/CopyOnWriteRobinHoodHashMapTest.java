@@ -0,0 +1,55 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CopyOnWriteRobinHoodHashMapTest extends AbstractSetTest {
+
+
+    @Override
+    protected <T> Set<T> create(int expectedMaxSize, float maxLoadFactor) {
+        return Collections.newSetFromMap(new CopyOnWriteRobinHoodHashMap<>(expectedMaxSize, maxLoadFactor));
+    }
+
+    @Test
+    public void shouldNotSeeModificationsOfSnapshot() {
+        CopyOnWriteRobinHoodHashMap<Integer, Integer> map = new CopyOnWriteRobinHoodHashMap<>(0, 0.5f);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, i);
+            expected.put(i, i);
+        }
+        CopyOnWriteRobinHoodHashMap<Integer, Integer> snapshot = map.snapshot();
+        map.replaceAll((k, v) -> -v);
+        snapshot.keySet().removeIf(k -> k % 3 == 0);
+        snapshot.put(-1, -1);
+
+        assertEquals(10_000, map.size());
+        map.forEach((k, v) -> assertEquals(-k, v));
+        expected.keySet().removeIf(k -> k % 3 == 0);
+        expected.put(-1, -1);
+        assertEquals(expected, snapshot);
+    }
+
+    @Test
+    public void shouldUseHashStrategyForKeys() {
+        CopyOnWriteRobinHoodHashMap<byte[], Integer> map = new CopyOnWriteRobinHoodHashMap<>(HashStrategy.byteArrayStrategy());
+        for (int i = 0; i < 1000; i++) {
+            assertNull(map.put(new byte[]{(byte) i, (byte) (i >>> 8)}, i));
+        }
+        assertEquals(1, map.put(new byte[]{1, 0}, -1));
+        assertEquals(-1, map.get(new byte[]{1, 0}));
+        assertEquals(999, map.remove(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertNull(map.get(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertEquals(999, map.size());
+        CopyOnWriteRobinHoodHashMap<byte[], Integer> snapshot = map.snapshot();
+        assertEquals(0, snapshot.get(new byte[]{0, 0}));
+    }
+}
@@ -0,0 +1,72 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CopyOnWriteRobinHoodHashSetTest extends AbstractSetTest {
+
+
+    @Override
+    protected <T> CopyOnWriteRobinHoodHashSet<T> create(int expectedMaxSize, float maxLoadFactor) {
+        return new CopyOnWriteRobinHoodHashSet<>(expectedMaxSize, maxLoadFactor);
+    }
+
+    @Test
+    public void shouldKeepSnapshotsIndependentOfEachOther() {
+        Random rng = new Random(0);
+        CopyOnWriteRobinHoodHashSet<Integer> set = create(0, 0.5f);
+        Set<Integer> expected = new HashSet<>();
+        List<CopyOnWriteRobinHoodHashSet<Integer>> snapshots = new ArrayList<>();
+        List<Set<Integer>> expectedSnapshots = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            int e = rng.nextInt(5000);
+            if (rng.nextBoolean()) {
+                assertEquals(expected.add(e), set.add(e));
+            } else {
+                assertEquals(expected.remove(e), set.remove(e));
+            }
+            if (i % 1000 == 0) {
+                snapshots.add(set.snapshot());
+                expectedSnapshots.add(new HashSet<>(expected));
+            }
+            if (i % 1000 == 500) {
+                // Modify an older snapshot, which must not affect the set
+                // or the other snapshots.
+                int k = rng.nextInt(snapshots.size());
+                snapshots.get(k).add(-i);
+                expectedSnapshots.get(k).add(-i);
+            }
+        }
+        assertEquals(expected, set);
+        for (int k = 0; k < snapshots.size(); k++) {
+            assertEquals(expectedSnapshots.get(k), snapshots.get(k));
+            for (Integer e : expectedSnapshots.get(k)) {
+                assertEquals(true, snapshots.get(k).contains(e));
+            }
+        }
+    }
+
+    @Test
+    public void shouldUseHashStrategy() {
+        CopyOnWriteRobinHoodHashSet<byte[]> set = new CopyOnWriteRobinHoodHashSet<>(HashStrategy.byteArrayStrategy());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.add(new byte[]{(byte) i, (byte) (i >>> 8)}));
+        }
+        assertFalse(set.add(new byte[]{1, 0}));
+        assertTrue(set.contains(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertTrue(set.remove(new byte[]{1, 0}));
+        assertFalse(set.contains(new byte[]{1, 0}));
+        assertEquals(999, set.size());
+        CopyOnWriteRobinHoodHashSet<byte[]> snapshot = set.snapshot();
+        assertTrue(snapshot.contains(new byte[]{0, 0}));
+    }
+}
@@ -0,0 +1,62 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FrozenRobinHoodHashMapTest {
+
+    @Test
+    public void shouldContainSameEntriesAsHashMap() {
+        Random rng = new Random(0);
+        for (float loadFactor : new float[]{0.5f, 0.875f, 1f}) {
+            for (int round = 0; round < 20; round++) {
+                int n = rng.nextInt(5000);
+                Map<Integer, Integer> expected = new HashMap<>();
+                for (int i = 0; i < n; i++) {
+                    expected.put(rng.nextInt(2 * n + 1), i % 10 == 0 ? null : i);
+                }
+                FrozenRobinHoodHashMap<Integer, Integer> map = FrozenRobinHoodHashMap.copyOf(expected, loadFactor);
+
+                assertEquals(expected, map);
+                assertEquals(map, expected);
+                assertEquals(expected.hashCode(), map.hashCode());
+                assertEquals(Math.max(0, map.getCostStatistics().getMax()), map.getMaxCost());
+                for (int i = -1; i <= 2 * n + 1; i++) {
+                    assertEquals(expected.containsKey(i), map.containsKey(i), "containsKey " + i);
+                    assertEquals(expected.get(i), map.get(i), "get " + i);
+                    assertEquals(expected.getOrDefault(i, -1), map.getOrDefault(i, -1), "getOrDefault " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectModifications() {
+        FrozenRobinHoodHashMap<Integer, Integer> map = FrozenRobinHoodHashMap.copyOf(Map.of(1, 10, 2, 20));
+        assertThrows(UnsupportedOperationException.class, () -> map.put(3, 30));
+        assertThrows(UnsupportedOperationException.class, () -> map.remove(1));
+        assertThrows(UnsupportedOperationException.class, () -> map.merge(1, 1, Integer::sum));
+        assertThrows(UnsupportedOperationException.class, () -> map.replaceAll((k, v) -> v));
+        assertThrows(UnsupportedOperationException.class, () -> map.keySet().remove(1));
+        assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(0));
+        assertThrows(UnsupportedOperationException.class, map::clear);
+        assertNull(map.get(null));
+        assertEquals(Map.of(1, 10, 2, 20), map);
+        assertSame(map, FrozenRobinHoodHashMap.copyOf(map));
+    }
+
+    @Test
+    public void shouldNotExposeShrinkFactor() throws NoSuchMethodException {
+        assertThrows(NoSuchMethodException.class, () -> FrozenRobinHoodHashMap.class.getMethod("setShrinkFactor", float.class));
+        assertThrows(NoSuchMethodException.class, () -> FrozenRobinHoodHashMap.class.getMethod("getShrinkFactor"));
+        RobinHoodHashMap.class.getMethod("setShrinkFactor", float.class);
+    }
+}
@@ -0,0 +1,103 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrozenRobinHoodHashSetTest {
+
+    @Test
+    public void shouldContainSameElementsAsHashSet() {
+        Random rng = new Random(0);
+        for (float loadFactor : new float[]{0.5f, 0.875f, 1f}) {
+            for (int round = 0; round < 20; round++) {
+                int n = rng.nextInt(5000);
+                List<Integer> elements = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    elements.add(rng.nextInt(2 * n + 1));
+                }
+                Set<Integer> expected = new HashSet<>(elements);
+                FrozenRobinHoodHashSet<Integer> set = FrozenRobinHoodHashSet.copyOf(elements, loadFactor);
+
+                assertEquals(expected, set);
+                assertEquals(set, expected);
+                assertEquals(expected.hashCode(), set.hashCode());
+                assertEquals(Math.max(0, set.getCostStatistics().getMax()), set.getMaxCost());
+                for (int i = -1; i <= 2 * n + 1; i++) {
+                    assertEquals(expected.contains(i), set.contains(i), "contains " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldFindElementsThatWrapAroundWithCollidingHashCodes() {
+        // Keys with few distinct hash codes form long clusters, which wrap
+        // around at the end of the table.
+        record Colliding(int id) {
+            @Override
+            public int hashCode() {
+                return id % 7;
+            }
+        }
+        List<Colliding> elements = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            elements.add(new Colliding(i));
+        }
+        FrozenRobinHoodHashSet<Colliding> set = FrozenRobinHoodHashSet.copyOf(elements, 1f);
+        assertEquals(200, set.size());
+        for (int i = 0; i < 400; i++) {
+            assertEquals(i < 200, set.contains(new Colliding(i)));
+        }
+    }
+
+    @Test
+    public void shouldUseLessMemoryThanRobinHoodHashSet() {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            elements.add(i * 31);
+        }
+        FrozenRobinHoodHashSet<Integer> frozen = FrozenRobinHoodHashSet.copyOf(elements);
+        RobinHoodHashSet<Integer> mutable = RobinHoodHashSet.copyOf(elements);
+        // 4 bytes per compressed reference, and 1 metadata byte per bucket
+        long frozenBytes = 5L * (frozen.getCapacity() + frozen.getMaxCost()) + 16;
+        long mutableBytes = 4L * mutable.getCapacity();
+        assertTrue(frozenBytes < mutableBytes, frozenBytes + " < " + mutableBytes);
+    }
+
+    @Test
+    public void shouldRejectModifications() {
+        FrozenRobinHoodHashSet<Integer> set = FrozenRobinHoodHashSet.of(1, 2, 3);
+        assertThrows(UnsupportedOperationException.class, () -> set.add(4));
+        assertThrows(UnsupportedOperationException.class, () -> set.remove(1));
+        assertThrows(UnsupportedOperationException.class, () -> set.removeIf(e -> true));
+        assertThrows(UnsupportedOperationException.class, set::clear);
+        assertThrows(UnsupportedOperationException.class, () -> {
+            var it = set.iterator();
+            it.next();
+            it.remove();
+        });
+        assertThrows(NullPointerException.class, () -> FrozenRobinHoodHashSet.of(1, null));
+        assertFalse(set.contains(null));
+        assertEquals(Set.of(1, 2, 3), set);
+        assertSame(set, FrozenRobinHoodHashSet.copyOf(set));
+        assertTrue(FrozenRobinHoodHashSet.of().isEmpty());
+    }
+
+    @Test
+    public void shouldNotExposeShrinkFactor() throws NoSuchMethodException {
+        assertThrows(NoSuchMethodException.class, () -> FrozenRobinHoodHashSet.class.getMethod("setShrinkFactor", float.class));
+        assertThrows(NoSuchMethodException.class, () -> FrozenRobinHoodHashSet.class.getMethod("getShrinkFactor"));
+        RobinHoodHashSet.class.getMethod("setShrinkFactor", float.class);
+    }
+}
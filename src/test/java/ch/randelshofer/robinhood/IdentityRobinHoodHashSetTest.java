@@ -1,7 +1,16 @@
 package ch.randelshofer.robinhood;
 
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 class IdentityRobinHoodHashSetTest extends AbstractSetTest {
 
 
@@ -10,4 +19,24 @@ class IdentityRobinHoodHashSetTest extends AbstractSetTest {
         return new IdentityRobinHoodHashSet<>(expectedMaxSize, maxLoadFactor);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldFindAllElementsAfterDoubling() {
+        Random rng = new Random(0);
+        for (int round = 0; round < 200; round++) {
+            float loadFactor = new float[]{0.5f, 0.75f, 1f}[round % 3];
+            IdentityRobinHoodHashSet<Object> set = new IdentityRobinHoodHashSet<>(0, loadFactor);
+            List<Object> expected = new ArrayList<>();
+            int n = rng.nextInt(2000);
+            for (int i = 0; i < n; i++) {
+                Object e = new Object();
+                expected.add(e);
+                assertTrue(set.add(e));
+            }
+            assertEquals(expected.size(), set.size());
+            for (Object e : expected) {
+                assertTrue(set.contains(e), "contains " + e);
+                assertFalse(set.add(e), "add " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static ch.randelshofer.robinhood.AvalancheAlgorithms.goldenRatioAvalanche;
+import static ch.randelshofer.robinhood.RangeAlgorithms.fastRange;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalRobinHoodHashMapTest extends AbstractSetTest {
+
+    @Override
+    protected <T> Set<T> create(int expectedMaxSize, float maxLoadFactor) {
+        return Collections.newSetFromMap(new IncrementalRobinHoodHashMap<>(expectedMaxSize, maxLoadFactor));
+    }
+
+    @Test
+    public void shouldWorkLikeHashMapWhileMigrating() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            IncrementalRobinHoodHashMap<Integer, Integer> map = new IncrementalRobinHoodHashMap<>(0, loadFactor);
+            Map<Integer, Integer> expected = new HashMap<>();
+            boolean migrated = false;
+            for (int i = 0; i < 100_000; i++) {
+                // The range of keys grows, so that the map grows many times
+                Integer key = rng.nextInt(i / 4 + 10);
+                Integer value = rng.nextInt();
+                switch (rng.nextInt(4)) {
+                    case 0, 1 -> assertEquals(expected.put(key, value), map.put(key, value), "put " + key);
+                    case 2 -> assertEquals(expected.remove(key), map.remove(key), "remove " + key);
+                    default -> assertEquals(expected.get(key), map.get(key), "get " + key);
+                }
+                assertEquals(expected.size(), map.size());
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                migrated |= map.isMigrating();
+            }
+            assertTrue(migrated);
+            assertEquals(expected, map);
+            assertEquals(map, expected);
+        }
+    }
+
+    @Test
+    public void shouldIterateAndCloneWhileMigrating() {
+        IncrementalRobinHoodHashMap<Integer, String> map = new IncrementalRobinHoodHashMap<>(0, 0.5f);
+        Map<Integer, String> expected = new HashMap<>();
+        int i = 0;
+        while (expected.size() < 1000 || !map.isMigrating()) {
+            map.put(i, "v" + i);
+            expected.put(i, "v" + i);
+            i++;
+        }
+
+        assertEquals(expected, new HashMap<>(map));
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertTrue(map.containsValue("v0"));
+        assertFalse(map.containsValue("x"));
+
+        IncrementalRobinHoodHashMap<Integer, String> clone = map.clone();
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.isMigrating());
+        assertEquals(expected, clone);
+
+        clone.keySet().removeIf(k -> k % 2 == 0);
+        expected.keySet().removeIf(k -> k % 2 == 0);
+        assertEquals(expected, clone);
+    }
+
+    @Test
+    public void shouldRemoveWithIteratorWhileMigratingWithWrappingOldCluster() {
+        // capacity 64, grows to 128 with the 33rd entry
+        IncrementalRobinHoodHashMap<Integer, String> map = new IncrementalRobinHoodHashMap<>(32, 0.5f);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 29; i++) {
+            expected.add(keyWithHome(10 + i, 64, 0));
+        }
+        // x1 and x2 form a cluster in the old table, that wraps from
+        // bucket 63 to bucket 0, x3 is shifted to bucket 1
+        int x1 = keyWithHome(63, 64, 0);
+        int x2 = keyWithHome(63, 64, x1 + 1);
+        int x3 = keyWithHome(0, 64, 0);
+        // z1 and z2 form a cluster in the new table, that wraps from
+        // bucket 127 to bucket 0
+        int z1 = keyWithHome(127, 128, x2 + 1);
+        int z2 = keyWithHome(127, 128, z1 + 1);
+        for (int key : expected) {
+            map.put(key, "v" + key);
+        }
+        for (int key : new int[]{x1, x2, x3, z1, z2}) {
+            map.put(key, "v" + key);
+            expected.add(key);
+        }
+        assertTrue(map.isMigrating());
+        assertEquals(34, map.size());
+
+        List<Integer> actual = new ArrayList<>();
+        for (var it = map.keySet().iterator(); it.hasNext(); ) {
+            int key = it.next();
+            actual.add(key);
+            if (key == x1) {
+                it.remove();
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, new HashSet<>(actual));
+        expected.remove(x1);
+        assertEquals(expected, map.keySet());
+    }
+
+    /**
+     * Returns the first key starting at {@code from}, that has the
+     * specified home bucket in a table with the specified capacity.
+     */
+    private static int keyWithHome(int home, int capacity, int from) {
+        int key = from;
+        while (fastRange(goldenRatioAvalanche(Integer.hashCode(key)), capacity) != home) {
+            key++;
+        }
+        return key;
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<IncrementalRobinHoodHashMap<Integer, String>> {
+        Shrink() {
+            super(() -> new IncrementalRobinHoodHashMap<>(0, 0.5f),
+                    (m, i) -> m.put(i, "v" + i),
+                    (m, i) -> ("v" + i).equals(m.remove(i)),
+                    (m, i) -> m.containsKey(i),
+                    m -> m.keySet().iterator());
+        }
+    }
+
+    @Test
+    public void shouldUseHashStrategyForKeys() {
+        IncrementalRobinHoodHashMap<byte[], Integer> map = new IncrementalRobinHoodHashMap<>(HashStrategy.byteArrayStrategy());
+        for (int i = 0; i < 1000; i++) {
+            assertNull(map.put(new byte[]{(byte) i, (byte) (i >>> 8)}, i));
+        }
+        assertEquals(1, map.put(new byte[]{1, 0}, -1));
+        assertEquals(-1, map.get(new byte[]{1, 0}));
+        assertEquals(999, map.remove(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertNull(map.get(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertEquals(999, map.size());
+    }
+}
@@ -0,0 +1,95 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntIntRobinHoodHashMapTest {
+
+    @Test
+    public void shouldPutGetAndRemoveZeroKey() {
+        IntIntRobinHoodHashMap map = new IntIntRobinHoodHashMap();
+
+        assertFalse(map.containsKey(0));
+        assertEquals(0, map.put(0, -7));
+        assertEquals(-7, map.put(0, 7));
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.getOrDefault(0, -1));
+        assertEquals(7, map.get((Object) 0));
+        assertEquals(9, map.addTo(0, 2));
+        assertEquals(Map.of(0, 9), map);
+
+        assertEquals(9, map.removeOrDefault(0, -1));
+        assertEquals(-1, map.removeOrDefault(0, -1));
+        assertNull(map.get((Object) 0));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void shouldKeepNegativeValuesApartFromKeys() {
+        IntIntRobinHoodHashMap map = new IntIntRobinHoodHashMap();
+
+        map.put(1, -1);
+        map.put(-1, Integer.MIN_VALUE);
+
+        assertEquals(-1, map.getOrDefault(1, 0));
+        assertEquals(Integer.MIN_VALUE, map.getOrDefault(-1, 0));
+        assertEquals(Map.of(1, -1, -1, Integer.MIN_VALUE), map);
+    }
+
+    @Test
+    public void shouldWorkLikeHashMap() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            IntIntRobinHoodHashMap map = new IntIntRobinHoodHashMap(0, loadFactor);
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                // A small range of keys produces many collisions
+                int key = rng.nextInt(2000) - 1000;
+                int value = rng.nextInt();
+                switch (rng.nextInt(4)) {
+                    case 0 -> assertEquals((int) Objects.requireNonNullElse(expected.put(key, value), 0), map.put(key, value), "put " + key);
+                    case 1 -> assertEquals((int) expected.merge(key, value, Integer::sum), map.addTo(key, value), "addTo " + key);
+                    case 2 -> assertEquals((int) Objects.requireNonNullElse(expected.remove(key), -1), map.removeOrDefault(key, -1), "remove " + key);
+                    default -> assertEquals((int) expected.getOrDefault(key, -1), map.getOrDefault(key, -1), "get " + key);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, map);
+            assertEquals(expected.hashCode(), map.hashCode());
+        }
+    }
+
+    @Test
+    public void shouldCloneIndependently() {
+        IntIntRobinHoodHashMap map = new IntIntRobinHoodHashMap();
+        map.put(0, 10);
+        map.put(1, 11);
+        IntIntRobinHoodHashMap clone = map.clone();
+        clone.removeOrDefault(0, -1);
+        clone.put(1, 12);
+
+        assertEquals(Map.of(0, 10, 1, 11), map);
+        assertEquals(Map.of(1, 12), clone);
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<IntIntRobinHoodHashMap> {
+        Shrink() {
+            super(() -> new IntIntRobinHoodHashMap(0, 0.5f),
+                    (m, i) -> m.put((int) i, (int) i),
+                    (m, i) -> m.removeOrDefault(i, -1) == i,
+                    (m, i) -> m.containsKey((int) i),
+                    m -> m.keySet().iterator());
+        }
+    }
+}
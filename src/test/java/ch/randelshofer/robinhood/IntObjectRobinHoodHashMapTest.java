@@ -0,0 +1,79 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntObjectRobinHoodHashMapTest {
+
+    @Test
+    public void shouldPutGetAndRemoveZeroKey() {
+        IntObjectRobinHoodHashMap<String> map = new IntObjectRobinHoodHashMap<>();
+
+        assertFalse(map.containsKey(0));
+        assertNull(map.put(0, "zero"));
+        assertEquals("zero", map.put(0, "nought"));
+        assertTrue(map.containsKey(0));
+        assertEquals("nought", map.get(0));
+        assertEquals("nought", map.get((Object) 0));
+        assertEquals(Map.of(0, "nought"), map);
+        assertEquals("default", map.getOrDefault(1, "default"));
+
+        assertEquals("nought", map.remove(0));
+        assertNull(map.remove(0));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void shouldWorkLikeHashMap() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            IntObjectRobinHoodHashMap<String> map = new IntObjectRobinHoodHashMap<>(0, loadFactor);
+            Map<Integer, String> expected = new HashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                // A small range of keys produces many collisions
+                int key = rng.nextInt(2000) - 1000;
+                switch (rng.nextInt(3)) {
+                    case 0 -> assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i), "put " + key);
+                    case 1 -> assertEquals(expected.remove(key), map.remove(key), "remove " + key);
+                    default -> assertEquals(expected.get(key), map.get(key), "get " + key);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, map);
+            assertEquals(expected.hashCode(), map.hashCode());
+        }
+    }
+
+    @Test
+    public void shouldCloneIndependently() {
+        IntObjectRobinHoodHashMap<String> map = new IntObjectRobinHoodHashMap<>();
+        map.put(0, "zero");
+        map.put(1, "one");
+        IntObjectRobinHoodHashMap<String> clone = map.clone();
+        clone.remove(0);
+        clone.put(1, "uno");
+
+        assertEquals(Map.of(0, "zero", 1, "one"), map);
+        assertEquals(Map.of(1, "uno"), clone);
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<IntObjectRobinHoodHashMap<String>> {
+        Shrink() {
+            super(() -> new IntObjectRobinHoodHashMap<>(0, 0.5f),
+                    (m, i) -> m.put((int) i, "v" + i),
+                    (m, i) -> ("v" + i).equals(m.remove((int) i)),
+                    (m, i) -> m.containsKey((int) i),
+                    m -> m.keySet().iterator());
+        }
+    }
+}
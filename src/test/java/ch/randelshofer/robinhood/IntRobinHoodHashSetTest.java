@@ -0,0 +1,133 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntRobinHoodHashSetTest {
+
+    @Test
+    public void shouldAddContainAndRemoveZero() {
+        IntRobinHoodHashSet set = new IntRobinHoodHashSet();
+
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains((Object) 0));
+        assertEquals(1, set.size());
+        assertEquals(Set.of(0), set);
+
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        assertFalse(set.contains(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void shouldWorkLikeHashSet() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            IntRobinHoodHashSet set = new IntRobinHoodHashSet(0, loadFactor);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < 100_000; i++) {
+                // A small range of values produces many collisions
+                int e = rng.nextInt(2000) - 1000;
+                switch (rng.nextInt(3)) {
+                    case 0 -> assertEquals(expected.add(e), set.add(e), "add " + e);
+                    case 1 -> assertEquals(expected.remove(e), set.remove(e), "remove " + e);
+                    default -> assertEquals(expected.contains(e), set.contains(e), "contains " + e);
+                }
+                assertEquals(expected.size(), set.size());
+            }
+            assertEquals(expected, set);
+            assertEquals(expected.hashCode(), set.hashCode());
+        }
+    }
+
+    @Test
+    public void shouldVisitEachElementOnceWhenRemovingWithIterator() {
+        Random rng = new Random(0);
+        for (int n = 0; n < 200; n++) {
+            IntRobinHoodHashSet set = new IntRobinHoodHashSet(0, 1f);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                int e = rng.nextInt(4 * n + 1);
+                set.add(e);
+                expected.add(e);
+            }
+
+            Set<Integer> original = new HashSet<>(expected);
+            Set<Integer> visited = new HashSet<>();
+            for (var it = set.iterator(); it.hasNext(); ) {
+                int e = it.nextInt();
+                assertTrue(visited.add(e), "visited twice " + e);
+                if (rng.nextBoolean()) {
+                    it.remove();
+                    expected.remove(e);
+                }
+            }
+            assertEquals(original, visited);
+            assertEquals(expected, set);
+        }
+    }
+
+    @Test
+    public void shouldConvertToIntArray() {
+        IntRobinHoodHashSet set = new IntRobinHoodHashSet();
+        for (int i = -5; i <= 5; i++) {
+            set.add(i);
+        }
+        int[] array = set.toIntArray();
+        assertEquals(11, array.length);
+        for (int e : array) {
+            assertTrue(set.contains(e));
+        }
+    }
+
+    @Test
+    public void shouldCloneIndependently() {
+        IntRobinHoodHashSet set = new IntRobinHoodHashSet();
+        set.add(0);
+        set.add(1);
+        IntRobinHoodHashSet clone = set.clone();
+        clone.remove(0);
+        clone.add(2);
+
+        assertEquals(Set.of(0, 1), set);
+        assertEquals(Set.of(1, 2), clone);
+    }
+
+    @Test
+    public void shouldIncludeZeroInBulkOperations() {
+        IntRobinHoodHashSet set = new IntRobinHoodHashSet();
+        for (int i = -1000; i <= 1000; i++) {
+            set.add(i * 3);
+        }
+        assertEquals(0L, set.reduceToLong(1, e -> e, 0L, Long::sum));
+        assertEquals(2001L, (long) set.reduce(1, e -> 1L, Long::sum));
+        assertEquals(0, (int) set.search(1, e -> e == 0 ? e : null));
+        set.remove(0);
+        assertEquals(2000L, (long) set.reduce(1, e -> 1L, Long::sum));
+        assertNull(set.search(1, e -> e == 0 ? e : null));
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<IntRobinHoodHashSet> {
+        Shrink() {
+            super(() -> new IntRobinHoodHashSet(0, 0.5f),
+                    (s, i) -> s.add((int) i),
+                    (s, i) -> s.remove((int) i),
+                    (s, i) -> s.contains((int) i),
+                    IntRobinHoodHashSet::iterator);
+        }
+    }
+}
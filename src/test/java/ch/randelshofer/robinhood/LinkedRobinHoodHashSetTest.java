@@ -1,6 +1,15 @@
 package ch.randelshofer.robinhood;
 
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class LinkedRobinHoodHashSetTest extends AbstractSetTest {
     @Override
@@ -8,4 +17,28 @@ class LinkedRobinHoodHashSetTest extends AbstractSetTest {
         return new LinkedRobinHoodHashSet<>(expectedMaxSize, maxLoadFactor);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldKeepOrderWhenShrinkingOnRemoval() {
+        LinkedRobinHoodHashSet<Integer> set = new LinkedRobinHoodHashSet<>(0, 0.5f);
+        set.setShrinkFactor(0.125f);
+        IntStream.range(0, 1000).map(i -> 999 - i).forEach(set::add);
+        int peakCapacity = set.getCapacity();
+
+        set.removeIf(e -> e >= 10);
+        assertTrue(set.getCapacity() < peakCapacity / 8, "capacity " + set.getCapacity());
+        assertEquals(List.of(9, 8, 7, 6, 5, 4, 3, 2, 1, 0), new ArrayList<>(set));
+    }
+
+    @Test
+    public void shouldUseHashStrategy() {
+        LinkedRobinHoodHashSet<byte[]> set = new LinkedRobinHoodHashSet<>(HashStrategy.byteArrayStrategy());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.add(new byte[]{(byte) i, (byte) (i >>> 8)}));
+        }
+        assertFalse(set.add(new byte[]{1, 0}));
+        assertTrue(set.contains(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertTrue(set.remove(new byte[]{1, 0}));
+        assertFalse(set.contains(new byte[]{1, 0}));
+        assertEquals(999, set.size());
+    }
+}
@@ -0,0 +1,95 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongLongRobinHoodHashMapTest {
+
+    @Test
+    public void shouldPutGetAndRemoveZeroKey() {
+        LongLongRobinHoodHashMap map = new LongLongRobinHoodHashMap();
+
+        assertFalse(map.containsKey(0));
+        assertEquals(0, map.put(0, -7));
+        assertEquals(-7, map.put(0, 7));
+        assertTrue(map.containsKey(0));
+        assertEquals(7, map.getOrDefault(0, -1));
+        assertEquals(7L, map.get((Object) 0L));
+        assertEquals(9, map.addTo(0, 2));
+        assertEquals(Map.of(0L, 9L), map);
+
+        assertEquals(9, map.removeOrDefault(0, -1));
+        assertEquals(-1, map.removeOrDefault(0, -1));
+        assertNull(map.get((Object) 0L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void shouldKeepNegativeValuesApartFromKeys() {
+        LongLongRobinHoodHashMap map = new LongLongRobinHoodHashMap();
+
+        map.put(1, -1);
+        map.put(-1, Long.MIN_VALUE);
+
+        assertEquals(-1, map.getOrDefault(1, 0));
+        assertEquals(Long.MIN_VALUE, map.getOrDefault(-1, 0));
+        assertEquals(Map.of(1L, -1L, -1L, Long.MIN_VALUE), map);
+    }
+
+    @Test
+    public void shouldWorkLikeHashMap() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            LongLongRobinHoodHashMap map = new LongLongRobinHoodHashMap(0, loadFactor);
+            Map<Long, Long> expected = new HashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                // A small range of keys produces many collisions
+                long key = (rng.nextInt(2000) - 1000) * 0x1_0000_0001L;
+                long value = rng.nextLong();
+                switch (rng.nextInt(4)) {
+                    case 0 -> assertEquals((long) Objects.requireNonNullElse(expected.put(key, value), 0L), map.put(key, value), "put " + key);
+                    case 1 -> assertEquals((long) expected.merge(key, value, Long::sum), map.addTo(key, value), "addTo " + key);
+                    case 2 -> assertEquals((long) Objects.requireNonNullElse(expected.remove(key), -1L), map.removeOrDefault(key, -1), "remove " + key);
+                    default -> assertEquals((long) expected.getOrDefault(key, -1L), map.getOrDefault(key, -1), "get " + key);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, map);
+            assertEquals(expected.hashCode(), map.hashCode());
+        }
+    }
+
+    @Test
+    public void shouldCloneIndependently() {
+        LongLongRobinHoodHashMap map = new LongLongRobinHoodHashMap();
+        map.put(0, 10);
+        map.put(1, 11);
+        LongLongRobinHoodHashMap clone = map.clone();
+        clone.removeOrDefault(0, -1);
+        clone.put(1, 12);
+
+        assertEquals(Map.of(0L, 10L, 1L, 11L), map);
+        assertEquals(Map.of(1L, 12L), clone);
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<LongLongRobinHoodHashMap> {
+        Shrink() {
+            super(() -> new LongLongRobinHoodHashMap(0, 0.5f),
+                    (m, i) -> m.put((long) i, (long) i),
+                    (m, i) -> m.removeOrDefault(i, -1) == i,
+                    (m, i) -> m.containsKey((long) i),
+                    m -> m.keySet().iterator());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongRobinHoodHashSetTest {
+
+    @Test
+    public void shouldAddContainAndRemoveZero() {
+        LongRobinHoodHashSet set = new LongRobinHoodHashSet();
+
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains((Object) 0L));
+        assertEquals(1, set.size());
+        assertEquals(Set.of(0L), set);
+
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        assertFalse(set.contains(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void shouldWorkLikeHashSet() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            LongRobinHoodHashSet set = new LongRobinHoodHashSet(0, loadFactor);
+            Set<Long> expected = new HashSet<>();
+            for (int i = 0; i < 100_000; i++) {
+                // A small range of values produces many collisions
+                long e = (rng.nextInt(2000) - 1000) * 0x1_0000_0001L;
+                switch (rng.nextInt(3)) {
+                    case 0 -> assertEquals(expected.add(e), set.add(e), "add " + e);
+                    case 1 -> assertEquals(expected.remove(e), set.remove(e), "remove " + e);
+                    default -> assertEquals(expected.contains(e), set.contains(e), "contains " + e);
+                }
+                assertEquals(expected.size(), set.size());
+            }
+            assertEquals(expected, set);
+            assertEquals(expected.hashCode(), set.hashCode());
+        }
+    }
+
+    @Test
+    public void shouldVisitEachElementOnceWhenRemovingWithIterator() {
+        Random rng = new Random(0);
+        for (int n = 0; n < 200; n++) {
+            LongRobinHoodHashSet set = new LongRobinHoodHashSet(0, 1f);
+            Set<Long> expected = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                long e = rng.nextInt(4 * n + 1);
+                set.add(e);
+                expected.add(e);
+            }
+
+            Set<Long> original = new HashSet<>(expected);
+            Set<Long> visited = new HashSet<>();
+            for (var it = set.iterator(); it.hasNext(); ) {
+                long e = it.nextLong();
+                assertTrue(visited.add(e), "visited twice " + e);
+                if (rng.nextBoolean()) {
+                    it.remove();
+                    expected.remove(e);
+                }
+            }
+            assertEquals(original, visited);
+            assertEquals(expected, set);
+        }
+    }
+
+    @Test
+    public void shouldConvertToLongArray() {
+        LongRobinHoodHashSet set = new LongRobinHoodHashSet();
+        for (int i = -5; i <= 5; i++) {
+            set.add((long) i);
+        }
+        long[] array = set.toLongArray();
+        assertEquals(11, array.length);
+        for (long e : array) {
+            assertTrue(set.contains(e));
+        }
+    }
+
+    @Test
+    public void shouldCloneIndependently() {
+        LongRobinHoodHashSet set = new LongRobinHoodHashSet();
+        set.add(0);
+        set.add(1);
+        LongRobinHoodHashSet clone = set.clone();
+        clone.remove(0);
+        clone.add(2);
+
+        assertEquals(Set.of(0L, 1L), set);
+        assertEquals(Set.of(1L, 2L), clone);
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<LongRobinHoodHashSet> {
+        Shrink() {
+            super(() -> new LongRobinHoodHashSet(0, 0.5f),
+                    (s, i) -> s.add((long) i),
+                    (s, i) -> s.remove((long) i),
+                    (s, i) -> s.contains((long) i),
+                    LongRobinHoodHashSet::iterator);
+        }
+    }
+}
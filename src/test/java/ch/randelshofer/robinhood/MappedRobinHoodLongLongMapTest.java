@@ -0,0 +1,77 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedRobinHoodLongLongMapTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void shouldGetWrittenEntries() throws IOException {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            Map<Long, Long> expected = new HashMap<>();
+            for (int i = 0; i < 10_000; i++) {
+                // A small range of keys produces many collisions
+                expected.put((rng.nextInt(20_000) - 10_000) * 0x1_0000_0001L, rng.nextLong());
+            }
+            Path path = dir.resolve("map" + loadFactor);
+            MappedRobinHoodLongLongMap.write(path, expected, loadFactor);
+
+            try (MappedRobinHoodLongLongMap map = MappedRobinHoodLongLongMap.open(path)) {
+                assertEquals(expected.size(), map.size());
+                for (int i = -10_000; i < 10_000; i++) {
+                    long key = i * 0x1_0000_0001L;
+                    assertEquals(expected.containsKey(key), map.containsKey(key), "containsKey " + key);
+                    assertEquals((long) expected.getOrDefault(key, -1L), map.getOrDefault(key, -1L), "get " + key);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldStoreZeroKeyInHeader() throws IOException {
+        Path path = dir.resolve("map");
+        MappedRobinHoodLongLongMap.write(path, Map.of(0L, 42L, 1L, 43L));
+
+        try (MappedRobinHoodLongLongMap map = MappedRobinHoodLongLongMap.open(path)) {
+            assertEquals(2, map.size());
+            assertTrue(map.containsKey(0L));
+            assertEquals(42L, map.getOrDefault(0L, -1L));
+            assertEquals(43L, map.getOrDefault(1L, -1L));
+            assertEquals(-1L, map.getOrDefault(2L, -1L));
+        }
+    }
+
+    @Test
+    public void shouldWriteEmptyMap() throws IOException {
+        Path path = dir.resolve("map");
+        MappedRobinHoodLongLongMap.write(path, Map.of());
+
+        try (MappedRobinHoodLongLongMap map = MappedRobinHoodLongLongMap.open(path)) {
+            assertTrue(map.isEmpty());
+            assertFalse(map.containsKey(0L));
+            assertEquals(-1L, map.getOrDefault(1L, -1L));
+        }
+    }
+
+    @Test
+    public void shouldRejectSetFile() throws IOException {
+        Path path = dir.resolve("set");
+        MappedRobinHoodLongSet.write(path, Set.of(1L));
+        assertThrows(IOException.class, () -> MappedRobinHoodLongLongMap.open(path));
+    }
+}
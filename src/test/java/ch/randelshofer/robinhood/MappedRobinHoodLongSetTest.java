@@ -0,0 +1,152 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedRobinHoodLongSetTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void shouldContainWrittenElements() throws IOException {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            Set<Long> expected = new HashSet<>();
+            for (int i = 0; i < 10_000; i++) {
+                // A small range of values produces many collisions
+                expected.add((rng.nextInt(20_000) - 10_000) * 0x1_0000_0001L);
+            }
+            Path path = dir.resolve("set" + loadFactor);
+            MappedRobinHoodLongSet.write(path, expected, loadFactor);
+
+            try (MappedRobinHoodLongSet set = MappedRobinHoodLongSet.open(path)) {
+                assertEquals(expected.size(), set.size());
+                for (int i = -10_000; i < 10_000; i++) {
+                    long e = i * 0x1_0000_0001L;
+                    assertEquals(expected.contains(e), set.contains(e), "contains " + e);
+                }
+                long[] actual = set.toLongArray();
+                long[] sortedExpected = expected.stream().mapToLong(Long::longValue).sorted().toArray();
+                Arrays.sort(actual);
+                assertArrayEquals(sortedExpected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void shouldWriteLongRobinHoodHashSet() throws IOException {
+        LongRobinHoodHashSet expected = new LongRobinHoodHashSet(List.of(0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE));
+        Path path = dir.resolve("set");
+        MappedRobinHoodLongSet.write(path, expected);
+
+        try (MappedRobinHoodLongSet set = MappedRobinHoodLongSet.open(path)) {
+            assertEquals(5, set.size());
+            for (long e : new long[]{0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE}) {
+                assertTrue(set.contains(e), "contains " + e);
+            }
+            assertFalse(set.contains(2L));
+        }
+    }
+
+    @Test
+    public void shouldWriteEmptySet() throws IOException {
+        Path path = dir.resolve("set");
+        MappedRobinHoodLongSet.write(path, Set.of());
+
+        try (MappedRobinHoodLongSet set = MappedRobinHoodLongSet.open(path)) {
+            assertTrue(set.isEmpty());
+            assertFalse(set.contains(0L));
+            assertFalse(set.contains(1L));
+        }
+    }
+
+    @Test
+    public void shouldRejectMapFile() throws IOException {
+        Path path = dir.resolve("map");
+        MappedRobinHoodLongLongMap.write(path, Map.of(1L, 2L));
+        assertThrows(IOException.class, () -> MappedRobinHoodLongSet.open(path));
+    }
+
+    @Test
+    public void shouldRejectTruncatedFile() throws IOException {
+        Path path = dir.resolve("set");
+        MappedRobinHoodLongSet.write(path, Set.of(1L, 2L, 3L));
+        Files.write(path, Arrays.copyOf(Files.readAllBytes(path), MappedTableFormat.HEADER_SIZE + 8));
+        assertThrows(IOException.class, () -> MappedRobinHoodLongSet.open(path));
+        Files.write(path, new byte[8]);
+        assertThrows(IOException.class, () -> MappedRobinHoodLongSet.open(path));
+    }
+
+    @Test
+    public void shouldRejectIllegalCapacityOrSize() throws IOException {
+        Path path = dir.resolve("set");
+        MappedRobinHoodLongSet.write(path, Set.of(1L, 2L, 3L));
+        byte[] valid = Files.readAllBytes(path);
+        ByteBuffer header = ByteBuffer.wrap(valid).order(ByteOrder.LITTLE_ENDIAN);
+        int capacity = header.getInt(12);
+
+        for (int[] capacityAndSize : new int[][]{{(1 << 30) + 1, 3}, {Integer.MAX_VALUE, 3},
+                {-1, 3}, {capacity, capacity + 1}, {capacity, -1}}) {
+            byte[] bytes = valid.clone();
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(12, capacityAndSize[0])
+                    .putInt(16, capacityAndSize[1]);
+            Files.write(path, bytes);
+            assertThrows(IOException.class, () -> MappedRobinHoodLongSet.open(path),
+                    "capacity " + capacityAndSize[0] + ", size " + capacityAndSize[1]);
+        }
+    }
+
+    @Test
+    public void shouldKeepOpenSetReadableWhenFileIsReplaced() throws IOException {
+        Path path = dir.resolve("set");
+        Set<Long> large = new HashSet<>();
+        for (long e = 1; e <= 100_000; e++) {
+            large.add(e);
+        }
+        MappedRobinHoodLongSet.write(path, large);
+
+        try (MappedRobinHoodLongSet old = MappedRobinHoodLongSet.open(path)) {
+            MappedRobinHoodLongSet.write(path, Set.of(-1L));
+            for (long e = 1; e <= 100_000; e++) {
+                assertTrue(old.contains(e), "contains " + e);
+            }
+            try (MappedRobinHoodLongSet replaced = MappedRobinHoodLongSet.open(path)) {
+                assertEquals(1, replaced.size());
+                assertTrue(replaced.contains(-1L));
+            }
+        }
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    public void shouldThrowAfterClose() throws IOException {
+        Path path = dir.resolve("set");
+        MappedRobinHoodLongSet.write(path, Set.of(1L));
+        MappedRobinHoodLongSet set = MappedRobinHoodLongSet.open(path);
+        set.close();
+        assertTrue(set.isClosed());
+        assertThrows(IllegalStateException.class, () -> set.contains(1L));
+        set.close();
+    }
+}
@@ -0,0 +1,96 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class MetadataProbeTest {
+    @Test
+    public void swarProbeShouldMatchScalarProbe() {
+        testProbe(new SwarMetadataProbe());
+    }
+
+    @Test
+    public void vectorProbeShouldMatchScalarProbe() throws ReflectiveOperationException {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "requires --add-modules jdk.incubator.vector");
+        // VectorMetadataProbe is compiled separately, see pom.xml
+        var probe = (MetadataProbe) Class.forName("ch.randelshofer.robinhood.VectorMetadataProbe")
+                .getDeclaredConstructor().newInstance();
+        assertEquals(probe.getClass(), MetadataProbe.getInstance().getClass());
+        testProbe(probe);
+    }
+
+    @Test
+    public void onlyMetadataTablesShouldLoadProbe() throws Exception {
+        assertFalse(loadsProbe("ch.randelshofer.robinhood.RobinHoodHashSet"));
+        assertFalse(loadsProbe("ch.randelshofer.robinhood.IntRobinHoodHashSet"));
+        assertTrue(loadsProbe("ch.randelshofer.robinhood.MetadataRobinHoodHashSet"));
+    }
+
+    /**
+     * Adds an element to a new instance of the specified class, in a fresh
+     * class loader, and returns whether this has loaded {@link MetadataProbe}.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean loadsProbe(String className) throws Exception {
+        URL classes = MetadataProbe.class.getProtectionDomain().getCodeSource().getLocation();
+        try (var loader = new RecordingClassLoader(classes)) {
+            var c = (Collection<Object>) Class.forName(className, true, loader)
+                    .getConstructor().newInstance();
+            c.add(42);
+            assertTrue(c.contains(42));
+            return loader.isLoaded(MetadataProbe.class.getName());
+        }
+    }
+
+    private static class RecordingClassLoader extends URLClassLoader {
+        RecordingClassLoader(URL url) {
+            super(new URL[]{url}, ClassLoader.getPlatformClassLoader());
+        }
+
+        boolean isLoaded(String className) {
+            return findLoadedClass(className) != null;
+        }
+    }
+
+    private void testProbe(MetadataProbe probe) {
+        Random rng = new Random(0);
+        byte[] metadata = new byte[64];
+        for (int iteration = 0; iteration < 10_000; iteration++) {
+            for (int i = 0; i < metadata.length; i++) {
+                metadata[i] = rng.nextInt(4) == 0 ? 0
+                        : MetadataTable.metadata(rng.nextInt(18), rng.nextInt(16));
+            }
+            int index = rng.nextInt(metadata.length - probe.lanes() + 1);
+            int cost = rng.nextInt(MetadataTable.SATURATED - 1);
+            int tag = rng.nextInt(16);
+            int n = 1 + rng.nextInt(Math.min(probe.lanes(), MetadataTable.SATURATED - 1 - cost));
+
+            int stop = n;
+            int matches = 0;
+            for (int i = 0; i < n; i++) {
+                int m = metadata[index + i] & 0xff;
+                int code = m >>> MetadataTable.TAG_BITS;
+                if (code < cost + i + 1) {
+                    stop = i;
+                    break;
+                }
+                if (code == cost + i + 1 && (m & MetadataTable.TAG_MASK) == tag) {
+                    matches |= 1 << i;
+                }
+            }
+
+            assertEquals((long) stop << 32 | matches, probe.probe(metadata, index, cost, tag, n),
+                    "index=" + index + " cost=" + cost + " tag=" + tag + " n=" + n);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ch.randelshofer.robinhood;
+
+import ch.randelshofer.robinhood.CachedHashRobinHoodHashSetTest.CountingKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MetadataRobinHoodHashMapTest extends AbstractSetTest {
+
+
+    @Override
+    protected <T> Set<T> create(int expectedMaxSize, float maxLoadFactor) {
+        return Collections.newSetFromMap(new MetadataRobinHoodHashMap<>(expectedMaxSize, maxLoadFactor));
+    }
+
+    @Test
+    public void shouldComputeHashCodeOnceWhenPutting() {
+        MetadataRobinHoodHashMap<CountingKey, Integer> map = new MetadataRobinHoodHashMap<>(200, 0.75f);
+        CountingKey.hashCodeCount = 0;
+        for (int i = 0; i < 100; i++) {
+            assertNull(map.put(new CountingKey(i), i));
+        }
+        assertEquals(42, map.put(new CountingKey(42), -42));
+        assertEquals(101, CountingKey.hashCodeCount);
+
+        CountingKey.hashCodeCount = 0;
+        map.sizeToFit(0.25f);
+        assertEquals(100, CountingKey.hashCodeCount);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i == 42 ? -42 : i, map.get(new CountingKey(i)));
+        }
+        assertEquals(100, map.size());
+    }
+}
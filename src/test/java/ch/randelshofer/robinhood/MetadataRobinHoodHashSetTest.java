@@ -0,0 +1,66 @@
+package ch.randelshofer.robinhood;
+
+import ch.randelshofer.robinhood.CachedHashRobinHoodHashSetTest.CountingKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataRobinHoodHashSetTest extends AbstractSetTest {
+
+
+    @Override
+    protected <T> MetadataRobinHoodHashSet<T> create(int expectedMaxSize, float maxLoadFactor) {
+        return new MetadataRobinHoodHashSet<>(expectedMaxSize, maxLoadFactor);
+    }
+
+    @Test
+    public void shouldSupportCostsBeyondSaturatedDistanceCode() {
+        MetadataRobinHoodHashSet<CollidingKey> set = create(64, 1f);
+        List<CollidingKey> list = IntStream.range(0, 60).mapToObj(CollidingKey::new).collect(Collectors.toList());
+
+        for (int i = 0; i < list.size(); i++) {
+            assertTrue(set.add(list.get(i)));
+            assertTrue(set.containsAll(list.subList(0, i + 1)));
+            assertFalse(set.contains(new CollidingKey(-1)));
+        }
+        assertEquals(list.size() - 1, set.getCostStatistics().getMax());
+
+        for (int i = 0; i < list.size(); i += 2) {
+            assertTrue(set.remove(list.get(i)));
+        }
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(i % 2 == 1, set.contains(list.get(i)), "contains " + list.get(i));
+        }
+    }
+
+    @Test
+    public void shouldComputeHashCodeOnceWhenAdding() {
+        MetadataRobinHoodHashSet<CountingKey> set = create(200, 0.75f);
+        CountingKey.hashCodeCount = 0;
+        for (int i = 0; i < 100; i++) {
+            assertTrue(set.add(new CountingKey(i)));
+        }
+        assertFalse(set.add(new CountingKey(42)));
+        assertEquals(101, CountingKey.hashCodeCount);
+
+        CountingKey.hashCodeCount = 0;
+        set.sizeToFit(0.25f);
+        assertEquals(100, CountingKey.hashCodeCount);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(set.contains(new CountingKey(i)));
+        }
+    }
+
+    private record CollidingKey(int id) {
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ObjectIntRobinHoodHashMapTest {
+
+    @Test
+    public void shouldCountWithAddToAndIncrement() {
+        ObjectIntRobinHoodHashMap<String> map = new ObjectIntRobinHoodHashMap<>();
+
+        assertEquals(1, map.increment("a"));
+        assertEquals(2, map.increment("a"));
+        assertEquals(5, map.addTo("b", 5));
+        assertEquals(2, map.addTo("b", -3));
+
+        assertEquals(2, map.getOrDefault("a", -1));
+        assertEquals(-1, map.getOrDefault("c", -1));
+        assertEquals(Map.of("a", 2, "b", 2), map);
+    }
+
+    @Test
+    public void shouldPutAndRemoveWithoutBoxing() {
+        ObjectIntRobinHoodHashMap<String> map = new ObjectIntRobinHoodHashMap<>();
+
+        assertEquals(0, map.put("a", 7));
+        assertEquals(7, map.put("a", 8));
+        assertEquals(8, map.removeOrDefault("a", -1));
+        assertEquals(-1, map.removeOrDefault("a", -1));
+        assertNull(map.get("a"));
+    }
+
+    @Test
+    public void shouldRejectNullKeys() {
+        ObjectIntRobinHoodHashMap<String> map = new ObjectIntRobinHoodHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("k" + i, (int) i);
+        }
+
+        assertThrows(NullPointerException.class, () -> map.put(null, 7));
+        assertThrows(NullPointerException.class, () -> map.put(null, (Integer) 7));
+        assertThrows(NullPointerException.class, () -> map.addTo(null, 1));
+        assertThrows(NullPointerException.class, () -> map.increment(null));
+        assertEquals(100, map.size());
+        assertFalse(map.containsKey(null));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, map.getOrDefault("k" + i, -1));
+        }
+    }
+
+    @Test
+    public void shouldRejectNullValues() {
+        ObjectIntRobinHoodHashMap<String> map = new ObjectIntRobinHoodHashMap<>();
+
+        assertThrows(NullPointerException.class, () -> map.put("a", (Integer) null));
+    }
+
+    @Test
+    public void shouldWorkLikeHashMap() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            ObjectIntRobinHoodHashMap<Integer> map = new ObjectIntRobinHoodHashMap<>(0, loadFactor);
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                // A small range of keys produces many collisions
+                Integer key = rng.nextInt(2000) - 1000;
+                switch (rng.nextInt(3)) {
+                    case 0 -> assertEquals((int) expected.merge(key, i, Integer::sum), map.addTo(key, i), "addTo " + key);
+                    case 1 -> assertEquals((int) Objects.requireNonNullElse(expected.remove(key), -1), map.removeOrDefault(key, -1), "remove " + key);
+                    default -> assertEquals(expected.getOrDefault(key, -1), map.getOrDefault(key, -1), "get " + key);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, map);
+            assertEquals(expected.hashCode(), map.hashCode());
+        }
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<ObjectIntRobinHoodHashMap<Integer>> {
+        Shrink() {
+            super(() -> new ObjectIntRobinHoodHashMap<>(0, 0.5f),
+                    (m, i) -> m.put(i, (int) i),
+                    (m, i) -> m.removeOrDefault(i, -1) == i,
+                    (m, i) -> m.containsKey(i),
+                    m -> m.keySet().iterator());
+        }
+    }
+}
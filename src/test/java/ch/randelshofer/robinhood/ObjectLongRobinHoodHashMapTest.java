@@ -0,0 +1,99 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ObjectLongRobinHoodHashMapTest {
+
+    @Test
+    public void shouldCountWithAddToAndIncrement() {
+        ObjectLongRobinHoodHashMap<String> map = new ObjectLongRobinHoodHashMap<>();
+
+        assertEquals(1, map.increment("a"));
+        assertEquals(2, map.increment("a"));
+        assertEquals(5, map.addTo("b", 5));
+        assertEquals(2, map.addTo("b", -3));
+
+        assertEquals(2, map.getOrDefault("a", -1));
+        assertEquals(-1, map.getOrDefault("c", -1));
+        assertEquals(Map.of("a", 2L, "b", 2L), map);
+    }
+
+    @Test
+    public void shouldPutAndRemoveWithoutBoxing() {
+        ObjectLongRobinHoodHashMap<String> map = new ObjectLongRobinHoodHashMap<>();
+
+        assertEquals(0, map.put("a", 7));
+        assertEquals(7, map.put("a", 8));
+        assertEquals(8, map.removeOrDefault("a", -1));
+        assertEquals(-1, map.removeOrDefault("a", -1));
+        assertNull(map.get("a"));
+    }
+
+    @Test
+    public void shouldRejectNullKeys() {
+        ObjectLongRobinHoodHashMap<String> map = new ObjectLongRobinHoodHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put("k" + i, (long) i);
+        }
+
+        assertThrows(NullPointerException.class, () -> map.put(null, 7L));
+        assertThrows(NullPointerException.class, () -> map.put(null, (Long) 7L));
+        assertThrows(NullPointerException.class, () -> map.addTo(null, 1));
+        assertThrows(NullPointerException.class, () -> map.increment(null));
+        assertEquals(100, map.size());
+        assertFalse(map.containsKey(null));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, map.getOrDefault("k" + i, -1));
+        }
+    }
+
+    @Test
+    public void shouldRejectNullValues() {
+        ObjectLongRobinHoodHashMap<String> map = new ObjectLongRobinHoodHashMap<>();
+
+        assertThrows(NullPointerException.class, () -> map.put("a", (Long) null));
+    }
+
+    @Test
+    public void shouldWorkLikeHashMap() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            ObjectLongRobinHoodHashMap<Integer> map = new ObjectLongRobinHoodHashMap<>(0, loadFactor);
+            Map<Integer, Long> expected = new HashMap<>();
+            for (int i = 0; i < 100_000; i++) {
+                // A small range of keys produces many collisions
+                Integer key = rng.nextInt(2000) - 1000;
+                switch (rng.nextInt(3)) {
+                    case 0 -> assertEquals((long) expected.merge(key, (long) i, Long::sum), map.addTo(key, i), "addTo " + key);
+                    case 1 -> assertEquals((long) Objects.requireNonNullElse(expected.remove(key), -1L), map.removeOrDefault(key, -1), "remove " + key);
+                    default -> assertEquals((long) expected.getOrDefault(key, -1L), map.getOrDefault(key, -1), "get " + key);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, map);
+            assertEquals(expected.hashCode(), map.hashCode());
+        }
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<ObjectLongRobinHoodHashMap<Integer>> {
+        Shrink() {
+            super(() -> new ObjectLongRobinHoodHashMap<>(0, 0.5f),
+                    (m, i) -> m.put(i, (long) i),
+                    (m, i) -> m.removeOrDefault(i, -1) == i,
+                    (m, i) -> m.containsKey(i),
+                    m -> m.keySet().iterator());
+        }
+    }
+}
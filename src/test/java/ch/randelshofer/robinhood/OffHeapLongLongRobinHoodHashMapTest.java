@@ -0,0 +1,64 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapLongLongRobinHoodHashMapTest {
+
+    @Test
+    public void shouldWorkLikeHashMap() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            try (OffHeapLongLongRobinHoodHashMap map = new OffHeapLongLongRobinHoodHashMap(0, loadFactor)) {
+                Map<Long, Long> expected = new HashMap<>();
+                for (int i = 0; i < 100_000; i++) {
+                    // A small range of keys produces many collisions
+                    long key = (rng.nextInt(2000) - 1000) * 0x1_0000_0001L;
+                    long value = rng.nextLong();
+                    switch (rng.nextInt(4)) {
+                        case 0 -> assertEquals((long) Objects.requireNonNullElse(expected.put(key, value), 0L), map.put(key, value), "put " + key);
+                        case 1 -> assertEquals((long) expected.merge(key, value, Long::sum), map.addTo(key, value), "addTo " + key);
+                        case 2 -> assertEquals((long) Objects.requireNonNullElse(expected.remove(key), -1L), map.removeOrDefault(key, -1), "remove " + key);
+                        default -> assertEquals((long) expected.getOrDefault(key, -1L), map.getOrDefault(key, -1), "get " + key);
+                    }
+                    assertEquals(expected.size(), map.size());
+                }
+                assertEquals(expected, map);
+            }
+        }
+    }
+
+    @Test
+    public void shouldCloneIntoIndependentMemory() {
+        OffHeapLongLongRobinHoodHashMap map = new OffHeapLongLongRobinHoodHashMap();
+        map.put(0L, 10L);
+        map.put(1L, 11L);
+        OffHeapLongLongRobinHoodHashMap clone = map.clone();
+        map.close();
+
+        assertTrue(map.isClosed());
+        assertThrows(IllegalStateException.class, () -> map.getOrDefault(1L, -1L));
+        assertEquals(Map.of(0L, 10L, 1L, 11L), clone);
+        clone.close();
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<OffHeapLongLongRobinHoodHashMap> {
+        Shrink() {
+            super(() -> new OffHeapLongLongRobinHoodHashMap(0, 0.5f),
+                    (m, i) -> m.put((long) i, (long) i),
+                    (m, i) -> m.removeOrDefault(i, -1) == i,
+                    (m, i) -> m.containsKey((long) i),
+                    m -> m.keySet().iterator());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapLongRobinHoodHashSetTest {
+
+    @Test
+    public void shouldWorkLikeHashSet() {
+        for (float loadFactor : new float[]{0.25f, 0.5f, 1f}) {
+            Random rng = new Random(0);
+            try (OffHeapLongRobinHoodHashSet set = new OffHeapLongRobinHoodHashSet(0, loadFactor)) {
+                Set<Long> expected = new HashSet<>();
+                for (int i = 0; i < 100_000; i++) {
+                    // A small range of values produces many collisions
+                    long e = (rng.nextInt(2000) - 1000) * 0x1_0000_0001L;
+                    switch (rng.nextInt(3)) {
+                        case 0 -> assertEquals(expected.add(e), set.add(e), "add " + e);
+                        case 1 -> assertEquals(expected.remove(e), set.remove(e), "remove " + e);
+                        default -> assertEquals(expected.contains(e), set.contains(e), "contains " + e);
+                    }
+                    assertEquals(expected.size(), set.size());
+                }
+                assertEquals(expected, set);
+            }
+        }
+    }
+
+    @Test
+    public void shouldCloneIntoIndependentMemory() {
+        OffHeapLongRobinHoodHashSet set = new OffHeapLongRobinHoodHashSet();
+        set.add(0L);
+        set.add(1L);
+        OffHeapLongRobinHoodHashSet clone = set.clone();
+        set.close();
+
+        assertTrue(set.isClosed());
+        assertThrows(IllegalStateException.class, () -> set.contains(1L));
+        assertEquals(Set.of(0L, 1L), clone);
+        clone.close();
+    }
+
+    @Test
+    public void shouldNotBeSerializable() {
+        try (OffHeapLongRobinHoodHashSet set = new OffHeapLongRobinHoodHashSet()) {
+            assertThrows(NotSerializableException.class,
+                    () -> new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(set));
+        }
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<OffHeapLongRobinHoodHashSet> {
+        Shrink() {
+            super(() -> new OffHeapLongRobinHoodHashSet(0, 0.5f),
+                    (s, i) -> s.add((long) i),
+                    (s, i) -> s.remove((long) i),
+                    (s, i) -> s.contains((long) i),
+                    OffHeapLongRobinHoodHashSet::iterator);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapTableTest {
+
+    @Test
+    public void shouldMoveBucketsAcrossChunksLikeArrays() {
+        Random rng = new Random(0);
+        for (int words = 1; words <= 2; words++) {
+            int capacity = 37;
+            // 16 bytes per chunk, so that each chunk holds 1 or 2 buckets
+            try (OffHeapTable table = OffHeapTable.allocate(capacity, words, 4)) {
+                long[] expected = new long[capacity * words];
+                for (int i = 0; i < expected.length; i++) {
+                    expected[i] = rng.nextLong();
+                    table.put(i / words, i % words, expected[i]);
+                }
+
+                for (int n = 0; n < 1000; n++) {
+                    int index = rng.nextInt(capacity);
+                    int end = rng.nextInt(capacity);
+                    if (rng.nextBoolean()) {
+                        if (end == index) {
+                            continue;
+                        }
+                        AbstractRobinHoodHashing.moveRight(expected, words, capacity, index, end);
+                        table.moveRight(index, end);
+                    } else {
+                        AbstractRobinHoodHashing.moveLeft(expected, words, capacity, index, end);
+                        table.moveLeft(index, end);
+                    }
+                    for (int i = 0; i < expected.length; i++) {
+                        assertEquals(expected[i], table.get(i / words, i % words));
+                    }
+                }
+
+                OffHeapTable copy = table.copy();
+                table.clear();
+                for (int i = 0; i < expected.length; i++) {
+                    assertEquals(0L, table.get(i / words, i % words));
+                    assertEquals(expected[i], copy.get(i / words, i % words));
+                }
+                copy.close();
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectAccessAfterClose() {
+        OffHeapTable table = OffHeapTable.allocate(8, 1);
+        table.close();
+        table.close();
+
+        assertTrue(table.isClosed());
+        assertThrows(IllegalStateException.class, () -> table.get(0, 0));
+    }
+
+    @Test
+    public void shouldComputeByteSizeWithoutOverflow() {
+        assertEquals(8L << 30, OffHeapTable.byteSize(1 << 30, 1));
+        assertEquals(16L << 30, OffHeapTable.byteSize(1 << 30, 2));
+        assertEquals(16L * Integer.MAX_VALUE, OffHeapTable.byteSize(Integer.MAX_VALUE, 2));
+    }
+}
@@ -1,7 +1,29 @@
 package ch.randelshofer.robinhood;
 
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RobinHoodHashMapTest extends AbstractSetTest {
 
@@ -11,4 +33,226 @@ class RobinHoodHashMapTest extends AbstractSetTest {
         return Collections.newSetFromMap(new RobinHoodHashMap<>(expectedMaxSize, maxLoadFactor));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldKeepLastValueOfDuplicateKeysWhenBuilding() {
+        Random rng = new Random(0);
+        for (int round = 0; round < 100; round++) {
+            int n = rng.nextInt(1000);
+            List<Map.Entry<Integer, Integer>> entries = new ArrayList<>();
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                int key = rng.nextInt(n + 1);
+                entries.add(new AbstractMap.SimpleEntry<>(key, i));
+                expected.put(key, i);
+            }
+            RobinHoodHashMap<Integer, Integer> map = new RobinHoodHashMap<>(entries, 0, round % 2 == 0 ? 1f : 0.5f);
+            assertEquals(expected, map);
+            for (Integer key : expected.keySet()) {
+                assertEquals(expected.get(key), map.get(key));
+            }
+        }
+    }
+
+    @Test
+    public void shouldCopyMapInParallel() {
+        Random rng = new Random(0);
+        for (int round = 0; round < 20; round++) {
+            int n = rng.nextInt(50_000);
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                expected.put(rng.nextInt(2 * n + 1), i);
+            }
+            RobinHoodHashMap<Integer, Integer> map = RobinHoodHashMap.parallelCopyOf(expected);
+            assertEquals(expected, map);
+            for (Integer key : expected.keySet()) {
+                assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected, RobinHoodHashMap.parallelCopyOf(new TreeMap<>(expected)));
+        }
+    }
+
+    @Test
+    public void shouldBeAbleToSizeToFit() {
+        RobinHoodHashMap<Integer, Integer> map = new RobinHoodHashMap<>(1000, 0.5f);
+        IntStream.range(0, 10).forEach(i -> map.put(i, -i));
+        map.sizeToFit(0.5f);
+        assertEquals(20, map.getCapacity());
+        IntStream.range(0, 10).forEach(i -> assertEquals(-i, map.get(i)));
+    }
+
+    @Test
+    public void shouldMergeAndComputeWhileGrowingAndShrinking() {
+        RobinHoodHashMap<Integer, Integer> map = new RobinHoodHashMap<>(0, 0.5f);
+        map.setShrinkFactor(0.125f);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random rng = new Random(0);
+        for (int i = 0; i < 20_000; i++) {
+            Integer key = rng.nextInt(i < 10_000 ? 2000 : 50);
+            BiFunction<Integer, Integer, Integer> decrement = (a, b) -> a + b == 0 ? null : a + b;
+            switch (i % 4) {
+                case 0 -> assertEquals(expected.merge(key, 1, Integer::sum), map.merge(key, 1, Integer::sum));
+                case 1 -> assertEquals(expected.merge(key, -1, decrement), map.merge(key, -1, decrement));
+                case 2 -> assertEquals(expected.computeIfAbsent(key, k -> k), map.computeIfAbsent(key, k -> k));
+                default -> assertEquals(expected.computeIfPresent(key, (k, v) -> v > 1 ? v - 1 : null),
+                        map.computeIfPresent(key, (k, v) -> v > 1 ? v - 1 : null));
+            }
+        }
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void shouldUpdateAndRemoveEntriesInBulk() {
+        RobinHoodHashMap<Integer, Integer> map = new RobinHoodHashMap<>(0, 0.5f);
+        Map<Integer, Integer> expected = new HashMap<>();
+        IntStream.range(0, 1000).forEach(i -> {
+            map.put(i * 7, i);
+            expected.put(i * 7, i);
+        });
+
+        map.replaceAll((k, v) -> k + v);
+        expected.replaceAll((k, v) -> k + v);
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+
+        assertTrue(map.entrySet().removeIf(e -> e.getValue() % 3 == 0));
+        expected.entrySet().removeIf(e -> e.getValue() % 3 == 0);
+        assertTrue(map.keySet().removeIf(k -> k % 5 == 0));
+        expected.keySet().removeIf(k -> k % 5 == 0);
+        assertTrue(map.values().removeIf(v -> v % 11 == 0));
+        expected.values().removeIf(v -> v % 11 == 0);
+        assertEquals(expected, map);
+
+        Map<Integer, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    public void shouldStreamViewsInParallel() {
+        RobinHoodHashMap<Integer, Integer> map = new RobinHoodHashMap<>(0, 0.5f);
+        Map<Integer, Integer> expected = new HashMap<>();
+        IntStream.range(0, 5000).forEach(i -> {
+            map.put(i * 7, i);
+            expected.put(i * 7, i);
+        });
+
+        assertEquals(expected.size(), map.values().spliterator().estimateSize());
+        assertEquals(expected.size(), map.entrySet().spliterator().estimateSize());
+        assertEquals(expected.values().stream().mapToLong(v -> v).sum(),
+                map.values().parallelStream().mapToLong(v -> v).sum());
+        assertEquals(expected, map.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+    }
+
+    @Test
+    public void shouldRunBulkOperationsInParallel() {
+        RobinHoodHashMap<Integer, Integer> map = new RobinHoodHashMap<>(0, 0.5f);
+        IntStream.range(0, 100_000).forEach(i -> map.put(i, 2 * i));
+
+        for (long threshold : new long[]{1, Long.MAX_VALUE}) {
+            assertEquals(9_999_900_000L, map.reduceValuesToLong(threshold, v -> v, 0L, Long::sum));
+            assertEquals(199_998, (int) map.reduceValues(threshold, Math::max));
+            assertEquals(0, (int) map.reduceKeys(threshold, Math::min));
+            assertEquals(100_000L, (long) map.reduce(threshold, (k, v) -> 1L, Long::sum));
+            assertEquals(1554, (int) map.search(threshold, (k, v) -> k == 777 ? v : null));
+            assertNull(map.search(threshold, (k, v) -> v < 0 ? k : null));
+            Map<Integer, Integer> visited = new ConcurrentHashMap<>();
+            map.forEach(threshold, visited::put);
+            assertEquals(map, visited);
+        }
+    }
+
+    @Test
+    public void shouldUseHashStrategyForKeys() {
+        for (RangeReduction rangeReduction : RangeReduction.values()) {
+            RobinHoodHashMap<byte[], Integer> map = new RobinHoodHashMap<>(0, 0.5f,
+                    HashStrategy.byteArrayStrategy(), Avalanche.MURMUR3, rangeReduction);
+            map.setShrinkFactor(0.125f);
+            for (int i = 0; i < 1000; i++) {
+                assertNull(map.put(new byte[]{(byte) i, (byte) (i >>> 8)}, i));
+            }
+            assertEquals(1, map.put(new byte[]{1, 0}, -1));
+            assertEquals(-1, map.get(new byte[]{1, 0}));
+            for (int i = 0; i < 990; i++) {
+                assertEquals(i == 1 ? -1 : i, map.remove(new byte[]{(byte) i, (byte) (i >>> 8)}));
+            }
+            assertEquals(10, map.size());
+            for (int i = 990; i < 1000; i++) {
+                assertEquals(i, map.get(new byte[]{(byte) i, (byte) (i >>> 8)}));
+            }
+            assertNull(map.get(null));
+        }
+    }
+
+    @Test
+    public void shouldSerializeMapWithCustomHashStrategy() throws Exception {
+        RobinHoodHashMap<String, Integer> map = new RobinHoodHashMap<>(HashStrategy.of(
+                (ToIntFunction<String> & Serializable) e -> e.toLowerCase().hashCode(),
+                (BiPredicate<String, String> & Serializable) String::equalsIgnoreCase));
+        map.put("a", 1);
+        map.put("A", 2);
+        map.put("b", 3);
+        RobinHoodHashMap<String, Integer> copy = RobinHoodHashSetTest.serializeAndDeserialize(map);
+        assertEquals(map, copy);
+        assertEquals(3, copy.get("B"));
+        assertEquals(2, copy.put("a", 4));
+        assertEquals(2, copy.size());
+    }
+
+    @Test
+    public void shouldNotAssumeDistinctKeysOfMapWithOtherStrategy() {
+        RobinHoodHashMap<String, Integer> identity = new RobinHoodHashMap<>(HashStrategy.identityStrategy());
+        identity.put("a", 1);
+        identity.put(new String("a"), 2);
+        assertEquals(2, identity.size());
+        assertEquals(1, new RobinHoodHashMap<>(identity).size());
+        assertEquals(1, FrozenRobinHoodHashMap.copyOf(identity).size());
+    }
+
+    @Test
+    public void shouldReseedWhenProbeLengthIsExceeded() {
+        RobinHoodHashMap<Integer, Integer> map = new RobinHoodHashMap<>(0, 0.5f,
+                HashStrategy.defaultStrategy(), Avalanche.MURMUR3, RangeReduction.FAST_RANGE);
+        map.setSeed(0);
+        map.setMaxProbeLength(16);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            // Without a seed, all keys have the home bucket 0.
+            Integer key = RobinHoodHashSetTest.inverseMurmur3Avalanche(i);
+            assertEquals(expected.merge(key, i, Integer::sum), map.merge(key, i, Integer::sum));
+        }
+        assertEquals(expected, map);
+        assertTrue(map.getCostStatistics().getMax() < 64, "max cost " + map.getCostStatistics().getMax());
+    }
+
+    @Test
+    public void shouldDrawRandomSeeds() {
+        Set<Integer> seeds = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            seeds.add(new RobinHoodHashMap<Integer, Integer>().getSeed());
+        }
+        assertTrue(seeds.size() > 1, "seeds " + seeds);
+
+        RobinHoodHashMap<Integer, Integer> map = new RobinHoodHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, -i);
+            expected.put(i, -i);
+        }
+        map.setSeed(0);
+        assertEquals(0, map.getSeed());
+        assertEquals(expected, map);
+        expected.forEach((k, v) -> assertEquals(v, map.get(k)));
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<RobinHoodHashMap<Integer, String>> {
+        Shrink() {
+            super(() -> new RobinHoodHashMap<>(0, 0.5f),
+                    (m, i) -> m.put(i, "v" + i),
+                    (m, i) -> ("v" + i).equals(m.remove(i)),
+                    (m, i) -> m.containsKey(i),
+                    m -> m.keySet().iterator());
+        }
+    }
+}
@@ -1,10 +1,30 @@
 package ch.randelshofer.robinhood;
 
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RobinHoodHashSetTest extends AbstractSetTest {
@@ -55,4 +75,327 @@ class RobinHoodHashSetTest extends AbstractSetTest {
         assertTrue(set.contains(19));
         assertTrue(set.contains(1000 - 1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldFindAllElementsAfterDoubling() {
+        Random rng = new Random(0);
+        for (int round = 0; round < 200; round++) {
+            float loadFactor = new float[]{0.5f, 0.75f, 1f}[round % 3];
+            RobinHoodHashSet<Integer> set = create(0, loadFactor);
+            Set<Integer> expected = new HashSet<>();
+            int n = rng.nextInt(2000);
+            for (int i = 0; i < n; i++) {
+                Integer e = rng.nextInt();
+                assertEquals(expected.add(e), set.add(e));
+            }
+            assertEquals(expected.size(), set.size());
+            for (Integer e : expected) {
+                assertTrue(set.contains(e), "contains " + e);
+                assertFalse(set.add(e), "add " + e);
+            }
+            assertEquals(expected, set);
+        }
+    }
+
+    @Test
+    public void shouldBuildTheSameTableAsRepeatedAdd() {
+        Random rng = new Random(0);
+        for (int round = 0; round < 200; round++) {
+            float loadFactor = new float[]{0.5f, 0.75f, 1f}[round % 3];
+            int n = rng.nextInt(2000);
+            List<Integer> elements = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                elements.add(rng.nextInt(round % 2 == 0 ? 2 * n + 1 : Integer.MAX_VALUE));
+            }
+            RobinHoodHashSet<Integer> set = RobinHoodHashSet.<Integer>builder()
+                    .loadFactor(loadFactor).addAll(elements).build();
+            RobinHoodHashSet<Integer> expected = create(n, loadFactor);
+            expected.setSeed(set.getSeed());
+            expected.addAll(elements);
+            assertEquals(expected.getCapacity(), set.getCapacity());
+            assertEquals(expected.size(), set.size());
+            assertEquals(expected.getCostStatistics().getSum(), set.getCostStatistics().getSum());
+            assertEquals(expected.getCostStatistics().getMax(), set.getCostStatistics().getMax());
+            assertEquals(new HashSet<>(elements), set);
+            for (Integer e : elements) {
+                assertTrue(set.contains(e), "contains " + e);
+            }
+
+            RobinHoodHashSet<Integer> copy = new RobinHoodHashSet<>(new HashSet<>(elements), n, loadFactor);
+            RobinHoodHashSet<Integer> expectedCopy = create(n, loadFactor);
+            expectedCopy.setSeed(copy.getSeed());
+            expectedCopy.addAll(elements);
+            assertEquals(expectedCopy.getCostStatistics().getSum(), copy.getCostStatistics().getSum());
+            assertEquals(expected, copy);
+            for (Integer e : elements) {
+                set.remove(e);
+                assertFalse(set.contains(e), "contains " + e);
+            }
+            assertTrue(set.isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldBuildTheSameTableInParallel() {
+        Random rng = new Random(0);
+        for (int round = 0; round < 40; round++) {
+            int n = rng.nextInt(50_000);
+            // Every 8 elements share a hash code, so that clusters spill
+            // over into the next segment.
+            int clustering = round % 2 == 0 ? 1 : 8;
+            List<Clustered> elements = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                elements.add(new Clustered(rng.nextInt(round % 4 < 2 ? 2 * n + 1 : Integer.MAX_VALUE), clustering));
+            }
+            RobinHoodHashSet<Clustered> set = RobinHoodHashSet.parallelCopyOf(elements);
+            RobinHoodHashSet<Clustered> expected = create(n, 0.5f);
+            expected.setSeed(set.getSeed());
+            expected.addAll(elements);
+            assertEquals(expected.getCapacity(), set.getCapacity());
+            assertEquals(expected.size(), set.size());
+            assertEquals(expected.getCostStatistics().getSum(), set.getCostStatistics().getSum());
+            assertEquals(expected, set);
+            for (Clustered e : elements) {
+                assertTrue(set.contains(e), "contains " + e);
+            }
+
+            Set<Clustered> distinct = new HashSet<>(elements);
+            RobinHoodHashSet<Clustered> copy = RobinHoodHashSet.parallelCopyOf(distinct);
+            RobinHoodHashSet<Clustered> expectedCopy = create(distinct.size(), 0.5f);
+            expectedCopy.setSeed(copy.getSeed());
+            expectedCopy.addAll(distinct);
+            assertEquals(expectedCopy.getCostStatistics().getSum(), copy.getCostStatistics().getSum());
+            assertEquals(expected, copy);
+        }
+    }
+
+    private record Clustered(int id, int clustering) {
+        @Override
+        public int hashCode() {
+            return id / clustering;
+        }
+    }
+
+    @Test
+    public void shouldCreateSetFromElements() {
+        assertEquals(Set.of(1, 2, 3), RobinHoodHashSet.of(3, 1, 2, 1, 3));
+        assertEquals(Set.of(), RobinHoodHashSet.of());
+        assertEquals(Set.of(4, 5), RobinHoodHashSet.copyOf(List.of(5, 4, 5)));
+        assertThrows(NullPointerException.class, () -> RobinHoodHashSet.of(1, null));
+    }
+
+    @Test
+    public void shouldNotShrinkWhileIteratorRemoves() {
+        RobinHoodHashSet<Integer> set = create(0, 0.5f);
+        set.setShrinkFactor(0.125f);
+        IntStream.range(0, 1000).forEach(set::add);
+        int peakCapacity = set.getCapacity();
+
+        for (Iterator<Integer> it = set.iterator(); it.hasNext(); ) {
+            if (it.next() >= 10) {
+                it.remove();
+            }
+        }
+        assertEquals(Set.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), set);
+        assertEquals(peakCapacity, set.getCapacity());
+        set.retainAll(Set.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        assertTrue(set.getCapacity() < peakCapacity / 8, "capacity " + set.getCapacity());
+    }
+
+    @Test
+    public void shouldRejectShrinkFactorNotBelowHalfTheLoadFactor() {
+        RobinHoodHashSet<Integer> set = create(0, 0.5f);
+        assertThrows(IllegalArgumentException.class, () -> set.setShrinkFactor(0.25f));
+        assertThrows(IllegalArgumentException.class, () -> set.setShrinkFactor(-1f));
+        assertThrows(IllegalArgumentException.class, () -> set.setShrinkFactor(Float.NaN));
+    }
+
+    @Test
+    public void shouldRunBulkOperationsInParallel() {
+        RobinHoodHashSet<Integer> set = create(0, 0.5f);
+        IntStream.range(0, 100_000).forEach(set::add);
+
+        for (long threshold : new long[]{1, Long.MAX_VALUE}) {
+            assertEquals(4_999_950_000L, set.reduceToLong(threshold, e -> e, 0L, Long::sum));
+            assertEquals(99_999, (int) set.reduce(threshold, e -> e, Math::max));
+            assertNull(set.<Integer>reduce(threshold, e -> null, Math::max));
+            assertEquals(777, (int) set.search(threshold, e -> e == 777 ? e : null));
+            assertNull(set.search(threshold, e -> e < 0 ? e : null));
+            Set<Integer> visited = ConcurrentHashMap.newKeySet();
+            set.forEach(threshold, visited::add);
+            assertEquals(set, visited);
+        }
+        assertThrows(ConcurrentModificationException.class, () -> set.forEach(Long.MAX_VALUE, e -> {
+            if (e == 5) {
+                set.remove(6);
+            }
+        }));
+    }
+
+    @Test
+    public void shouldSupportAllAvalanchesAndRangeReductions() {
+        for (Avalanche avalanche : Avalanche.values()) {
+            for (RangeReduction rangeReduction : RangeReduction.values()) {
+                RobinHoodHashSet<Integer> set = new RobinHoodHashSet<>(3, 0.5f,
+                        HashStrategy.defaultStrategy(), avalanche, rangeReduction);
+                set.setShrinkFactor(0.125f);
+                Set<Integer> expected = new HashSet<>();
+                Random rng = new Random(0);
+                for (int i = 0; i < 20_000; i++) {
+                    Integer e = rng.nextInt(i < 10_000 ? 5000 : 100) - 50;
+                    if (i % 3 == 2) {
+                        assertEquals(expected.remove(e), set.remove(e));
+                    } else {
+                        assertEquals(expected.add(e), set.add(e));
+                    }
+                }
+                assertEquals(expected, set);
+                expected.forEach(e -> assertTrue(set.contains(e)));
+                if (rangeReduction == RangeReduction.POWER_OF_2) {
+                    assertEquals(1, Integer.bitCount(set.getCapacity()), "capacity " + set.getCapacity());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldUseHashStrategy() {
+        RobinHoodHashSet<byte[]> set = new RobinHoodHashSet<>(HashStrategy.byteArrayStrategy());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.add(new byte[]{(byte) i, (byte) (i >>> 8)}));
+        }
+        assertFalse(set.add(new byte[]{1, 0}));
+        assertTrue(set.contains(new byte[]{(byte) 999, (byte) (999 >>> 8)}));
+        assertTrue(set.remove(new byte[]{1, 0}));
+        assertFalse(set.contains(new byte[]{1, 0}));
+        assertFalse(set.contains(null));
+        assertEquals(999, set.size());
+
+        RobinHoodHashSet<String> caseInsensitive = new RobinHoodHashSet<>(
+                HashStrategy.<String>of(e -> e.toLowerCase().hashCode(), String::equalsIgnoreCase));
+        caseInsensitive.addAll(List.of("a", "A", "b"));
+        assertEquals(2, caseInsensitive.size());
+        assertTrue(caseInsensitive.contains("B"));
+    }
+
+    @Test
+    public void shouldSerializeSetWithCustomHashStrategy() throws Exception {
+        RobinHoodHashSet<String> set = new RobinHoodHashSet<>(HashStrategy.of(
+                (ToIntFunction<String> & Serializable) e -> e.toLowerCase().hashCode(),
+                (BiPredicate<String, String> & Serializable) String::equalsIgnoreCase));
+        set.addAll(List.of("a", "A", "b"));
+        RobinHoodHashSet<String> copy = serializeAndDeserialize(set);
+        assertEquals(set, copy);
+        assertTrue(copy.contains("B"));
+        assertFalse(copy.add("a"));
+        assertTrue(copy.add("c"));
+        assertEquals(3, copy.size());
+    }
+
+    @Test
+    public void shouldNotAssumeDistinctElementsOfSetWithOtherStrategy() {
+        RobinHoodHashSet<String> identity = new RobinHoodHashSet<>(HashStrategy.identityStrategy());
+        String a = "a";
+        String b = new String(a);
+        assertTrue(identity.add(a));
+        assertTrue(identity.add(b));
+        assertTrue(identity.contains(a));
+        assertFalse(identity.contains(new String(a)));
+        assertEquals(1, new RobinHoodHashSet<>(identity).size());
+        assertEquals(1, RobinHoodHashSet.copyOf(identity).size());
+        assertEquals(1, FrozenRobinHoodHashSet.copyOf(identity).size());
+    }
+
+    @Test
+    public void shouldReseedWhenProbeLengthIsExceeded() {
+        // Without a seed, all keys have the home bucket 0.
+        List<Integer> keys = IntStream.range(0, 1000)
+                .map(RobinHoodHashSetTest::inverseMurmur3Avalanche).boxed().toList();
+        RobinHoodHashSet<Integer> unguarded = new RobinHoodHashSet<>(0, 0.5f,
+                HashStrategy.defaultStrategy(), Avalanche.MURMUR3, RangeReduction.FAST_RANGE);
+        unguarded.setSeed(0);
+        unguarded.addAll(keys);
+        assertEquals(999, unguarded.getCostStatistics().getMax());
+
+        RobinHoodHashSet<Integer> guarded = new RobinHoodHashSet<>(0, 0.5f,
+                HashStrategy.defaultStrategy(), Avalanche.MURMUR3, RangeReduction.FAST_RANGE);
+        guarded.setSeed(0);
+        guarded.setMaxProbeLength(16);
+        guarded.addAll(keys);
+        assertEquals(new HashSet<>(keys), guarded);
+        keys.forEach(e -> assertTrue(guarded.contains(e)));
+        assertTrue(guarded.getCostStatistics().getMax() < 64, "max cost " + guarded.getCostStatistics().getMax());
+    }
+
+    @Test
+    public void shouldDrawRandomSeeds() {
+        Set<Integer> seeds = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            seeds.add(new RobinHoodHashSet<Integer>().getSeed());
+        }
+        assertTrue(seeds.size() > 1, "seeds " + seeds);
+
+        RobinHoodHashSet<Integer> a = create(0, 0.5f);
+        RobinHoodHashSet<Integer> b = create(0, 0.5f);
+        a.setSeed(0);
+        b.setSeed(0);
+        IntStream.range(0, 1000).forEach(a::add);
+        IntStream.range(0, 1000).forEach(b::add);
+        assertEquals(new ArrayList<>(b), new ArrayList<>(a));
+
+        RobinHoodHashSet<Integer> c = create(0, 0.5f);
+        IntStream.range(0, 1000).forEach(c::add);
+        c.setSeed(0);
+        assertEquals(0, c.getSeed());
+        assertEquals(a, c);
+        IntStream.range(0, 1000).forEach(e -> assertTrue(c.contains(e)));
+    }
+
+    @Test
+    public void shouldBoundCapacityWhenHashCodesAreEqual() {
+        for (Avalanche avalanche : Avalanche.values()) {
+            RobinHoodHashSet<Integer> set = new RobinHoodHashSet<>(0, 0.5f,
+                    HashStrategy.of(e -> 42, Integer::equals), avalanche, RangeReduction.FAST_MOD);
+            set.setMaxProbeLength(8);
+            IntStream.range(0, 500).forEach(set::add);
+            assertEquals(500, set.size());
+            IntStream.range(0, 500).forEach(e -> assertTrue(set.contains(e)));
+            assertTrue(set.getCapacity() <= 16 * set.size(), "capacity " + set.getCapacity());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new RobinHoodHashSet<>().setMaxProbeLength(-1));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T serializeAndDeserialize(T object) throws IOException, ClassNotFoundException {
+        var buf = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(buf)) {
+            out.writeObject(object);
+        }
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+    /**
+     * Inverts {@link AvalancheAlgorithms#murmur3Avalanche(int)}.
+     */
+    static int inverseMurmur3Avalanche(int h) {
+        h ^= h >>> 16;
+        h *= 0x7ed1b41d;
+        h ^= h >>> 13 ^ h >>> 26;
+        h *= 0xa5cb9243;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    @Nested
+    class Shrink extends AbstractShrinkTest<RobinHoodHashSet<Integer>> {
+        Shrink() {
+            super(() -> new RobinHoodHashSet<>(0, 0.5f),
+                    RobinHoodHashSet::add,
+                    RobinHoodHashSet::remove,
+                    RobinHoodHashSet::contains,
+                    RobinHoodHashSet::iterator);
+        }
+    }
+}
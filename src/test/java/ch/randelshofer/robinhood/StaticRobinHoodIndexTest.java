@@ -0,0 +1,90 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticRobinHoodIndexTest {
+
+    @Test
+    public void shouldMapKeysToOrdinals() {
+        Random rng = new Random(0);
+        for (float loadFactor : new float[]{0.5f, 0.75f, 0.9f}) {
+            for (int n : new int[]{0, 1, 7, 100, 10_000}) {
+                Set<Integer> keys = new LinkedHashSet<>();
+                while (keys.size() < n) {
+                    keys.add(rng.nextInt());
+                }
+                StaticRobinHoodIndex<Integer> index = StaticRobinHoodIndex.copyOf(keys, 2, loadFactor);
+
+                assertEquals(n, index.size());
+                assertTrue(index.getMaxCost() <= 2, "maxCost=" + index.getMaxCost());
+                assertEquals(new ArrayList<>(keys), index.keys());
+                int ordinal = 0;
+                for (Integer key : keys) {
+                    assertEquals(ordinal, index.indexOf(key));
+                    assertEquals(key, index.getKey(ordinal));
+                    ordinal++;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    int key = rng.nextInt();
+                    assertEquals(keys.contains(key) ? index.indexOf(key) : -1, index.indexOf(key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldCapCostAtZero() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            keys.add("key" + i);
+        }
+        StaticRobinHoodIndex<String> index = StaticRobinHoodIndex.copyOf(keys, 0, 0.5f);
+        assertEquals(0, index.getMaxCost());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, index.indexOf(keys.get(i)));
+        }
+    }
+
+    @Test
+    public void shouldRaiseCapForKeysWithEqualHashCodes() {
+        record Colliding(int id) {
+            @Override
+            public int hashCode() {
+                return 42;
+            }
+        }
+        List<Colliding> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            keys.add(new Colliding(i));
+        }
+        StaticRobinHoodIndex<Colliding> index = StaticRobinHoodIndex.copyOf(keys, 2, 0.5f);
+        assertEquals(9, index.getMaxCost());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i < 10 ? i : -1, index.indexOf(new Colliding(i)));
+        }
+    }
+
+    @Test
+    public void shouldCountFirstOccurrenceOfDuplicates() {
+        StaticRobinHoodIndex<String> index = StaticRobinHoodIndex.copyOf(List.of("a", "b", "a", "c", "b"));
+        assertEquals(List.of("a", "b", "c"), index.keys());
+        assertEquals(2, index.indexOf("c"));
+        assertEquals(-1, index.indexOf(null));
+        assertEquals(-1, index.indexOf("d"));
+        assertThrows(NullPointerException.class, () -> StaticRobinHoodIndex.copyOf(Arrays.asList("a", null)));
+        assertThrows(IllegalArgumentException.class, () -> StaticRobinHoodIndex.copyOf(List.of("a"), -1, 0.5f));
+        assertThrows(IllegalArgumentException.class, () -> StaticRobinHoodIndex.copyOf(List.of("a"), 2, 0f));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getKey(3));
+    }
+}
@@ -0,0 +1,32 @@
+package ch.randelshofer.robinhood;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+public class SwarAlgorithmsTest {
+    @TestFactory
+    public List<DynamicTest> lanesShouldMatchScalarComparison() {
+        return List.of(
+                dynamicTest("zeros", () -> testLanes(new byte[]{0, 0, 0, 0, 0, 0, 0, 0}, 0)),
+                dynamicTest("mixed", () -> testLanes(new byte[]{1, 0, (byte) 0x80, 0x7f, 0, (byte) 0xff, 0x10, 0}, 0x10)),
+                dynamicTest("borrow", () -> testLanes(new byte[]{0, 1, 0, 1, 0, 1, 0, 1}, 1))
+        );
+    }
+
+    private void testLanes(byte[] bytes, int value) {
+        long word = SwarAlgorithms.readLong(bytes, 0);
+        long zeros = SwarAlgorithms.zeroLanes(word);
+        long equal = SwarAlgorithms.equalLanes(word, value * SwarAlgorithms.ONES);
+        long less = SwarAlgorithms.lessThanLanes(word & SwarAlgorithms.LOWS, value * SwarAlgorithms.ONES);
+        for (int i = 0; i < bytes.length; i++) {
+            assertEquals(bytes[i] == 0, (zeros >>> (i * 8 + 7) & 1) != 0, "zero lane " + i);
+            assertEquals(bytes[i] == value, (equal >>> (i * 8 + 7) & 1) != 0, "equal lane " + i);
+            assertEquals((bytes[i] & 0x7f) < value, (less >>> (i * 8 + 7) & 1) != 0, "less lane " + i);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.CachedHashRobinHoodHashSet;
+import com.google.common.collect.testing.MinimalCollection;
+import com.google.common.collect.testing.SetTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringSetGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.SetFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ Tests CachedHashRobinHoodHashSet with the Guava test suite.
+ */
+public class CachedHashRobinHoodHashSetGuavaTests {
+    public static Test suite() {
+        return new CachedHashRobinHoodHashSetGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood CachedHashRobinHoodHashSet");
+        suite.addTest(testsForCachedHashRobinHoodHashSet());
+        return suite;
+    }
+
+    public Test testsForCachedHashRobinHoodHashSet() {
+        return SetTestSuiteBuilder.using(
+                        new TestStringSetGenerator() {
+                            @Override
+                            public Set<String> create(String[] elements) {
+                                return new CachedHashRobinHoodHashSet<>(MinimalCollection.of(elements));
+                            }
+                        })
+                .named("CachedHashRobinHoodHashSet")
+                .withFeatures(
+                        SetFeature.GENERAL_PURPOSE,
+                        //CollectionFeature.ALLOWS_NULL_VALUES,
+                        CollectionFeature.ALLOWS_NULL_QUERIES,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionSize.ANY)
+                .suppressing(suppressForCachedHashRobinHoodHashSet())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForCachedHashRobinHoodHashSet() {
+        return Collections.emptySet();
+    }
+}
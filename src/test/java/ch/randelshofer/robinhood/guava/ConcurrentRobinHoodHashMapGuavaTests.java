@@ -0,0 +1,61 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.ConcurrentRobinHoodHashMap;
+import com.google.common.collect.testing.ConcurrentMapTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ Tests ConcurrentRobinHoodHashMap with the Guava test suite.
+ */
+public class ConcurrentRobinHoodHashMapGuavaTests {
+    public static Test suite() {
+        return new ConcurrentRobinHoodHashMapGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood ConcurrentRobinHoodHashMap");
+        suite.addTest(testsForConcurrentRobinHoodHashMap());
+        return suite;
+    }
+
+    public Test testsForConcurrentRobinHoodHashMap() {
+        return ConcurrentMapTestSuiteBuilder.using(
+                        new TestStringMapGenerator() {
+                            @Override
+                            protected Map<String, String> create(Map.Entry<String, String>[] entries) {
+                                return toHashMap(entries);
+                            }
+                        })
+                .named("ConcurrentRobinHoodHashMap")
+                .withFeatures(
+                        MapFeature.GENERAL_PURPOSE,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForConcurrentRobinHoodHashMap())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForConcurrentRobinHoodHashMap() {
+        return Collections.emptySet();
+    }
+
+
+    private static Map<String, String> toHashMap(Map.Entry<String, String>[] entries) {
+        var map = new ConcurrentRobinHoodHashMap<String, String>();
+        for (var e : entries) {
+            map.put(e.getKey(), e.getValue());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,57 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.FrozenRobinHoodHashMap;
+import com.google.common.collect.testing.MapTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ Tests FrozenRobinHoodHashMap with the Guava test suite.
+ */
+public class FrozenRobinHoodHashMapGuavaTests {
+    public static Test suite() {
+        return new FrozenRobinHoodHashMapGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood FrozenRobinHoodHashMap");
+        suite.addTest(testsForFrozenRobinHoodHashMap());
+        return suite;
+    }
+
+    public Test testsForFrozenRobinHoodHashMap() {
+        return MapTestSuiteBuilder.using(
+                        new TestStringMapGenerator() {
+                            @Override
+                            protected Map<String, String> create(Map.Entry<String, String>[] entries) {
+                                var map = new LinkedHashMap<String, String>();
+                                for (var entry : entries) {
+                                    map.put(entry.getKey(), entry.getValue());
+                                }
+                                return FrozenRobinHoodHashMap.copyOf(map);
+                            }
+                        })
+                .named("FrozenRobinHoodHashMap")
+                .withFeatures(
+                        MapFeature.ALLOWS_NULL_VALUES,
+                        MapFeature.ALLOWS_ANY_NULL_QUERIES,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForFrozenRobinHoodHashMap())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForFrozenRobinHoodHashMap() {
+        return Collections.emptySet();
+    }
+}
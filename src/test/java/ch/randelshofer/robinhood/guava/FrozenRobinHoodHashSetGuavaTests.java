@@ -0,0 +1,51 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.FrozenRobinHoodHashSet;
+import com.google.common.collect.testing.MinimalCollection;
+import com.google.common.collect.testing.SetTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringSetGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ Tests FrozenRobinHoodHashSet with the Guava test suite.
+ */
+public class FrozenRobinHoodHashSetGuavaTests {
+    public static Test suite() {
+        return new FrozenRobinHoodHashSetGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood FrozenRobinHoodHashSet");
+        suite.addTest(testsForFrozenRobinHoodHashSet());
+        return suite;
+    }
+
+    public Test testsForFrozenRobinHoodHashSet() {
+        return SetTestSuiteBuilder.using(
+                        new TestStringSetGenerator() {
+                            @Override
+                            public Set<String> create(String[] elements) {
+                                return FrozenRobinHoodHashSet.copyOf(MinimalCollection.of(elements));
+                            }
+                        })
+                .named("FrozenRobinHoodHashSet")
+                .withFeatures(
+                        CollectionFeature.ALLOWS_NULL_QUERIES,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForFrozenRobinHoodHashSet())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForFrozenRobinHoodHashSet() {
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,95 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.IntIntRobinHoodHashMap;
+import com.google.common.collect.testing.MapTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Tests IntIntRobinHoodHashMap with the Guava test suite.
+ */
+public class IntIntRobinHoodHashMapGuavaTests {
+    public static Test suite() {
+        return new IntIntRobinHoodHashMapGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood IntIntRobinHoodHashMap");
+        suite.addTest(testsForIntIntRobinHoodHashMap());
+        return suite;
+    }
+
+    public Test testsForIntIntRobinHoodHashMap() {
+        return MapTestSuiteBuilder.using(
+                        new TestMapGenerator<Integer, Integer>() {
+                            @Override
+                            public SampleElements<Map.Entry<Integer, Integer>> samples() {
+                                return new SampleElements<>(
+                                        Map.entry(0, -1),
+                                        Map.entry(1, 0),
+                                        Map.entry(-1, Integer.MAX_VALUE),
+                                        Map.entry(Integer.MIN_VALUE, 1),
+                                        Map.entry(Integer.MAX_VALUE, Integer.MIN_VALUE));
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map<Integer, Integer> create(Object... entries) {
+                                IntIntRobinHoodHashMap map = new IntIntRobinHoodHashMap();
+                                for (Object o : entries) {
+                                    Map.Entry<Integer, Integer> entry = (Map.Entry<Integer, Integer>) o;
+                                    map.put(entry.getKey(), entry.getValue());
+                                }
+                                return map;
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map.Entry<Integer, Integer>[] createArray(int length) {
+                                return (Map.Entry<Integer, Integer>[]) new Map.Entry<?, ?>[length];
+                            }
+
+                            @Override
+                            public Iterable<Map.Entry<Integer, Integer>> order(List<Map.Entry<Integer, Integer>> insertionOrder) {
+                                return insertionOrder;
+                            }
+
+                            @Override
+                            public Integer[] createKeyArray(int length) {
+                                return new Integer[length];
+                            }
+
+                            @Override
+                            public Integer[] createValueArray(int length) {
+                                return new Integer[length];
+                            }
+                        })
+                .named("IntIntRobinHoodHashMap")
+                .withFeatures(
+                        MapFeature.GENERAL_PURPOSE,
+                        //MapFeature.ALLOWS_NULL_KEYS,
+                        //MapFeature.ALLOWS_NULL_VALUES,
+                        MapFeature.ALLOWS_ANY_NULL_QUERIES,
+                        MapFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForIntIntRobinHoodHashMap())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForIntIntRobinHoodHashMap() {
+        return Collections.emptySet();
+    }
+}
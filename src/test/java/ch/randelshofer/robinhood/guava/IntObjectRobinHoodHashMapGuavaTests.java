@@ -0,0 +1,95 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.IntObjectRobinHoodHashMap;
+import com.google.common.collect.testing.MapTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Tests IntObjectRobinHoodHashMap with the Guava test suite.
+ */
+public class IntObjectRobinHoodHashMapGuavaTests {
+    public static Test suite() {
+        return new IntObjectRobinHoodHashMapGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood IntObjectRobinHoodHashMap");
+        suite.addTest(testsForIntObjectRobinHoodHashMap());
+        return suite;
+    }
+
+    public Test testsForIntObjectRobinHoodHashMap() {
+        return MapTestSuiteBuilder.using(
+                        new TestMapGenerator<Integer, String>() {
+                            @Override
+                            public SampleElements<Map.Entry<Integer, String>> samples() {
+                                return new SampleElements<>(
+                                        Map.entry(0, "a"),
+                                        Map.entry(1, "b"),
+                                        Map.entry(-1, "c"),
+                                        Map.entry(Integer.MIN_VALUE, "d"),
+                                        Map.entry(Integer.MAX_VALUE, "e"));
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map<Integer, String> create(Object... entries) {
+                                IntObjectRobinHoodHashMap<String> map = new IntObjectRobinHoodHashMap<>();
+                                for (Object o : entries) {
+                                    Map.Entry<Integer, String> entry = (Map.Entry<Integer, String>) o;
+                                    map.put(entry.getKey(), entry.getValue());
+                                }
+                                return map;
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map.Entry<Integer, String>[] createArray(int length) {
+                                return (Map.Entry<Integer, String>[]) new Map.Entry<?, ?>[length];
+                            }
+
+                            @Override
+                            public Iterable<Map.Entry<Integer, String>> order(List<Map.Entry<Integer, String>> insertionOrder) {
+                                return insertionOrder;
+                            }
+
+                            @Override
+                            public Integer[] createKeyArray(int length) {
+                                return new Integer[length];
+                            }
+
+                            @Override
+                            public String[] createValueArray(int length) {
+                                return new String[length];
+                            }
+                        })
+                .named("IntObjectRobinHoodHashMap")
+                .withFeatures(
+                        MapFeature.GENERAL_PURPOSE,
+                        //MapFeature.ALLOWS_NULL_KEYS,
+                        MapFeature.ALLOWS_NULL_VALUES,
+                        MapFeature.ALLOWS_ANY_NULL_QUERIES,
+                        MapFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForIntObjectRobinHoodHashMap())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForIntObjectRobinHoodHashMap() {
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,55 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.IntRobinHoodHashSet;
+import com.google.common.collect.testing.MinimalCollection;
+import com.google.common.collect.testing.SetTestSuiteBuilder;
+import com.google.common.collect.testing.TestIntegerSetGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.SetFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ Tests IntRobinHoodHashSet with the Guava test suite.
+ */
+public class IntRobinHoodHashSetGuavaTests {
+    public static Test suite() {
+        return new IntRobinHoodHashSetGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood IntRobinHoodHashSet");
+        suite.addTest(testsForIntRobinHoodHashSet());
+        return suite;
+    }
+
+    public Test testsForIntRobinHoodHashSet() {
+        return SetTestSuiteBuilder.using(
+                        new TestIntegerSetGenerator() {
+                            @Override
+                            public Set<Integer> create(Integer[] elements) {
+                                return new IntRobinHoodHashSet(MinimalCollection.of(elements));
+                            }
+                        })
+                .named("IntRobinHoodHashSet")
+                .withFeatures(
+                        SetFeature.GENERAL_PURPOSE,
+                        //CollectionFeature.ALLOWS_NULL_VALUES,
+                        CollectionFeature.ALLOWS_NULL_QUERIES,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionSize.ANY)
+                .suppressing(suppressForIntRobinHoodHashSet())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForIntRobinHoodHashSet() {
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,95 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.LongLongRobinHoodHashMap;
+import com.google.common.collect.testing.MapTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Tests LongLongRobinHoodHashMap with the Guava test suite.
+ */
+public class LongLongRobinHoodHashMapGuavaTests {
+    public static Test suite() {
+        return new LongLongRobinHoodHashMapGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood LongLongRobinHoodHashMap");
+        suite.addTest(testsForLongLongRobinHoodHashMap());
+        return suite;
+    }
+
+    public Test testsForLongLongRobinHoodHashMap() {
+        return MapTestSuiteBuilder.using(
+                        new TestMapGenerator<Long, Long>() {
+                            @Override
+                            public SampleElements<Map.Entry<Long, Long>> samples() {
+                                return new SampleElements<>(
+                                        Map.entry(0L, -1L),
+                                        Map.entry(1L, 0L),
+                                        Map.entry(-1L, Long.MAX_VALUE),
+                                        Map.entry(Long.MIN_VALUE, 1L),
+                                        Map.entry(Long.MAX_VALUE, Long.MIN_VALUE));
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map<Long, Long> create(Object... entries) {
+                                LongLongRobinHoodHashMap map = new LongLongRobinHoodHashMap();
+                                for (Object o : entries) {
+                                    Map.Entry<Long, Long> entry = (Map.Entry<Long, Long>) o;
+                                    map.put(entry.getKey(), entry.getValue());
+                                }
+                                return map;
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map.Entry<Long, Long>[] createArray(int length) {
+                                return (Map.Entry<Long, Long>[]) new Map.Entry<?, ?>[length];
+                            }
+
+                            @Override
+                            public Iterable<Map.Entry<Long, Long>> order(List<Map.Entry<Long, Long>> insertionOrder) {
+                                return insertionOrder;
+                            }
+
+                            @Override
+                            public Long[] createKeyArray(int length) {
+                                return new Long[length];
+                            }
+
+                            @Override
+                            public Long[] createValueArray(int length) {
+                                return new Long[length];
+                            }
+                        })
+                .named("LongLongRobinHoodHashMap")
+                .withFeatures(
+                        MapFeature.GENERAL_PURPOSE,
+                        //MapFeature.ALLOWS_NULL_KEYS,
+                        //MapFeature.ALLOWS_NULL_VALUES,
+                        MapFeature.ALLOWS_ANY_NULL_QUERIES,
+                        MapFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForLongLongRobinHoodHashMap())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForLongLongRobinHoodHashMap() {
+        return Collections.emptySet();
+    }
+}
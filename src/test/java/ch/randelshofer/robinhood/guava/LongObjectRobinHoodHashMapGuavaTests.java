@@ -0,0 +1,95 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.LongObjectRobinHoodHashMap;
+import com.google.common.collect.testing.MapTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Tests LongObjectRobinHoodHashMap with the Guava test suite.
+ */
+public class LongObjectRobinHoodHashMapGuavaTests {
+    public static Test suite() {
+        return new LongObjectRobinHoodHashMapGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood LongObjectRobinHoodHashMap");
+        suite.addTest(testsForLongObjectRobinHoodHashMap());
+        return suite;
+    }
+
+    public Test testsForLongObjectRobinHoodHashMap() {
+        return MapTestSuiteBuilder.using(
+                        new TestMapGenerator<Long, String>() {
+                            @Override
+                            public SampleElements<Map.Entry<Long, String>> samples() {
+                                return new SampleElements<>(
+                                        Map.entry(0L, "a"),
+                                        Map.entry(1L, "b"),
+                                        Map.entry(-1L, "c"),
+                                        Map.entry(Long.MIN_VALUE, "d"),
+                                        Map.entry(Long.MAX_VALUE, "e"));
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map<Long, String> create(Object... entries) {
+                                LongObjectRobinHoodHashMap<String> map = new LongObjectRobinHoodHashMap<>();
+                                for (Object o : entries) {
+                                    Map.Entry<Long, String> entry = (Map.Entry<Long, String>) o;
+                                    map.put(entry.getKey(), entry.getValue());
+                                }
+                                return map;
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map.Entry<Long, String>[] createArray(int length) {
+                                return (Map.Entry<Long, String>[]) new Map.Entry<?, ?>[length];
+                            }
+
+                            @Override
+                            public Iterable<Map.Entry<Long, String>> order(List<Map.Entry<Long, String>> insertionOrder) {
+                                return insertionOrder;
+                            }
+
+                            @Override
+                            public Long[] createKeyArray(int length) {
+                                return new Long[length];
+                            }
+
+                            @Override
+                            public String[] createValueArray(int length) {
+                                return new String[length];
+                            }
+                        })
+                .named("LongObjectRobinHoodHashMap")
+                .withFeatures(
+                        MapFeature.GENERAL_PURPOSE,
+                        //MapFeature.ALLOWS_NULL_KEYS,
+                        MapFeature.ALLOWS_NULL_VALUES,
+                        MapFeature.ALLOWS_ANY_NULL_QUERIES,
+                        MapFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForLongObjectRobinHoodHashMap())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForLongObjectRobinHoodHashMap() {
+        return Collections.emptySet();
+    }
+}
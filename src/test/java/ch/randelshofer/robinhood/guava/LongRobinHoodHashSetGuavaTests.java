@@ -0,0 +1,76 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.LongRobinHoodHashSet;
+import com.google.common.collect.testing.MinimalCollection;
+import com.google.common.collect.testing.SetTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestSetGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.SetFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ Tests LongRobinHoodHashSet with the Guava test suite.
+ */
+public class LongRobinHoodHashSetGuavaTests {
+    public static Test suite() {
+        return new LongRobinHoodHashSetGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood LongRobinHoodHashSet");
+        suite.addTest(testsForLongRobinHoodHashSet());
+        return suite;
+    }
+
+    public Test testsForLongRobinHoodHashSet() {
+        return SetTestSuiteBuilder.using(
+                        new TestSetGenerator<Long>() {
+                            @Override
+                            public SampleElements<Long> samples() {
+                                return new SampleElements<>(0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE);
+                            }
+
+                            @Override
+                            public Set<Long> create(Object... elements) {
+                                Long[] array = new Long[elements.length];
+                                for (int i = 0; i < elements.length; i++) {
+                                    array[i] = (Long) elements[i];
+                                }
+                                return new LongRobinHoodHashSet(MinimalCollection.of(array));
+                            }
+
+                            @Override
+                            public Long[] createArray(int length) {
+                                return new Long[length];
+                            }
+
+                            @Override
+                            public List<Long> order(List<Long> insertionOrder) {
+                                return insertionOrder;
+                            }
+                        })
+                .named("LongRobinHoodHashSet")
+                .withFeatures(
+                        SetFeature.GENERAL_PURPOSE,
+                        //CollectionFeature.ALLOWS_NULL_VALUES,
+                        CollectionFeature.ALLOWS_NULL_QUERIES,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionSize.ANY)
+                .suppressing(suppressForLongRobinHoodHashSet())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForLongRobinHoodHashSet() {
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,95 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.ObjectIntRobinHoodHashMap;
+import com.google.common.collect.testing.MapTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Tests ObjectIntRobinHoodHashMap with the Guava test suite.
+ */
+public class ObjectIntRobinHoodHashMapGuavaTests {
+    public static Test suite() {
+        return new ObjectIntRobinHoodHashMapGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood ObjectIntRobinHoodHashMap");
+        suite.addTest(testsForObjectIntRobinHoodHashMap());
+        return suite;
+    }
+
+    public Test testsForObjectIntRobinHoodHashMap() {
+        return MapTestSuiteBuilder.using(
+                        new TestMapGenerator<String, Integer>() {
+                            @Override
+                            public SampleElements<Map.Entry<String, Integer>> samples() {
+                                return new SampleElements<>(
+                                        Map.entry("a", 0),
+                                        Map.entry("b", 1),
+                                        Map.entry("c", -1),
+                                        Map.entry("d", Integer.MIN_VALUE),
+                                        Map.entry("e", Integer.MAX_VALUE));
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map<String, Integer> create(Object... entries) {
+                                ObjectIntRobinHoodHashMap<String> map = new ObjectIntRobinHoodHashMap<>();
+                                for (Object o : entries) {
+                                    Map.Entry<String, Integer> entry = (Map.Entry<String, Integer>) o;
+                                    map.put(entry.getKey(), entry.getValue());
+                                }
+                                return map;
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map.Entry<String, Integer>[] createArray(int length) {
+                                return (Map.Entry<String, Integer>[]) new Map.Entry<?, ?>[length];
+                            }
+
+                            @Override
+                            public Iterable<Map.Entry<String, Integer>> order(List<Map.Entry<String, Integer>> insertionOrder) {
+                                return insertionOrder;
+                            }
+
+                            @Override
+                            public String[] createKeyArray(int length) {
+                                return new String[length];
+                            }
+
+                            @Override
+                            public Integer[] createValueArray(int length) {
+                                return new Integer[length];
+                            }
+                        })
+                .named("ObjectIntRobinHoodHashMap")
+                .withFeatures(
+                        MapFeature.GENERAL_PURPOSE,
+                        //MapFeature.ALLOWS_NULL_KEYS,
+                        //MapFeature.ALLOWS_NULL_VALUES,
+                        MapFeature.ALLOWS_ANY_NULL_QUERIES,
+                        MapFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForObjectIntRobinHoodHashMap())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForObjectIntRobinHoodHashMap() {
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,95 @@
+package ch.randelshofer.robinhood.guava;
+
+import ch.randelshofer.robinhood.ObjectLongRobinHoodHashMap;
+import com.google.common.collect.testing.MapTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Tests ObjectLongRobinHoodHashMap with the Guava test suite.
+ */
+public class ObjectLongRobinHoodHashMapGuavaTests {
+    public static Test suite() {
+        return new ObjectLongRobinHoodHashMapGuavaTests().allTests();
+    }
+
+    public Test allTests() {
+        TestSuite suite = new TestSuite("ch.randelshofer.robinhood ObjectLongRobinHoodHashMap");
+        suite.addTest(testsForObjectLongRobinHoodHashMap());
+        return suite;
+    }
+
+    public Test testsForObjectLongRobinHoodHashMap() {
+        return MapTestSuiteBuilder.using(
+                        new TestMapGenerator<String, Long>() {
+                            @Override
+                            public SampleElements<Map.Entry<String, Long>> samples() {
+                                return new SampleElements<>(
+                                        Map.entry("a", 0L),
+                                        Map.entry("b", 1L),
+                                        Map.entry("c", -1L),
+                                        Map.entry("d", Long.MIN_VALUE),
+                                        Map.entry("e", Long.MAX_VALUE));
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map<String, Long> create(Object... entries) {
+                                ObjectLongRobinHoodHashMap<String> map = new ObjectLongRobinHoodHashMap<>();
+                                for (Object o : entries) {
+                                    Map.Entry<String, Long> entry = (Map.Entry<String, Long>) o;
+                                    map.put(entry.getKey(), entry.getValue());
+                                }
+                                return map;
+                            }
+
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            public Map.Entry<String, Long>[] createArray(int length) {
+                                return (Map.Entry<String, Long>[]) new Map.Entry<?, ?>[length];
+                            }
+
+                            @Override
+                            public Iterable<Map.Entry<String, Long>> order(List<Map.Entry<String, Long>> insertionOrder) {
+                                return insertionOrder;
+                            }
+
+                            @Override
+                            public String[] createKeyArray(int length) {
+                                return new String[length];
+                            }
+
+                            @Override
+                            public Long[] createValueArray(int length) {
+                                return new Long[length];
+                            }
+                        })
+                .named("ObjectLongRobinHoodHashMap")
+                .withFeatures(
+                        MapFeature.GENERAL_PURPOSE,
+                        //MapFeature.ALLOWS_NULL_KEYS,
+                        //MapFeature.ALLOWS_NULL_VALUES,
+                        MapFeature.ALLOWS_ANY_NULL_QUERIES,
+                        MapFeature.FAILS_FAST_ON_CONCURRENT_MODIFICATION,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                        CollectionFeature.SERIALIZABLE,
+                        CollectionSize.ANY)
+                .suppressing(suppressForObjectLongRobinHoodHashMap())
+                .createTestSuite();
+    }
+
+    protected Collection<Method> suppressForObjectLongRobinHoodHashMap() {
+        return Collections.emptySet();
+    }
+}
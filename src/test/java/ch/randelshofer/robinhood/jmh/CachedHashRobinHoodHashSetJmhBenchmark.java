@@ -0,0 +1,112 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.CachedHashRobinHoodHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same workload as {@link RobinHoodHashSetJmhBenchmark}, for comparing
+ * the cost of cached hash words against recomputing hash codes.
+ */
+@Fork(value = 1, jvmArgsAppend = {})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class CachedHashRobinHoodHashSetJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+
+
+    private static final CachedHashRobinHoodHashSet<BenchmarkDataSet.Key> CONSTANT_SET = new CachedHashRobinHoodHashSet<>(DATA_SET.constantIdentitySet);
+
+    static {
+        System.out.println("CachedHashRobinHoodHashSet size:" + CONSTANT_SET.size());
+        System.out.println("CachedHashRobinHoodHashSet capacity:" + CONSTANT_SET.getCapacity());
+        System.out.println("CachedHashRobinHoodHashSet fillRatio:" + CONSTANT_SET.getFillRatio());
+        System.out.println("CachedHashRobinHoodHashSet loadFactor:" + CONSTANT_SET.getLoadFactor());
+        System.out.println("CachedHashRobinHoodHashSet costStats:" + CONSTANT_SET.getCostStatistics());
+    }
+
+    @Benchmark
+    public void mNewInstance() {
+        CachedHashRobinHoodHashSet<BenchmarkDataSet.Key> set = new CachedHashRobinHoodHashSet<>(
+                DATA_SET.constantIdentitySet.size() * 2,
+                0.5f);
+    }
+
+    @Benchmark
+    public void mAddAll() {
+        CachedHashRobinHoodHashSet<BenchmarkDataSet.Key> set = new CachedHashRobinHoodHashSet<>(
+                DATA_SET.constantIdentitySet.size() * 2,
+                0.5f);
+        boolean added = true;
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            added &= set.add(v);
+        }
+        if (!added || set.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mAddAllAndGrow() {
+        CachedHashRobinHoodHashSet<BenchmarkDataSet.Key> set = new CachedHashRobinHoodHashSet<>(
+                16,
+                0.5f);
+        boolean added = true;
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            added &= set.add(v);
+        }
+        if (!added || set.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public Object measureClone() {
+        return CONSTANT_SET.clone();
+    }
+
+    @Benchmark
+    public void mCloneAndRemoveAll() {
+        CachedHashRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET.clone();
+        boolean removed = true;
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            removed &= set.remove(v);
+        }
+        if (!removed || set.size() != 0) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mRemoveAdd() {
+        CachedHashRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        set.remove(DATA_SET.valuesInSet[index]);
+        set.add(DATA_SET.valuesInSet[index]);
+    }
+
+    @Benchmark
+    public void mSuccessfulGet() {
+        CachedHashRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        set.contains(DATA_SET.valuesInSet[index]);
+    }
+
+    @Benchmark
+    public void mUnsuccessfulGet() {
+        CachedHashRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesNotInSet.length - index > 1 ? index + 1 : 0;
+        set.contains(DATA_SET.valuesNotInSet[index]);
+    }
+
+}
@@ -0,0 +1,73 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.ConcurrentRobinHoodHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ConcurrentRobinHoodHashMap} with {@link ConcurrentHashMap}.
+ * <p>
+ * Run with 1 to 64 threads, for example with {@code -t 1}, {@code -t 4},
+ * {@code -t 16} and {@code -t 64}. Each thread starts at a random index
+ * into the data set. {@code measureRemovePut} writes to the shared map,
+ * so that it also shows how writers interfere with each other.
+ */
+//@Fork(value = 1, jvmArgsAppend = {})
+//@Measurement(iterations = 2)
+//@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class ConcurrentRobinHoodHashMapJmhBenchmark {
+    private static final BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+
+    @State(Scope.Benchmark)
+    public static class SharedMap {
+        @Param({"ConcurrentHashMap", "ConcurrentRobinHoodHashMap"})
+        public String implementation;
+        public Map<BenchmarkDataSet.Key, Boolean> map;
+
+        @Setup
+        public void setup() {
+            map = implementation.equals("ConcurrentHashMap")
+                    ? new ConcurrentHashMap<>(DATA_SET.constantIdentityMap)
+                    : new ConcurrentRobinHoodHashMap<>(DATA_SET.constantIdentityMap);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+        public int index = ThreadLocalRandom.current().nextInt(DATA_SET.size);
+
+        int next() {
+            return index = DATA_SET.size - index > 1 ? index + 1 : 0;
+        }
+    }
+
+    @Benchmark
+    public Boolean measureRemovePut(SharedMap shared, ThreadIndex t) {
+        var key = DATA_SET.valuesInSet[t.next()];
+        shared.map.remove(key);
+        return shared.map.put(key, Boolean.TRUE);
+    }
+
+    @Benchmark
+    public Boolean measureSuccessfulGet(SharedMap shared, ThreadIndex t) {
+        return shared.map.get(DATA_SET.valuesInSet[t.next()]);
+    }
+
+    @Benchmark
+    public Boolean measureUnsuccessfulGet(SharedMap shared, ThreadIndex t) {
+        return shared.map.get(DATA_SET.valuesNotInSet[t.next()]);
+    }
+}
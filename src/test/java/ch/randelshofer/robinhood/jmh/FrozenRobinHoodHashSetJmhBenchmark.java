@@ -0,0 +1,46 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.FrozenRobinHoodHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares with {@link SetOfJmhBenchmark}.
+ * <pre>
+ * FrozenRobinHoodHashSet capacity:114285
+ * FrozenRobinHoodHashSet loadFactor:0.875
+ * FrozenRobinHoodHashSet costStats:IntSummaryStatistics{count=100000, sum=266784, min=0, average=2.667840, max=24}
+ * </pre>
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class FrozenRobinHoodHashSetJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+    private static final FrozenRobinHoodHashSet<BenchmarkDataSet.Key> CONSTANT_SET = FrozenRobinHoodHashSet.copyOf(DATA_SET.constantIdentitySet);
+
+
+    @Benchmark
+    public void measureCopyOf() {
+        FrozenRobinHoodHashSet.copyOf(DATA_SET.constantIdentitySet);
+    }
+
+    @Benchmark
+    public void measureSuccessfulGet() {
+        FrozenRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        set.contains(DATA_SET.valuesInSet[index]);
+    }
+
+    @Benchmark
+    public void measureUnsuccessfulGet() {
+        FrozenRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesNotInSet.length - index > 1 ? index + 1 : 0;
+        set.contains(DATA_SET.valuesNotInSet[index]);
+    }
+
+}
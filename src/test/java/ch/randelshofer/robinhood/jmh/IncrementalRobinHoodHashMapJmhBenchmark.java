@@ -0,0 +1,52 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.IncrementalRobinHoodHashMap;
+import ch.randelshofer.robinhood.RobinHoodHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency distribution of single insertions into a growing
+ * {@link IncrementalRobinHoodHashMap} and a growing {@link RobinHoodHashMap}.
+ * <p>
+ * The maps are cleared and start over with a small table when all
+ * values have been inserted. Look at the p0.999 and p1.0 percentiles.
+ */
+@Fork(value = 1, jvmArgsAppend = {})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.SampleTime)
+public class IncrementalRobinHoodHashMapJmhBenchmark {
+    private static int incrementalIndex;
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(1_000_000, 0, 10_000_000, -1);
+
+    private static IncrementalRobinHoodHashMap<BenchmarkDataSet.Key, Boolean> INCREMENTAL_MAP = new IncrementalRobinHoodHashMap<>(16, 0.5f);
+    private static RobinHoodHashMap<BenchmarkDataSet.Key, Boolean> MAP = new RobinHoodHashMap<>(16, 0.5f);
+
+    @Benchmark
+    public Boolean mIncrementalPut() {
+        if (incrementalIndex == DATA_SET.valuesInSet.length) {
+            incrementalIndex = 0;
+            INCREMENTAL_MAP = new IncrementalRobinHoodHashMap<>(16, 0.5f);
+        }
+        return INCREMENTAL_MAP.put(DATA_SET.valuesInSet[incrementalIndex++], Boolean.TRUE);
+    }
+
+    @Benchmark
+    public Boolean mPut() {
+        if (index == DATA_SET.valuesInSet.length) {
+            index = 0;
+            MAP = new RobinHoodHashMap<>(16, 0.5f);
+        }
+        return MAP.put(DATA_SET.valuesInSet[index++], Boolean.TRUE);
+    }
+}
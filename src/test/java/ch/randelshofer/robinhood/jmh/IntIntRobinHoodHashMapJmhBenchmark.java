@@ -0,0 +1,87 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.IntIntRobinHoodHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same workload as {@link RobinHoodHashMapJmhBenchmark}, with the ids
+ * of the keys stored as {@code int} keys and values.
+ */
+@Fork(value = 1, jvmArgsAppend = {})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class IntIntRobinHoodHashMapJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+
+    private static final int[] VALUES_IN_SET = Arrays.stream(DATA_SET.valuesInSet).mapToInt(BenchmarkDataSet.Key::id).toArray();
+    private static final int[] VALUES_NOT_IN_SET = Arrays.stream(DATA_SET.valuesNotInSet).mapToInt(BenchmarkDataSet.Key::id).toArray();
+    private static final IntIntRobinHoodHashMap CONSTANT_MAP = new IntIntRobinHoodHashMap(VALUES_IN_SET.length * 2, 0.5f);
+
+    static {
+        for (int v : VALUES_IN_SET) {
+            CONSTANT_MAP.put(v, v);
+        }
+        System.out.println("IntIntRobinHoodHashMap size:" + CONSTANT_MAP.size());
+        System.out.println("IntIntRobinHoodHashMap capacity:" + CONSTANT_MAP.getCapacity());
+        System.out.println("IntIntRobinHoodHashMap fillRatio:" + CONSTANT_MAP.getFillRatio());
+        System.out.println("IntIntRobinHoodHashMap loadFactor:" + CONSTANT_MAP.getLoadFactor());
+        System.out.println("IntIntRobinHoodHashMap costStats:" + CONSTANT_MAP.getCostStatistics());
+    }
+
+    @Benchmark
+    public void mAddAll() {
+        IntIntRobinHoodHashMap map = new IntIntRobinHoodHashMap(VALUES_IN_SET.length * 2, 0.5f);
+        for (int v : VALUES_IN_SET) {
+            map.put(v, v);
+        }
+        if (map.size() != VALUES_IN_SET.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mAddAllAndGrow() {
+        IntIntRobinHoodHashMap map = new IntIntRobinHoodHashMap(16, 0.5f);
+        for (int v : VALUES_IN_SET) {
+            map.put(v, v);
+        }
+        if (map.size() != VALUES_IN_SET.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mCloneAndRemoveAll() {
+        IntIntRobinHoodHashMap map = CONSTANT_MAP.clone();
+        for (int v : VALUES_IN_SET) {
+            map.removeOrDefault(v, -1);
+        }
+        if (map.size() != 0) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public int mSuccessfulGet() {
+        index = VALUES_IN_SET.length - index > 1 ? index + 1 : 0;
+        return CONSTANT_MAP.getOrDefault(VALUES_IN_SET[index], -1);
+    }
+
+    @Benchmark
+    public int mUnsuccessfulGet() {
+        index = VALUES_NOT_IN_SET.length - index > 1 ? index + 1 : 0;
+        return CONSTANT_MAP.getOrDefault(VALUES_NOT_IN_SET[index], -1);
+    }
+}
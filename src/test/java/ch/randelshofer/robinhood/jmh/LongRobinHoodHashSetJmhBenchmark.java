@@ -0,0 +1,119 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.LongRobinHoodHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same workload as {@link RobinHoodHashSetJmhBenchmark}, with the ids
+ * of the keys stored as {@code long} values.
+ */
+@Fork(value = 1, jvmArgsAppend = {})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class LongRobinHoodHashSetJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+
+
+    private static final long[] VALUES_IN_SET = Arrays.stream(DATA_SET.valuesInSet).mapToLong(BenchmarkDataSet.Key::id).toArray();
+    private static final long[] VALUES_NOT_IN_SET = Arrays.stream(DATA_SET.valuesNotInSet).mapToLong(BenchmarkDataSet.Key::id).toArray();
+    private static final LongRobinHoodHashSet CONSTANT_SET = new LongRobinHoodHashSet(VALUES_IN_SET.length * 2, 0.5f);
+
+
+    static {
+        for (long v : VALUES_IN_SET) {
+            CONSTANT_SET.add(v);
+        }
+        System.out.println("LongRobinHoodHashSet size:" + CONSTANT_SET.size());
+        System.out.println("LongRobinHoodHashSet capacity:" + CONSTANT_SET.getCapacity());
+        System.out.println("LongRobinHoodHashSet fillRatio:" + CONSTANT_SET.getFillRatio());
+        System.out.println("LongRobinHoodHashSet loadFactor:" + CONSTANT_SET.getLoadFactor());
+        System.out.println("LongRobinHoodHashSet costStats:" + CONSTANT_SET.getCostStatistics());
+    }
+
+    @Benchmark
+    public void mNewInstance() {
+        LongRobinHoodHashSet set = new LongRobinHoodHashSet(
+                VALUES_IN_SET.length * 2,
+                0.5f);
+    }
+
+    @Benchmark
+    public void mAddAll() {
+        LongRobinHoodHashSet set = new LongRobinHoodHashSet(
+                VALUES_IN_SET.length * 2,
+                0.5f);
+        boolean added = true;
+        for (long v : VALUES_IN_SET) {
+            added &= set.add(v);
+        }
+        if (!added || set.size() != VALUES_IN_SET.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mAddAllAndGrow() {
+        LongRobinHoodHashSet set = new LongRobinHoodHashSet(
+                16,
+                0.5f);
+        boolean added = true;
+        for (long v : VALUES_IN_SET) {
+            added &= set.add(v);
+        }
+        if (!added || set.size() != VALUES_IN_SET.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public Object measureClone() {
+        return CONSTANT_SET.clone();
+    }
+
+    @Benchmark
+    public void mCloneAndRemoveAll() {
+        LongRobinHoodHashSet set = CONSTANT_SET.clone();
+        boolean removed = true;
+        for (long v : VALUES_IN_SET) {
+            removed &= set.remove(v);
+        }
+        if (!removed || set.size() != 0) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mRemoveAdd() {
+        LongRobinHoodHashSet set = CONSTANT_SET;
+        index = VALUES_IN_SET.length - index > 1 ? index + 1 : 0;
+        set.remove(VALUES_IN_SET[index]);
+        set.add(VALUES_IN_SET[index]);
+    }
+
+    @Benchmark
+    public void mSuccessfulGet() {
+        LongRobinHoodHashSet set = CONSTANT_SET;
+        index = VALUES_IN_SET.length - index > 1 ? index + 1 : 0;
+        set.contains(VALUES_IN_SET[index]);
+    }
+
+    @Benchmark
+    public void mUnsuccessfulGet() {
+        LongRobinHoodHashSet set = CONSTANT_SET;
+        index = VALUES_NOT_IN_SET.length - index > 1 ? index + 1 : 0;
+        set.contains(VALUES_NOT_IN_SET[index]);
+    }
+
+}
@@ -0,0 +1,85 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.LongRobinHoodHashSet;
+import ch.randelshofer.robinhood.MappedRobinHoodLongSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares opening a {@link MappedRobinHoodLongSet} from a file against
+ * building a {@link LongRobinHoodHashSet}, and measures lookups in the
+ * mapped file.
+ */
+@Fork(value = 1, jvmArgsAppend = {})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class MappedRobinHoodLongSetJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+
+    private static final long[] VALUES_IN_SET = Arrays.stream(DATA_SET.valuesInSet).mapToLong(BenchmarkDataSet.Key::id).toArray();
+    private static final long[] VALUES_NOT_IN_SET = Arrays.stream(DATA_SET.valuesNotInSet).mapToLong(BenchmarkDataSet.Key::id).toArray();
+    private static final Path FILE;
+    private static final MappedRobinHoodLongSet CONSTANT_SET;
+
+    static {
+        try {
+            FILE = Files.createTempFile("MappedRobinHoodLongSet", ".rhht");
+            FILE.toFile().deleteOnExit();
+            LongRobinHoodHashSet set = new LongRobinHoodHashSet(VALUES_IN_SET.length * 2, 0.5f);
+            for (long v : VALUES_IN_SET) {
+                set.add(v);
+            }
+            MappedRobinHoodLongSet.write(FILE, set);
+            CONSTANT_SET = MappedRobinHoodLongSet.open(FILE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("MappedRobinHoodLongSet size:" + CONSTANT_SET.size());
+        System.out.println("MappedRobinHoodLongSet capacity:" + CONSTANT_SET.getCapacity());
+    }
+
+    @Benchmark
+    public void mOpen() throws IOException {
+        MappedRobinHoodLongSet.open(FILE).close();
+    }
+
+    @Benchmark
+    public void mAddAll() {
+        LongRobinHoodHashSet set = new LongRobinHoodHashSet(
+                VALUES_IN_SET.length * 2,
+                0.5f);
+        for (long v : VALUES_IN_SET) {
+            set.add(v);
+        }
+        if (set.size() != VALUES_IN_SET.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public boolean mSuccessfulGet() {
+        index = VALUES_IN_SET.length - index > 1 ? index + 1 : 0;
+        return CONSTANT_SET.contains(VALUES_IN_SET[index]);
+    }
+
+    @Benchmark
+    public boolean mUnsuccessfulGet() {
+        index = VALUES_NOT_IN_SET.length - index > 1 ? index + 1 : 0;
+        return CONSTANT_SET.contains(VALUES_NOT_IN_SET[index]);
+    }
+}
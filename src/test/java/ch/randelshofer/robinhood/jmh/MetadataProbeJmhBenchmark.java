@@ -0,0 +1,53 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.MetadataRobinHoodHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lookups in a {@link MetadataRobinHoodHashSet} with 10 million
+ * elements, with the Vector API probe.
+ * <p>
+ * See {@link MetadataProbeSwarJmhBenchmark} for the same benchmark with
+ * the SWAR probe.
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class MetadataProbeJmhBenchmark {
+    private static int index;
+    private static final BenchmarkDataSet DATA_SET = new BenchmarkDataSet(10_000_000, Integer.MIN_VALUE, Integer.MAX_VALUE, -1);
+
+    private static final MetadataRobinHoodHashSet<BenchmarkDataSet.Key> CONSTANT_SET = new MetadataRobinHoodHashSet<>(DATA_SET.constantIdentitySet,
+            DATA_SET.size, 0.75f);
+
+    static {
+        System.out.println("MetadataRobinHoodHashSet size:" + CONSTANT_SET.size());
+        System.out.println("MetadataRobinHoodHashSet capacity:" + CONSTANT_SET.getCapacity());
+        System.out.println("MetadataRobinHoodHashSet fillRatio:" + CONSTANT_SET.getFillRatio());
+        System.out.println("MetadataRobinHoodHashSet costStats:" + CONSTANT_SET.getCostStatistics());
+    }
+
+    @Benchmark
+    public boolean mSuccessfulGet() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        return set.contains(DATA_SET.valuesInSet[index]);
+    }
+
+    @Benchmark
+    public boolean mUnsuccessfulGet() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesNotInSet.length - index > 1 ? index + 1 : 0;
+        return set.contains(DATA_SET.valuesNotInSet[index]);
+    }
+}
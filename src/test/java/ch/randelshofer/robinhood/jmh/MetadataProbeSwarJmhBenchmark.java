@@ -0,0 +1,11 @@
+package ch.randelshofer.robinhood.jmh;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Same as {@link MetadataProbeJmhBenchmark}, but without the module
+ * {@code jdk.incubator.vector}, so that the SWAR probe is used.
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class MetadataProbeSwarJmhBenchmark extends MetadataProbeJmhBenchmark {
+}
@@ -0,0 +1,112 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.MetadataRobinHoodHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same workload as {@link RobinHoodHashSetJmhBenchmark}, for comparing
+ * probing over a metadata array against probing over the table.
+ */
+@Fork(value = 1, jvmArgsAppend = {})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class MetadataRobinHoodHashSetJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+
+
+    private static final MetadataRobinHoodHashSet<BenchmarkDataSet.Key> CONSTANT_SET = new MetadataRobinHoodHashSet<>(DATA_SET.constantIdentitySet);
+
+    static {
+        System.out.println("MetadataRobinHoodHashSet size:" + CONSTANT_SET.size());
+        System.out.println("MetadataRobinHoodHashSet capacity:" + CONSTANT_SET.getCapacity());
+        System.out.println("MetadataRobinHoodHashSet fillRatio:" + CONSTANT_SET.getFillRatio());
+        System.out.println("MetadataRobinHoodHashSet loadFactor:" + CONSTANT_SET.getLoadFactor());
+        System.out.println("MetadataRobinHoodHashSet costStats:" + CONSTANT_SET.getCostStatistics());
+    }
+
+    @Benchmark
+    public void mNewInstance() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = new MetadataRobinHoodHashSet<>(
+                DATA_SET.constantIdentitySet.size() * 2,
+                0.5f);
+    }
+
+    @Benchmark
+    public void mAddAll() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = new MetadataRobinHoodHashSet<>(
+                DATA_SET.constantIdentitySet.size() * 2,
+                0.5f);
+        boolean added = true;
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            added &= set.add(v);
+        }
+        if (!added || set.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mAddAllAndGrow() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = new MetadataRobinHoodHashSet<>(
+                16,
+                0.5f);
+        boolean added = true;
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            added &= set.add(v);
+        }
+        if (!added || set.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public Object measureClone() {
+        return CONSTANT_SET.clone();
+    }
+
+    @Benchmark
+    public void mCloneAndRemoveAll() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET.clone();
+        boolean removed = true;
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            removed &= set.remove(v);
+        }
+        if (!removed || set.size() != 0) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mRemoveAdd() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        set.remove(DATA_SET.valuesInSet[index]);
+        set.add(DATA_SET.valuesInSet[index]);
+    }
+
+    @Benchmark
+    public void mSuccessfulGet() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        set.contains(DATA_SET.valuesInSet[index]);
+    }
+
+    @Benchmark
+    public void mUnsuccessfulGet() {
+        MetadataRobinHoodHashSet<BenchmarkDataSet.Key> set = CONSTANT_SET;
+        index = DATA_SET.valuesNotInSet.length - index > 1 ? index + 1 : 0;
+        set.contains(DATA_SET.valuesNotInSet[index]);
+    }
+
+}
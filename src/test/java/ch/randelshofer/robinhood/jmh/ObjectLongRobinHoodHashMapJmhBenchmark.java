@@ -0,0 +1,89 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.ObjectLongRobinHoodHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares counting with {@link ObjectLongRobinHoodHashMap#increment}
+ * against counting with {@link HashMap#merge}, which allocates a
+ * {@code Long} per update.
+ */
+@Fork(value = 1, jvmArgsAppend = {})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class ObjectLongRobinHoodHashMapJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+
+    private static final ObjectLongRobinHoodHashMap<BenchmarkDataSet.Key> CONSTANT_MAP = new ObjectLongRobinHoodHashMap<>(DATA_SET.valuesInSet.length * 2, 0.5f);
+    private static final HashMap<BenchmarkDataSet.Key, Long> CONSTANT_HASH_MAP = new HashMap<>(DATA_SET.valuesInSet.length * 2, 0.5f);
+
+    static {
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            CONSTANT_MAP.put(v, 0L);
+            CONSTANT_HASH_MAP.put(v, 0L);
+        }
+        System.out.println("ObjectLongRobinHoodHashMap size:" + CONSTANT_MAP.size());
+        System.out.println("ObjectLongRobinHoodHashMap capacity:" + CONSTANT_MAP.getCapacity());
+        System.out.println("ObjectLongRobinHoodHashMap fillRatio:" + CONSTANT_MAP.getFillRatio());
+        System.out.println("ObjectLongRobinHoodHashMap loadFactor:" + CONSTANT_MAP.getLoadFactor());
+        System.out.println("ObjectLongRobinHoodHashMap costStats:" + CONSTANT_MAP.getCostStatistics());
+    }
+
+    @Benchmark
+    public long mIncrement() {
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        return CONSTANT_MAP.increment(DATA_SET.valuesInSet[index]);
+    }
+
+    @Benchmark
+    public Long mHashMapMerge() {
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        return CONSTANT_HASH_MAP.merge(DATA_SET.valuesInSet[index], 1L, Long::sum);
+    }
+
+    @Benchmark
+    public void mCountAll() {
+        ObjectLongRobinHoodHashMap<BenchmarkDataSet.Key> map = new ObjectLongRobinHoodHashMap<>(16, 0.5f);
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            map.increment(v);
+        }
+        if (map.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mHashMapCountAll() {
+        HashMap<BenchmarkDataSet.Key, Long> map = new HashMap<>(16, 0.5f);
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            map.merge(v, 1L, Long::sum);
+        }
+        if (map.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public long mSuccessfulGet() {
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        return CONSTANT_MAP.getOrDefault(DATA_SET.valuesInSet[index], -1L);
+    }
+
+    @Benchmark
+    public long mUnsuccessfulGet() {
+        index = DATA_SET.valuesNotInSet.length - index > 1 ? index + 1 : 0;
+        return CONSTANT_MAP.getOrDefault(DATA_SET.valuesNotInSet[index], -1L);
+    }
+}
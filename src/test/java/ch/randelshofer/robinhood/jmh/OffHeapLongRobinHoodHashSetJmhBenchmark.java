@@ -0,0 +1,123 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.OffHeapLongRobinHoodHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same workload as {@link LongRobinHoodHashSetJmhBenchmark}, with the
+ * table stored outside the Java heap.
+ */
+@Fork(value = 1, jvmArgsAppend = {})
+@Measurement(iterations = 2)
+@Warmup(iterations = 2)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class OffHeapLongRobinHoodHashSetJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+
+
+    private static final long[] VALUES_IN_SET = Arrays.stream(DATA_SET.valuesInSet).mapToLong(BenchmarkDataSet.Key::id).toArray();
+    private static final long[] VALUES_NOT_IN_SET = Arrays.stream(DATA_SET.valuesNotInSet).mapToLong(BenchmarkDataSet.Key::id).toArray();
+    private static final OffHeapLongRobinHoodHashSet CONSTANT_SET = new OffHeapLongRobinHoodHashSet(VALUES_IN_SET.length * 2, 0.5f);
+
+
+    static {
+        for (long v : VALUES_IN_SET) {
+            CONSTANT_SET.add(v);
+        }
+        System.out.println("OffHeapLongRobinHoodHashSet size:" + CONSTANT_SET.size());
+        System.out.println("OffHeapLongRobinHoodHashSet capacity:" + CONSTANT_SET.getCapacity());
+        System.out.println("OffHeapLongRobinHoodHashSet fillRatio:" + CONSTANT_SET.getFillRatio());
+        System.out.println("OffHeapLongRobinHoodHashSet loadFactor:" + CONSTANT_SET.getLoadFactor());
+        System.out.println("OffHeapLongRobinHoodHashSet costStats:" + CONSTANT_SET.getCostStatistics());
+    }
+
+    @Benchmark
+    public void mNewInstance() {
+        OffHeapLongRobinHoodHashSet set = new OffHeapLongRobinHoodHashSet(
+                VALUES_IN_SET.length * 2,
+                0.5f);
+        set.close();
+    }
+
+    @Benchmark
+    public void mAddAll() {
+        OffHeapLongRobinHoodHashSet set = new OffHeapLongRobinHoodHashSet(
+                VALUES_IN_SET.length * 2,
+                0.5f);
+        boolean added = true;
+        for (long v : VALUES_IN_SET) {
+            added &= set.add(v);
+        }
+        if (!added || set.size() != VALUES_IN_SET.length) {
+            throw new AssertionError();
+        }
+        set.close();
+    }
+
+    @Benchmark
+    public void mAddAllAndGrow() {
+        OffHeapLongRobinHoodHashSet set = new OffHeapLongRobinHoodHashSet(
+                16,
+                0.5f);
+        boolean added = true;
+        for (long v : VALUES_IN_SET) {
+            added &= set.add(v);
+        }
+        if (!added || set.size() != VALUES_IN_SET.length) {
+            throw new AssertionError();
+        }
+        set.close();
+    }
+
+    @Benchmark
+    public void measureClone() {
+        CONSTANT_SET.clone().close();
+    }
+
+    @Benchmark
+    public void mCloneAndRemoveAll() {
+        OffHeapLongRobinHoodHashSet set = CONSTANT_SET.clone();
+        boolean removed = true;
+        for (long v : VALUES_IN_SET) {
+            removed &= set.remove(v);
+        }
+        if (!removed || set.size() != 0) {
+            throw new AssertionError();
+        }
+        set.close();
+    }
+
+    @Benchmark
+    public void mRemoveAdd() {
+        OffHeapLongRobinHoodHashSet set = CONSTANT_SET;
+        index = VALUES_IN_SET.length - index > 1 ? index + 1 : 0;
+        set.remove(VALUES_IN_SET[index]);
+        set.add(VALUES_IN_SET[index]);
+    }
+
+    @Benchmark
+    public void mSuccessfulGet() {
+        OffHeapLongRobinHoodHashSet set = CONSTANT_SET;
+        index = VALUES_IN_SET.length - index > 1 ? index + 1 : 0;
+        set.contains(VALUES_IN_SET[index]);
+    }
+
+    @Benchmark
+    public void mUnsuccessfulGet() {
+        OffHeapLongRobinHoodHashSet set = CONSTANT_SET;
+        index = VALUES_NOT_IN_SET.length - index > 1 ? index + 1 : 0;
+        set.contains(VALUES_NOT_IN_SET[index]);
+    }
+
+}
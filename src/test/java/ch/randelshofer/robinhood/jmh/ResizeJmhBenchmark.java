@@ -0,0 +1,124 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.IdentityRobinHoodHashSet;
+import ch.randelshofer.robinhood.RobinHoodHashMap;
+import ch.randelshofer.robinhood.RobinHoodHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Measures a single doubling of the table, without the insertions that
+ * fill the table. Each invocation adds the element that makes a table
+ * with about 100'000 elements grow.
+ * <p>
+ * "reinsert" is the current {@code resize}, which inserts all elements
+ * into the new table again. "sweep" was an earlier {@code resize}, that
+ * moved the elements into the new table with a single sweep, because the
+ * home bucket {@code h} of an element becomes {@code 2h} or {@code 2h+1}
+ * with fastRange, and {@code h} or {@code h+n} with powerOf2Range. Both
+ * use the same range reduction. The sweep was removed, because it was
+ * not faster.
+ * <pre>
+ * # JMH version: 1.35
+ * # VM version: JDK 17, OpenJDK 64-Bit Server VM, 17.0.9+9
+ * # 1 virtual CPU
+ * # -Xms2g -Xmx2g -XX:+UseParallelGC
+ *
+ * Benchmark                           Mode  Cnt     Score     Error  Units
+ * reinsert RobinHoodHashSet            ss  160  6893.422 ± 185.478  us/op
+ * sweep    RobinHoodHashSet            ss  160  8108.475 ± 315.455  us/op
+ * reinsert IdentityRobinHoodHashSet    ss  160  6764.987 ± 214.441  us/op
+ * sweep    IdentityRobinHoodHashSet    ss  160  8375.719 ± 359.644  us/op
+ * reinsert RobinHoodHashMap            ss  160  8963.308 ± 394.145  us/op
+ * sweep    RobinHoodHashMap            ss  160  9650.460 ± 454.345  us/op
+ * </pre>
+ */
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-XX:+UseParallelGC"})
+@Measurement(iterations = 40)
+@Warmup(iterations = 20)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.SingleShotTime)
+public class ResizeJmhBenchmark {
+    private static final BenchmarkDataSet DATA_SET = new BenchmarkDataSet(200_000, 0, 1_000_000, -1);
+
+    @State(Scope.Thread)
+    public static class Table {
+        @Param({"RobinHoodHashSet", "IdentityRobinHoodHashSet", "RobinHoodHashMap"})
+        public String implementation;
+        /**
+         * The number of elements, at which the table grows.
+         */
+        private int growSize;
+        private Consumer<BenchmarkDataSet.Key> add;
+        private IntSupplier capacity;
+
+        private void create() {
+            switch (implementation) {
+                case "RobinHoodHashSet" -> {
+                    var set = new RobinHoodHashSet<BenchmarkDataSet.Key>();
+                    add = set::add;
+                    capacity = set::getCapacity;
+                }
+                case "IdentityRobinHoodHashSet" -> {
+                    var set = new IdentityRobinHoodHashSet<BenchmarkDataSet.Key>();
+                    add = set::add;
+                    capacity = set::getCapacity;
+                }
+                default -> {
+                    var map = new RobinHoodHashMap<BenchmarkDataSet.Key, Boolean>();
+                    add = k -> map.put(k, Boolean.TRUE);
+                    capacity = map::getCapacity;
+                }
+            }
+        }
+
+        @Setup(Level.Trial)
+        public void findGrowSize() {
+            create();
+            var values = DATA_SET.valuesInSet;
+            for (var i = 0; i < values.length; i++) {
+                var oldCapacity = capacity.getAsInt();
+                add.accept(values[i]);
+                if (i >= 100_000 && capacity.getAsInt() != oldCapacity) {
+                    growSize = i;
+                    return;
+                }
+            }
+            throw new AssertionError("the table did not grow");
+        }
+
+        @Setup(Level.Invocation)
+        public void fill() {
+            create();
+            var values = DATA_SET.valuesInSet;
+            for (var i = 0; i < growSize; i++) {
+                add.accept(values[i]);
+            }
+            System.gc();
+        }
+    }
+
+    @Benchmark
+    public int measureGrow(Table table) {
+        var oldCapacity = table.capacity.getAsInt();
+        table.add.accept(DATA_SET.valuesInSet[table.growSize]);
+        if (table.capacity.getAsInt() != 2 * oldCapacity) {
+            throw new AssertionError();
+        }
+        return oldCapacity;
+    }
+}
@@ -89,6 +89,21 @@ public class RobinHoodHashMapJmhBenchmark {
         }
     }
 
+    @Benchmark
+    public long measureParallelReduce() {
+        return CONSTANT_SET.reduceValuesToLong(1, v -> v ? 1 : 0, 0L, Long::sum);
+    }
+
+    @Benchmark
+    public Object measureParallelUnsuccessfulSearch() {
+        return CONSTANT_SET.search(1, (k, v) -> v ? null : k);
+    }
+
+    @Benchmark
+    public long measureReduce() {
+        return CONSTANT_SET.reduceValuesToLong(Long.MAX_VALUE, v -> v ? 1 : 0, 0L, Long::sum);
+    }
+
     @Benchmark
     public void measureRemoveAdd() {
         RobinHoodHashMap<BenchmarkDataSet.Key, Boolean> set = CONSTANT_SET;
@@ -104,6 +119,11 @@ public class RobinHoodHashMapJmhBenchmark {
         set.containsKey(DATA_SET.valuesInSet[index]);
     }
 
+    @Benchmark
+    public Object measureUnsuccessfulSearch() {
+        return CONSTANT_SET.search(Long.MAX_VALUE, (k, v) -> v ? null : k);
+    }
+
     @Benchmark
     public void measureUnsuccessfulGet() {
         RobinHoodHashMap<BenchmarkDataSet.Key, Boolean> set = CONSTANT_SET;
@@ -91,6 +91,42 @@ public class RobinHoodHashSetJmhBenchmark {
         }
     }
 
+    @Benchmark
+    public void mBuilder() {
+        RobinHoodHashSet.Builder<BenchmarkDataSet.Key> builder = RobinHoodHashSet.builder();
+        for (BenchmarkDataSet.Key v : DATA_SET.valuesInSet) {
+            builder.add(v);
+        }
+        RobinHoodHashSet<BenchmarkDataSet.Key> set = builder.build();
+        if (set.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mCopyOf() {
+        RobinHoodHashSet<BenchmarkDataSet.Key> set = RobinHoodHashSet.copyOf(DATA_SET.constantIdentitySet);
+        if (set.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mOf() {
+        RobinHoodHashSet<BenchmarkDataSet.Key> set = RobinHoodHashSet.of(DATA_SET.valuesInSet);
+        if (set.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
+    @Benchmark
+    public void mParallelCopyOf() {
+        RobinHoodHashSet<BenchmarkDataSet.Key> set = RobinHoodHashSet.parallelCopyOf(DATA_SET.constantIdentitySet);
+        if (set.size() != DATA_SET.valuesInSet.length) {
+            throw new AssertionError();
+        }
+    }
+
     @Benchmark
     public Object measureClone() {
         return CONSTANT_SET.clone();
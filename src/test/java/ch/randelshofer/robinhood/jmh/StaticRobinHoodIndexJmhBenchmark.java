@@ -0,0 +1,42 @@
+package ch.randelshofer.robinhood.jmh;
+
+import ch.randelshofer.robinhood.StaticRobinHoodIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares with {@link SetOfJmhBenchmark} and
+ * {@link FrozenRobinHoodHashSetJmhBenchmark}.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class StaticRobinHoodIndexJmhBenchmark {
+    private static int index;
+    private static BenchmarkDataSet DATA_SET = new BenchmarkDataSet(100_000, 0, 500_000, -1);
+    private static final StaticRobinHoodIndex<BenchmarkDataSet.Key> CONSTANT_INDEX = StaticRobinHoodIndex.copyOf(DATA_SET.constantIdentitySet);
+
+
+    @Benchmark
+    public void measureCopyOf() {
+        StaticRobinHoodIndex.copyOf(DATA_SET.constantIdentitySet);
+    }
+
+    @Benchmark
+    public int measureSuccessfulIndexOf() {
+        StaticRobinHoodIndex<BenchmarkDataSet.Key> idx = CONSTANT_INDEX;
+        index = DATA_SET.valuesInSet.length - index > 1 ? index + 1 : 0;
+        return idx.indexOf(DATA_SET.valuesInSet[index]);
+    }
+
+    @Benchmark
+    public int measureUnsuccessfulIndexOf() {
+        StaticRobinHoodIndex<BenchmarkDataSet.Key> idx = CONSTANT_INDEX;
+        index = DATA_SET.valuesNotInSet.length - index > 1 ? index + 1 : 0;
+        return idx.indexOf(DATA_SET.valuesNotInSet[index]);
+    }
+
+}